@@ -0,0 +1,136 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import weka.core.Instance;
+import weka.core.Instances;
+
+/**
+ * Compares the time to read the arff files with weka and with the SparseArffReader and checks that both read the same rows.
+ * Usage: ArffReaderBenchmark [repetitions] [arff files], without files all files in resources/arff are read.
+ */
+public class ArffReaderBenchmark {
+
+	/**
+	 * Main function
+	 * @param args Command-Line Arguments
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException{
+		int repetitions = 3;
+		List<File> files = new ArrayList<File>();
+		for (String arg : args){
+			if (arg.matches("\\d+")){
+				repetitions = Integer.parseInt(arg);
+			}
+			else{
+				files.add(new File(arg));
+			}
+		}
+		if (files.isEmpty()){
+			File[] arffFiles = new File("resources/arff").listFiles(new FilenameFilter(){
+				public boolean accept(File dir, String name){
+					return name.endsWith(".arff");
+				}
+			});
+			if (arffFiles != null){
+				for (File file : arffFiles){
+					files.add(file);
+				}
+			}
+		}
+
+		long wekaTotal = 0;
+		long readerTotal = 0;
+		for (File file : files){
+			Instances instances = null;
+			long wekaTime = Long.MAX_VALUE;
+			long readerTime = Long.MAX_VALUE;
+			int rows = 0;
+			long values = 0;
+			for (int i = 0; i < repetitions; i++){
+				long start = System.nanoTime();
+				BufferedReader reader = new BufferedReader(new FileReader(file));
+				instances = new Instances(reader);
+				instances.setClassIndex(instances.numAttributes() - 1);
+				reader.close();
+				wekaTime = Math.min(wekaTime, System.nanoTime() - start);
+
+				start = System.nanoTime();
+				SparseArffReader arffReader = new SparseArffReader(file);
+				FeatureVector vector = new FeatureVector();
+				rows = 0;
+				values = 0;
+				while (arffReader.readRow(vector) != -1){
+					rows++;
+					values += vector.size();
+				}
+				arffReader.close();
+				readerTime = Math.min(readerTime, System.nanoTime() - start);
+			}
+			wekaTotal += wekaTime;
+			readerTotal += readerTime;
+
+			System.out.println(file.getName() + ": " + rows + " rows, " + values + " values");
+			System.out.println("weka: " + (wekaTime / 1000000) + " ms, SparseArffReader: " + (readerTime / 1000000) + " ms, speedup: " + String.format("%.2f", (double) wekaTime / readerTime));
+			System.out.println(check(file, instances) ? "rows are identical" : "ROWS DIFFER");
+		}
+		if (readerTotal > 0){
+			System.out.println("total weka: " + (wekaTotal / 1000000) + " ms, SparseArffReader: " + (readerTotal / 1000000) + " ms, speedup: " + String.format("%.2f", (double) wekaTotal / readerTotal));
+		}
+	}
+
+	/**
+	 * Checks that the SparseArffReader reads the same attributes, features and class values as weka
+	 *
+	 * @param file the arff file
+	 * @param instances the instances weka read from the file
+	 * @return returns true if all rows are identical
+	 * @throws IOException
+	 */
+	private static boolean check(File file, Instances instances) throws IOException{
+		SparseArffReader arffReader = new SparseArffReader(file);
+		try{
+			int classIndex = instances.numAttributes() - 1;
+			String[] attributeNames = arffReader.getAttributeNames();
+			if (attributeNames.length != instances.numAttributes()){
+				return false;
+			}
+			for (int i = 0; i < attributeNames.length; i++){
+				if (!attributeNames[i].equals(instances.attribute(i).name())){
+					return false;
+				}
+			}
+			FeatureVector vector = new FeatureVector();
+			for (int row = 0; row < instances.numInstances(); row++){
+				Instance instance = instances.instance(row);
+				int label = arffReader.readRow(vector);
+				if (label != (int) instance.value(classIndex)){
+					return false;
+				}
+				vector.sort();
+				int pos = 0;
+				for (int i = 0; i < instance.numValues(); i++){
+					if (instance.index(i) == classIndex || instance.valueSparse(i) == 0){
+						continue;
+					}
+					if (pos >= vector.size() || vector.getIndex(pos) != instance.index(i) || vector.getValue(pos) != instance.valueSparse(i)){
+						return false;
+					}
+					pos++;
+				}
+				if (pos != vector.size()){
+					return false;
+				}
+			}
+			return arffReader.readRow(vector) == -1;
+		}
+		finally{
+			arffReader.close();
+		}
+	}
+}
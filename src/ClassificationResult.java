@@ -1,29 +1,31 @@
 import java.util.ArrayList;
 
 /**
- * Holds the result of the classification of one Tweet
+ * Holds the result of the classification of one Tweet, a view on a row of a ResultStore
  */
 public class ClassificationResult {
-    private Tweet tweet;
-    private double[] resultDistribution;
-    private double result;
+    private ResultStore store;
+    private int ordinal;
     
-    public ClassificationResult(Tweet t, double[] resultDis, double r){
-        tweet = t;
-        resultDistribution = resultDis;
-        result = r;
+    ClassificationResult(ResultStore s, int o){
+        store = s;
+        ordinal = o;
     }
     
     public Tweet getTweet() {
-        return tweet;
+        return store.getTweet(ordinal);
     }
 
     public double[] getResultDistribution() {
+        double[] resultDistribution = new double[ResultStore.NUM_CLASSES];
+        for (int i = 0; i < resultDistribution.length; i++){
+            resultDistribution[i] = store.getProbability(ordinal, i);
+        }
         return resultDistribution;
     }
 
     public double getResult() {
-        return result;
+        return store.getResult(ordinal);
     }
     
     public String getResultAsString() {
@@ -31,6 +33,6 @@ public class ClassificationResult {
         classVal.add("positive");
         classVal.add("neutral");
         classVal.add("negative");
-        return classVal.get((int)result);
+        return classVal.get((int)getResult());
     }
  }
@@ -0,0 +1,156 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Classifies batches of Tweets with the systems of an ensemble under a latency budget. Every system runs on its own
+ * thread, the results of a system that did not finish a batch in time are dropped for this batch. A system that is
+ * still busy with an earlier batch skips the next batches until it is done, the taggers and the spell checker can not
+ * be interrupted. The dropped Tweets of every system are counted, evalAllModels averages the remaining results.
+ */
+public class DeadlineEnsemble {
+
+	private final List<SentimentSystem> systems;
+	private final List<String> trainnames;
+	private final long budget;
+	private final int batchSize;
+
+	private final int[] late;
+	private final int[] busy;
+
+	/**
+	 * @param systems the systems with their own copies of the Tweets (see EnsembleRunner.getTweets)
+	 * @param trainnames optional filenames of the trained features of every system
+	 * @param budget the latency budget of a batch in milliseconds
+	 * @param batchSize the number of Tweets of a batch, 1 for a budget per Tweet
+	 */
+	public DeadlineEnsemble(List<SentimentSystem> systems, List<String> trainnames, long budget, int batchSize){
+		this.systems = systems;
+		this.trainnames = trainnames;
+		this.budget = budget;
+		this.batchSize = Math.max(1, batchSize);
+		this.late = new int[systems.size()];
+		this.busy = new int[systems.size()];
+	}
+
+	/**
+	 * Classifies the Tweets of the systems batch by batch. The classifiers are loaded before the first batch, the
+	 * budget only covers the classification.
+	 *
+	 * @return returns the results of every system, the Tweets whose results did not arrive in time have none
+	 * @throws Exception
+	 */
+	public List<ResultStore> test() throws Exception{
+		SharedPreprocessing sharedPreprocessing = new SharedPreprocessing(this.systems.size());
+		List<List<Tweet>> tweets = new ArrayList<List<Tweet>>();
+		List<ResultStore> results = new ArrayList<ResultStore>();
+		List<ExecutorService> executors = new ArrayList<ExecutorService>();
+		for (int s = 0; s < this.systems.size(); s++){
+			SentimentSystem system = this.systems.get(s);
+			System.out.println("Loading " + system.getName());
+			system.loadClassifier(this.trainnames.get(s));
+			system.setSharedPreprocessing(sharedPreprocessing);
+			//the workers of a batch would load their own taggers, so every system classifies with a single thread
+			system.setSystemThreads(1);
+			tweets.add(new ArrayList<Tweet>(system.tweetList));
+			results.add(new ResultStore(tweets.get(s)));
+			executors.add(Executors.newSingleThreadExecutor(daemonThreads(system.getName())));
+		}
+		int numTweets = tweets.get(0).size();
+		long startTime = System.currentTimeMillis();
+		long maxLatency = 0;
+		try{
+			List<Future<ResultStore>> running = new ArrayList<Future<ResultStore>>();
+			for (int s = 0; s < this.systems.size(); s++){
+				running.add(null);
+			}
+			for (int start = 0; start < numTweets; start += this.batchSize){
+				int end = Math.min(start + this.batchSize, numTweets);
+				long batchStart = System.currentTimeMillis();
+				long deadline = batchStart + this.budget;
+				boolean[] submitted = new boolean[this.systems.size()];
+				for (int s = 0; s < this.systems.size(); s++){
+					if (running.get(s) != null && !running.get(s).isDone()){
+						this.busy[s] += end - start;
+						continue;
+					}
+					final SentimentSystem system = this.systems.get(s);
+					final List<Tweet> batch = tweets.get(s).subList(start, end);
+					running.set(s, executors.get(s).submit(new Callable<ResultStore>(){
+						public ResultStore call() throws Exception{
+							return system.classifyBatch(batch);
+						}
+					}));
+					submitted[s] = true;
+				}
+				for (int s = 0; s < this.systems.size(); s++){
+					if (!submitted[s]){
+						continue;
+					}
+					try{
+						long remaining = Math.max(0, deadline - System.currentTimeMillis());
+						results.get(s).setAll(running.get(s).get(remaining, TimeUnit.MILLISECONDS), start);
+					}
+					catch (TimeoutException e){
+						this.late[s] += end - start;
+					}
+				}
+				maxLatency = Math.max(maxLatency, System.currentTimeMillis() - batchStart);
+			}
+		}
+		catch (ExecutionException e){
+			if (e.getCause() instanceof Exception){
+				throw (Exception) e.getCause();
+			}
+			throw new RuntimeException("Classifying the Tweets failed", e.getCause());
+		}
+		finally{
+			for (ExecutorService executor : executors){
+				executor.shutdownNow();
+			}
+		}
+		System.out.println("Budget of " + this.budget + " ms per " + this.batchSize + " Tweets: " + numTweets + " Tweets in " + (System.currentTimeMillis() - startTime) + " ms, max latency of a batch " + maxLatency + " ms");
+		for (int s = 0; s < this.systems.size(); s++){
+			System.out.println(this.systems.get(s).getName() + " dropped " + (this.late[s] + this.busy[s]) + " Tweets (" + this.late[s] + " late, " + this.busy[s] + " while busy)");
+		}
+		return results;
+	}
+
+	/**
+	 * Gets the number of Tweets of a system whose results did not arrive in time
+	 *
+	 * @param s the index of the system
+	 * @return returns the number of late Tweets
+	 */
+	public int getLate(int s){
+		return this.late[s];
+	}
+
+	/**
+	 * Gets the number of Tweets a system skipped because it was still busy with an earlier batch
+	 *
+	 * @param s the index of the system
+	 * @return returns the number of skipped Tweets
+	 */
+	public int getBusy(int s){
+		return this.busy[s];
+	}
+
+	//the threads of a stalled system must not keep the JVM alive
+	private static ThreadFactory daemonThreads(final String name){
+		return new ThreadFactory(){
+			public Thread newThread(Runnable runnable){
+				Thread thread = new Thread(runnable, name);
+				thread.setDaemon(true);
+				return thread;
+			}
+		};
+	}
+}
@@ -0,0 +1,176 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Classifies Tweets with the systems of an ensemble from the cheapest to the most expensive one. After every
+ * system the distributions of the systems a Tweet has passed are averaged, a Tweet leaves the cascade as soon as
+ * a class of the average is more probable than the threshold. The remaining Tweets go to the next system, Tweets
+ * that pass all systems get the full average like in evalAll.
+ */
+public class EnsembleCascade {
+
+	private static final String[] CLASS_VALUES = {"positive", "neutral", "negative"};
+
+	private final List<SentimentSystem> systems;
+	private final List<String> trainnames;
+	private final double threshold;
+
+	/**
+	 * @param systems the systems from the cheapest to the most expensive one
+	 * @param trainnames optional filenames of the trained features of every system
+	 * @param threshold the class probability a Tweet leaves the cascade with
+	 */
+	public EnsembleCascade(List<SentimentSystem> systems, List<String> trainnames, double threshold){
+		this.systems = systems;
+		this.trainnames = trainnames;
+		this.threshold = threshold;
+	}
+
+	/**
+	 * Classifies the Tweets with the cascade and prints how many Tweets reached every system and the score.
+	 * The systems share the preprocessing, so a Tweet is only tagged once.
+	 *
+	 * @param tweets the Tweets
+	 * @param compare true to classify the Tweets that left the cascade with the remaining systems as well
+	 * and to compare the cascade with the full average
+	 * @throws IOException
+	 */
+	public void evaluate(List<Tweet> tweets, boolean compare) throws IOException{
+		SharedPreprocessing sharedPreprocessing = new SharedPreprocessing(this.systems.size());
+		for (SentimentSystem system : this.systems){
+			system.setSharedPreprocessing(sharedPreprocessing);
+		}
+		double[][] sums = new double[tweets.size()][CLASS_VALUES.length];
+		int[] passed = new int[tweets.size()];
+		int[] reached = new int[this.systems.size()];
+
+		long startTime = System.currentTimeMillis();
+		List<Integer> open = new ArrayList<Integer>();
+		for (int i = 0; i < tweets.size(); i++){
+			open.add(i);
+		}
+		for (int s = 0; s < this.systems.size() && !open.isEmpty(); s++){
+			reached[s] = open.size();
+			ResultStore results = this.classify(s, tweets, open);
+			List<Integer> next = new ArrayList<Integer>();
+			for (int i = 0; i < open.size(); i++){
+				int t = open.get(i);
+				add(sums[t], results, i);
+				passed[t]++;
+				if (max(sums[t]) / passed[t] <= this.threshold){
+					next.add(t);
+				}
+			}
+			open = next;
+		}
+		long cascadeTime = System.currentTimeMillis() - startTime;
+
+		//only Tweets with a known sentiment are scored
+		List<Tweet> scored = new ArrayList<Tweet>();
+		List<Integer> scoredIndices = new ArrayList<Integer>();
+		for (int i = 0; i < tweets.size(); i++){
+			if (!tweets.get(i).getSentiment().equals("unknwn")){
+				scored.add(tweets.get(i));
+				scoredIndices.add(i);
+			}
+		}
+		double cascadeF1 = SentimentSystem.semEvalF1(scored, predict(sums, passed, scoredIndices), CLASS_VALUES);
+		System.out.println("Cascade with threshold " + this.threshold + ": " + tweets.size() + " Tweets in " + cascadeTime + " ms");
+		for (int s = 0; s < this.systems.size(); s++){
+			System.out.println("stage " + (s + 1) + " " + this.systems.get(s).getName() + " reached by " + reached[s] + " Tweets (" + percent(reached[s], tweets.size()) + "%)");
+		}
+		System.out.println("f1 without neutral of the cascade: " + cascadeF1);
+		if (!compare){
+			return;
+		}
+
+		//the Tweets that left the cascade early are classified by the remaining systems for the full average
+		for (int s = 0; s < this.systems.size(); s++){
+			List<Integer> remaining = new ArrayList<Integer>();
+			for (int t = 0; t < tweets.size(); t++){
+				if (passed[t] <= s){
+					remaining.add(t);
+				}
+			}
+			if (!remaining.isEmpty()){
+				ResultStore results = this.classify(s, tweets, remaining);
+				for (int i = 0; i < remaining.size(); i++){
+					add(sums[remaining.get(i)], results, i);
+				}
+			}
+		}
+		int[] all = new int[tweets.size()];
+		Arrays.fill(all, this.systems.size());
+		double fullF1 = SentimentSystem.semEvalF1(scored, predict(sums, all, scoredIndices), CLASS_VALUES);
+		System.out.println("f1 without neutral of the full average: " + fullF1 + " (delta of the cascade " + (cascadeF1 - fullF1) + ")");
+	}
+
+	/**
+	 * Classifies some of the Tweets with a system, the classifier of the system is loaded when it is used first
+	 *
+	 * @param s the index of the system
+	 * @param tweets the Tweets
+	 * @param indices the indices of the Tweets to classify
+	 * @return returns the results, the ordinals are the positions in the indices
+	 * @throws IOException
+	 */
+	private ResultStore classify(int s, List<Tweet> tweets, List<Integer> indices) throws IOException{
+		SentimentSystem system = this.systems.get(s);
+		if (!system.isClassifierLoaded()){
+			system.loadClassifier(this.trainnames.get(s));
+		}
+		List<Tweet> batch = new ArrayList<Tweet>(indices.size());
+		for (int index : indices){
+			batch.add(tweets.get(index));
+		}
+		return system.classifyBatch(batch);
+	}
+
+	/**
+	 * Gets the classes of the averaged distributions, like in evalAll a class has to be more probable than both other classes to beat neutral
+	 *
+	 * @param sums the summed distributions
+	 * @param counts the number of summed distributions
+	 * @param indices the indices of the Tweets
+	 * @return returns the index of the class value of every Tweet
+	 */
+	private static int[] predict(double[][] sums, int[] counts, List<Integer> indices){
+		int[] predictions = new int[indices.size()];
+		for (int i = 0; i < indices.size(); i++){
+			double[] sum = sums[indices.get(i)];
+			double[] average = new double[sum.length];
+			for (int c = 0; c < sum.length; c++){
+				average[c] = sum[c] / counts[indices.get(i)];
+			}
+			int prediction = 1;
+			if (average[0] > average[1] && average[0] > average[2]){
+				prediction = 0;
+			}
+			if (average[2] > average[0] && average[2] > average[1]){
+				prediction = 2;
+			}
+			predictions[i] = prediction;
+		}
+		return predictions;
+	}
+
+	private static void add(double[] sum, ResultStore results, int ordinal){
+		for (int c = 0; c < sum.length; c++){
+			sum[c] += results.getProbability(ordinal, c);
+		}
+	}
+
+	private static double max(double[] values){
+		double max = values[0];
+		for (double value : values){
+			max = Math.max(max, value);
+		}
+		return max;
+	}
+
+	private static double percent(int count, int total){
+		return total == 0 ? 0 : Math.round(1000.0 * count / total) / 10.0;
+	}
+}
@@ -0,0 +1,135 @@
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs the systems of an ensemble one after another or at the same time. The systems store the preprocessed
+ * versions of a Tweet in the Tweet, so systems running at the same time get their own copies of the Tweets.
+ * The threads of setThreads are shared by the systems. The preprocessing and tagging that is the same for all
+ * systems is done once per Tweet (see SharedPreprocessing).
+ */
+public class EnsembleRunner {
+
+	private final Set<Tweet> tweetList;
+	private final boolean parallel;
+
+	/**
+	 * @param tweetList the Tweets of the ensemble
+	 * @param parallel true to run the systems at the same time
+	 */
+	public EnsembleRunner(Set<Tweet> tweetList, boolean parallel){
+		this.tweetList = tweetList;
+		this.parallel = parallel;
+	}
+
+	/**
+	 * Gets the Tweets for a system of the ensemble
+	 *
+	 * @return returns the Tweets, a copy of them if the systems run at the same time
+	 */
+	public Set<Tweet> getTweets(){
+		if (!this.parallel){
+			return this.tweetList;
+		}
+		Set<Tweet> copies = new LinkedHashSet<Tweet>();
+		for (Tweet tweet : this.tweetList){
+			copies.add(tweet.copy());
+		}
+		return copies;
+	}
+
+	/**
+	 * Trains the systems
+	 *
+	 * @param systems the systems with the Tweets of getTweets
+	 * @param savename optional filename suffix of the training features
+	 * @throws Exception
+	 */
+	public void train(List<? extends SentimentSystem> systems, final String savename) throws Exception{
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		for (final SentimentSystem system : systems){
+			tasks.add(new Callable<Void>(){
+				public Void call() throws Exception{
+					system.train(savename);
+					return null;
+				}
+			});
+		}
+		this.run(systems, tasks);
+	}
+
+	/**
+	 * Tests the systems
+	 *
+	 * @param systems the systems with the Tweets of getTweets
+	 * @param trainnames optional filenames of the trained features of every system
+	 * @return returns the results of every system, the Tweets of getTweets have the same ordinals in all results
+	 * @throws Exception
+	 */
+	public List<ResultStore> test(List<? extends SentimentSystem> systems, List<String> trainnames) throws Exception{
+		List<Callable<ResultStore>> tasks = new ArrayList<Callable<ResultStore>>();
+		for (int i = 0; i < systems.size(); i++){
+			final SentimentSystem system = systems.get(i);
+			final String trainname = trainnames.get(i);
+			tasks.add(new Callable<ResultStore>(){
+				public ResultStore call() throws Exception{
+					return system.test(trainname);
+				}
+			});
+		}
+		return this.run(systems, tasks);
+	}
+
+	/**
+	 * Runs a task of every system and waits for all of them
+	 *
+	 * @param systems the systems
+	 * @param tasks the task of every system
+	 * @return returns the results in the order of the systems
+	 * @throws Exception
+	 */
+	private <T> List<T> run(List<? extends SentimentSystem> systems, List<Callable<T>> tasks) throws Exception{
+		SharedPreprocessing sharedPreprocessing = new SharedPreprocessing(systems.size());
+		for (SentimentSystem system : systems){
+			system.setSharedPreprocessing(sharedPreprocessing);
+		}
+		List<T> results = new ArrayList<T>();
+		if (!this.parallel || tasks.size() == 1){
+			for (Callable<T> task : tasks){
+				results.add(task.call());
+			}
+			return results;
+		}
+		//every system gets its share of the threads to create the features
+		int systemThreads = Math.max(1, SentimentSystem.getThreads() / systems.size());
+		for (SentimentSystem system : systems){
+			system.setSystemThreads(systemThreads);
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+		try{
+			List<Future<T>> futures = new ArrayList<Future<T>>();
+			for (Callable<T> task : tasks){
+				futures.add(executor.submit(task));
+			}
+			for (Future<T> future : futures){
+				results.add(future.get());
+			}
+			return results;
+		}
+		catch (ExecutionException e){
+			if (e.getCause() instanceof Exception){
+				throw (Exception) e.getCause();
+			}
+			throw new RuntimeException("Running the systems failed", e.getCause());
+		}
+		finally{
+			executor.shutdownNow();
+		}
+	}
+}
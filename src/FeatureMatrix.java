@@ -0,0 +1,507 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import weka.core.Attribute;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.SparseInstance;
+import weka.core.converters.ArffSaver;
+
+/**
+ * Binary training matrix in compressed sparse row (CSR) format, an alternative to the arff files.
+ * The file consists of segments. A segment has a header, a schema block with the attribute names and class values,
+ * the class label column, the row pointers, the feature ids of its rows and optionally their values. Feature ids are
+ * attribute indices, the class attribute is always the last attribute. Rows can be appended as a new segment, its
+ * schema block only holds the attributes it adds before the class attribute, so the ids of the rows before do not
+ * change and they are not rewritten. The sections are memory-mapped, so rows can be streamed without loading the
+ * whole matrix. A mapping is limited to 2 GB, so the feature ids and values are mapped in chunks.
+ */
+public class FeatureMatrix {
+
+	private static final int MAGIC = 0x57435352;
+	private static final int VERSION = 2;
+
+	//size of the header of a segment in bytes: magic, version, rows, nonzero values, value flag and schema length
+	private static final int HEADER_SIZE = 4 + 4 + 4 + 4 + 4 + 4;
+
+	//the feature ids and values are mapped in chunks of 2^28 entries, 1 GB each
+	private static final int CHUNK_SHIFT = 28;
+	private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+
+	private String[] attributeNames;
+	private String[] classValues;
+	private int numRows;
+	private long numValues;
+
+	//the segments with rows and the first row of every segment
+	private Segment[] segments;
+	private int[] firstRows;
+
+	private FeatureMatrix(String[] attributeNames, String[] classValues, int numRows, long numValues, Segment[] segments){
+		this.attributeNames = attributeNames;
+		this.classValues = classValues;
+		this.numRows = numRows;
+		this.numValues = numValues;
+		this.segments = segments;
+		this.firstRows = new int[segments.length];
+		for (int i = 0; i < segments.length; i++){
+			this.firstRows[i] = segments[i].firstRow;
+		}
+	}
+
+	/**
+	 * Gets the matrix file of a training file
+	 *
+	 * @param trainname the filename of the training features
+	 * @return returns the matrix file
+	 */
+	public static File matrixFile(String trainname){
+		return new File("resources/arff/" + trainname + ".csr");
+	}
+
+	/**
+	 * Opens a matrix file, all sections of all segments are memory-mapped
+	 *
+	 * @param file the matrix file
+	 * @return returns the matrix
+	 * @throws IOException
+	 */
+	public static FeatureMatrix open(File file) throws IOException{
+		String[] attributeNames = null;
+		String[] classValues = null;
+		List<Segment> segments = new ArrayList<Segment>();
+		int numRows = 0;
+		long numValues = 0;
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+		try{
+			FileChannel channel = randomAccessFile.getChannel();
+			long length = channel.size();
+			long offset = 0;
+			while (offset < length){
+				//the stream is not closed, it would close the channel
+				DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(offset))));
+				int version;
+				if (in.readInt() != MAGIC || (version = in.readInt()) < 1 || version > VERSION){
+					throw new IOException("Invalid matrix file: " + file);
+				}
+				int rows = in.readInt();
+				int values = in.readInt();
+				boolean hasValues = in.readInt() != 0;
+				int schemaSize = in.readInt();
+
+				//version 1 files have a single segment with all attributes
+				int inherited = version == 1 ? 0 : in.readInt();
+				if (inherited != (attributeNames == null ? 0 : attributeNames.length - 1)){
+					throw new IOException("Invalid matrix file, the schema of a segment does not extend the one before: " + file);
+				}
+				String[] names = new String[inherited + in.readInt()];
+				if (inherited > 0){
+					System.arraycopy(attributeNames, 0, names, 0, inherited);
+				}
+				for (int i = inherited; i < names.length; i++){
+					names[i] = in.readUTF();
+				}
+				String[] segmentClassValues = new String[in.readInt()];
+				for (int i = 0; i < segmentClassValues.length; i++){
+					segmentClassValues[i] = in.readUTF();
+				}
+				if (classValues != null && !Arrays.equals(classValues, segmentClassValues)){
+					throw new IOException("Invalid matrix file, the class values of a segment differ: " + file);
+				}
+				attributeNames = names;
+				classValues = segmentClassValues;
+
+				long start = offset + HEADER_SIZE + schemaSize;
+				offset = start + 4L * rows + 4L * (rows + 1) + 4L * values * (hasValues ? 2 : 1);
+				if (offset > length){
+					throw new IOException("Truncated matrix file: " + file);
+				}
+				if (rows > 0){
+					segments.add(new Segment(channel, start, numRows, rows, values, hasValues));
+					numRows += rows;
+					numValues += values;
+				}
+			}
+		}
+		finally{
+			randomAccessFile.close();
+		}
+		if (attributeNames == null){
+			throw new IOException("Invalid matrix file: " + file);
+		}
+		return new FeatureMatrix(attributeNames, classValues, numRows, numValues, segments.toArray(new Segment[segments.size()]));
+	}
+
+	/**
+	 * Saves the training instances as matrix file
+	 *
+	 * @param trainingSet the training instances, the class attribute has to be the last attribute
+	 * @param file the matrix file
+	 * @throws IOException
+	 */
+	public static void save(Instances trainingSet, File file) throws IOException{
+		int classIndex = trainingSet.numAttributes() - 1;
+		String[] attributeNames = new String[trainingSet.numAttributes()];
+		for (int i = 0; i < attributeNames.length; i++){
+			attributeNames[i] = trainingSet.attribute(i).name();
+		}
+		String[] classValues = new String[trainingSet.attribute(classIndex).numValues()];
+		for (int i = 0; i < classValues.length; i++){
+			classValues[i] = trainingSet.attribute(classIndex).value(i);
+		}
+
+		Writer writer = new Writer(file, attributeNames, classValues);
+		FeatureVector vector = new FeatureVector();
+		for (int i = 0; i < trainingSet.numInstances(); i++){
+			Instance instance = trainingSet.instance(i);
+			vector.clear();
+			for (int j = 0; j < instance.numValues(); j++){
+				if (instance.index(j) != classIndex){
+					vector.add(instance.index(j), instance.valueSparse(j));
+				}
+			}
+			writer.addRow(vector, (int) instance.value(classIndex));
+		}
+		writer.close();
+	}
+
+	/**
+	 * Exports the matrix as arff file for weka
+	 *
+	 * @param file the arff file
+	 * @throws IOException
+	 */
+	public void exportArff(File file) throws IOException{
+		int classIndex = this.attributeNames.length - 1;
+		ArrayList<Attribute> attributeList = new ArrayList<Attribute>();
+		for (int i = 0; i < classIndex; i++){
+			attributeList.add(new Attribute(this.attributeNames[i]));
+		}
+		attributeList.add(new Attribute(this.attributeNames[classIndex], Arrays.asList(this.classValues)));
+		Instances trainingSet = new Instances("test", attributeList, this.numRows);
+		trainingSet.setClassIndex(classIndex);
+		FeatureVector vector = new FeatureVector();
+		for (int row = 0; row < this.numRows; row++){
+			vector.clear();
+			this.getRow(row, vector);
+			double[] rowValues = new double[vector.size() + 1];
+			int[] rowIndices = new int[vector.size() + 1];
+			for (int i = 0; i < vector.size(); i++){
+				rowIndices[i] = vector.getIndex(i);
+				rowValues[i] = vector.getValue(i);
+			}
+			rowIndices[vector.size()] = classIndex;
+			rowValues[vector.size()] = this.getLabel(row);
+			trainingSet.add(new SparseInstance(1.0, rowValues, rowIndices, this.attributeNames.length));
+		}
+		ArffSaver saver = new ArffSaver();
+		saver.setInstances(trainingSet);
+		saver.setFile(file);
+		saver.writeBatch();
+	}
+
+	public String[] getAttributeNames(){
+		return this.attributeNames;
+	}
+
+	public String[] getClassValues(){
+		return this.classValues;
+	}
+
+	public int numRows(){
+		return this.numRows;
+	}
+
+	public long numValues(){
+		return this.numValues;
+	}
+
+	public int getLabel(int row){
+		Segment segment = this.segment(row);
+		return segment.labels.get(row - segment.firstRow);
+	}
+
+	/**
+	 * Adds the features of a row to a vector, binary segments have no value section and all values are 1
+	 *
+	 * @param row the row
+	 * @param vector the vector for the features
+	 */
+	public void getRow(int row, FeatureVector vector){
+		Segment segment = this.segment(row);
+		int start = segment.rowPointers.get(row - segment.firstRow);
+		int end = segment.rowPointers.get(row - segment.firstRow + 1);
+		for (int position = start; position < end; position++){
+			int index = segment.indices[position >>> CHUNK_SHIFT].get(position & CHUNK_MASK);
+			vector.add(index, segment.values == null ? 1.0 : segment.values[position >>> CHUNK_SHIFT].get(position & CHUNK_MASK));
+		}
+	}
+
+	/**
+	 * Finds the segment of a row
+	 *
+	 * @param row the row
+	 * @return returns the segment
+	 */
+	private Segment segment(int row){
+		int pos = Arrays.binarySearch(this.firstRows, row);
+		return this.segments[pos >= 0 ? pos : -pos - 2];
+	}
+
+	/**
+	 * The memory-mapped sections of a segment, the row pointers and positions of the values start at 0 in every segment
+	 */
+	private static class Segment {
+
+		private final int firstRow;
+		private final IntBuffer labels;
+		private final IntBuffer rowPointers;
+		private final IntBuffer[] indices;
+		private final FloatBuffer[] values;
+
+		/**
+		 * Maps the sections of a segment
+		 *
+		 * @param channel the channel of the matrix file
+		 * @param offset the position of the label column in the file
+		 * @param firstRow the first row of the segment in the matrix
+		 * @param numRows the number of rows of the segment
+		 * @param numValues the number of values of the segment
+		 * @param hasValues false if the segment has no value section
+		 * @throws IOException
+		 */
+		private Segment(FileChannel channel, long offset, int firstRow, int numRows, int numValues, boolean hasValues) throws IOException{
+			this.firstRow = firstRow;
+			this.labels = channel.map(FileChannel.MapMode.READ_ONLY, offset, 4L * numRows).asIntBuffer();
+			offset += 4L * numRows;
+			this.rowPointers = channel.map(FileChannel.MapMode.READ_ONLY, offset, 4L * (numRows + 1)).asIntBuffer();
+			offset += 4L * (numRows + 1);
+			int numChunks = (int) (((long) numValues + CHUNK_MASK) >>> CHUNK_SHIFT);
+			this.indices = new IntBuffer[numChunks];
+			this.values = hasValues ? new FloatBuffer[numChunks] : null;
+			for (int chunk = 0; chunk < numChunks; chunk++){
+				long start = (long) chunk << CHUNK_SHIFT;
+				long size = 4L * (Math.min(numValues, start + CHUNK_MASK + 1) - start);
+				this.indices[chunk] = channel.map(FileChannel.MapMode.READ_ONLY, offset + 4L * start, size).asIntBuffer();
+				if (hasValues){
+					this.values[chunk] = channel.map(FileChannel.MapMode.READ_ONLY, offset + 4L * numValues + 4L * start, size).asFloatBuffer();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes a matrix file or a segment that is appended to a matrix file row by row, the feature ids and values
+	 * are streamed to temporary files and copied behind the header when the writer is closed.
+	 */
+	public static class Writer {
+
+		private File file;
+		private String[] attributeNames;
+		private String[] classValues;
+		private boolean append;
+
+		//the number of attributes before the class attribute the segment takes from the segments before
+		private int inherited;
+		private String[] inheritedNames;
+		private File indicesFile;
+		private File valuesFile;
+		private DataOutputStream indicesOut;
+		private DataOutputStream valuesOut;
+		private int[] labels = new int[1024];
+		private int[] rowPointers = new int[1025];
+		private int numRows = 0;
+		private long numValues = 0;
+		private boolean binary = true;
+
+		/**
+		 * Creates a writer
+		 *
+		 * @param file the matrix file
+		 * @param attributeNames the names of all attributes, the class attribute has to be the last attribute
+		 * @param classValues the values of the class attribute
+		 * @throws IOException
+		 */
+		public Writer(File file, String[] attributeNames, String[] classValues) throws IOException{
+			this(file, attributeNames, classValues, false);
+		}
+
+		private Writer(File file, String[] attributeNames, String[] classValues, boolean append) throws IOException{
+			this.file = file;
+			this.attributeNames = attributeNames;
+			this.classValues = classValues;
+			this.append = append;
+			this.inherited = append ? attributeNames.length - 1 : 0;
+			this.indicesFile = File.createTempFile(file.getName(), ".indices", file.getAbsoluteFile().getParentFile());
+			this.valuesFile = File.createTempFile(file.getName(), ".values", file.getAbsoluteFile().getParentFile());
+			this.indicesOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(this.indicesFile)));
+			this.valuesOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(this.valuesFile)));
+		}
+
+		/**
+		 * Creates a writer that appends the rows as a new segment to a matrix file. The rows before are not rewritten,
+		 * new attributes have to be added between the attributes of the matrix and the class attribute.
+		 *
+		 * @param file the matrix file
+		 * @return returns the writer
+		 * @throws IOException
+		 */
+		public static Writer append(File file) throws IOException{
+			FeatureMatrix matrix = open(file);
+			Writer writer = new Writer(file, matrix.getAttributeNames(), matrix.getClassValues(), true);
+			writer.inheritedNames = matrix.getAttributeNames();
+			return writer;
+		}
+
+		/**
+		 * Replaces the attribute names, the schema is written when the writer is closed
+		 *
+		 * @param attributeNames the names of all attributes, the class attribute has to be the last attribute
+		 */
+		public void setAttributeNames(String[] attributeNames){
+			this.attributeNames = attributeNames;
+		}
+
+		/**
+		 * Appends a row, the feature vector gets sorted by feature id
+		 *
+		 * @param vector the features of the row
+		 * @param label the index of the class value
+		 * @throws IOException
+		 */
+		public void addRow(FeatureVector vector, int label) throws IOException{
+			vector.sort();
+			for (int i = 0; i < vector.size(); i++){
+				this.indicesOut.writeInt(vector.getIndex(i));
+				this.valuesOut.writeFloat((float) vector.getValue(i));
+				if (vector.getValue(i) != 1.0){
+					this.binary = false;
+				}
+			}
+			this.numValues += vector.size();
+			if (this.numValues > Integer.MAX_VALUE){
+				throw new IOException("Too many values for a matrix file: " + this.numValues);
+			}
+			if (this.numRows == this.labels.length){
+				this.labels = Arrays.copyOf(this.labels, this.labels.length * 2);
+				this.rowPointers = Arrays.copyOf(this.rowPointers, this.labels.length + 1);
+			}
+			this.labels[this.numRows] = label;
+			this.numRows++;
+			this.rowPointers[this.numRows] = (int) this.numValues;
+		}
+
+		/**
+		 * Writes the header, the schema and the label column and copies the feature ids and values behind them.
+		 * A segment is written at the end of the matrix file.
+		 *
+		 * @throws IOException
+		 */
+		public void close() throws IOException{
+			this.indicesOut.close();
+			this.valuesOut.close();
+			try{
+				if (this.append && !this.extendsMatrix()){
+					throw new IOException("The attributes of the appended rows do not extend the attributes of " + this.file);
+				}
+				ByteArrayOutputStream schemaBytes = new ByteArrayOutputStream();
+				DataOutputStream schema = new DataOutputStream(schemaBytes);
+				schema.writeInt(this.inherited);
+				schema.writeInt(this.attributeNames.length - this.inherited);
+				for (int i = this.inherited; i < this.attributeNames.length; i++){
+					schema.writeUTF(this.attributeNames[i]);
+				}
+				schema.writeInt(this.classValues.length);
+				for (String value : this.classValues){
+					schema.writeUTF(value);
+				}
+				schema.close();
+
+				FileOutputStream fileOut = new FileOutputStream(this.file, this.append);
+				try{
+					DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut));
+					out.writeInt(MAGIC);
+					out.writeInt(VERSION);
+					out.writeInt(this.numRows);
+					out.writeInt((int) this.numValues);
+					out.writeInt(this.binary ? 0 : 1);
+					out.writeInt(schemaBytes.size());
+					schemaBytes.writeTo(out);
+					for (int i = 0; i < this.numRows; i++){
+						out.writeInt(this.labels[i]);
+					}
+					for (int i = 0; i <= this.numRows; i++){
+						out.writeInt(this.rowPointers[i]);
+					}
+					out.flush();
+					FileChannel channel = fileOut.getChannel();
+					this.transfer(this.indicesFile, channel);
+					if (!this.binary){
+						this.transfer(this.valuesFile, channel);
+					}
+				}
+				finally{
+					fileOut.close();
+				}
+			}
+			finally{
+				this.indicesFile.delete();
+				this.valuesFile.delete();
+			}
+		}
+
+		/**
+		 * Checks that the attributes start with the attributes of the matrix before its class attribute
+		 *
+		 * @return returns true if the ids of the rows of the matrix are the same with the attributes
+		 */
+		private boolean extendsMatrix(){
+			if (this.attributeNames.length <= this.inherited){
+				return false;
+			}
+			for (int i = 0; i < this.inherited; i++){
+				if (!this.attributeNames[i].equals(this.inheritedNames[i])){
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Copies a temporary file to the end of the matrix file
+		 *
+		 * @param source the temporary file
+		 * @param target the channel of the matrix file
+		 * @throws IOException
+		 */
+		private void transfer(File source, FileChannel target) throws IOException{
+			FileInputStream in = new FileInputStream(source);
+			try{
+				FileChannel channel = in.getChannel();
+				long position = 0;
+				long size = channel.size();
+				while (position < size){
+					position += channel.transferTo(position, size - position, target);
+				}
+			}
+			finally{
+				in.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,344 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Compiled feature schema of a trained model. The sparse features are split into namespaces by the prefix of
+ * their attribute name (e.g. NGRAM_), every namespace has its own dictionary from the feature to its attribute
+ * index, so no attribute names have to be built to look up a feature. The fixed dense features (e.g. allCaps) are
+ * resolved to their slot index once. The schema is saved in its compiled form with the trained model.
+ */
+public class FeatureSchema {
+
+	//prefixes of the sparse features
+	public static final String[] NAMESPACES = {"NGRAM_", "CHARNGRAM_", "POS_", "CLUSTER_", "EMO_", "STEM_"};
+
+	private int numAttributes;
+	private Dictionary[] dictionaries;
+	private Dictionary denseSlots;
+
+	//name of the class attribute while the schema is extended, null otherwise
+	private String classAttribute;
+
+	private FeatureSchema(int numAttributes, Dictionary[] dictionaries, Dictionary denseSlots){
+		this.numAttributes = numAttributes;
+		this.dictionaries = dictionaries;
+		this.denseSlots = denseSlots;
+	}
+
+	/**
+	 * Compiles the schema of the attributes of a training set
+	 *
+	 * @param attributeNames the names of all attributes in the order of their index
+	 * @return returns the compiled schema
+	 */
+	public static FeatureSchema compile(String[] attributeNames){
+		int[] sizes = new int[NAMESPACES.length];
+		int denseSize = 0;
+		for (String name : attributeNames){
+			int namespace = namespaceOf(name);
+			if (namespace == -1){
+				denseSize++;
+			}
+			else{
+				sizes[namespace]++;
+			}
+		}
+		Dictionary[] dictionaries = new Dictionary[NAMESPACES.length];
+		for (int i = 0; i < NAMESPACES.length; i++){
+			dictionaries[i] = new Dictionary(sizes[i]);
+		}
+		Dictionary denseSlots = new Dictionary(denseSize);
+		for (int index = 0; index < attributeNames.length; index++){
+			String name = attributeNames[index];
+			int namespace = namespaceOf(name);
+			if (namespace == -1){
+				denseSlots.put(name, index);
+			}
+			else{
+				dictionaries[namespace].put(name.substring(NAMESPACES[namespace].length()), index);
+			}
+		}
+		return new FeatureSchema(attributeNames.length, dictionaries, denseSlots);
+	}
+
+	/**
+	 * Gets the dictionary of a namespace
+	 *
+	 * @param namespace the prefix of the namespace, e.g. NGRAM_
+	 * @return returns the dictionary from the features of the namespace to their attribute index
+	 */
+	public Dictionary getDictionary(String namespace){
+		for (int i = 0; i < NAMESPACES.length; i++){
+			if (NAMESPACES[i].equals(namespace)){
+				return this.dictionaries[i];
+			}
+		}
+		throw new IllegalArgumentException("Unknown namespace: " + namespace);
+	}
+
+	/**
+	 * Gets the slot of a dense feature, it should be resolved once and not for every Tweet. While the schema is
+	 * extended a missing feature is added.
+	 *
+	 * @param name the name of the feature
+	 * @return returns the attribute index of the feature
+	 */
+	public int getSlot(String name){
+		int slot = this.denseSlots.get(name);
+		if (slot == -1){
+			if (this.classAttribute == null){
+				throw new IllegalArgumentException("Missing feature in the trained model: " + name);
+			}
+			slot = this.addAttribute();
+			this.denseSlots.put(name, slot);
+		}
+		return slot;
+	}
+
+	public int numAttributes(){
+		return this.numAttributes;
+	}
+
+	/**
+	 * Starts or stops extending the schema. While the schema is extended, unknown features of the namespaces are added
+	 * to the dictionaries instead of being skipped. They get the next attribute indices and the class attribute
+	 * is moved behind them, so the indices of all other attributes stay the same. Extending is not thread-safe.
+	 *
+	 * @param extending true to add unknown features
+	 */
+	public void setExtending(boolean extending){
+		if (!extending){
+			this.classAttribute = null;
+			for (Dictionary dictionary : this.dictionaries){
+				dictionary.schema = null;
+			}
+			return;
+		}
+		this.classAttribute = this.getAttributeNames()[this.numAttributes - 1];
+		for (Dictionary dictionary : this.dictionaries){
+			dictionary.schema = this;
+		}
+	}
+
+	/**
+	 * Adds an attribute in place of the class attribute and moves the class attribute to the end
+	 *
+	 * @return returns the index of the new attribute
+	 */
+	private int addAttribute(){
+		int index = this.numAttributes - 1;
+		this.denseSlots.put(this.classAttribute, this.numAttributes);
+		this.numAttributes++;
+		return index;
+	}
+
+	/**
+	 * Rebuilds the attribute names from the dictionaries
+	 *
+	 * @return returns the names of all attributes in the order of their index
+	 */
+	public String[] getAttributeNames(){
+		String[] attributeNames = new String[this.numAttributes];
+		for (int i = 0; i < NAMESPACES.length; i++){
+			Dictionary dictionary = this.dictionaries[i];
+			for (int pos = 0; pos < dictionary.keys.length; pos++){
+				if (dictionary.keys[pos] != null){
+					attributeNames[dictionary.values[pos]] = NAMESPACES[i] + dictionary.keys[pos];
+				}
+			}
+		}
+		for (int pos = 0; pos < this.denseSlots.keys.length; pos++){
+			if (this.denseSlots.keys[pos] != null){
+				attributeNames[this.denseSlots.values[pos]] = this.denseSlots.keys[pos];
+			}
+		}
+		return attributeNames;
+	}
+
+	/**
+	 * Writes the compiled schema
+	 *
+	 * @param out the output of the model file
+	 * @throws IOException
+	 */
+	public void write(DataOutput out) throws IOException{
+		out.writeInt(this.numAttributes);
+		out.writeInt(NAMESPACES.length);
+		for (int i = 0; i < NAMESPACES.length; i++){
+			out.writeUTF(NAMESPACES[i]);
+			this.dictionaries[i].write(out);
+		}
+		this.denseSlots.write(out);
+	}
+
+	/**
+	 * Reads a compiled schema
+	 *
+	 * @param in the input of the model file
+	 * @return returns the schema
+	 * @throws IOException
+	 */
+	public static FeatureSchema read(DataInput in) throws IOException{
+		int numAttributes = in.readInt();
+		if (in.readInt() != NAMESPACES.length){
+			throw new IOException("The namespaces of the schema have changed");
+		}
+		Dictionary[] dictionaries = new Dictionary[NAMESPACES.length];
+		for (int i = 0; i < NAMESPACES.length; i++){
+			if (!in.readUTF().equals(NAMESPACES[i])){
+				throw new IOException("The namespaces of the schema have changed");
+			}
+			dictionaries[i] = Dictionary.read(in);
+		}
+		return new FeatureSchema(numAttributes, dictionaries, Dictionary.read(in));
+	}
+
+	/**
+	 * Checks if an attribute is a sparse feature of a namespace
+	 *
+	 * @param name the name of the attribute
+	 * @return returns true for sparse features, false for dense features and the class attribute
+	 */
+	public static boolean isSparseFeature(String name){
+		return namespaceOf(name) != -1;
+	}
+
+	/**
+	 * Gets the namespace of an attribute
+	 *
+	 * @param name the name of the attribute
+	 * @return returns the index of the namespace or -1 for dense features
+	 */
+	private static int namespaceOf(String name){
+		for (int i = 0; i < NAMESPACES.length; i++){
+			if (name.startsWith(NAMESPACES[i])){
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Open addressing hash table from strings to attribute indices, without boxing the indices
+	 */
+	public static class Dictionary {
+
+		private String[] keys;
+		private int[] values;
+		private int mask;
+		private int size = 0;
+
+		//the schema that is extended with unknown keys, null if the dictionary is read-only
+		private FeatureSchema schema;
+
+		private Dictionary(int size){
+			int capacity = 2;
+			while (capacity < size * 2){
+				capacity <<= 1;
+			}
+			this.keys = new String[capacity];
+			this.values = new int[capacity];
+			this.mask = capacity - 1;
+		}
+
+		/**
+		 * Gets the attribute index of a feature
+		 *
+		 * @param key the feature without the prefix of the namespace
+		 * @return returns the attribute index or -1 if the feature is unknown, while the schema is extended unknown features are added
+		 */
+		public int get(String key){
+			int pos = hash(key) & this.mask;
+			String current;
+			while ((current = this.keys[pos]) != null){
+				if (current.equals(key)){
+					return this.values[pos];
+				}
+				pos = (pos + 1) & this.mask;
+			}
+			if (this.schema != null){
+				int index = this.schema.addAttribute();
+				this.put(key, index);
+				return index;
+			}
+			return -1;
+		}
+
+		public int size(){
+			return this.size;
+		}
+
+		private void put(String key, int value){
+			if ((this.size + 1) * 2 > this.keys.length){
+				this.resize();
+			}
+			int pos = hash(key) & this.mask;
+			while (this.keys[pos] != null){
+				if (this.keys[pos].equals(key)){
+					this.values[pos] = value;
+					return;
+				}
+				pos = (pos + 1) & this.mask;
+			}
+			this.keys[pos] = key;
+			this.values[pos] = value;
+			this.size++;
+		}
+
+		/**
+		 * Doubles the capacity of the hash table
+		 */
+		private void resize(){
+			String[] oldKeys = this.keys;
+			int[] oldValues = this.values;
+			this.keys = new String[oldKeys.length * 2];
+			this.values = new int[oldKeys.length * 2];
+			this.mask = this.keys.length - 1;
+			this.size = 0;
+			for (int pos = 0; pos < oldKeys.length; pos++){
+				if (oldKeys[pos] != null){
+					this.put(oldKeys[pos], oldValues[pos]);
+				}
+			}
+		}
+
+		/**
+		 * Writes the hash table with the positions of all entries, so it does not have to be rebuilt on load
+		 *
+		 * @param out the output of the model file
+		 * @throws IOException
+		 */
+		private void write(DataOutput out) throws IOException{
+			out.writeInt(this.keys.length);
+			out.writeInt(this.size());
+			for (int pos = 0; pos < this.keys.length; pos++){
+				if (this.keys[pos] != null){
+					out.writeInt(pos);
+					out.writeUTF(this.keys[pos]);
+					out.writeInt(this.values[pos]);
+				}
+			}
+		}
+
+		private static Dictionary read(DataInput in) throws IOException{
+			int capacity = in.readInt();
+			Dictionary dictionary = new Dictionary(0);
+			dictionary.keys = new String[capacity];
+			dictionary.values = new int[capacity];
+			dictionary.mask = capacity - 1;
+			dictionary.size = in.readInt();
+			for (int i = 0; i < dictionary.size; i++){
+				int pos = in.readInt();
+				dictionary.keys[pos] = in.readUTF();
+				dictionary.values[pos] = in.readInt();
+			}
+			return dictionary;
+		}
+
+		private static int hash(String key){
+			int h = key.hashCode();
+			return h ^ (h >>> 16);
+		}
+	}
+}
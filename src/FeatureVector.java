@@ -0,0 +1,116 @@
+import java.util.Arrays;
+
+/**
+ * Reusable sparse feature vector of one Tweet, holds the attribute indices and values of all non-zero features
+ */
+public class FeatureVector {
+	private int[] indices;
+	private double[] values;
+	private long[] sortKeys;
+	private int size = 0;
+	private boolean sorted = true;
+	
+	public FeatureVector(){
+		this(256);
+	}
+	
+	public FeatureVector(int capacity){
+		this.indices = new int[capacity];
+		this.values = new double[capacity];
+	}
+	
+	/**
+	 * Adds a binary feature with the value 1
+	 * 
+	 * @param index the attribute index
+	 */
+	public void add(int index){
+		add(index, 1.0);
+	}
+	
+	/**
+	 * Adds a feature, features with the value 0 are skipped
+	 * 
+	 * @param index the attribute index
+	 * @param value the feature value
+	 */
+	public void add(int index, double value){
+		if (value == 0) return;
+		if (this.size == this.indices.length){
+			this.indices = Arrays.copyOf(this.indices, this.size * 2);
+			this.values = Arrays.copyOf(this.values, this.size * 2);
+		}
+		if (this.size > 0 && this.indices[this.size - 1] > index) this.sorted = false;
+		this.indices[this.size] = index;
+		this.values[this.size] = value;
+		this.size++;
+	}
+	
+	/**
+	 * Removes all features, so the vector can be reused for the next Tweet
+	 */
+	public void clear(){
+		this.size = 0;
+		this.sorted = true;
+	}
+	
+	public int size(){
+		return this.size;
+	}
+	
+	public int getIndex(int i){
+		return this.indices[i];
+	}
+	
+	public double getValue(int i){
+		return this.values[i];
+	}
+	
+	/**
+	 * Copies the features, e.g. to classify them again with another model
+	 * 
+	 * @return returns the copy
+	 */
+	public FeatureVector copy(){
+		FeatureVector copy = new FeatureVector(Math.max(this.size, 1));
+		System.arraycopy(this.indices, 0, copy.indices, 0, this.size);
+		System.arraycopy(this.values, 0, copy.values, 0, this.size);
+		copy.size = this.size;
+		copy.sorted = this.sorted;
+		return copy;
+	}
+	
+	/**
+	 * Maps the attribute indices to the indices of another schema, features without a new index are dropped
+	 * 
+	 * @param attributeMap the new index of every attribute, -1 for dropped attributes
+	 * @param target the vector for the mapped features, it gets cleared
+	 */
+	public void remap(int[] attributeMap, FeatureVector target){
+		target.clear();
+		for (int i = 0; i < this.size; i++){
+			int index = attributeMap[this.indices[i]];
+			if (index != -1) target.add(index, this.values[i]);
+		}
+	}
+	
+	/**
+	 * Sorts the features by attribute index, LibLINEAR sums up the features in this order
+	 */
+	public void sort(){
+		if (this.sorted) return;
+		if (this.sortKeys == null || this.sortKeys.length < this.size){
+			this.sortKeys = new long[this.indices.length];
+		}
+		double[] unsortedValues = Arrays.copyOf(this.values, this.size);
+		for (int i = 0; i < this.size; i++){
+			this.sortKeys[i] = ((long) this.indices[i] << 32) | i;
+		}
+		Arrays.sort(this.sortKeys, 0, this.size);
+		for (int i = 0; i < this.size; i++){
+			this.indices[i] = (int) (this.sortKeys[i] >>> 32);
+			this.values[i] = unsortedValues[(int) this.sortKeys[i]];
+		}
+		this.sorted = true;
+	}
+}
@@ -0,0 +1,412 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import de.bwaldvogel.liblinear.Model;
+
+/**
+ * Immutable LibLINEAR logistic regression model, scores feature vectors without weka.
+ * The model is safe to share across threads. The weights of a compressed model are quantized
+ * to 16 or 8 bit with one scale per class, the bias weights are kept exact.
+ */
+public class LinearModel {
+	private final int nrClass;
+	private final int nrWeights;
+	private final int nrFeature;
+	private final int[] labels;
+	private final double bias;
+	private final int numClassValues;
+	
+	//64 for exact weights, 16 or 8 for quantized weights
+	private final int bits;
+	private final double[] weights;
+	private final short[] weights16;
+	private final byte[] weights8;
+	private final double[] scales;
+	private final double[] biasWeights;
+	
+	/**
+	 * Copies the weights of a trained LibLINEAR model
+	 * 
+	 * @param model the trained LibLINEAR model
+	 * @param numAttributes the number of attributes including the class attribute
+	 * @param numClassValues the number of class values
+	 */
+	public LinearModel(Model model, int numAttributes, int numClassValues){
+		if (!model.isProbabilityModel()){
+			throw new IllegalArgumentException("Probability estimates are only supported for logistic regression models");
+		}
+		this.nrClass = model.getNrClass();
+		this.nrWeights = this.nrClass == 2 ? 1 : this.nrClass;
+		this.nrFeature = model.getNrFeature();
+		this.labels = model.getLabels().clone();
+		this.bias = model.getBias();
+		this.numClassValues = numClassValues;
+		this.bits = 64;
+		this.weights = model.getFeatureWeights().clone();
+		this.weights16 = null;
+		this.weights8 = null;
+		this.scales = null;
+		this.biasWeights = null;
+		if (this.bias >= 0 && this.nrFeature != numAttributes){
+			throw new IllegalArgumentException("Model has " + this.nrFeature + " features, expected " + numAttributes);
+		}
+	}
+	
+	private LinearModel(int nrClass, int nrFeature, int[] labels, double bias, int numClassValues, int bits, double[] weights, short[] weights16, byte[] weights8, double[] scales, double[] biasWeights){
+		this.nrClass = nrClass;
+		this.nrWeights = nrClass == 2 ? 1 : nrClass;
+		this.nrFeature = nrFeature;
+		this.labels = labels;
+		this.bias = bias;
+		this.numClassValues = numClassValues;
+		this.bits = bits;
+		this.weights = weights;
+		this.weights16 = weights16;
+		this.weights8 = weights8;
+		this.scales = scales;
+		this.biasWeights = biasWeights;
+	}
+	
+	/**
+	 * Creates a model from weights in the layout of LibLINEAR, e.g. of a model that was not trained by LibLINEAR
+	 * 
+	 * @param labels the class index of every weight vector
+	 * @param nrFeature the number of features without the bias feature
+	 * @param bias the value of the bias feature, negative without bias
+	 * @param numClassValues the number of class values
+	 * @param weights the weights of every feature and weight vector, followed by the bias weights
+	 * @return returns the model
+	 */
+	public static LinearModel fromWeights(int[] labels, int nrFeature, double bias, int numClassValues, double[] weights){
+		return new LinearModel(labels.length, nrFeature, labels.clone(), bias, numClassValues, 64, weights, null, null, null, null);
+	}
+	
+	/**
+	 * Calculates the class distribution of a feature vector
+	 * 
+	 * @param vector the features of the Tweet
+	 * @return returns the probability for every class value
+	 */
+	public double[] distribution(FeatureVector vector){
+		double[] probEstimates = new double[this.nrWeights];
+		this.decisionValues(vector, probEstimates);
+		return this.toDistribution(probEstimates);
+	}
+	
+	/**
+	 * Classifies a feature vector
+	 * 
+	 * @param vector the features of the Tweet
+	 * @return returns the index of the predicted class
+	 */
+	public int classify(FeatureVector vector){
+		double[] decValues = new double[this.nrWeights];
+		this.decisionValues(vector, decValues);
+		if (this.nrClass == 2){
+			return decValues[0] > 0 ? this.labels[0] : this.labels[1];
+		}
+		int maxIndex = 0;
+		for (int i = 1; i < this.nrClass; i++){
+			if (decValues[i] > decValues[maxIndex]) maxIndex = i;
+		}
+		return this.labels[maxIndex];
+	}
+	
+	public int getBits(){
+		return this.bits;
+	}
+	
+	/**
+	 * Gets the weight of an attribute, quantized weights are scaled back
+	 * 
+	 * @param attribute the attribute index
+	 * @param j the index of the LibLINEAR weight vector
+	 * @return returns the weight
+	 */
+	public double getWeight(int attribute, int j){
+		int pos = attribute * this.nrWeights + j;
+		switch (this.bits){
+			case 16:
+				return this.weights16[pos] * this.scales[j];
+			case 8:
+				return this.weights8[pos] * this.scales[j];
+			default:
+				return this.weights[pos];
+		}
+	}
+	
+	/**
+	 * Gets the bias weight of a weight vector
+	 * 
+	 * @param j the index of the LibLINEAR weight vector
+	 * @return returns the bias weight
+	 */
+	public double getBiasWeight(int j){
+		return this.bits == 64 ? this.weights[this.nrFeature * this.nrWeights + j] : this.biasWeights[j];
+	}
+	
+	/**
+	 * Gets the class index of a weight vector, the weight vector of a binary model belongs to its first label
+	 * 
+	 * @param j the index of the LibLINEAR weight vector
+	 * @return returns the class index
+	 */
+	public int getLabel(int j){
+		return this.labels[j];
+	}
+	
+	/**
+	 * Gets the number of features without the bias feature, the attributes of the model including the class attribute
+	 * 
+	 * @return returns the number of features
+	 */
+	public int getNrFeature(){
+		return this.nrFeature;
+	}
+	
+	/**
+	 * Gets the number of LibLINEAR weight vectors, 1 for binary models
+	 * 
+	 * @return returns the number of weight vectors
+	 */
+	public int getNrWeights(){
+		return this.nrWeights;
+	}
+	
+	/**
+	 * Gets the memory of the weights
+	 * 
+	 * @return returns the size of the weights in bytes
+	 */
+	public long getWeightBytes(){
+		long count = (long) this.nrFeature * this.nrWeights;
+		return this.bits == 64 ? (count + this.nrWeights) * 8 : count * this.bits / 8 + this.nrWeights * 16;
+	}
+	
+	/**
+	 * Removes attributes and quantizes the weights
+	 * 
+	 * @param attributeMap the new index of every attribute, -1 for removed attributes
+	 * @param numAttributes the number of remaining attributes
+	 * @param bits 64 to keep exact weights, 16 or 8 to quantize them
+	 * @return returns the compressed model
+	 */
+	public LinearModel compress(int[] attributeMap, int numAttributes, int bits){
+		if (bits != 64 && bits != 16 && bits != 8){
+			throw new IllegalArgumentException("Weights can only be quantized to 16 or 8 bit");
+		}
+		double[] pruned = new double[numAttributes * this.nrWeights];
+		for (int attribute = 0; attribute < this.nrFeature; attribute++){
+			if (attributeMap[attribute] != -1){
+				for (int j = 0; j < this.nrWeights; j++){
+					pruned[attributeMap[attribute] * this.nrWeights + j] = this.getWeight(attribute, j);
+				}
+			}
+		}
+		double[] biasWeights = new double[this.nrWeights];
+		for (int j = 0; j < this.nrWeights; j++){
+			biasWeights[j] = this.getBiasWeight(j);
+		}
+		if (bits == 64){
+			double[] weights = new double[(numAttributes + 1) * this.nrWeights];
+			System.arraycopy(pruned, 0, weights, 0, pruned.length);
+			System.arraycopy(biasWeights, 0, weights, pruned.length, this.nrWeights);
+			return new LinearModel(this.nrClass, numAttributes, this.labels, this.bias, this.numClassValues, 64, weights, null, null, null, null);
+		}
+	
+		//symmetric quantization with one scale per weight vector
+		int maxValue = (1 << (bits - 1)) - 1;
+		double[] scales = new double[this.nrWeights];
+		for (int pos = 0; pos < pruned.length; pos++){
+			int j = pos % this.nrWeights;
+			scales[j] = Math.max(scales[j], Math.abs(pruned[pos]));
+		}
+		for (int j = 0; j < this.nrWeights; j++){
+			scales[j] = scales[j] == 0 ? 1 : scales[j] / maxValue;
+		}
+		short[] weights16 = bits == 16 ? new short[pruned.length] : null;
+		byte[] weights8 = bits == 8 ? new byte[pruned.length] : null;
+		for (int pos = 0; pos < pruned.length; pos++){
+			long quantized = Math.round(pruned[pos] / scales[pos % this.nrWeights]);
+			if (bits == 16){
+				weights16[pos] = (short) quantized;
+			}
+			else{
+				weights8[pos] = (byte) quantized;
+			}
+		}
+		return new LinearModel(this.nrClass, numAttributes, this.labels, this.bias, this.numClassValues, bits, null, weights16, weights8, scales, biasWeights);
+	}
+	
+	/**
+	 * Writes the model
+	 * 
+	 * @param out the output of the model file
+	 * @throws IOException
+	 */
+	public void write(DataOutput out) throws IOException{
+		out.writeInt(this.nrClass);
+		out.writeInt(this.nrFeature);
+		for (int label : this.labels){
+			out.writeInt(label);
+		}
+		out.writeDouble(this.bias);
+		out.writeInt(this.numClassValues);
+		out.writeInt(this.bits);
+		switch (this.bits){
+			case 16:
+				for (short weight : this.weights16){
+					out.writeShort(weight);
+				}
+				break;
+			case 8:
+				out.write(this.weights8);
+				break;
+			default:
+				for (double weight : this.weights){
+					out.writeDouble(weight);
+				}
+		}
+		if (this.bits != 64){
+			for (int j = 0; j < this.nrWeights; j++){
+				out.writeDouble(this.scales[j]);
+				out.writeDouble(this.biasWeights[j]);
+			}
+		}
+	}
+	
+	/**
+	 * Reads a model
+	 * 
+	 * @param in the input of the model file
+	 * @return returns the model
+	 * @throws IOException
+	 */
+	public static LinearModel read(DataInput in) throws IOException{
+		int nrClass = in.readInt();
+		int nrWeights = nrClass == 2 ? 1 : nrClass;
+		int nrFeature = in.readInt();
+		int[] labels = new int[nrClass];
+		for (int i = 0; i < nrClass; i++){
+			labels[i] = in.readInt();
+		}
+		double bias = in.readDouble();
+		int numClassValues = in.readInt();
+		int bits = in.readInt();
+		int count = nrFeature * nrWeights;
+		double[] weights = null;
+		short[] weights16 = null;
+		byte[] weights8 = null;
+		switch (bits){
+			case 16:
+				weights16 = new short[count];
+				for (int i = 0; i < count; i++){
+					weights16[i] = in.readShort();
+				}
+				break;
+			case 8:
+				weights8 = new byte[count];
+				in.readFully(weights8);
+				break;
+			case 64:
+				weights = new double[count + nrWeights];
+				for (int i = 0; i < weights.length; i++){
+					weights[i] = in.readDouble();
+				}
+				break;
+			default:
+				throw new IOException("Invalid number of bits: " + bits);
+		}
+		double[] scales = null;
+		double[] biasWeights = null;
+		if (bits != 64){
+			scales = new double[nrWeights];
+			biasWeights = new double[nrWeights];
+			for (int j = 0; j < nrWeights; j++){
+				scales[j] = in.readDouble();
+				biasWeights[j] = in.readDouble();
+			}
+		}
+		return new LinearModel(nrClass, nrFeature, labels, bias, numClassValues, bits, weights, weights16, weights8, scales, biasWeights);
+	}
+	
+	/**
+	 * Calculates the decision values in the same order as LibLINEAR, the bias feature is added after the class attribute
+	 * 
+	 * @param vector the features of the Tweet
+	 * @param decValues the array for the decision values of all classes
+	 */
+	private void decisionValues(FeatureVector vector, double[] decValues){
+		vector.sort();
+		if (this.bits != 64){
+			this.quantizedDecisionValues(vector, decValues);
+			return;
+		}
+		for (int i = 0; i < vector.size(); i++){
+			int offset = vector.getIndex(i) * this.nrWeights;
+			double value = vector.getValue(i);
+			for (int j = 0; j < this.nrWeights; j++){
+				decValues[j] += this.weights[offset + j] * value;
+			}
+		}
+		if (this.bias >= 0){
+			int offset = this.nrFeature * this.nrWeights;
+			for (int j = 0; j < this.nrWeights; j++){
+				decValues[j] += this.weights[offset + j] * this.bias;
+			}
+		}
+	}
+	
+	/**
+	 * Calculates the decision values with the quantized weights, the sums are scaled once per class
+	 * 
+	 * @param vector the sorted features of the Tweet
+	 * @param decValues the array for the decision values of all classes
+	 */
+	private void quantizedDecisionValues(FeatureVector vector, double[] decValues){
+		for (int i = 0; i < vector.size(); i++){
+			int offset = vector.getIndex(i) * this.nrWeights;
+			double value = vector.getValue(i);
+			for (int j = 0; j < this.nrWeights; j++){
+				decValues[j] += (this.bits == 16 ? this.weights16[offset + j] : this.weights8[offset + j]) * value;
+			}
+		}
+		for (int j = 0; j < this.nrWeights; j++){
+			decValues[j] *= this.scales[j];
+			if (this.bias >= 0){
+				decValues[j] += this.biasWeights[j] * this.bias;
+			}
+		}
+	}
+	
+	/**
+	 * Converts the decision values to probabilities in the order of the class values
+	 * 
+	 * @param probEstimates the decision values, gets overwritten with the probabilities of the LibLINEAR labels
+	 * @return returns the probability for every class value
+	 */
+	private double[] toDistribution(double[] probEstimates){
+		double[] prob = new double[this.nrClass];
+		for (int i = 0; i < this.nrWeights; i++){
+			prob[i] = 1 / (1 + Math.exp(-probEstimates[i]));
+		}
+		if (this.nrClass == 2){
+			prob[1] = 1. - prob[0];
+		}
+		else{
+			double sum = 0;
+			for (int i = 0; i < this.nrClass; i++){
+				sum += prob[i];
+			}
+			for (int i = 0; i < this.nrClass; i++){
+				prob[i] = prob[i] / sum;
+			}
+		}
+		double[] distribution = new double[this.numClassValues];
+		for (int i = 0; i < this.nrClass; i++){
+			distribution[this.labels[i]] = prob[i];
+		}
+		return distribution;
+	}
+}
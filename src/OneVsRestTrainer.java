@@ -0,0 +1,237 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import de.bwaldvogel.liblinear.Feature;
+import de.bwaldvogel.liblinear.Linear;
+import de.bwaldvogel.liblinear.Model;
+import de.bwaldvogel.liblinear.Parameter;
+import de.bwaldvogel.liblinear.Problem;
+import de.bwaldvogel.liblinear.SolverType;
+
+/**
+ * Trains the one-vs-rest subproblems of a multi-class LibLINEAR model concurrently. Every class is trained as
+ * binary problem with the class as first label, the weights are merged into a model with the same layout as
+ * the model of Linear.train. The first class is trained on the same instance order as in Linear.train and gets
+ * identical weights, the other classes only differ in the summation order of the solver and are checked with
+ * a tolerance (see main).
+ */
+public class OneVsRestTrainer {
+
+	//maximal difference of the weights to the sequentially trained model, relative to the largest weight
+	public static final double TOLERANCE = 1e-4;
+
+	/**
+	 * Trains a model, the classes are trained concurrently
+	 *
+	 * @param problem the problem
+	 * @param parameter the parameter of the solver
+	 * @param threads the number of threads
+	 * @return returns the trained model
+	 */
+	public static Model train(final Problem problem, final Parameter parameter, int threads){
+		//group the instances by class in the order of first appearance, like LibLINEAR does
+		List<Integer> labels = new ArrayList<Integer>();
+		int[] classOfInstance = new int[problem.l];
+		List<Integer> counts = new ArrayList<Integer>();
+		for (int i = 0; i < problem.l; i++){
+			int label = (int) problem.y[i];
+			int c = labels.indexOf(label);
+			if (c == -1){
+				c = labels.size();
+				labels.add(label);
+				counts.add(0);
+			}
+			counts.set(c, counts.get(c) + 1);
+			classOfInstance[i] = c;
+		}
+		final int nrClass = labels.size();
+
+		//only the primal solvers do not use the shared random generator of LibLINEAR
+		SolverType solverType = parameter.getSolverType();
+		boolean primal = solverType == SolverType.L2R_LR || solverType == SolverType.L2R_L2LOSS_SVC;
+		if (threads <= 1 || nrClass <= 2 || !primal || parameter.getNumWeights() > 0){
+			return Linear.train(problem, parameter);
+		}
+
+		int[] start = new int[nrClass];
+		for (int c = 1; c < nrClass; c++){
+			start[c] = start[c - 1] + counts.get(c - 1);
+		}
+		final Feature[][] grouped = new Feature[problem.l][];
+		int[] next = start.clone();
+		for (int i = 0; i < problem.l; i++){
+			grouped[next[classOfInstance[i]]++] = problem.x[i];
+		}
+		final int[] classStart = start;
+		final List<Integer> classCounts = counts;
+
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, nrClass));
+		try{
+			List<Future<double[]>> futures = new ArrayList<Future<double[]>>();
+			for (int c = 0; c < nrClass; c++){
+				final int positive = c;
+				futures.add(executor.submit(new Callable<double[]>(){
+					public double[] call(){
+						return trainClass(problem, parameter, grouped, classStart[positive], classCounts.get(positive));
+					}
+				}));
+			}
+			double[][] weights = new double[nrClass][];
+			for (int c = 0; c < nrClass; c++){
+				weights[c] = futures.get(c).get();
+			}
+			return toModel(problem, parameter, labels, weights);
+		}
+		catch (InterruptedException e){
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Training was interrupted", e);
+		}
+		catch (ExecutionException e){
+			throw new RuntimeException("Training failed", e.getCause());
+		}
+		catch (IOException e){
+			throw new RuntimeException("Could not build the model", e);
+		}
+		finally{
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Trains the binary problem of one class against all other classes
+	 *
+	 * @param problem the multi-class problem
+	 * @param parameter the parameter of the solver
+	 * @param grouped the instances grouped by class
+	 * @param start the position of the first instance of the class
+	 * @param count the number of instances of the class
+	 * @return returns the weights of the class
+	 */
+	private static double[] trainClass(Problem problem, Parameter parameter, Feature[][] grouped, int start, int count){
+		//the instances of the class come first, so +1 is the first label, the others keep the grouped order
+		Problem binary = new Problem();
+		binary.l = problem.l;
+		binary.n = problem.n;
+		binary.bias = problem.bias;
+		binary.x = new Feature[problem.l][];
+		binary.y = new double[problem.l];
+		int pos = 0;
+		for (int i = start; i < start + count; i++){
+			binary.x[pos] = grouped[i];
+			binary.y[pos++] = 1;
+		}
+		for (int i = 0; i < problem.l; i++){
+			if (i < start || i >= start + count){
+				binary.x[pos] = grouped[i];
+				binary.y[pos++] = -1;
+			}
+		}
+		return Linear.train(binary, parameter).getFeatureWeights();
+	}
+
+	/**
+	 * Builds a model with the merged weights, the model is loaded from the LibLINEAR text format
+	 * with the exact decimal representation of the weights
+	 *
+	 * @param problem the problem
+	 * @param parameter the parameter of the solver
+	 * @param labels the labels in the order of first appearance
+	 * @param weights the weights of every class
+	 * @return returns the model
+	 * @throws IOException
+	 */
+	private static Model toModel(Problem problem, Parameter parameter, List<Integer> labels, double[][] weights) throws IOException{
+		int nrFeature = problem.bias >= 0 ? problem.n - 1 : problem.n;
+		StringBuilder text = new StringBuilder();
+		text.append("solver_type ").append(parameter.getSolverType().name()).append('\n');
+		text.append("nr_class ").append(labels.size()).append('\n');
+		text.append("label");
+		for (int label : labels){
+			text.append(' ').append(label);
+		}
+		text.append('\n');
+		text.append("nr_feature ").append(nrFeature).append('\n');
+		text.append("bias ").append(problem.bias).append('\n');
+		text.append("w\n");
+		for (int j = 0; j < weights[0].length; j++){
+			for (int c = 0; c < weights.length; c++){
+				text.append(weights[c][j]).append(' ');
+			}
+			text.append('\n');
+		}
+		return Model.load(new StringReader(text.toString()));
+	}
+
+	/**
+	 * Gets the largest difference of the weights of two models, relative to the largest weight
+	 *
+	 * @param a the first model
+	 * @param b the second model
+	 * @return returns the relative difference
+	 */
+	public static double weightDifference(Model a, Model b){
+		double[] wa = a.getFeatureWeights();
+		double[] wb = b.getFeatureWeights();
+		if (wa.length != wb.length){
+			return Double.POSITIVE_INFINITY;
+		}
+		double max = 0;
+		double difference = 0;
+		for (int i = 0; i < wa.length; i++){
+			max = Math.max(max, Math.abs(wa[i]));
+			difference = Math.max(difference, Math.abs(wa[i] - wb[i]));
+		}
+		return max == 0 ? difference : difference / max;
+	}
+
+	/**
+	 * Trains a matrix or arff file sequentially and in parallel and checks that the models are within the tolerance.
+	 * Usage: OneVsRestTrainer file cost [threads]
+	 * @param args Command-Line Arguments
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException{
+		File file = new File(args[0]);
+		double cost = Double.parseDouble(args[1]);
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+		Problem problem;
+		if (file.getName().endsWith(".csr")){
+			problem = TrainedModel.toProblem(FeatureMatrix.open(file));
+		}
+		else{
+			SparseArffReader reader = new SparseArffReader(file);
+			try{
+				problem = TrainedModel.toProblem(reader);
+			}
+			finally{
+				reader.close();
+			}
+		}
+
+		Linear.disableDebugOutput();
+		Parameter parameter = new Parameter(SolverType.L2R_LR, cost, TrainedModel.EPS);
+		long startTime = System.currentTimeMillis();
+		Model sequential = Linear.train(problem, parameter);
+		long sequentialTime = System.currentTimeMillis() - startTime;
+		startTime = System.currentTimeMillis();
+		Model parallel = train(problem, parameter, threads);
+		long parallelTime = System.currentTimeMillis() - startTime;
+
+		double difference = weightDifference(sequential, parallel);
+		System.out.println("sequential: " + sequentialTime + " ms, parallel with " + threads + " threads: " + parallelTime + " ms");
+		System.out.println("relative weight difference: " + difference + (sequential.equals(parallel) ? " (identical)" : ""));
+		if (difference > TOLERANCE){
+			System.out.println("The parallel model exceeds the tolerance of " + TOLERANCE);
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,117 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary file with the probability distributions a system calculated for the test Tweets, together with the IDs and
+ * the gold labels of the Tweets. The ensemble can be combined from these files without tagging or classifying the
+ * Tweets again (see evalEnsemble).
+ */
+public class ProbabilityDump {
+
+	private static final int MAGIC = 0x57454250;
+	private static final int VERSION = 2;
+
+	private ProbabilityDump(){
+	}
+
+	/**
+	 * Gets the dump file of a system
+	 *
+	 * @param directory the directory of the dumps
+	 * @param system the name of the system
+	 * @return returns the dump file
+	 */
+	public static File dumpFile(File directory, String system){
+		return new File(directory, "Probabilities-" + system + ".bin");
+	}
+
+	/**
+	 * Writes the results of a system
+	 *
+	 * @param file the dump file
+	 * @param system the name of the system
+	 * @param results the results of the classification
+	 * @throws IOException
+	 */
+	public static void write(File file, String system, ResultStore results) throws IOException{
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		try{
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeUTF(system);
+			out.writeInt(results.size());
+			for (int t = 0; t < results.size(); t++){
+				out.writeUTF(results.getTweet(t).getTweetID());
+				out.writeUTF(results.getTweet(t).getSentiment());
+				for (int c = 0; c < ResultStore.NUM_CLASSES; c++){
+					out.writeFloat(results.getProbability(t, c));
+				}
+			}
+		}
+		finally{
+			out.close();
+		}
+	}
+
+	/**
+	 * Reads the results of a system, the Tweets of the results only have their IDs and gold labels
+	 *
+	 * @param file the dump file
+	 * @return returns the results in the order they were written
+	 * @throws IOException if the file has an unknown format or version
+	 */
+	public static ResultStore read(File file) throws IOException{
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try{
+			if (in.readInt() != MAGIC || in.readInt() != VERSION){
+				throw new IOException("Unknown format of the probability dump " + file.getName());
+			}
+			in.readUTF();
+			int size = in.readInt();
+			List<Tweet> tweets = new ArrayList<Tweet>(size);
+			float[] probabilities = new float[size * ResultStore.NUM_CLASSES];
+			for (int t = 0; t < size; t++){
+				String tweetID = in.readUTF();
+				tweets.add(new Tweet("", in.readUTF(), tweetID));
+				for (int c = 0; c < ResultStore.NUM_CLASSES; c++){
+					probabilities[t * ResultStore.NUM_CLASSES + c] = in.readFloat();
+				}
+			}
+			return new ResultStore(tweets, probabilities);
+		}
+		finally{
+			in.close();
+		}
+	}
+
+	/**
+	 * Parses the systems and weights of an ensemble, e.g. "NRC:1,GUMLTLT:1,KLUE:0.5", a system without a weight gets 1
+	 *
+	 * @param systems the systems and weights separated by commas
+	 * @return returns the weights by the names of the systems in the given order
+	 */
+	public static Map<String, Double> parseWeights(String systems){
+		Map<String, Double> weights = new LinkedHashMap<String, Double>();
+		for (String system : systems.split(",")){
+			String[] parts = system.trim().split(":");
+			if (parts[0].isEmpty()){
+				continue;
+			}
+			weights.put(parts[0], parts.length > 1 ? Double.parseDouble(parts[1]) : 1.0);
+		}
+		if (weights.isEmpty()){
+			throw new IllegalArgumentException("No systems in: " + systems);
+		}
+		return weights;
+	}
+}
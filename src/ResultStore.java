@@ -0,0 +1,142 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The probability distributions a system calculated for a list of Tweets. A Tweet is identified by its ordinal, its
+ * index in the list, and the distributions are stored in one array, so the results of systems that classified the
+ * same list of Tweets are joined by the ordinal instead of the Tweet ID. ClassificationResult is a view on one row.
+ */
+public class ResultStore {
+
+	public static final int NUM_CLASSES = 3;
+
+	private final List<Tweet> tweets;
+	//NUM_CLASSES probabilities per Tweet, NaN for Tweets without a result
+	private final float[] distributions;
+
+	/**
+	 * @param tweets the Tweets, their index is their ordinal
+	 */
+	public ResultStore(List<Tweet> tweets){
+		this.tweets = tweets;
+		this.distributions = new float[tweets.size() * NUM_CLASSES];
+		Arrays.fill(this.distributions, Float.NaN);
+	}
+
+	/**
+	 * @param tweets the Tweets, their index is their ordinal
+	 * @param distributions the probabilities of the classes of every Tweet one after another
+	 */
+	public ResultStore(List<Tweet> tweets, float[] distributions){
+		if (distributions.length != tweets.size() * NUM_CLASSES){
+			throw new IllegalArgumentException("Expected " + tweets.size() * NUM_CLASSES + " probabilities, got " + distributions.length);
+		}
+		this.tweets = tweets;
+		this.distributions = distributions;
+	}
+
+	public int size(){
+		return this.tweets.size();
+	}
+
+	public Tweet getTweet(int ordinal){
+		return this.tweets.get(ordinal);
+	}
+
+	/**
+	 * Stores the result of a Tweet
+	 *
+	 * @param ordinal the ordinal of the Tweet
+	 * @param distribution the probability distribution of the classes
+	 */
+	public void set(int ordinal, double[] distribution){
+		for (int c = 0; c < NUM_CLASSES; c++){
+			this.distributions[ordinal * NUM_CLASSES + c] = (float) distribution[c];
+		}
+	}
+
+	/**
+	 * Copies the results of a batch that was classified from a sublist of the Tweets
+	 *
+	 * @param batch the results of the batch
+	 * @param offset the ordinal of the first Tweet of the batch
+	 */
+	public void setAll(ResultStore batch, int offset){
+		System.arraycopy(batch.distributions, 0, this.distributions, offset * NUM_CLASSES, batch.distributions.length);
+	}
+
+	/**
+	 * Gets whether a Tweet has a result, e.g. a Tweet a system of a deadline-aware ensemble dropped has none
+	 *
+	 * @param ordinal the ordinal of the Tweet
+	 * @return returns true if the Tweet has a result
+	 */
+	public boolean hasResult(int ordinal){
+		return !Float.isNaN(this.distributions[ordinal * NUM_CLASSES]);
+	}
+
+	public float getProbability(int ordinal, int classValue){
+		return this.distributions[ordinal * NUM_CLASSES + classValue];
+	}
+
+	/**
+	 * Gets the most probable class of a Tweet
+	 *
+	 * @param ordinal the ordinal of the Tweet
+	 * @return returns the index of the class value
+	 */
+	public int getResult(int ordinal){
+		int result = 0;
+		for (int c = 1; c < NUM_CLASSES; c++){
+			if (this.getProbability(ordinal, c) > this.getProbability(ordinal, result)){
+				result = c;
+			}
+		}
+		return result;
+	}
+
+	public ClassificationResult get(int ordinal){
+		return new ClassificationResult(this, ordinal);
+	}
+
+	/**
+	 * Gets whether the results belong to the same Tweets in the same order, so they can be joined by the ordinal
+	 *
+	 * @param other the other results
+	 * @return returns true if the Tweets have the same IDs
+	 */
+	public boolean hasSameTweets(ResultStore other){
+		if (other.size() != this.size()){
+			return false;
+		}
+		for (int i = 0; i < this.size(); i++){
+			if (!this.getTweet(i).getTweetID().equals(other.getTweet(i).getTweetID())){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Copies the results into the order of the Tweets of other results, Tweets that are missing have no result
+	 *
+	 * @param reference the results with the order of the Tweets
+	 * @return returns the results in the order of the reference
+	 */
+	public ResultStore alignTo(ResultStore reference){
+		Map<String, Integer> ordinals = new HashMap<String, Integer>();
+		for (int i = 0; i < this.size(); i++){
+			ordinals.put(this.getTweet(i).getTweetID(), i);
+		}
+		ResultStore aligned = new ResultStore(reference.tweets);
+		for (int i = 0; i < reference.size(); i++){
+			Integer ordinal = ordinals.get(reference.getTweet(i).getTweetID());
+			if (ordinal != null){
+				System.arraycopy(this.distributions, ordinal * NUM_CLASSES, aligned.distributions, i * NUM_CLASSES, NUM_CLASSES);
+			}
+		}
+		return aligned;
+	}
+}
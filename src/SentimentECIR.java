@@ -1,3 +1,5 @@
+import java.io.File;
+
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Set;
@@ -28,6 +30,13 @@ public class SentimentECIR {
 		String nameOfKLUETrain = "";
 		int evalmodelmode = 0;
 		int trainmodelmode = 0;
+		String featureFormat = "arff";
+		double pruneThreshold = 0.001;
+		int quantizationBits = 16;
+		int epochs = 5;
+		double cascadeThreshold = 0.9;
+		long latencyBudget = 1000;
+		int batchSize = 32;
 		Options options = new Options();
 		
 		options.addOption("on", true, "output Name");
@@ -36,6 +45,22 @@ public class SentimentECIR {
 		options.addOption("tf3", true, "Name of the KLUE Trainfile");
 		options.addOption("em", true, "Eval Modelmode");
 		options.addOption("tm", true, "Train Modelmode");
+		options.addOption("ff", true, "Format of the Trainfile (arff, csr or both)");
+		options.addOption("tt", true, "Number of Training Threads");
+		options.addOption("th", true, "Number of Threads to create the Features");
+		options.addOption("st", true, "Number of Threads to compute the Stages of a Tweet");
+		options.addOption("ps", false, "Run the Systems of trainAll and evalAll in parallel");
+		options.addOption("pt", true, "Prune Threshold of the compressed model");
+		options.addOption("qb", true, "Quantization Bits of the compressed model (16, 8 or 64)");
+		options.addOption("ep", true, "Number of Epochs of the streaming and incremental Training");
+		options.addOption("ct", true, "Confidence Threshold of the Cascade");
+		options.addOption("cf", false, "Compare the Cascade with the full Average");
+		options.addOption("lb", true, "Latency Budget of a Batch in milliseconds");
+		options.addOption("bs", true, "Number of Tweets of a Batch with a Latency Budget");
+		options.addOption("pd", true, "Directory of the Probability Dumps of eval, evalAll and evalEnsemble");
+		options.addOption("es", true, "Systems and Weights of evalEnsemble, e.g. NRC:1,KLUE:0.5");
+		options.addOption("tc", true, "Directory of the Cache of tagged Tweets");
+		options.addOption("sb", true, "Number of Threads to tag the Tweets of TeamX with the Stanford Tagger in one Batch");
 		
 		CommandLineParser parser = new GnuParser();
 		try {
@@ -59,11 +84,53 @@ public class SentimentECIR {
 			if(line.hasOption("tm")){
 				trainmodelmode = Integer.parseInt(line.getOptionValue("tm"));
 			}
+			if(line.hasOption("ff")){
+				featureFormat = line.getOptionValue("ff");
+			}
+			if(line.hasOption("tt")){
+				TrainedModel.setTrainingThreads(Integer.parseInt(line.getOptionValue("tt")));
+			}
+			if(line.hasOption("th")){
+				SentimentSystem.setThreads(Integer.parseInt(line.getOptionValue("th")));
+			}
+			if(line.hasOption("st")){
+				SentimentSystem.setStageThreads(Integer.parseInt(line.getOptionValue("st")));
+			}
+			if(line.hasOption("pt")){
+				pruneThreshold = Double.parseDouble(line.getOptionValue("pt"));
+			}
+			if(line.hasOption("qb")){
+				quantizationBits = Integer.parseInt(line.getOptionValue("qb"));
+			}
+			if(line.hasOption("ep")){
+				epochs = Integer.parseInt(line.getOptionValue("ep"));
+			}
+			if(line.hasOption("ct")){
+				cascadeThreshold = Double.parseDouble(line.getOptionValue("ct"));
+			}
+			if(line.hasOption("lb")){
+				latencyBudget = Long.parseLong(line.getOptionValue("lb"));
+			}
+			if(line.hasOption("bs")){
+				batchSize = Integer.parseInt(line.getOptionValue("bs"));
+			}
+			if(line.hasOption("pd")){
+				SentimentSystem.setDumpDirectory(new File(line.getOptionValue("pd")));
+			}
+			if(line.hasOption("tc")){
+				TaggedCache.open(new File(line.getOptionValue("tc")));
+			}
+			if(line.hasOption("sb")){
+				StanfordBatchTagger.setThreads(Integer.parseInt(line.getOptionValue("sb")));
+			}
 			
 			String[] argList = line.getArgs();
 			PATH = argList[1]; //Path to Test or Traindata
 			
-			SentimentanalysisECIR sentimentanalysis = new SentimentanalysisECIR(PATH);
+			//the Tweets of extractStreaming are streamed from the file and not loaded
+			SentimentanalysisECIR sentimentanalysis = new SentimentanalysisECIR(PATH, !argList[0].equals("extractStreaming"));
+			sentimentanalysis.setFeatureFormat(featureFormat);
+			sentimentanalysis.setParallelSystems(line.hasOption("ps"));
 			
 			switch (argList[0]){
 				case "eval":
@@ -72,15 +139,37 @@ public class SentimentECIR {
 				case "evalAll":
 					sentimentanalysis.testAllSystem(nameOfNRCTrain, nameOfGUMLTTrain, nameOfKLUETrain);
 					break;
+				case "evalDeadline":
+					sentimentanalysis.testAllSystemDeadline(nameOfNRCTrain, nameOfGUMLTTrain, nameOfKLUETrain, latencyBudget, batchSize);
+					break;
+				case "evalEnsemble":
+					sentimentanalysis.testEnsemble(new File(line.getOptionValue("pd", "resources/erg")), line.getOptionValue("es"));
+					break;
+				case "evalCascade":
+					sentimentanalysis.testCascade(nameOfNRCTrain, nameOfGUMLTTrain, nameOfKLUETrain, cascadeThreshold, line.hasOption("cf"));
+					break;
 				case "train":
 					sentimentanalysis.trainSystem(trainmodelmode, name);
 					break;
+				case "trainIncremental":
+					sentimentanalysis.trainSystemIncremental(trainmodelmode, nameOfNRCTrain, epochs);
+					break;
+				case "trainStreaming":
+					sentimentanalysis.trainSystemStreaming(trainmodelmode, nameOfNRCTrain, epochs);
+					break;
+				case "extractStreaming":
+					sentimentanalysis.extractSystemStreaming(trainmodelmode, name);
+					break;
+				case "compress":
+					sentimentanalysis.compressSystem(trainmodelmode, nameOfNRCTrain, pruneThreshold, quantizationBits);
+					break;
 				case "trainAll":
 					sentimentanalysis.trainAllSystems(name);
 					break;
 				default:
 					throw new IllegalArgumentException("Invalid mode: " + argList[0]);
 			}					
+			TaggedCache.saveAll();
 		}
 		catch(ParseException exp){
 			System.err.println("Parsing failed.  Reason: " + exp.getMessage());
@@ -1,26 +1,67 @@
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import weka.core.Instances;
+import weka.core.converters.ArffSaver;
 import weka.core.stemmers.SnowballStemmer;
 import weka.core.tokenizers.NGramTokenizer;
+import cmu.arktweetnlp.Tagger;
 import cmu.arktweetnlp.Tagger.TaggedToken;
 import cmu.arktweetnlp.impl.features.WordClusterPaths;
 
 /**
  * Provides functions to get features
  */
-public class SentimentSystem {
+public abstract class SentimentSystem implements Cloneable {
 	
 	protected Set<Tweet> tweetList;
+	
+	//trained model and its feature schema, set by loadClassifier of the systems
+	protected TrainedModel trainedModel;
+	protected LinearModel model;
+	protected FeatureSchema schema;
+	
+	//format of the saved training features: arff, csr or both
+	protected String featureFormat = "arff";
+	
+	//number of threads to create the features of the Tweets, 1 processes them sequentially
+	private static int threads = 1;
+	
+	//number of Tweets a worker takes at once from a parallel batch
+	private static final int CHUNK_SIZE = 32;
+	
+	//number of threads of this system, 0 uses the threads of setThreads
+	private int systemThreads = 0;
+	
+	//preprocessing shared with the other systems of an ensemble, null if the system preprocesses the Tweets itself
+	private SharedPreprocessing sharedPreprocessing = null;
+	
+	//executor for the independent stages of a Tweet, null computes the stages in the thread of the worker
+	private static ExecutorService stageExecutor = null;
+	
+	//directory the probability distributions of test are written to, null writes none
+	private static File dumpDirectory = null;
+	
+	//reusable feature vector of the system or of a worker
+	private FeatureVector vector = new FeatureVector();
 
     /**
      * Constructor gets all Tweets in a list.
@@ -31,6 +72,614 @@ public class SentimentSystem {
 		this.tweetList = tweetList;
 	}
 	
+	/**
+	 * Sets the format of the saved training features
+	 * 
+	 * @param featureFormat arff for weka, csr for the binary matrix format or both
+	 */
+	public void setFeatureFormat(String featureFormat){
+		if (!featureFormat.equals("arff") && !featureFormat.equals("csr") && !featureFormat.equals("both")){
+			throw new IllegalArgumentException("Invalid feature format: " + featureFormat);
+		}
+		this.featureFormat = featureFormat;
+	}
+	
+	/**
+	 * Sets the number of threads to create the features of the Tweets in train and test, every thread gets its own taggers.
+	 * The results do not depend on the number of threads.
+	 * 
+	 * @param numThreads the number of threads, 1 processes the Tweets sequentially
+	 */
+	public static void setThreads(int numThreads){
+		threads = numThreads;
+	}
+	
+	public static int getThreads(){
+		return threads;
+	}
+	
+	/**
+	 * Sets the number of threads to compute the independent stages of a Tweet at the same time (see TweetArtifacts.pull).
+	 * The stages of a Tweet are small, so it only pays off if there are less Tweets than threads.
+	 * 
+	 * @param numThreads the number of threads, 1 computes the stages in the thread of the worker
+	 */
+	public static synchronized void setStageThreads(int numThreads){
+		if (stageExecutor != null){
+			stageExecutor.shutdown();
+			stageExecutor = null;
+		}
+		if (numThreads > 1){
+			stageExecutor = Executors.newFixedThreadPool(numThreads, new ThreadFactory(){
+				public Thread newThread(Runnable runnable){
+					Thread thread = new Thread(runnable, "stage");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+	}
+	
+	/**
+	 * Sets the directory test writes the probability distributions of every system to (see ProbabilityDump)
+	 * 
+	 * @param directory the directory, null to write no distributions
+	 */
+	public static void setDumpDirectory(File directory){
+		dumpDirectory = directory;
+	}
+	
+	/**
+	 * Sets the number of threads of this system, e.g. its share of the threads if several systems run at the same time
+	 * 
+	 * @param numThreads the number of threads, 0 uses the threads of setThreads
+	 */
+	public void setSystemThreads(int numThreads){
+		this.systemThreads = numThreads;
+	}
+	
+	/**
+	 * Sets the preprocessing that is shared with the other systems of an ensemble
+	 * 
+	 * @param sharedPreprocessing the shared preprocessing, null to preprocess the Tweets in the system
+	 */
+	public void setSharedPreprocessing(SharedPreprocessing sharedPreprocessing){
+		this.sharedPreprocessing = sharedPreprocessing;
+	}
+	
+	/**
+	 * Saves the training instances in the selected format
+	 * 
+	 * @param trainingSet the training instances
+	 * @param filename the filename of the training features
+	 * @return returns the saved file the model is trained from, the matrix file if both formats are saved
+	 * @throws IOException
+	 */
+	protected File saveFeatures(Instances trainingSet, String filename) throws IOException{
+		File featureFile = null;
+		if (!this.featureFormat.equals("csr")){
+			ArffSaver saver = new ArffSaver();
+			saver.setInstances(trainingSet);
+			featureFile = new File("resources/arff/" + filename + ".arff");
+			saver.setFile(featureFile);
+			saver.writeBatch();
+			
+			//remove an outdated matrix file, it would be preferred over the new arff file
+			if (this.featureFormat.equals("arff")){
+				FeatureMatrix.matrixFile(filename).delete();
+			}
+		}
+		if (!this.featureFormat.equals("arff")){
+			featureFile = FeatureMatrix.matrixFile(filename);
+			FeatureMatrix.save(trainingSet, featureFile);
+		}
+		System.out.println(filename + " saved");
+		return featureFile;
+	}
+	
+	/**
+	 * Gets the name of the system, it is used for the trained models and features
+	 * 
+	 * @return returns the name of the system
+	 */
+	protected abstract String getName();
+	
+	/**
+	 * Gets the cost parameter C of the system
+	 * 
+	 * @return returns the cost
+	 */
+	protected abstract double getCost();
+	
+	/**
+	 * Trains the system with the Tweets and saves the training features
+	 * 
+	 * @param savename optional filename suffix of the training features
+	 * @throws Exception
+	 */
+	public abstract void train(String savename) throws Exception;
+	
+	/**
+	 * Classifies the Tweets with a trained model
+	 * 
+	 * @param nameOfTrain optional filename of the trained features
+	 * @return returns the results, the ordinals of the Tweets are their indices in the Tweet list
+	 * @throws Exception
+	 */
+	public abstract ResultStore test(String nameOfTrain) throws Exception;
+	
+	/**
+	 * Gets the stages of the Tweet the system reads, they are applied to the Tweet in this order by pull
+	 * 
+	 * @return returns the stages
+	 */
+	protected abstract List<Stage<?>> getStages();
+	
+	/**
+	 * Loads the trained model, the pos-tagger and the sentiment lexica to classify Tweets
+	 * 
+	 * @param nameOfTrain optional filename of the trained features
+	 * @throws IOException
+	 */
+	public abstract void loadClassifier(String nameOfTrain) throws IOException;
+	
+	/**
+	 * Resolves the dictionaries of the sparse features and the slots of the dense features in the schema of the trained model
+	 */
+	protected abstract void resolveSchema();
+	
+	/**
+	 * Loads the resources the features of a Tweet need, e.g. the sentiment lexica. loadClassifier loads them after the
+	 * trained model.
+	 * 
+	 * @throws IOException
+	 */
+	protected abstract void loadResources() throws IOException;
+	
+	/**
+	 * Loads the resources that are not thread-safe, e.g. the pos-tagger. Every worker of a parallel test loads its own,
+	 * the trained model, the schema and the lexica are shared.
+	 * 
+	 * @throws IOException
+	 */
+	protected abstract void loadWorkerResources() throws IOException;
+	
+	/**
+	 * Gets an ARK Tagger for the system or a worker, the model is loaded once and shared by all taggers (see TaggerPool)
+	 * 
+	 * @return returns the tagger
+	 * @throws IOException
+	 */
+	protected static Tagger loadTagger() throws IOException{
+		return TaggerPool.newTagger();
+	}
+	
+	/**
+	 * Tokenizes and tags a string with the ARK Tagger, the tagged strings of earlier runs are read from the cache (see TaggedCache)
+	 * 
+	 * @param tagger the ARK Tagger of the calling thread
+	 * @param text the string
+	 * @return returns the tokens and tags
+	 */
+	protected static List<TaggedToken> tokenizeAndTag(Tagger tagger, String text){
+		TaggedCache cache = TaggedCache.getArk();
+		if (cache == null){
+			return tagger.tokenizeAndTag(text);
+		}
+		List<TaggedToken> tokens = cache.get(text);
+		if (tokens == null){
+			tokens = tagger.tokenizeAndTag(text);
+			cache.put(text, tokens);
+		}
+		return tokens;
+	}
+	
+	/**
+	 * Preprocesses and tags the Tweet and creates its features
+	 * 
+	 * @param tweet the Tweet
+	 * @param vector the cleared vector for the features
+	 * @throws IOException
+	 */
+	protected abstract void createFeatures(Tweet tweet, FeatureVector vector) throws IOException;
+	
+	/**
+	 * Gets whether a trained model is loaded
+	 * 
+	 * @return returns true if the classifier was loaded
+	 */
+	public boolean isClassifierLoaded(){
+		return this.trainedModel != null;
+	}
+	
+	/**
+	 * Sets the trained model and resolves the features of its schema
+	 * 
+	 * @param trainedModel the trained model
+	 */
+	protected void setTrainedModel(TrainedModel trainedModel){
+		this.trainedModel = trainedModel;
+		this.model = trainedModel.getLinearModel();
+		this.schema = trainedModel.getSchema();
+		this.resolveSchema();
+	}
+	
+	/**
+	 * Creates the features of the Tweets and classifies them, the probability distribution of every Tweet is calculated only once
+	 * 
+	 * @param tweets the Tweets to classify
+	 * @return returns the results, the ordinals of the Tweets are their indices
+	 * @throws IOException
+	 */
+	public ResultStore classifyBatch(List<Tweet> tweets) throws IOException{
+		if (this.model == null){
+			throw new IllegalStateException("loadClassifier has to be called before classifyBatch");
+		}
+		final ResultStore results = new ResultStore(tweets);
+		List<SentimentSystem> workers = this.createWorkers(tweets.size());
+		this.prepareBatch(workers, tweets);
+		this.forEachTweet(workers, tweets, new TweetTask<SentimentSystem>(){
+			public void process(SentimentSystem worker, int index, Tweet tweet) throws IOException{
+				worker.vector.clear();
+				worker.createFeatures(tweet, worker.vector);
+				results.set(index, worker.model.distribution(worker.vector));
+			}
+		});
+		return results;
+	}
+	
+	/**
+	 * Processes the whole batch before the features of the single Tweets are created, e.g. to tag all Tweets at once.
+	 * The default does nothing.
+	 * 
+	 * @param workers the workers of createWorkers
+	 * @param tweets the Tweets of the batch
+	 * @throws IOException
+	 */
+	protected void prepareBatch(List<SentimentSystem> workers, List<Tweet> tweets) throws IOException{
+	}
+	
+	/**
+	 * Work on a single Tweet that is done by one of the workers
+	 * 
+	 * @param <S> the class of the system
+	 */
+	protected interface TweetTask<S extends SentimentSystem> {
+		
+		/**
+		 * Processes a Tweet, the results have to be stored at the index of the Tweet
+		 * 
+		 * @param worker the system or a copy of it with its own taggers
+		 * @param index the index of the Tweet
+		 * @param tweet the Tweet
+		 * @throws IOException
+		 */
+		void process(S worker, int index, Tweet tweet) throws IOException;
+	}
+	
+	/**
+	 * Creates the workers to process the Tweets in parallel. The first worker is the system itself, the others are copies
+	 * with their own taggers and share the trained model, the schema and the lexica of the system.
+	 * 
+	 * @param numTweets the number of Tweets to process
+	 * @return returns the workers
+	 * @throws IOException
+	 */
+	protected List<SentimentSystem> createWorkers(int numTweets) throws IOException{
+		int numThreads = this.systemThreads > 0 ? this.systemThreads : threads;
+		int numWorkers = Math.max(1, Math.min(numThreads, (numTweets + CHUNK_SIZE - 1) / CHUNK_SIZE));
+		List<SentimentSystem> workers = new ArrayList<SentimentSystem>();
+		workers.add(this);
+		//the taggers are loaded one after another, loading them is not thread-safe
+		for (int i = 1; i < numWorkers; i++){
+			SentimentSystem worker;
+			try{
+				worker = (SentimentSystem) this.clone();
+			}
+			catch (CloneNotSupportedException e){
+				throw new IllegalStateException(e);
+			}
+			worker.vector = new FeatureVector();
+			worker.loadWorkerResources();
+			workers.add(worker);
+		}
+		return workers;
+	}
+	
+	/**
+	 * Processes the Tweets with the workers. The workers take chunks of Tweets, every Tweet is processed by exactly one worker.
+	 * With a single worker the Tweets are processed in order in the calling thread.
+	 * 
+	 * @param workers the workers of createWorkers
+	 * @param tweets the Tweets
+	 * @param task the work on a single Tweet
+	 * @throws IOException
+	 */
+	@SuppressWarnings("unchecked")
+	protected <S extends SentimentSystem> void forEachTweet(final List<SentimentSystem> workers, final List<Tweet> tweets, final TweetTask<S> task) throws IOException{
+		if (workers.size() == 1){
+			for (int i = 0; i < tweets.size(); i++){
+				task.process((S) workers.get(0), i, tweets.get(i));
+			}
+			return;
+		}
+		final AtomicInteger next = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(workers.size());
+		try{
+			List<Future<Void>> futures = new ArrayList<Future<Void>>();
+			for (final SentimentSystem worker : workers){
+				futures.add(executor.submit(new Callable<Void>(){
+					public Void call() throws IOException{
+						int start;
+						while ((start = next.getAndAdd(CHUNK_SIZE)) < tweets.size()){
+							for (int i = start; i < Math.min(start + CHUNK_SIZE, tweets.size()); i++){
+								task.process((S) worker, i, tweets.get(i));
+							}
+						}
+						return null;
+					}
+				}));
+			}
+			for (Future<Void> future : futures){
+				future.get();
+			}
+		}
+		catch (InterruptedException e){
+			Thread.currentThread().interrupt();
+			throw new IOException("Processing the Tweets was interrupted", e);
+		}
+		catch (ExecutionException e){
+			if (e.getCause() instanceof IOException){
+				throw (IOException) e.getCause();
+			}
+			throw new RuntimeException("Processing the Tweets failed", e.getCause());
+		}
+		finally{
+			executor.shutdown();
+		}
+	}
+	
+	/**
+	 * Extends trained features with the Tweets and warm-starts the model. Only the Tweets are preprocessed and tagged,
+	 * their new n-grams, clusters etc. are appended to the vocabularies and their rows are appended to the .csr file of
+	 * the trained features as a new segment, the trained rows are not rewritten. The model is trained out of core from
+	 * the weights of the trained model, the new features start at zero, and saved for the trained features.
+	 * 
+	 * @param nameOfTrain optional filename of the trained features to extend
+	 * @param epochs the number of passes over the extended features
+	 * @throws IOException
+	 */
+	public void trainIncremental(String nameOfTrain, int epochs) throws IOException{
+		System.out.println("Starting " + this.getName() + " incremental Train");
+		System.out.println("Tweets: " + this.tweetList.size());
+		String trainname = nameOfTrain.equals("") ? "Trained-Features-" + this.getName() : nameOfTrain;
+		this.loadClassifier(trainname);
+		TrainedModel trainedModel = this.trainedModel;
+		List<String> classValueList = Arrays.asList(trainedModel.getClassValues());
+		int numAttributes = this.schema.numAttributes();
+		
+		//trained features in an arff file are converted once, the later Tweets are appended to the matrix file
+		File matrixFile = FeatureMatrix.matrixFile(trainname);
+		if (!matrixFile.exists()){
+			System.out.println("Converting " + trainname + ".arff to " + matrixFile.getName());
+			SparseArffReader.convert(new File("resources/arff/" + trainname + ".arff"), matrixFile);
+		}
+		
+		//new features get the next ids before the class attribute, the ids of the trained rows do not change
+		FeatureMatrix.Writer writer = FeatureMatrix.Writer.append(matrixFile);
+		FeatureVector vector = new FeatureVector();
+		this.schema.setExtending(true);
+		try{
+			for (Tweet tweet : this.tweetList){
+				vector.clear();
+				this.createFeatures(tweet, vector);
+				int label = classValueList.indexOf(tweet.getSentiment());
+				if (label == -1){
+					throw new IllegalArgumentException("Unknown sentiment of Tweet " + tweet.getTweetID() + ": " + tweet.getSentiment());
+				}
+				writer.addRow(vector, label);
+			}
+		}
+		finally{
+			this.schema.setExtending(false);
+		}
+		writer.setAttributeNames(this.schema.getAttributeNames());
+		writer.close();
+		System.out.println(matrixFile.getName() + " extended: " + this.tweetList.size() + " new rows, " + (this.schema.numAttributes() - numAttributes) + " new features");
+		
+		TrainedModel extendedModel = TrainedModel.trainStreaming(this.getName(), matrixFile, trainedModel.getCost(), epochs, trainedModel.getLinearModel());
+		extendedModel.save(TrainedModel.modelFile(trainname));
+		this.setTrainedModel(extendedModel);
+	}
+	
+	/**
+	 * Trains the model out of core on trained features that were saved before, e.g. a distant-supervision corpus.
+	 * The features are streamed from the .csr file if it exists, otherwise from the .arff file. The model is saved
+	 * for the trained features, so test loads it like a model trained by LibLINEAR.
+	 * 
+	 * @param nameOfTrain optional filename of the trained features
+	 * @param epochs the number of passes over the trained features
+	 * @throws IOException
+	 */
+	public void trainStreaming(String nameOfTrain, int epochs) throws IOException{
+		System.out.println("Starting " + this.getName() + " streaming Train");
+		String trainname = nameOfTrain.equals("") ? "Trained-Features-" + this.getName() : nameOfTrain;
+		File matrixFile = FeatureMatrix.matrixFile(trainname);
+		File sourceFile = matrixFile.exists() ? matrixFile : new File("resources/arff/" + trainname + ".arff");
+		TrainedModel trainedModel = TrainedModel.trainStreaming(this.getName(), sourceFile, this.getCost(), epochs);
+		File modelFile = TrainedModel.modelFile(trainname);
+		trainedModel.save(modelFile);
+		System.out.println(modelFile.getName() + " saved");
+	}
+	
+	/**
+	 * Creates the trained features of a corpus that does not fit in memory, e.g. a distant-supervision corpus, for
+	 * trainStreaming. The Tweets are read one after another and their rows are written straight to the matrix file,
+	 * only the schema grows with the corpus. It starts empty and is extended like in trainIncremental, a feature gets
+	 * the next id the first time it occurs. The features are the ones createFeatures creates to classify a Tweet.
+	 * 
+	 * @param tweetFile the file of the Tweets
+	 * @param savename optional suffix of the filename of the trained features
+	 * @throws IOException
+	 */
+	public void extractStreaming(File tweetFile, String savename) throws IOException{
+		System.out.println("Starting " + this.getName() + " streaming feature extraction");
+		String trainname = "Trained-Features-" + this.getName() + savename;
+		this.loadResources();
+		String[] classValues = {"positive", "neutral", "negative"};
+		List<String> classValueList = Arrays.asList(classValues);
+		this.schema = FeatureSchema.compile(new String[]{"Class"});
+		this.schema.setExtending(true);
+		File matrixFile = FeatureMatrix.matrixFile(trainname);
+		FeatureMatrix.Writer writer = new FeatureMatrix.Writer(matrixFile, this.schema.getAttributeNames(), classValues);
+		TweetReader reader = new TweetReader(tweetFile);
+		int rows = 0;
+		try{
+			//the dense features get their slots first
+			this.resolveSchema();
+			FeatureVector vector = new FeatureVector();
+			Tweet tweet;
+			while ((tweet = reader.next()) != null){
+				int label = classValueList.indexOf(tweet.getSentiment());
+				if (label == -1){
+					throw new IllegalArgumentException("Unknown sentiment of Tweet " + tweet.getTweetID() + ": " + tweet.getSentiment());
+				}
+				vector.clear();
+				this.createFeatures(tweet, vector);
+				writer.addRow(vector, label);
+				rows++;
+				if (rows % 100000 == 0){
+					System.out.println(rows + " Tweets, " + this.schema.numAttributes() + " features");
+				}
+			}
+		}
+		finally{
+			reader.close();
+			this.schema.setExtending(false);
+		}
+		writer.setAttributeNames(this.schema.getAttributeNames());
+		writer.close();
+		System.out.println(matrixFile.getName() + " saved: " + rows + " rows, " + this.schema.numAttributes() + " attributes");
+	}
+	
+	/**
+	 * Prunes and quantizes the trained model and compares both models on the Tweets, which should be a held-out set.
+	 * The features of the Tweets are created once and classified with both models. The compressed model is saved
+	 * as trained features name + "-compressed" and can be loaded like any other trained model by test.
+	 * 
+	 * @param nameOfTrain optional filename of the trained features
+	 * @param threshold sparse features are removed if the absolute weight of every class is below the threshold
+	 * @param bits 16 or 8 to quantize the weights, 64 to only prune them
+	 * @throws IOException
+	 */
+	public void compress(String nameOfTrain, double threshold, int bits) throws IOException{
+		System.out.println("Starting " + this.getName() + " compression");
+		String trainname = nameOfTrain.equals("") ? "Trained-Features-" + this.getName() : nameOfTrain;
+		this.loadClassifier(trainname);
+		TrainedModel original = this.trainedModel;
+		TrainedModel compressed = original.compress(threshold, bits);
+		int[] attributeMap = original.attributeMap(compressed);
+		
+		//only Tweets with a known sentiment are scored
+		List<Tweet> tweets = new ArrayList<Tweet>();
+		List<FeatureVector> vectors = new ArrayList<FeatureVector>();
+		FeatureVector vector = new FeatureVector();
+		for (Tweet tweet : this.tweetList){
+			if (Arrays.asList(original.getClassValues()).contains(tweet.getSentiment())){
+				vector.clear();
+				this.createFeatures(tweet, vector);
+				tweets.add(tweet);
+				vectors.add(vector.copy());
+			}
+		}
+		int[] originalPredictions = new int[tweets.size()];
+		int[] compressedPredictions = new int[tweets.size()];
+		FeatureVector compressedVector = new FeatureVector();
+		for (int i = 0; i < tweets.size(); i++){
+			originalPredictions[i] = original.getLinearModel().classify(vectors.get(i));
+			vectors.get(i).remap(attributeMap, compressedVector);
+			compressedPredictions[i] = compressed.getLinearModel().classify(compressedVector);
+		}
+		
+		String[] classValues = original.getClassValues();
+		int changed = 0;
+		for (int i = 0; i < tweets.size(); i++){
+			if (originalPredictions[i] != compressedPredictions[i]) changed++;
+		}
+		double originalAccuracy = accuracy(tweets, originalPredictions, classValues);
+		double compressedAccuracy = accuracy(tweets, compressedPredictions, classValues);
+		double originalF1 = semEvalF1(tweets, originalPredictions, classValues);
+		double compressedF1 = semEvalF1(tweets, compressedPredictions, classValues);
+		System.out.println("Held-out Tweets: " + tweets.size() + ", changed predictions: " + changed);
+		System.out.println("features: " + original.getSchema().numAttributes() + " -> " + compressed.getSchema().numAttributes());
+		System.out.println("weight memory: " + original.getLinearModel().getWeightBytes() + " -> " + compressed.getLinearModel().getWeightBytes() + " bytes (" + compressed.getLinearModel().getBits() + " bit)");
+		System.out.println("accuracy: " + originalAccuracy + " -> " + compressedAccuracy + " (delta " + (compressedAccuracy - originalAccuracy) + ")");
+		System.out.println("f1 without neutral: " + originalF1 + " -> " + compressedF1 + " (delta " + (compressedF1 - originalF1) + ")");
+		
+		File modelFile = TrainedModel.modelFile(trainname + "-compressed");
+		compressed.save(modelFile);
+		System.out.println(modelFile.getName() + " saved, test it with the trained features name " + trainname + "-compressed");
+	}
+	
+	/**
+	 * Calculates the accuracy of predictions
+	 * 
+	 * @param tweets the Tweets with their gold sentiment
+	 * @param predictions the predicted class of every Tweet
+	 * @param classValues the class values of the model
+	 * @return returns the accuracy
+	 */
+	static double accuracy(List<Tweet> tweets, int[] predictions, String[] classValues){
+		int correct = 0;
+		for (int i = 0; i < tweets.size(); i++){
+			if (classValues[predictions[i]].equals(tweets.get(i).getSentiment())) correct++;
+		}
+		return tweets.isEmpty() ? 0 : (double) correct / tweets.size();
+	}
+	
+	/**
+	 * Calculates the SemEval score, the mean of the f1 of the positive and the negative class
+	 * 
+	 * @param tweets the Tweets with their gold sentiment
+	 * @param predictions the predicted class of every Tweet
+	 * @param classValues the class values of the model
+	 * @return returns the score
+	 */
+	static double semEvalF1(List<Tweet> tweets, int[] predictions, String[] classValues){
+		double score = 0;
+		for (String sentiment : new String[]{"positive", "negative"}){
+			int truePositives = 0;
+			int predicted = 0;
+			int gold = 0;
+			for (int i = 0; i < tweets.size(); i++){
+				boolean isPredicted = classValues[predictions[i]].equals(sentiment);
+				boolean isGold = tweets.get(i).getSentiment().equals(sentiment);
+				if (isPredicted) predicted++;
+				if (isGold) gold++;
+				if (isPredicted && isGold) truePositives++;
+			}
+			double precision = predicted == 0 ? 0 : (double) truePositives / predicted;
+			double recall = gold == 0 ? 0 : (double) truePositives / gold;
+			score += precision + recall == 0 ? 0 : 2 * precision * recall / (precision + recall);
+		}
+		return score / 2;
+	}
+	
+	/**
+	 * Writes the probability distributions of the test Tweets if a dump directory is set
+	 * 
+	 * @param results the results of the classification
+	 * @throws IOException
+	 */
+	protected void dumpProbabilities(ResultStore results) throws IOException{
+		if (dumpDirectory != null){
+			dumpDirectory.mkdirs();
+			File file = ProbabilityDump.dumpFile(dumpDirectory, this.getName());
+			ProbabilityDump.write(file, this.getName(), results);
+			System.out.println("Wrote probabilities to " + file.getPath());
+		}
+	}
+	
 	 //helper functions to preprocess and get features
 	
 	/**
@@ -42,9 +691,23 @@ public class SentimentSystem {
 	 * @return returns all NGrams that occur in the Tweet
 	 */
     protected Set<String> getNGrams(Tweet tweet, int from, int to) {
+    	Set<String> nGramList = getNGrams(tweet.getWordList(), from, to);
+        tweet.setNGrams(nGramList);
+    	return nGramList;
+	}
+    
+	/**
+	 * Gets all NGrams that occur in the tokens
+	 * 
+	 * @param wordList the tokens of the Tweet
+	 * @param from NGram range from
+	 * @param to NGram range to
+	 * @return returns all NGrams that occur in the tokens
+	 */
+    protected static Set<String> getNGrams(List<TaggedToken> wordList, int from, int to) {
     	Set<String> nGramList = new HashSet<String>();
     	String tokenString = "";
-    	for (TaggedToken token : tweet.getWordList()){
+    	for (TaggedToken token : wordList){
     		tokenString = tokenString + token.token + " ";
     	}
         NGramTokenizer tokenizer = new NGramTokenizer();
@@ -55,7 +718,6 @@ public class SentimentSystem {
         while(tokenizer.hasMoreElements()){
         	nGramList.add((String) tokenizer.nextElement());
         }
-        tweet.setNGrams(nGramList);
     	return nGramList;
 	}
     
@@ -76,14 +738,23 @@ public class SentimentSystem {
      * @return returns all NGrams that occur in the Tweet
      */
 	protected Set<String> getCharNGrams(Tweet tweet){
-		String tweetString = tweet.getTweetString();
+    	Set<String> nGramList = getCharNGrams(tweet.getTweetString());
+    	tweet.setCharNGramList(nGramList);
+    	return nGramList;
+    }
+	
+    /**
+     * Gets all Char NGrams that occur in the Tweet string, from 3-Gram to 5-Gram
+     * @param tweetString the preprocessed Tweet
+     * @return returns all NGrams that occur in the Tweet string
+     */
+	protected static Set<String> getCharNGrams(String tweetString){
     	Set<String> nGramList = new HashSet<String>();
     	for (int i = 0; i < tweetString.length() - 2; i++){
     		nGramList.add(tweetString.substring(i, i + 3));
     		if (i + 4 <= tweetString.length()) nGramList.add(tweetString.substring(i, i + 4));
     		if (i + 5 <= tweetString.length())nGramList.add(tweetString.substring(i, i + 5));
     	}
-    	tweet.setCharNGramList(nGramList);
     	return nGramList;
     }
 	
@@ -94,14 +765,25 @@ public class SentimentSystem {
 	 * @return returns a set of Cluster IDs
 	 */
     protected Set<String> getClusters(Tweet tweet) {
+    	Set<String> clusterList = getClusters(tweet.getWordList());
+    	tweet.setClusters(clusterList);
+		return clusterList;
+    }
+    
+	/**
+	 *  Determine the Cluster IDs for tokens
+	 * 
+	 * @param wordList the tokens of the Tweet
+	 * @return returns a set of Cluster IDs
+	 */
+    protected static Set<String> getClusters(List<TaggedToken> wordList) {
     	Set<String> clusterList = new HashSet<String>();
-    	for (TaggedToken token : tweet.getWordList()){
+    	for (TaggedToken token : wordList){
     		String cluster = WordClusterPaths.wordToPath.get(token.token);
     		if (cluster != null){
     			clusterList.add(cluster);
     		}
     	}
-    	tweet.setClusters(clusterList);
 		return clusterList;
     }
     
@@ -112,15 +794,28 @@ public class SentimentSystem {
      * @return returns a set of emoticons
      */
     protected Set<String> getEmoticons(Tweet tweet){
+    	TweetStages.Emoticons emoticons = getEmoticons(tweet.getTweetString());
+    	if(emoticons.isLast()) tweet.setLastEmoticon(true);
+    	tweet.setEmoticons(emoticons.getEmoticons());
+    	return emoticons.getEmoticons();
+    }
+    
+    /**
+     * Determine all emoticons in the Tweet string
+     * 
+     * @param tweetString the preprocessed Tweet
+     * @return returns the emoticons and whether the Tweet ends with one
+     */
+    protected static TweetStages.Emoticons getEmoticons(String tweetString){
     	Set<String> emoticons = new HashSet<String>();
+    	boolean last = false;
     	String emoticon_string = "(?:[<>]?[:;=8][\\-o\\*\\']?[\\)\\]\\(\\[dDpP/\\:\\}\\{@\\|\\\\]|[\\)\\]\\(\\[dDpP/\\:\\}\\{@\\|\\\\] [\\-o\\*\\']?[:;=8][<>]?)";
-    	Matcher m = Pattern.compile(emoticon_string).matcher(tweet.getTweetString());
+    	Matcher m = Pattern.compile(emoticon_string).matcher(tweetString);
     	while (m.find()){
-    		emoticons.add(tweet.getTweetString().substring(m.start(), m.end()));
-    		if(m.end() == tweet.getTweetString().length()) tweet.setLastEmoticon(true);
+    		emoticons.add(tweetString.substring(m.start(), m.end()));
+    		if(m.end() == tweetString.length()) last = true;
     	}
-    	tweet.setEmoticons(emoticons);
-    	return emoticons;
+    	return new TweetStages.Emoticons(emoticons, last);
     }
     
     /**
@@ -129,9 +824,45 @@ public class SentimentSystem {
      * @param tweet the Tweet to analyze
      */
     protected void negate(Tweet tweet) {
+    	tweet.setNegationCount(negate(tweet.getWordList()));
+	}
+    
+    /**
+     * Computes the stages of the system for the Tweet and applies them to the fields of the Tweet.
+     * The artifacts are shared with the other systems of an ensemble if the shared preprocessing is set.
+     * 
+     * @param tagger the ARK PoS-Tagger of the system or worker, null if the system reads no tagged tokens
+     * @param tweet the Tweet
+     * @return returns the artifacts of the Tweet
+     * @throws IOException
+     */
+	protected TweetArtifacts pull(Tagger tagger, Tweet tweet) throws IOException{
+		TweetArtifacts artifacts;
+		if (this.sharedPreprocessing != null){
+			artifacts = this.sharedPreprocessing.get(tweet);
+		}
+		else{
+			artifacts = new TweetArtifacts(tweet);
+		}
+		List<Stage<?>> stages = this.getStages();
+		artifacts.pull(stages, tagger, stageExecutor);
+		artifacts.applyTo(stages, tweet, tagger);
+		if (this.sharedPreprocessing != null){
+			this.sharedPreprocessing.release(tweet, this.getName());
+		}
+		return artifacts;
+	}
+    
+    /**
+     * Negates tokens, all Word in the negation range get the suffix "_NEG"
+     * 
+     * @param wordList the tokens of the Tweet
+     * @return returns the negation count
+     */
+    protected static int negate(List<TaggedToken> wordList) {
 		int negationCount = 0;
     	boolean neg = false;
-    	for (TaggedToken token : tweet.getWordList()){
+    	for (TaggedToken token : wordList){
     		if(neg){
     			if(token.token.matches("^[.:;!?]$")){
     				neg = false;
@@ -147,10 +878,9 @@ public class SentimentSystem {
     		
     	}
     	if (neg) negationCount++;	
-    	tweet.setNegationCount(negationCount);
+    	return negationCount;
 	}
     
-    
     /**
      * Determine the stems for words in the Tweet 
      * 
@@ -158,12 +888,23 @@ public class SentimentSystem {
      * @return returns a set of stems
      */
 	protected Set<String> getStems(Tweet tweet) {
+    	Set<String> stemList = getStems(tweet.getWordList());
+    	tweet.setStemList(stemList);
+		return stemList;  
+	}
+	
+    /**
+     * Determine the stems for tokens
+     * 
+     * @param wordList the tokens of the Tweet
+     * @return returns a set of stems
+     */
+	protected static Set<String> getStems(List<TaggedToken> wordList) {
 		SnowballStemmer stemmer = new SnowballStemmer("english");
     	Set<String> stemList = new HashSet<String>();
-    	for (TaggedToken token : tweet.getWordList()){
+    	for (TaggedToken token : wordList){
     		stemList.add(stemmer.stem(token.token));
     	}
-    	tweet.setStemList(stemList);
 		return stemList;  
 	}
 
@@ -1,8 +1,7 @@
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -11,13 +10,9 @@ import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import weka.classifiers.functions.LibLINEAR;
 import weka.core.Attribute;
 import weka.core.Instances;
-import weka.core.SelectedTag;
 import weka.core.SparseInstance;
-import weka.core.converters.ArffSaver;
-import cmu.arktweetnlp.Tagger;
 import cmu.arktweetnlp.Tagger.TaggedToken;
 import cmu.arktweetnlp.impl.features.WordClusterPaths;
 
@@ -26,6 +21,25 @@ import cmu.arktweetnlp.impl.features.WordClusterPaths;
  */
 public class SentimentSystemGUMLTLT extends SentimentSystem {
 
+	//cost parameter of the LibLINEAR classifier
+	private static final double COST = 0.15;
+	
+	//a run of more than two equal chars, collapsed to two
+	private static final Pattern REPEATED_CHARS = Pattern.compile("(.)\\1{2,}");
+	
+	//stages of the Tweets the system reads
+	private static final List<Stage<?>> STAGES = Arrays.<Stage<?>>asList(TweetStages.TWEET_STRING, TweetStages.WORDS, TweetStages.RAW_WORDS);
+	
+	//trained model and resources to classify Tweets
+	private Map<String, Double> sentiWordNet;
+	
+	//dictionaries of the sparse features and slots of the dense features, resolved once from the schema
+	private FeatureSchema.Dictionary nGramDictionary;
+	private FeatureSchema.Dictionary stemDictionary;
+	private FeatureSchema.Dictionary clusterDictionary;
+	private int sentiWordNetPos;
+	private int sentiWordNetNeg;
+
     /**
      * Constructor gets all Tweets in a list.
      * 
@@ -45,60 +59,55 @@ public class SentimentSystemGUMLTLT extends SentimentSystem {
 		System.out.println("Starting GU-MLT-LT Train");
 		System.out.println("Tweets: " +  tweetList.size());
 		
-		//load pos-tagger
-    	Tagger tagger = new Tagger();
-    	tagger.loadModel("resources/tagger/model.20120919.txt");
+		final List<Tweet> tweets = new ArrayList<Tweet>(this.tweetList);
+		List<SentimentSystem> workers = this.createWorkers(tweets.size());
     	
     	//load sentiment lexica
-    	Map<String, Double> sentiWordNet = this.loadSentiWordNet(); 
+    	final Map<String, Double> sentiWordNet = this.loadSentiWordNet(); 
 
 		int featurecount = 0;
-		Map<String, Integer> nGramMap = new HashMap<String, Integer>();
-		Map<String, Integer> stemMap = new HashMap<String, Integer>();
-		Map<String, Integer> clusterMap = new HashMap<String, Integer>();
+		final Map<String, Integer> nGramMap = new HashMap<String, Integer>();
+		final Map<String, Integer> stemMap = new HashMap<String, Integer>();
+		final Map<String, Integer> clusterMap = new HashMap<String, Integer>();
 		ArrayList<Attribute> attributeList = new ArrayList<Attribute>();
 		
-		//creating features
-		for(Tweet tweet : tweetList){
-		    
-		    //preprocess and tag
-			this.preProcessTweet(tweet);
-			this.tokenizeAndTag(tagger, tweet);
-			this.negate(tweet);
-			
-			//get n-grams and set n-gram feature
-			Set<String> nGramSet = this.getNGrams(tweet, 1);
-			for (String nGram : nGramSet){
-				if(!nGramMap.containsKey(nGram)){
-					nGramMap.put(nGram, featurecount++);
-					attributeList.add(new Attribute("NGRAM_" + nGram));
-				}
-			}
-			
-			//get stems and set stem feature
-			Set<String> stemSet = this.getStems(tweet);
-			for (String stem : stemSet){
-				if(!stemMap.containsKey(stem)){
-					stemMap.put(stem, featurecount++);
-					attributeList.add(new Attribute("STEM_" + stem));
-				}
-			}
-			
-			//get cluster and set cluster feature
-			Set<String> clusterSet = this.getGUMLTLTClusters(tweet);
-			for(String cluster : clusterSet){
-				if(!clusterMap.containsKey(cluster)){
-					clusterMap.put(cluster, featurecount++);
-					attributeList.add(new Attribute("CLUSTER_" + cluster));
-				}
+		//creating features, the workers collect them in local vocabularies
+		final Vocabulary nGramVocabulary = new Vocabulary();
+		final Vocabulary stemVocabulary = new Vocabulary();
+		final Vocabulary clusterVocabulary = new Vocabulary();
+		this.forEachTweet(workers, tweets, new TweetTask<SentimentSystemGUMLTLT>(){
+			public void process(SentimentSystemGUMLTLT worker, int row, Tweet tweet) throws IOException{
+			    //preprocess and tokenize
+				worker.pull(null, tweet);
+				worker.collapse(tweet);
+				worker.negate(tweet);
+				
+				//get n-grams, stems and clusters
+				nGramVocabulary.addAll(worker.getNGrams(tweet, 1));
+				stemVocabulary.addAll(worker.getStems(tweet));
+				clusterVocabulary.addAll(worker.getGUMLTLTClusters(tweet));
 			}
+		});
+		
+		//set n-gram, stem and cluster feature, the merged vocabularies are sorted, so the ids do not depend on the number of threads
+		for (String nGram : nGramVocabulary.merge()){
+			nGramMap.put(nGram, featurecount++);
+			attributeList.add(new Attribute("NGRAM_" + nGram));
+		}
+		for (String stem : stemVocabulary.merge()){
+			stemMap.put(stem, featurecount++);
+			attributeList.add(new Attribute("STEM_" + stem));
+		}
+		for (String cluster : clusterVocabulary.merge()){
+			clusterMap.put(cluster, featurecount++);
+			attributeList.add(new Attribute("CLUSTER_" + cluster));
 		}
 		
 		//set lexica features
-		Attribute sentiWordNetPos = new Attribute("sentiWordNetPos");
+		final Attribute sentiWordNetPos = new Attribute("sentiWordNetPos");
 		attributeList.add(sentiWordNetPos);
 		featurecount++;
-		Attribute sentiWordNetNeg = new Attribute("sentiWordNetNeg");
+		final Attribute sentiWordNetNeg = new Attribute("sentiWordNetNeg");
 		attributeList.add(sentiWordNetNeg);
 		featurecount++;
 		
@@ -107,7 +116,7 @@ public class SentimentSystemGUMLTLT extends SentimentSystem {
 	    fvClassVal.add("positive");
 	    fvClassVal.add("neutral");
 	    fvClassVal.add("negative");
-	    Attribute classAttribute = new Attribute("Class", fvClassVal);
+	    final Attribute classAttribute = new Attribute("Class", fvClassVal);
 	    attributeList.add(classAttribute);
 		featurecount++;
 		
@@ -115,52 +124,58 @@ public class SentimentSystemGUMLTLT extends SentimentSystem {
 		Instances trainingSet = new Instances("test", attributeList, tweetList.size());
 		trainingSet.setClassIndex(classAttribute.index());
 		
-		for(Tweet tweet : tweetList){
-			SparseInstance instance = new SparseInstance(0);
+		//creating the rows concurrently, they are added in the order of the Tweets
+		final SparseInstance[] instances = new SparseInstance[tweets.size()];
+		this.forEachTweet(workers, tweets, new TweetTask<SentimentSystemGUMLTLT>(){
+			public void process(SentimentSystemGUMLTLT worker, int row, Tweet tweet){
+				SparseInstance instance = new SparseInstance(0);
 			
-			//n-gram feature
-			Set<String> nGramSet = tweet.getnGramList();
-			for (String nGram : nGramSet){
-				Integer index = nGramMap.get(nGram);
-				if(index != null){
-					instance.setValue(index, 1);
+				//n-gram feature
+				Set<String> nGramSet = tweet.getnGramList();
+				for (String nGram : nGramSet){
+					Integer index = nGramMap.get(nGram);
+					if(index != null){
+						instance.setValue(index, 1);
+					}
 				}
-			}
 			
-			//stem feature
-			Set<String> stemSet = tweet.getStemList();
-			for (String stem : stemSet){
-				Integer index = stemMap.get(stem);
-				if(index != null){
-					instance.setValue(index, 1);
+				//stem feature
+				Set<String> stemSet = tweet.getStemList();
+				for (String stem : stemSet){
+					Integer index = stemMap.get(stem);
+					if(index != null){
+						instance.setValue(index, 1);
+					}
 				}
-			}
 			
-			//cluster feature
-			Set<String> clusterSet = tweet.getClusterList();
-			for(String cluster : clusterSet){
-				Integer index = clusterMap.get(cluster);
-				if(index != null){
-					instance.setValue(index, 1);
+				//cluster feature
+				Set<String> clusterSet = tweet.getClusterList();
+				for(String cluster : clusterSet){
+					Integer index = clusterMap.get(cluster);
+					if(index != null){
+						instance.setValue(index, 1);
+					}
 				}
-			}
 
-			//lexica features
-			instance.setValue(sentiWordNetPos, this.getSentiWordNetScore("+", sentiWordNet, tweet.getCollapsedWordList()));
-			instance.setValue(sentiWordNetNeg, this.getSentiWordNetScore("-", sentiWordNet, tweet.getCollapsedWordList()));
+				//lexica features
+				instance.setValue(sentiWordNetPos, worker.getSentiWordNetScore("+", sentiWordNet, tweet.getWordList()));
+				instance.setValue(sentiWordNetNeg, worker.getSentiWordNetScore("-", sentiWordNet, tweet.getWordList()));
 			
-			//set class attribute
-			instance.setValue(classAttribute, tweet.getSentiment());
+				//set class attribute
+				instance.setValue(classAttribute, tweet.getSentiment());
 			
+				instances[row] = instance;
+			}
+		});
+		for (SparseInstance instance : instances){
 			trainingSet.add(instance);
 		}
 		
-		//save features and training instances in .arff file
-		ArffSaver saver = new ArffSaver();
-		saver.setInstances(trainingSet);
-		saver.setFile(new File("resources/arff/Trained-Features-GUMLTLT" + savename + ".arff"));
-		saver.writeBatch();
-		System.out.println("Trained-Features-GUMLTLT" + savename + " saved");
+		//save features and training instances in the selected format
+		File featureFile = this.saveFeatures(trainingSet, "Trained-Features-GUMLTLT" + savename);
+		
+		//train and save the model, so the test run does not have to retrain it
+		TrainedModel.train("GUMLTLT", trainingSet, COST, featureFile).save(TrainedModel.modelFile("Trained-Features-GUMLTLT" + savename));
 	}
 	
     /**
@@ -170,9 +185,22 @@ public class SentimentSystemGUMLTLT extends SentimentSystem {
      * @return returns all results in a map
      * @throws Exception
      */	
-	public Map<String, ClassificationResult> test(String nameOfTrain) throws Exception{
+	public ResultStore test(String nameOfTrain) throws Exception{
 		System.out.println("Starting GUMLTLT Test");
 		System.out.println("Tweets: " +  this.tweetList.size());
+		this.loadClassifier(nameOfTrain);
+		ResultStore results = this.classifyBatch(new ArrayList<Tweet>(this.tweetList));
+		this.dumpProbabilities(results);
+		return results;
+	}
+	
+	/**
+	 * Loads the trained model and the resources to classify Tweets
+	 * 
+	 * @param nameOfTrain optional filename of the arff file
+	 * @throws IOException
+	 */
+	public void loadClassifier(String nameOfTrain) throws IOException{
 		String trainname = "";
 		if(!nameOfTrain.equals("")){
 			trainname = nameOfTrain;
@@ -181,170 +209,147 @@ public class SentimentSystemGUMLTLT extends SentimentSystem {
 			trainname = "Trained-Features-GUMLTLT";
 		}
 		
-		//load features and training instances from .arff file
-		BufferedReader reader = new BufferedReader(new FileReader("resources/arff/" + trainname + ".arff"));
-		Instances train = new Instances(reader);
-		train.setClassIndex(train.numAttributes() - 1);
-		reader.close();
-		
-		//load and setup classifier
-		LibLINEAR classifier = new LibLINEAR();
-        classifier.setProbabilityEstimates(true);
-        classifier.setSVMType(new SelectedTag(0, LibLINEAR.TAGS_SVMTYPE));
-		classifier.setCost(0.15);
-		
-		//train classifier with instances
-		classifier.buildClassifier(train);
-		
-		//delete train instances, to use same features with test instances
-		train.delete();
-		
-		//load pos-tagger		
-        Tagger tagger = new Tagger();
-        tagger.loadModel("resources/tagger/model.20120919.txt");
+		//load trained model, it gets retrained from the .arff file if it is missing or stale
+		TrainedModel trainedModel = TrainedModel.loadOrTrain("GUMLTLT", trainname, COST);
+		this.setTrainedModel(trainedModel);
 		
+		this.loadResources();
+	}
+	
+	/**
+	 * Loads the resources the features of a Tweet need, e.g. the sentiment lexica
+	 * 
+	 * @throws IOException
+	 */
+	protected void loadResources() throws IOException{
         //load sentiment lexica
-    	Map<String, Double> sentiWordNet = this.loadSentiWordNet();
-    	
-		Map<String, Integer> featureMap = new HashMap<String, Integer>();
-		for (int i = 0; i < train.numAttributes(); i++){
-			featureMap.put(train.attribute(i).name(), train.attribute(i).index());
-		}
+    	this.sentiWordNet = this.loadSentiWordNet();
+	}
+	
+	/**
+	 * The system only reads the tokens of the Tweets and not their PoS-Tags, so it needs no tagger and the workers
+	 * have no resources of their own
+	 */
+	protected void loadWorkerResources(){
+	}
+	
+	protected String getName(){
+		return "GUMLTLT";
+	}
+	
+	protected double getCost(){
+		return COST;
+	}
+	
+	protected List<Stage<?>> getStages(){
+		return STAGES;
+	}
+	
+	/**
+	 * Resolves the dictionaries of the sparse features and the slots of the dense features in the schema of the trained model
+	 */
+	protected void resolveSchema(){
+		this.nGramDictionary = this.schema.getDictionary("NGRAM_");
+		this.stemDictionary = this.schema.getDictionary("STEM_");
+		this.clusterDictionary = this.schema.getDictionary("CLUSTER_");
+		this.sentiWordNetPos = this.schema.getSlot("sentiWordNetPos");
+		this.sentiWordNetNeg = this.schema.getSlot("sentiWordNetNeg");
+	}
+	
+	/**
+	 * Preprocesses and tokenizes the Tweet and creates its features
+	 * 
+	 * @param tweet the Tweet
+	 * @param vector the cleared vector for the features
+	 * @throws IOException
+	 */
+	protected void createFeatures(Tweet tweet, FeatureVector vector) throws IOException{
+		    //preprocess and tokenize
+		this.pull(null, tweet);
+		this.collapse(tweet);
+		this.negate(tweet);
 		
-		Map<String, ClassificationResult> resultMap = new HashMap<String, ClassificationResult>();
-		for(Tweet tweet : tweetList){
-		    //preprocess and tag
-			this.preProcessTweet(tweet);
-			this.tokenizeAndTag(tagger, tweet);
-			this.negate(tweet);
-			SparseInstance instance = new SparseInstance(0);
-			
-			//creating test instances with features
+		//creating test instances with features
             //n-gram feature
-			Set<String> nGramSet = this.getNGrams(tweet, 1);
-			for (String nGram : nGramSet){
-				Integer index = featureMap.get("NGRAM_" + nGram);
-				if(index != null){
-					instance.setValue(index, 1);
-				}
+		Set<String> nGramSet = this.getNGrams(tweet, 1);
+		for (String nGram : nGramSet){
+			int index = nGramDictionary.get(nGram);
+			if(index != -1){
+				vector.add(index);
 			}
-			
-			//stem feature
-			Set<String> stemSet = this.getStems(tweet);
-			for (String stem : stemSet){
-				Integer index = featureMap.get("STEM_" + stem);
-				if(index != null){
-					instance.setValue(index, 1);
-				}
+		}
+		
+		//stem feature
+		Set<String> stemSet = this.getStems(tweet);
+		for (String stem : stemSet){
+			int index = stemDictionary.get(stem);
+			if(index != -1){
+				vector.add(index);
 			}
-			
-			//cluster feature
-			Set<String> clusterSet = this.getGUMLTLTClusters(tweet);
-			for(String cluster : clusterSet){
-				Integer index = featureMap.get("CLUSTER_" + cluster);
-				if(index != null){
-					instance.setValue(index, 1);
-				}
+		}
+		
+		//cluster feature
+		Set<String> clusterSet = this.getGUMLTLTClusters(tweet);
+		for(String cluster : clusterSet){
+			int index = clusterDictionary.get(cluster);
+			if(index != -1){
+				vector.add(index);
 			}
-			
-			//lexica features
-			instance.setValue(featureMap.get("sentiWordNetPos"), this.getSentiWordNetScore("+", sentiWordNet, tweet.getCollapsedWordList()));
-			instance.setValue(featureMap.get("sentiWordNetNeg"), this.getSentiWordNetScore("-", sentiWordNet, tweet.getCollapsedWordList()));
-
-			//add test instance to trained features
-			train.add(instance);
-			
-			//classify Tweet
-	        double result = classifier.classifyInstance(train.lastInstance());
-	        double[] resultDistribution = classifier.distributionForInstance(train.lastInstance());
-	        resultMap.put(tweet.getTweetID(), new ClassificationResult(tweet, resultDistribution, result));
 		}
 		
-		return resultMap;
+		//lexica features
+		vector.add(sentiWordNetPos, this.getSentiWordNetScore("+", sentiWordNet, tweet.getWordList()));
+		vector.add(sentiWordNetNeg, this.getSentiWordNetScore("-", sentiWordNet, tweet.getWordList()));
 	}
 	
 	//helper functions to preprocess and get features
 	
-	/**
-     * Preprocesses the Tweet
-     * 
-     * @param tweet the raw Tweet
-     */
-	private void preProcessTweet(Tweet tweet){
-		String rawTweet = tweet.getRawTweetString();
-		rawTweet = rawTweet.toLowerCase();
-		//filter Usernames
-		rawTweet = rawTweet.replaceAll("@[^\\s]+", "");
-		//filter Urls
-		rawTweet = rawTweet.replaceAll("((www\\.[^\\s]+)|(https?://[^\\s]+))", "");
-		tweet.setTweetString(rawTweet.trim());
-	}
-		
-    /**
-     * Tokenize and pos-taggs the Tweet
-     * 
-     * @param tagger the ARK PoS-Tagger
-     * @param tweet the Tweet to tag
-     * @throws IOException
-     */	
-    private void tokenizeAndTag(Tagger tagger, Tweet tweet) throws IOException{
-    	tweet.setRawWordList(tagger.tokenizeAndTag(tweet.getRawTweetString()));
-    	tweet.setWordList(tagger.tokenizeAndTag(tweet.getTweetString()));
-    	tweet.setCollapseList(this.collapseTweet(tweet));
-    }
-    
     /**
-     * Collapses the Tweet
+     * Collapses the tokens of the Tweet, the last run of more than two equal chars in a token is shortened to two.
+     * The tokens are changed in place, so the collapsed version of the Tweet is its word list.
      * 
      * @param tweet the Tweet to analyze
-     * @return the collapsed Tweet as a list of TaggedToken
      */
-	private List<TaggedToken> collapseTweet(Tweet tweet){
-		List<TaggedToken> tokenList = new ArrayList<TaggedToken>(tweet.getWordList());
-		for (TaggedToken token : tokenList){
-			Matcher matchWord = Pattern.compile("(.)\\1{2,}").matcher(token.token);
+	private void collapse(Tweet tweet){
+		for (TaggedToken token : tweet.getWordList()){
+			Matcher matchWord = REPEATED_CHARS.matcher(token.token);
 			String tempWord = token.token;
 			while (matchWord.find()) {
-				if(matchWord.end() < 0 || matchWord.start() < 0){
-					
-				}
 				token.token = tempWord.substring(0, matchWord.start()+2) + tempWord.substring(matchWord.end());
 			}
     	}
-		return tokenList;
 	}
 	
 	
 	/**
-	 * Determine the Cluster IDs for all 3 preprocessed versions of the Tweet 
+	 * Determine the Cluster IDs for the preprocessed and collapsed version and the raw version of the Tweet in one walk
+	 * over the tokens
 	 * 
 	 * @param tweet the Tweet to analyze
 	 * @return returns a set of Cluster IDs
 	 */
     private Set<String> getGUMLTLTClusters(Tweet tweet) {
-    	Set<String> clusters = this.getGUMLTLTClusters(tweet.getWordList());
-    	clusters.addAll(this.getGUMLTLTClusters(tweet.getRawWordList()));
-    	clusters.addAll(this.getGUMLTLTClusters(tweet.getCollapsedWordList()));
+    	Set<String> clusters = new HashSet<String>();
+    	List<TaggedToken> wordList = tweet.getWordList();
+    	List<TaggedToken> rawWordList = tweet.getRawWordList();
+    	for (int i = 0; i < Math.max(wordList.size(), rawWordList.size()); i++){
+    		if (i < wordList.size()){
+    			addCluster(clusters, wordList.get(i));
+    		}
+    		if (i < rawWordList.size()){
+    			addCluster(clusters, rawWordList.get(i));
+    		}
+    	}
     	tweet.setClusters(clusters);
     	return clusters;
 	}
     
     
-    /**
-     * Determine the Cluster IDs for a preprocessed version of the Tweet 
-     * 
-     * @param wordList a list of words that occur in the Tweet
-     * @return returns a set of Cluster IDs
-     */
-    private Set<String> getGUMLTLTClusters(List<TaggedToken> wordList) {
-    	Set<String> clusterList = new HashSet<String>();
-    	for (TaggedToken token : wordList){
-    		String cluster = WordClusterPaths.wordToPath.get(token.token);
-    		if (cluster != null){
-    			clusterList.add(cluster);
-    		}
+    private static void addCluster(Set<String> clusters, TaggedToken token) {
+    	String cluster = WordClusterPaths.wordToPath.get(token.token);
+    	if (cluster != null){
+    		clusters.add(cluster);
     	}
-		return clusterList;
     }
     
     
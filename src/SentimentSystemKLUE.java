@@ -1,27 +1,43 @@
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import weka.classifiers.functions.LibLINEAR;
 import weka.core.Attribute;
 import weka.core.Instances;
-import weka.core.SelectedTag;
 import weka.core.SparseInstance;
-import weka.core.converters.ArffSaver;
-import cmu.arktweetnlp.Tagger;
 
 /**
  * Trains and tests the KLUE system
  */
 public class SentimentSystemKLUE extends SentimentSystem {
+
+	//cost parameter of the LibLINEAR classifier
+	private static final double COST = 0.05;
+	
+	//stages of the Tweets the system reads
+	private static final List<Stage<?>> STAGES = Arrays.<Stage<?>>asList(TweetStages.TWEET_STRING, TweetStages.WORD_NEGATION, TweetStages.STEMS, TweetStages.NGRAMS_1_TO_2, TweetStages.EMOTICONS);
+	
+	//trained model and resources to classify Tweets
+	private Map<String, Double> afinnLexi;
+	
+	//dictionaries of the sparse features and slots of the dense features, resolved once from the schema
+	private FeatureSchema.Dictionary nGramDictionary;
+	private int sentiAFINNPos;
+	private int sentiAFINNNeg;
+	private int sentiAFINNTotal;
+	private int sentiAFINNScore;
+	private int sentiEmoPos;
+	private int sentiEmoNeg;
+	private int sentiEmoTotal;
+	private int sentiEmoScore;
+	private int tokenCount;
     
     /**
      * Constructor gets all Tweets in a list.
@@ -42,63 +58,61 @@ public class SentimentSystemKLUE extends SentimentSystem {
 		System.out.println("Starting KLUE Train");
 		System.out.println("Tweets: " +  tweetList.size());
 		
-		//load pos-tagger
-    	Tagger tagger = new Tagger();
-    	tagger.loadModel("resources/tagger/model.20120919.txt");
+		final List<Tweet> tweets = new ArrayList<Tweet>(this.tweetList);
+		List<SentimentSystem> workers = this.createWorkers(tweets.size());
     	
     	//load sentiment lexica
-    	Map<String, Double> afinnLexi = this.loadAFINN();
+    	final Map<String, Double> afinnLexi = this.loadAFINN();
 		
 		int featurecount = 0;
-		Map<String, Integer> nGramMap = new HashMap<String, Integer>();
+		final Map<String, Integer> nGramMap = new HashMap<String, Integer>();
 		ArrayList<Attribute> attributeList = new ArrayList<Attribute>();
 		
-		//creating features
-		for(Tweet tweet : tweetList){
-		    
-		    //preprocess and tag
-			this.preProcessTweet(tweet);
-			this.tokenizeAndTag(tagger, tweet);
-			this.negate(tweet);
-			
-			//get n-grams and set n-gram feature
-			Set<String> nGramSet = this.getNGrams(tweet, 2);
-			for (String nGram : nGramSet){
-				if(!nGramMap.containsKey(nGram)){
-					nGramMap.put(nGram, featurecount++);
-					attributeList.add(new Attribute("NGRAM_" + nGram));
-				}
+		//creating features, the workers collect them in local vocabularies
+		final Vocabulary nGramVocabulary = new Vocabulary();
+		this.forEachTweet(workers, tweets, new TweetTask<SentimentSystemKLUE>(){
+			public void process(SentimentSystemKLUE worker, int row, Tweet tweet) throws IOException{
+			    //preprocess, tokenize and get n-grams, stems and emoticons
+				worker.pull(null, tweet);
+				
+				nGramVocabulary.addAll(tweet.getnGramList());
 			}
+		});
+		
+		//set n-gram feature, the merged vocabulary is sorted, so the ids do not depend on the number of threads
+		for (String nGram : nGramVocabulary.merge()){
+			nGramMap.put(nGram, featurecount++);
+			attributeList.add(new Attribute("NGRAM_" + nGram));
 		}
 		
 		//set lexica features
-		Attribute sentiAFINNPos = new Attribute("sentiAFINNPos");
+		final Attribute sentiAFINNPos = new Attribute("sentiAFINNPos");
 		attributeList.add(sentiAFINNPos);
 		featurecount++;
-		Attribute sentiAFINNNeg = new Attribute("sentiAFINNNeg");
+		final Attribute sentiAFINNNeg = new Attribute("sentiAFINNNeg");
 		attributeList.add(sentiAFINNNeg);
 		featurecount++;
-		Attribute sentiAFINNTotal = new Attribute("sentiAFINNTotal");
+		final Attribute sentiAFINNTotal = new Attribute("sentiAFINNTotal");
 		attributeList.add(sentiAFINNTotal);
 		featurecount++;
-		Attribute sentiAFINNScore = new Attribute("sentiAFINNScore");
+		final Attribute sentiAFINNScore = new Attribute("sentiAFINNScore");
 		attributeList.add(sentiAFINNScore);
 		featurecount++;
 		
-		Attribute sentiEmoPos = new Attribute("sentiEmoPos");
+		final Attribute sentiEmoPos = new Attribute("sentiEmoPos");
 		attributeList.add(sentiEmoPos);
 		featurecount++;
-		Attribute sentiEmoNeg = new Attribute("sentiEmoNeg");
+		final Attribute sentiEmoNeg = new Attribute("sentiEmoNeg");
 		attributeList.add(sentiEmoNeg);
 		featurecount++;
-		Attribute sentiEmoTotal = new Attribute("sentiEmoTotal");
+		final Attribute sentiEmoTotal = new Attribute("sentiEmoTotal");
 		attributeList.add(sentiEmoTotal);
 		featurecount++;
-		Attribute sentiEmoScore = new Attribute("sentiEmoScore");
+		final Attribute sentiEmoScore = new Attribute("sentiEmoScore");
 		attributeList.add(sentiEmoScore);
 		featurecount++;
 		
-		Attribute tokenCount = new Attribute("tokenCount");
+		final Attribute tokenCount = new Attribute("tokenCount");
 		attributeList.add(tokenCount);
 		featurecount++;
 		
@@ -107,7 +121,7 @@ public class SentimentSystemKLUE extends SentimentSystem {
 	    fvClassVal.add("positive");
 	    fvClassVal.add("neutral");
 	    fvClassVal.add("negative");
-	    Attribute classAttribute = new Attribute("Class", fvClassVal);
+	    final Attribute classAttribute = new Attribute("Class", fvClassVal);
 	    attributeList.add(classAttribute);
 		featurecount++;
 		
@@ -115,45 +129,51 @@ public class SentimentSystemKLUE extends SentimentSystem {
 		Instances trainingSet = new Instances("test", attributeList, tweetList.size());
 		trainingSet.setClassIndex(classAttribute.index());
 		
-		for(Tweet tweet : tweetList){
-			SparseInstance instance = new SparseInstance(0);
+		//creating the rows concurrently, they are added in the order of the Tweets
+		final SparseInstance[] instances = new SparseInstance[tweets.size()];
+		this.forEachTweet(workers, tweets, new TweetTask<SentimentSystemKLUE>(){
+			public void process(SentimentSystemKLUE worker, int row, Tweet tweet){
+				SparseInstance instance = new SparseInstance(0);
 			
-			//n-gram feature
-			Set<String> nGramSet = tweet.getnGramList();
-			for (String nGram : nGramSet){
-				Integer index = nGramMap.get(nGram);
-				if(index != null){
-					instance.setValue(index, 1);
+				//n-gram feature
+				Set<String> nGramSet = tweet.getnGramList();
+				for (String nGram : nGramSet){
+					Integer index = nGramMap.get(nGram);
+					if(index != null){
+						instance.setValue(index, 1);
+					}
 				}
-			}
 			
-			//lexica features
-			List<Double> afinnScore = this.getAFINNScore(afinnLexi, tweet.getStemList());
-			instance.setValue(sentiAFINNPos, afinnScore.get(0));
-			instance.setValue(sentiAFINNNeg, afinnScore.get(1));
-			instance.setValue(sentiAFINNTotal, afinnScore.get(2));
-			instance.setValue(sentiAFINNScore, afinnScore.get(3));
+				//lexica features
+				List<Double> afinnScore = worker.getAFINNScore(afinnLexi, tweet.getStemList());
+				instance.setValue(sentiAFINNPos, afinnScore.get(0));
+				instance.setValue(sentiAFINNNeg, afinnScore.get(1));
+				instance.setValue(sentiAFINNTotal, afinnScore.get(2));
+				instance.setValue(sentiAFINNScore, afinnScore.get(3));
 			
-			List<Double> emoScore = this.getEmoScore(tweet);
-			instance.setValue(sentiEmoPos, emoScore.get(0));
-			instance.setValue(sentiEmoNeg, emoScore.get(1));
-			instance.setValue(sentiEmoTotal, emoScore.get(2));
-			instance.setValue(sentiEmoScore, emoScore.get(3));
+				List<Double> emoScore = worker.getEmoScore(tweet);
+				instance.setValue(sentiEmoPos, emoScore.get(0));
+				instance.setValue(sentiEmoNeg, emoScore.get(1));
+				instance.setValue(sentiEmoTotal, emoScore.get(2));
+				instance.setValue(sentiEmoScore, emoScore.get(3));
 			
-			instance.setValue(tokenCount, tweet.getWordList().size());
+				instance.setValue(tokenCount, tweet.getWordList().size());
 			
-			//set class attribute
-			instance.setValue(classAttribute, tweet.getSentiment());
+				//set class attribute
+				instance.setValue(classAttribute, tweet.getSentiment());
 			
+				instances[row] = instance;
+			}
+		});
+		for (SparseInstance instance : instances){
 			trainingSet.add(instance);
 		}
 		
-		//save features and training instances in .arff file
-		ArffSaver saver = new ArffSaver();
-		saver.setInstances(trainingSet);
-		saver.setFile(new File("resources/arff/Trained-Features-KLUE" + savename + ".arff"));
-		saver.writeBatch();
-		System.out.println("Trained-Features-KLUE" + savename + " saved");
+		//save features and training instances in the selected format
+		File featureFile = this.saveFeatures(trainingSet, "Trained-Features-KLUE" + savename);
+		
+		//train and save the model, so the test run does not have to retrain it
+		TrainedModel.train("KLUE", trainingSet, COST, featureFile).save(TrainedModel.modelFile("Trained-Features-KLUE" + savename));
 	}
 	
 	/**
@@ -163,9 +183,22 @@ public class SentimentSystemKLUE extends SentimentSystem {
 	 * @return returns all results in a map
 	 * @throws Exception
 	 */
-	public Map<String,ClassificationResult> test(String nameOfTrain) throws Exception{
+	public ResultStore test(String nameOfTrain) throws Exception{
 		System.out.println("Starting KLUE Test");
 		System.out.println("Tweets: " +  this.tweetList.size());
+		this.loadClassifier(nameOfTrain);
+		ResultStore results = this.classifyBatch(new ArrayList<Tweet>(this.tweetList));
+		this.dumpProbabilities(results);
+		return results;
+	}
+	
+	/**
+	 * Loads the trained model and the resources to classify Tweets
+	 * 
+	 * @param nameOfTrain optional filename of the arff file
+	 * @throws IOException
+	 */
+	public void loadClassifier(String nameOfTrain) throws IOException{
 		String trainname = "";
 		if(!nameOfTrain.equals("")){
 			trainname = nameOfTrain;
@@ -174,108 +207,95 @@ public class SentimentSystemKLUE extends SentimentSystem {
 			trainname = "Trained-Features-KLUE";
 		}
 		
-		//load features and training instances from .arff file
-		BufferedReader reader = new BufferedReader(new FileReader("resources/arff/" + trainname + ".arff"));
-		Instances train = new Instances(reader);
-		train.setClassIndex(train.numAttributes() - 1);
-		reader.close();
-		
-		//load and setup classifier
-		LibLINEAR classifier = new LibLINEAR();
-        classifier.setProbabilityEstimates(true);
-        classifier.setSVMType(new SelectedTag(0, LibLINEAR.TAGS_SVMTYPE));
-		classifier.setCost(0.05);
-		
-		//train classifier with instances
-		classifier.buildClassifier(train);
-		
-		//delete train instances, to use same features with test instances
-		train.delete();
-		
-		//load pos-tagger
-        Tagger tagger = new Tagger();
-        tagger.loadModel("resources/tagger/model.20120919.txt");
+		//load trained model, it gets retrained from the .arff file if it is missing or stale
+		TrainedModel trainedModel = TrainedModel.loadOrTrain("KLUE", trainname, COST);
+		this.setTrainedModel(trainedModel);
 		
+		this.loadResources();
+	}
+	
+	/**
+	 * Loads the resources the features of a Tweet need, e.g. the sentiment lexica
+	 * 
+	 * @throws IOException
+	 */
+	protected void loadResources() throws IOException{
         //load sentiment lexica
-    	Map<String, Double> afinnLexi = this.loadAFINN();
-    	
-		Map<String, Integer> featureMap = new HashMap<String, Integer>();
-		for (int i = 0; i < train.numAttributes(); i++){
-			featureMap.put(train.attribute(i).name(), train.attribute(i).index());
-		}
-		
-		Map<String, ClassificationResult> resultMap = new HashMap<String, ClassificationResult>();
-		for(Tweet tweet : tweetList){
-		    //preprocess and tag
-			this.preProcessTweet(tweet);
-			this.tokenizeAndTag(tagger, tweet);
-			this.negate(tweet);
-			SparseInstance instance = new SparseInstance(0);
-			
-			//creating test instances with features
-			//n-gram feature
-			Set<String> nGramSet = this.getNGrams(tweet, 2);
-			for (String nGram : nGramSet){
-				Integer index = featureMap.get("NGRAM_" + nGram);
-				if(index != null){
-					instance.setValue(index, 1);
-				}
-			}
-			
-			//lexica features
-			List<Double> afinnScore = this.getAFINNScore(afinnLexi, tweet.getStemList());
-			instance.setValue(featureMap.get("sentiAFINNPos"), afinnScore.get(0));
-			instance.setValue(featureMap.get("sentiAFINNNeg"), afinnScore.get(1));
-			instance.setValue(featureMap.get("sentiAFINNTotal"), afinnScore.get(2));
-			instance.setValue(featureMap.get("sentiAFINNScore"), afinnScore.get(3));
-			List<Double> emoScore = this.getEmoScore(tweet);
-			instance.setValue(featureMap.get("sentiEmoPos"), emoScore.get(0));
-			instance.setValue(featureMap.get("sentiEmoNeg"), emoScore.get(1));
-			instance.setValue(featureMap.get("sentiEmoTotal"), emoScore.get(2));
-			instance.setValue(featureMap.get("sentiEmoScore"), emoScore.get(3));
-			
-			instance.setValue(featureMap.get("tokenCount"), tweet.getWordList().size());
-
-			//add test instance to trained features
-			train.add(instance);
-			
-			//classify Tweet
-			double result = classifier.classifyInstance(train.lastInstance());
-			double[] resultDistribution = classifier.distributionForInstance(train.lastInstance());
-			resultMap.put(tweet.getTweetID(), new ClassificationResult(tweet, resultDistribution, result));
-		}
-
-		return resultMap;
+    	this.afinnLexi = this.loadAFINN();
 	}
 	
-	//helper functions to preprocess and get features
+	/**
+	 * The system only reads the tokens of the Tweets and not their PoS-Tags, so it needs no tagger and the workers
+	 * have no resources of their own
+	 */
+	protected void loadWorkerResources(){
+	}
+	
+	protected String getName(){
+		return "KLUE";
+	}
+	
+	protected double getCost(){
+		return COST;
+	}
+	
+	protected List<Stage<?>> getStages(){
+		return STAGES;
+	}
 	
 	/**
-	 * Preprocesses the Tweet
-	 * 
-	 * @param tweet the raw Tweet
+	 * Resolves the dictionaries of the sparse features and the slots of the dense features in the schema of the trained model
 	 */
-	private void preProcessTweet(Tweet tweet){
-		String rawTweet = tweet.getRawTweetString();
-		rawTweet = rawTweet.toLowerCase();
-		//filter Usernames
-		rawTweet = rawTweet.replaceAll("@[^\\s]+", "");
-		//filter Urls
-		rawTweet = rawTweet.replaceAll("((www\\.[^\\s]+)|(https?://[^\\s]+))", "");
-		tweet.setTweetString(rawTweet.trim());
+	protected void resolveSchema(){
+		this.nGramDictionary = this.schema.getDictionary("NGRAM_");
+		this.sentiAFINNPos = this.schema.getSlot("sentiAFINNPos");
+		this.sentiAFINNNeg = this.schema.getSlot("sentiAFINNNeg");
+		this.sentiAFINNTotal = this.schema.getSlot("sentiAFINNTotal");
+		this.sentiAFINNScore = this.schema.getSlot("sentiAFINNScore");
+		this.sentiEmoPos = this.schema.getSlot("sentiEmoPos");
+		this.sentiEmoNeg = this.schema.getSlot("sentiEmoNeg");
+		this.sentiEmoTotal = this.schema.getSlot("sentiEmoTotal");
+		this.sentiEmoScore = this.schema.getSlot("sentiEmoScore");
+		this.tokenCount = this.schema.getSlot("tokenCount");
 	}
 	
 	/**
-	 * Tokenize and pos-taggs the Tweet
+	 * Preprocesses and tokenizes the Tweet and creates its features
 	 * 
-	 * @param tagger the ARK PoS-Tagger
-	 * @param tweet the Tweet to tag
+	 * @param tweet the Tweet
+	 * @param vector the cleared vector for the features
 	 * @throws IOException
 	 */
-	private void tokenizeAndTag(Tagger tagger, Tweet tweet) throws IOException{
-    	tweet.setWordList(tagger.tokenizeAndTag(tweet.getTweetString()));
-    	this.getStems(tweet);
-    }
+	protected void createFeatures(Tweet tweet, FeatureVector vector) throws IOException{
+		    //preprocess and tokenize
+		this.pull(null, tweet);
+		
+		//creating test instances with features
+		//n-gram feature
+		Set<String> nGramSet = tweet.getnGramList();
+		for (String nGram : nGramSet){
+			int index = nGramDictionary.get(nGram);
+			if(index != -1){
+				vector.add(index);
+			}
+		}
+		
+		//lexica features
+		List<Double> afinnScore = this.getAFINNScore(afinnLexi, tweet.getStemList());
+		vector.add(sentiAFINNPos, afinnScore.get(0));
+		vector.add(sentiAFINNNeg, afinnScore.get(1));
+		vector.add(sentiAFINNTotal, afinnScore.get(2));
+		vector.add(sentiAFINNScore, afinnScore.get(3));
+		List<Double> emoScore = this.getEmoScore(tweet);
+		vector.add(sentiEmoPos, emoScore.get(0));
+		vector.add(sentiEmoNeg, emoScore.get(1));
+		vector.add(sentiEmoTotal, emoScore.get(2));
+		vector.add(sentiEmoScore, emoScore.get(3));
+		
+		vector.add(tokenCount, tweet.getWordList().size());
+	}
+	
+	//helper functions to preprocess and get features
 	
 	/**
 	 * Calculates the AFINN scores for the lexica feature
@@ -321,7 +341,7 @@ public class SentimentSystemKLUE extends SentimentSystem {
 		double negCount = 0.0;
 		double totalCount = 0.0;
 		double totalScore = 0.0;
-		Set<String> emoticons =  this.getEmoticons(tweet);
+		Set<String> emoticons =  tweet.getEmoticonList();
 		for (String emo : emoticons){
 			totalCount++;
 			if(emo.endsWith("(") || emo.endsWith("[") || emo.endsWith("<") || emo.endsWith("/") || emo.toLowerCase().endsWith("c") || emo.startsWith(")") || emo.startsWith("]") || emo.startsWith(">") || emo.startsWith("\\") || emo.startsWith("D")){
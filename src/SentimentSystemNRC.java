@@ -1,8 +1,7 @@
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -10,12 +9,9 @@ import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import weka.classifiers.functions.LibLINEAR;
 import weka.core.Attribute;
 import weka.core.Instances;
-import weka.core.SelectedTag;
 import weka.core.SparseInstance;
-import weka.core.converters.ArffSaver;
 import cmu.arktweetnlp.Tagger;
 import cmu.arktweetnlp.Tagger.TaggedToken;
 
@@ -24,6 +20,92 @@ import cmu.arktweetnlp.Tagger.TaggedToken;
  */
 public class SentimentSystemNRC extends SentimentSystem {
 
+	//cost parameter of the LibLINEAR classifier
+	private static final double COST = 0.5;
+	
+	//stages of the Tweets the system reads
+	private static final List<Stage<?>> STAGES = Arrays.<Stage<?>>asList(TweetStages.TWEET_STRING, TweetStages.NEGATION, TweetStages.NGRAMS_1_TO_4, TweetStages.CHAR_NGRAMS, TweetStages.POS_TAGS, TweetStages.CLUSTERS, TweetStages.EMOTICONS);
+	
+	//trained model and resources to classify Tweets
+	private Tagger tagger;
+	private Map<String, Double> senti140UniLexi;
+	private Map<String, Double> hashtagUniLexi;
+	private Map<String, Double> senti140BiLexi;
+	private Map<String, Double> hashtagBiLexi;
+	private Map<String, Double> MPQALexi;
+	private Map<String, Double> BingLiuLexi;
+	private Map<String, Double> NRCLexi;
+	
+	//dictionaries of the sparse features and slots of the dense features, resolved once from the schema
+	private FeatureSchema.Dictionary nGramDictionary;
+	private FeatureSchema.Dictionary charNGramDictionary;
+	private FeatureSchema.Dictionary posDictionary;
+	private FeatureSchema.Dictionary clusterDictionary;
+	private FeatureSchema.Dictionary emoticonDictionary;
+	private int allCaps;
+	private int hashtags;
+	private int punctuationCount;
+	private int punctuationLast;
+	private int emoticonLast;
+	private int elongatedWords;
+	private int negationCount;
+	private int senti140UniTotalCountPos;
+	private int senti140UniTotalScorePos;
+	private int senti140UniMaxScorePos;
+	private int senti140UniLastScorePos;
+	private int hashtagUniTotalCountPos;
+	private int hashtagUniTotalScorePos;
+	private int hashtagUniMaxScorePos;
+	private int hashtagUniLastScorePos;
+	private int senti140UniTotalCountNeg;
+	private int senti140UniTotalScoreNeg;
+	private int senti140UniMaxScoreNeg;
+	private int senti140UniLastScoreNeg;
+	private int hashtagUniTotalCountNeg;
+	private int hashtagUniTotalScoreNeg;
+	private int hashtagUniMaxScoreNeg;
+	private int hashtagUniLastScoreNeg;
+	private int senti140BiTotalCountPos;
+	private int senti140BiTotalScorePos;
+	private int senti140BiMaxScorePos;
+	private int senti140BiLastScorePos;
+	private int hashtagBiTotalCountPos;
+	private int hashtagBiTotalScorePos;
+	private int hashtagBiMaxScorePos;
+	private int hashtagBiLastScorePos;
+	private int senti140BiTotalCountNeg;
+	private int senti140BiTotalScoreNeg;
+	private int senti140BiMaxScoreNeg;
+	private int senti140BiLastScoreNeg;
+	private int hashtagBiTotalCountNeg;
+	private int hashtagBiTotalScoreNeg;
+	private int hashtagBiMaxScoreNeg;
+	private int hashtagBiLastScoreNeg;
+	private int MPQATotalCountPos;
+	private int MPQATotalScorePos;
+	private int MPQAMaxScorePos;
+	private int MPQALastScorePos;
+	private int MPQATotalCountNeg;
+	private int MPQATotalScoreNeg;
+	private int MPQAMaxScoreNeg;
+	private int MPQALastScoreNeg;
+	private int BingLiuTotalCountPos;
+	private int BingLiuTotalScorePos;
+	private int BingLiuMaxScorePos;
+	private int BingLiuLastScorePos;
+	private int BingLiuTotalCountNeg;
+	private int BingLiuTotalScoreNeg;
+	private int BingLiuMaxScoreNeg;
+	private int BingLiuLastScoreNeg;
+	private int NRCTotalCountPos;
+	private int NRCTotalScorePos;
+	private int NRCMaxScorePos;
+	private int NRCLastScorePos;
+	private int NRCTotalCountNeg;
+	private int NRCTotalScoreNeg;
+	private int NRCMaxScoreNeg;
+	private int NRCLastScoreNeg;
+
     /**
      * Constructor gets all Tweets in a list.
      * 
@@ -43,344 +125,332 @@ public class SentimentSystemNRC extends SentimentSystem {
 		System.out.println("Starting NRC Train");
 		System.out.println("Tweets: " +  this.tweetList.size());
 		
-		//load pos-tagger
-    	Tagger tagger = new Tagger();
-    	tagger.loadModel("resources/tagger/model.20120919.txt");
+		//load pos-tagger, every worker loads its own
+		this.loadWorkerResources();
+		final List<Tweet> tweets = new ArrayList<Tweet>(this.tweetList);
+		List<SentimentSystem> workers = this.createWorkers(tweets.size());
     	
     	//load sentiment lexica
-    	Map<String, Double> senti140UniLexi = this.loadLexicon("sentiment140/unigrams-pmilexicon");
-    	Map<String, Double> hashtagUniLexi = this.loadLexicon("hashtag/unigrams-pmilexicon");
-    	Map<String, Double> senti140BiLexi = this.loadLexicon("sentiment140/bigrams-pmilexicon");
-    	Map<String, Double> hashtagBiLexi = this.loadLexicon("hashtag/bigrams-pmilexicon");
-    	Map<String, Double> MPQALexi = this.loadMPQA();
-    	Map<String, Double> BingLiuLexi = this.loadBingLiu();
-    	Map<String, Double> NRCLexi = this.loadNRC();
+    	final Map<String, Double> senti140UniLexi = this.loadLexicon("sentiment140/unigrams-pmilexicon");
+    	final Map<String, Double> hashtagUniLexi = this.loadLexicon("hashtag/unigrams-pmilexicon");
+    	final Map<String, Double> senti140BiLexi = this.loadLexicon("sentiment140/bigrams-pmilexicon");
+    	final Map<String, Double> hashtagBiLexi = this.loadLexicon("hashtag/bigrams-pmilexicon");
+    	final Map<String, Double> MPQALexi = this.loadMPQA();
+    	final Map<String, Double> BingLiuLexi = this.loadBingLiu();
+    	final Map<String, Double> NRCLexi = this.loadNRC();
 		
 		int featurecount = 0;
-		Map<String, Integer> nGramMap = new HashMap<String, Integer>();
-		Map<String, Integer> CharNGramMap = new HashMap<String, Integer>();
-		Map<String, Integer> posMap = new HashMap<String, Integer>();
-		Map<String, Integer> clusterMap = new HashMap<String, Integer>();
-		Map<String, Integer> emoticonMap = new HashMap<String, Integer>();
+		final Map<String, Integer> nGramMap = new HashMap<String, Integer>();
+		final Map<String, Integer> CharNGramMap = new HashMap<String, Integer>();
+		final Map<String, Integer> posMap = new HashMap<String, Integer>();
+		final Map<String, Integer> clusterMap = new HashMap<String, Integer>();
+		final Map<String, Integer> emoticonMap = new HashMap<String, Integer>();
 		ArrayList<Attribute> attributeList = new ArrayList<Attribute>();
 		
-		//creating features
-		for(Tweet tweet : this.tweetList){
-		    
-		    //preprocess and tag
-			this.preProcessTweet(tweet);
-			this.tokenizeAndTag(tagger, tweet);
-			this.negate(tweet);
-			
-			//get n-grams and set n-gram feature
-			Set<String> nGramSet = this.getNGrams(tweet, 4);
-			for (String nGram : nGramSet){
-				if(!nGramMap.containsKey(nGram)){
-					nGramMap.put(nGram, featurecount++);
-					attributeList.add(new Attribute("NGRAM_" + nGram));
-				}
-			}
-			
-			//get n-char-grams and set n-char-gram feature
-			Set<String> CharNGramSet = this.getCharNGrams(tweet);
-			for (String nGram : CharNGramSet){
-				if(!CharNGramMap.containsKey(nGram)){
-					CharNGramMap.put(nGram, featurecount++);
-					attributeList.add(new Attribute("CHARNGRAM_" + nGram));
-				}
-			}
-			
-			//get pos-tags and set pos-tag feature
-			Map<String, Integer> posTags = this.getPosTags(tweet);
-			for (Map.Entry<String, Integer> posTag : posTags.entrySet()){
-				if(!posMap.containsKey(posTag.getKey())){
-					posMap.put(posTag.getKey(), featurecount++);
-					attributeList.add(new Attribute("POS_" + posTag.getKey()));
-				}
-			}
-			
-			//get cluster and set cluster feature
-			Set<String> clusterSet = this.getClusters(tweet);
-			for(String cluster : clusterSet){
-				if(!clusterMap.containsKey(cluster)){
-					clusterMap.put(cluster, featurecount++);
-					attributeList.add(new Attribute("CLUSTER_" + cluster));
-				}
-			}
-			
-			//get emoticons and set emoticon feature
-			Set<String> emoticonSet = this.getEmoticons(tweet);
-			for(String emoticon : emoticonSet){
-				if(!emoticonMap.containsKey(emoticon)){
-					emoticonMap.put(emoticon, featurecount++);
-					attributeList.add(new Attribute("EMO_" + emoticon));
-				}
+		//creating features, the workers collect them in local vocabularies
+		final Vocabulary nGramVocabulary = new Vocabulary();
+		final Vocabulary charNGramVocabulary = new Vocabulary();
+		final Vocabulary posVocabulary = new Vocabulary();
+		final Vocabulary clusterVocabulary = new Vocabulary();
+		final Vocabulary emoticonVocabulary = new Vocabulary();
+		this.forEachTweet(workers, tweets, new TweetTask<SentimentSystemNRC>(){
+			public void process(SentimentSystemNRC worker, int row, Tweet tweet) throws IOException{
+			    //preprocess, tag and get n-grams, n-char-grams, pos-tags, clusters and emoticons
+				worker.pull(worker.tagger, tweet);
+				
+				nGramVocabulary.addAll(tweet.getnGramList());
+				charNGramVocabulary.addAll(tweet.getCharNGramList());
+				posVocabulary.addAll(tweet.getPosTagList().keySet());
+				clusterVocabulary.addAll(tweet.getClusterList());
+				emoticonVocabulary.addAll(tweet.getEmoticonList());
 			}
+		});
+		
+		//set n-gram, n-char-gram, pos-tag, cluster and emoticon feature, the merged vocabularies are sorted, so the ids do not depend on the number of threads
+		for (String nGram : nGramVocabulary.merge()){
+			nGramMap.put(nGram, featurecount++);
+			attributeList.add(new Attribute("NGRAM_" + nGram));
+		}
+		for (String nGram : charNGramVocabulary.merge()){
+			CharNGramMap.put(nGram, featurecount++);
+			attributeList.add(new Attribute("CHARNGRAM_" + nGram));
+		}
+		for (String posTag : posVocabulary.merge()){
+			posMap.put(posTag, featurecount++);
+			attributeList.add(new Attribute("POS_" + posTag));
+		}
+		for (String cluster : clusterVocabulary.merge()){
+			clusterMap.put(cluster, featurecount++);
+			attributeList.add(new Attribute("CLUSTER_" + cluster));
+		}
+		for (String emoticon : emoticonVocabulary.merge()){
+			emoticonMap.put(emoticon, featurecount++);
+			attributeList.add(new Attribute("EMO_" + emoticon));
 		}
 	
 		//set allCaps feature
-		Attribute allCaps = new Attribute("allCaps");
+		final Attribute allCaps = new Attribute("allCaps");
 		attributeList.add(allCaps);
 		featurecount++;
 		
 		//set hashtag feature
-		Attribute hashtags = new Attribute("hashtags");
+		final Attribute hashtags = new Attribute("hashtags");
 		attributeList.add(hashtags);
 		featurecount++;
 		
 		//set punctuation features
-		Attribute punctuationCount = new Attribute("punctuationCount");
+		final Attribute punctuationCount = new Attribute("punctuationCount");
 		attributeList.add(punctuationCount);
 		featurecount++;
 		
-		Attribute punctuationLast = new Attribute("punctuationLast");
+		final Attribute punctuationLast = new Attribute("punctuationLast");
 		attributeList.add(punctuationLast);
 		featurecount++;
 		
 		//set emoticon feature
-		Attribute emoticonLast = new Attribute("emoticonLast");
+		final Attribute emoticonLast = new Attribute("emoticonLast");
 		attributeList.add(emoticonLast);
 		featurecount++;
 		
 		//set elongated words feature
-		Attribute elongatedWords = new Attribute("elongatedWords");
+		final Attribute elongatedWords = new Attribute("elongatedWords");
 		attributeList.add(elongatedWords);
 		featurecount++;
 		
 	    //set negation feature
-		Attribute negationCount = new Attribute("negationCount");
+		final Attribute negationCount = new Attribute("negationCount");
 		attributeList.add(negationCount);
 		featurecount++;
 		
 		//set lexica features	
 		//senti140Uni
-		Attribute senti140UniTotalCountPos = new Attribute("senti140UniTotalCountPos");
+		final Attribute senti140UniTotalCountPos = new Attribute("senti140UniTotalCountPos");
 		attributeList.add(senti140UniTotalCountPos);
 		featurecount++;
 		
-		Attribute senti140UniTotalScorePos = new Attribute("senti140UniTotalScorePos");
+		final Attribute senti140UniTotalScorePos = new Attribute("senti140UniTotalScorePos");
 		attributeList.add(senti140UniTotalScorePos);
 		featurecount++;
 		
-		Attribute senti140UniMaxScorePos = new Attribute("senti140UniMaxScorePos");
+		final Attribute senti140UniMaxScorePos = new Attribute("senti140UniMaxScorePos");
 		attributeList.add(senti140UniMaxScorePos);
 		featurecount++;
 		
-		Attribute senti140UniLastScorePos = new Attribute("senti140UniLastScorePos");
+		final Attribute senti140UniLastScorePos = new Attribute("senti140UniLastScorePos");
 		attributeList.add(senti140UniLastScorePos);
 		featurecount++;
 		
-		Attribute senti140UniTotalCountNeg = new Attribute("senti140UniTotalCountNeg");
+		final Attribute senti140UniTotalCountNeg = new Attribute("senti140UniTotalCountNeg");
 		attributeList.add(senti140UniTotalCountNeg);
 		featurecount++;
 		
-		Attribute senti140UniTotalScoreNeg = new Attribute("senti140UniTotalScoreNeg");
+		final Attribute senti140UniTotalScoreNeg = new Attribute("senti140UniTotalScoreNeg");
 		attributeList.add(senti140UniTotalScoreNeg);
 		featurecount++;
 		
-		Attribute senti140UniMaxScoreNeg = new Attribute("senti140UniMaxScoreNeg");
+		final Attribute senti140UniMaxScoreNeg = new Attribute("senti140UniMaxScoreNeg");
 		attributeList.add(senti140UniMaxScoreNeg);
 		featurecount++;
 		
-		Attribute senti140UniLastScoreNeg = new Attribute("senti140UniLastScoreNeg");
+		final Attribute senti140UniLastScoreNeg = new Attribute("senti140UniLastScoreNeg");
 		attributeList.add(senti140UniLastScoreNeg);
 		featurecount++;
 		
 		//hashtagUni
-		Attribute hashtagUniTotalCountPos = new Attribute("hashtagUniTotalCountPos");
+		final Attribute hashtagUniTotalCountPos = new Attribute("hashtagUniTotalCountPos");
 		attributeList.add(hashtagUniTotalCountPos);
 		featurecount++;
 		
-		Attribute hashtagUniTotalScorePos = new Attribute("hashtagUniTotalScorePos");
+		final Attribute hashtagUniTotalScorePos = new Attribute("hashtagUniTotalScorePos");
 		attributeList.add(hashtagUniTotalScorePos);
 		featurecount++;
 		
-		Attribute hashtagUniMaxScorePos = new Attribute("hashtagUniMaxScorePos");
+		final Attribute hashtagUniMaxScorePos = new Attribute("hashtagUniMaxScorePos");
 		attributeList.add(hashtagUniMaxScorePos);
 		featurecount++;
 		
-		Attribute hashtagUniLastScorePos = new Attribute("hashtagUniLastScorePos");
+		final Attribute hashtagUniLastScorePos = new Attribute("hashtagUniLastScorePos");
 		attributeList.add(hashtagUniLastScorePos);
 		featurecount++;
 		
-		Attribute hashtagUniTotalCountNeg = new Attribute("hashtagUniTotalCountNeg");
+		final Attribute hashtagUniTotalCountNeg = new Attribute("hashtagUniTotalCountNeg");
 		attributeList.add(hashtagUniTotalCountNeg);
 		featurecount++;
 		
-		Attribute hashtagUniTotalScoreNeg = new Attribute("hashtagUniTotalScoreNeg");
+		final Attribute hashtagUniTotalScoreNeg = new Attribute("hashtagUniTotalScoreNeg");
 		attributeList.add(hashtagUniTotalScoreNeg);
 		featurecount++;
 		
-		Attribute hashtagUniMaxScoreNeg = new Attribute("hashtagUniMaxScoreNeg");
+		final Attribute hashtagUniMaxScoreNeg = new Attribute("hashtagUniMaxScoreNeg");
 		attributeList.add(hashtagUniMaxScoreNeg);
 		featurecount++;
 		
-		Attribute hashtagUniLastScoreNeg = new Attribute("hashtagUniLastScoreNeg");
+		final Attribute hashtagUniLastScoreNeg = new Attribute("hashtagUniLastScoreNeg");
 		attributeList.add(hashtagUniLastScoreNeg);
 		featurecount++;
 		
 		//senti140Bi
-		Attribute senti140BiTotalCountPos = new Attribute("senti140BiTotalCountPos");
+		final Attribute senti140BiTotalCountPos = new Attribute("senti140BiTotalCountPos");
 		attributeList.add(senti140BiTotalCountPos);
 		featurecount++;
 		
-		Attribute senti140BiTotalScorePos = new Attribute("senti140BiTotalScorePos");
+		final Attribute senti140BiTotalScorePos = new Attribute("senti140BiTotalScorePos");
 		attributeList.add(senti140BiTotalScorePos);
 		featurecount++;
 		
-		Attribute senti140BiMaxScorePos = new Attribute("senti140BiMaxScorePos");
+		final Attribute senti140BiMaxScorePos = new Attribute("senti140BiMaxScorePos");
 		attributeList.add(senti140BiMaxScorePos);
 		featurecount++;
 		
-		Attribute senti140BiLastScorePos = new Attribute("senti140BiLastScorePos");
+		final Attribute senti140BiLastScorePos = new Attribute("senti140BiLastScorePos");
 		attributeList.add(senti140BiLastScorePos);
 		featurecount++;
 		
-		Attribute senti140BiTotalCountNeg = new Attribute("senti140BiTotalCountNeg");
+		final Attribute senti140BiTotalCountNeg = new Attribute("senti140BiTotalCountNeg");
 		attributeList.add(senti140BiTotalCountNeg);
 		featurecount++;
 		
-		Attribute senti140BiTotalScoreNeg = new Attribute("senti140BiTotalScoreNeg");
+		final Attribute senti140BiTotalScoreNeg = new Attribute("senti140BiTotalScoreNeg");
 		attributeList.add(senti140BiTotalScoreNeg);
 		featurecount++;
 		
-		Attribute senti140BiMaxScoreNeg = new Attribute("senti140BiMaxScoreNeg");
+		final Attribute senti140BiMaxScoreNeg = new Attribute("senti140BiMaxScoreNeg");
 		attributeList.add(senti140BiMaxScoreNeg);
 		featurecount++;
 		
-		Attribute senti140BiLastScoreNeg = new Attribute("senti140BiLastScoreNeg");
+		final Attribute senti140BiLastScoreNeg = new Attribute("senti140BiLastScoreNeg");
 		attributeList.add(senti140BiLastScoreNeg);
 		featurecount++;
 		
 		//hashtagBi
-		Attribute hashtagBiTotalCountPos = new Attribute("hashtagBiTotalCountPos");
+		final Attribute hashtagBiTotalCountPos = new Attribute("hashtagBiTotalCountPos");
 		attributeList.add(hashtagBiTotalCountPos);
 		featurecount++;
 		
-		Attribute hashtagBiTotalScorePos = new Attribute("hashtagBiTotalScorePos");
+		final Attribute hashtagBiTotalScorePos = new Attribute("hashtagBiTotalScorePos");
 		attributeList.add(hashtagBiTotalScorePos);
 		featurecount++;
 		
-		Attribute hashtagBiMaxScorePos = new Attribute("hashtagBiMaxScorePos");
+		final Attribute hashtagBiMaxScorePos = new Attribute("hashtagBiMaxScorePos");
 		attributeList.add(hashtagBiMaxScorePos);
 		featurecount++;
 		
-		Attribute hashtagBiLastScorePos = new Attribute("hashtagBiLastScorePos");
+		final Attribute hashtagBiLastScorePos = new Attribute("hashtagBiLastScorePos");
 		attributeList.add(hashtagBiLastScorePos);
 		featurecount++;
 		
-		Attribute hashtagBiTotalCountNeg = new Attribute("hashtagBiTotalCountNeg");
+		final Attribute hashtagBiTotalCountNeg = new Attribute("hashtagBiTotalCountNeg");
 		attributeList.add(hashtagBiTotalCountNeg);
 		featurecount++;
 		
-		Attribute hashtagBiTotalScoreNeg = new Attribute("hashtagBiTotalScoreNeg");
+		final Attribute hashtagBiTotalScoreNeg = new Attribute("hashtagBiTotalScoreNeg");
 		attributeList.add(hashtagBiTotalScoreNeg);
 		featurecount++;
 		
-		Attribute hashtagBiMaxScoreNeg = new Attribute("hashtagBiMaxScoreNeg");
+		final Attribute hashtagBiMaxScoreNeg = new Attribute("hashtagBiMaxScoreNeg");
 		attributeList.add(hashtagBiMaxScoreNeg);
 		featurecount++;
 		
-		Attribute hashtagBiLastScoreNeg = new Attribute("hashtagBiLastScoreNeg");
+		final Attribute hashtagBiLastScoreNeg = new Attribute("hashtagBiLastScoreNeg");
 		attributeList.add(hashtagBiLastScoreNeg);
 		featurecount++;
 		
 		//MPQA
-		Attribute MPQATotalCountPos = new Attribute("MPQATotalCountPos");
+		final Attribute MPQATotalCountPos = new Attribute("MPQATotalCountPos");
 		attributeList.add(MPQATotalCountPos);
 		featurecount++;
 		
-		Attribute MPQATotalScorePos = new Attribute("MPQATotalScorePos");
+		final Attribute MPQATotalScorePos = new Attribute("MPQATotalScorePos");
 		attributeList.add(MPQATotalScorePos);
 		featurecount++;
 		
-		Attribute MPQAMaxScorePos = new Attribute("MPQAMaxScorePos");
+		final Attribute MPQAMaxScorePos = new Attribute("MPQAMaxScorePos");
 		attributeList.add(MPQAMaxScorePos);
 		featurecount++;
 		
-		Attribute MPQALastScorePos = new Attribute("MPQALastScorePos");
+		final Attribute MPQALastScorePos = new Attribute("MPQALastScorePos");
 		attributeList.add(MPQALastScorePos);
 		featurecount++;
 		
-		Attribute MPQATotalCountNeg = new Attribute("MPQATotalCountNeg");
+		final Attribute MPQATotalCountNeg = new Attribute("MPQATotalCountNeg");
 		attributeList.add(MPQATotalCountNeg);
 		featurecount++;
 		
-		Attribute MPQATotalScoreNeg = new Attribute("MPQATotalScoreNeg");
+		final Attribute MPQATotalScoreNeg = new Attribute("MPQATotalScoreNeg");
 		attributeList.add(MPQATotalScoreNeg);
 		featurecount++;
 		
-		Attribute MPQAMaxScoreNeg = new Attribute("MPQAMaxScoreNeg");
+		final Attribute MPQAMaxScoreNeg = new Attribute("MPQAMaxScoreNeg");
 		attributeList.add(MPQAMaxScoreNeg);
 		featurecount++;
 		
-		Attribute MPQALastScoreNeg = new Attribute("MPQALastScoreNeg");
+		final Attribute MPQALastScoreNeg = new Attribute("MPQALastScoreNeg");
 		attributeList.add(MPQALastScoreNeg);
 		featurecount++;
 		
 		//BingLiu
-		Attribute BingLiuTotalCountPos = new Attribute("BingLiuTotalCountPos");
+		final Attribute BingLiuTotalCountPos = new Attribute("BingLiuTotalCountPos");
 		attributeList.add(BingLiuTotalCountPos);
 		featurecount++;
 		
-		Attribute BingLiuTotalScorePos = new Attribute("BingLiuTotalScorePos");
+		final Attribute BingLiuTotalScorePos = new Attribute("BingLiuTotalScorePos");
 		attributeList.add(BingLiuTotalScorePos);
 		featurecount++;
 		
-		Attribute BingLiuMaxScorePos = new Attribute("BingLiuMaxScorePos");
+		final Attribute BingLiuMaxScorePos = new Attribute("BingLiuMaxScorePos");
 		attributeList.add(BingLiuMaxScorePos);
 		featurecount++;
 		
-		Attribute BingLiuLastScorePos = new Attribute("BingLiuLastScorePos");
+		final Attribute BingLiuLastScorePos = new Attribute("BingLiuLastScorePos");
 		attributeList.add(BingLiuLastScorePos);
 		featurecount++;
 		
-		Attribute BingLiuTotalCountNeg = new Attribute("BingLiuTotalCountNeg");
+		final Attribute BingLiuTotalCountNeg = new Attribute("BingLiuTotalCountNeg");
 		attributeList.add(BingLiuTotalCountNeg);
 		featurecount++;
 		
-		Attribute BingLiuTotalScoreNeg = new Attribute("BingLiuTotalScoreNeg");
+		final Attribute BingLiuTotalScoreNeg = new Attribute("BingLiuTotalScoreNeg");
 		attributeList.add(BingLiuTotalScoreNeg);
 		featurecount++;
 		
-		Attribute BingLiuMaxScoreNeg = new Attribute("BingLiuMaxScoreNeg");
+		final Attribute BingLiuMaxScoreNeg = new Attribute("BingLiuMaxScoreNeg");
 		attributeList.add(BingLiuMaxScoreNeg);
 		featurecount++;
 		
-		Attribute BingLiuLastScoreNeg = new Attribute("BingLiuLastScoreNeg");
+		final Attribute BingLiuLastScoreNeg = new Attribute("BingLiuLastScoreNeg");
 		attributeList.add(BingLiuLastScoreNeg);
 		featurecount++;
 		
 		//NRC
-		Attribute NRCTotalCountPos = new Attribute("NRCTotalCountPos");
+		final Attribute NRCTotalCountPos = new Attribute("NRCTotalCountPos");
 		attributeList.add(NRCTotalCountPos);
 		featurecount++;
 		
-		Attribute NRCTotalScorePos = new Attribute("NRCTotalScorePos");
+		final Attribute NRCTotalScorePos = new Attribute("NRCTotalScorePos");
 		attributeList.add(NRCTotalScorePos);
 		featurecount++;
 		
-		Attribute NRCMaxScorePos = new Attribute("NRCMaxScorePos");
+		final Attribute NRCMaxScorePos = new Attribute("NRCMaxScorePos");
 		attributeList.add(NRCMaxScorePos);
 		featurecount++;
 		
-		Attribute NRCLastScorePos = new Attribute("NRCLastScorePos");
+		final Attribute NRCLastScorePos = new Attribute("NRCLastScorePos");
 		attributeList.add(NRCLastScorePos);
 		featurecount++;
 		
-		Attribute NRCTotalCountNeg = new Attribute("NRCTotalCountNeg");
+		final Attribute NRCTotalCountNeg = new Attribute("NRCTotalCountNeg");
 		attributeList.add(NRCTotalCountNeg);
 		featurecount++;
 		
-		Attribute NRCTotalScoreNeg = new Attribute("NRCTotalScoreNeg");
+		final Attribute NRCTotalScoreNeg = new Attribute("NRCTotalScoreNeg");
 		attributeList.add(NRCTotalScoreNeg);
 		featurecount++;
 		
-		Attribute NRCMaxScoreNeg = new Attribute("NRCMaxScoreNeg");
+		final Attribute NRCMaxScoreNeg = new Attribute("NRCMaxScoreNeg");
 		attributeList.add(NRCMaxScoreNeg);
 		featurecount++;
 		
-		Attribute NRCLastScoreNeg = new Attribute("NRCLastScoreNeg");
+		final Attribute NRCLastScoreNeg = new Attribute("NRCLastScoreNeg");
 		attributeList.add(NRCLastScoreNeg);
 		featurecount++;
 		
@@ -389,7 +459,7 @@ public class SentimentSystemNRC extends SentimentSystem {
 	    fvClassVal.add("positive");
 	    fvClassVal.add("neutral");
 	    fvClassVal.add("negative");
-	    Attribute classAttribute = new Attribute("Class", fvClassVal);
+	    final Attribute classAttribute = new Attribute("Class", fvClassVal);
 	    attributeList.add(classAttribute);
 		featurecount++;
 		
@@ -397,160 +467,166 @@ public class SentimentSystemNRC extends SentimentSystem {
 		Instances trainingSet = new Instances("test", attributeList, tweetList.size());
 		trainingSet.setClassIndex(classAttribute.index());
 		
-		for(Tweet tweet : tweetList){
-			SparseInstance instance = new SparseInstance(0);
-			//n-gram feature
-			Set<String> nGramSet = tweet.getnGramList();
-			for (String nGram : nGramSet){
-				Integer index = nGramMap.get(nGram);
-				if(index != null){
-					instance.setValue(index, 1);
+		//creating the rows concurrently, they are added in the order of the Tweets
+		final SparseInstance[] instances = new SparseInstance[tweets.size()];
+		this.forEachTweet(workers, tweets, new TweetTask<SentimentSystemNRC>(){
+			public void process(SentimentSystemNRC worker, int row, Tweet tweet){
+				SparseInstance instance = new SparseInstance(0);
+				//n-gram feature
+				Set<String> nGramSet = tweet.getnGramList();
+				for (String nGram : nGramSet){
+					Integer index = nGramMap.get(nGram);
+					if(index != null){
+						instance.setValue(index, 1);
+					}
 				}
-			}
 			
-			//char-n-gram feature
-			Set<String> CharNGramSet = tweet.getCharNGramList();
-			for (String nGram : CharNGramSet){
-				Integer index = CharNGramMap.get(nGram);
-				if(index != null){
-					instance.setValue(index, 1);
+				//char-n-gram feature
+				Set<String> CharNGramSet = tweet.getCharNGramList();
+				for (String nGram : CharNGramSet){
+					Integer index = CharNGramMap.get(nGram);
+					if(index != null){
+						instance.setValue(index, 1);
+					}
 				}
-			}
 			
-			//pos-tag feature
-			Map<String, Integer> posTags = tweet.getPosTagList();
-			for (Map.Entry<String, Integer> posTag : posTags.entrySet()){
-				Integer index = posMap.get(posTag.getKey());
-				if(index != null){
-					instance.setValue(index, posTag.getValue());
+				//pos-tag feature
+				Map<String, Integer> posTags = tweet.getPosTagList();
+				for (Map.Entry<String, Integer> posTag : posTags.entrySet()){
+					Integer index = posMap.get(posTag.getKey());
+					if(index != null){
+						instance.setValue(index, posTag.getValue());
+					}
 				}
-			}
 			
-			//cluster feature
-			Set<String> clusterSet = tweet.getClusterList();
-			for(String cluster : clusterSet){
-				Integer index = clusterMap.get(cluster);
-				if(index != null){
-					instance.setValue(index, 1);
+				//cluster feature
+				Set<String> clusterSet = tweet.getClusterList();
+				for(String cluster : clusterSet){
+					Integer index = clusterMap.get(cluster);
+					if(index != null){
+						instance.setValue(index, 1);
+					}
 				}
-			}
 			
-			//emoticon feature
-			Set<String> emoticonSet = tweet.getEmoticonList();
-			for(String emoticon : emoticonSet){
-				Integer index = emoticonMap.get(emoticon);
-				if(index != null){
-					instance.setValue(index, 1);
+				//emoticon feature
+				Set<String> emoticonSet = tweet.getEmoticonList();
+				for(String emoticon : emoticonSet){
+					Integer index = emoticonMap.get(emoticon);
+					if(index != null){
+						instance.setValue(index, 1);
+					}
 				}
-			}
 			
-			instance.setValue(allCaps, this.getAllCapsCount(tweet.getRawTweetString()));
-			instance.setValue(hashtags, this.getHashtagCount(tweet.getTweetString()));
-			instance.setValue(punctuationCount, this.getPunctuation(tweet.getTweetString()));
-			if(this.isLastPunctuation(tweet.getTweetString())){
-				instance.setValue(punctuationLast, 1);
-			}
-			else{
-				instance.setValue(punctuationLast, 0);
-			}
-			if(tweet.isLastEmoticon()){
-				instance.setValue(emoticonLast, 1);
-			}
-			else{
-				instance.setValue(emoticonLast, 0);
-			}
-			instance.setValue(elongatedWords, this.getElongatedCount(tweet.getTweetString()));
-			instance.setValue(negationCount, tweet.getNegationCount());
+				instance.setValue(allCaps, worker.getAllCapsCount(tweet.getRawTweetString()));
+				instance.setValue(hashtags, worker.getHashtagCount(tweet.getTweetString()));
+				instance.setValue(punctuationCount, worker.getPunctuation(tweet.getTweetString()));
+				if(worker.isLastPunctuation(tweet.getTweetString())){
+					instance.setValue(punctuationLast, 1);
+				}
+				else{
+					instance.setValue(punctuationLast, 0);
+				}
+				if(tweet.isLastEmoticon()){
+					instance.setValue(emoticonLast, 1);
+				}
+				else{
+					instance.setValue(emoticonLast, 0);
+				}
+				instance.setValue(elongatedWords, worker.getElongatedCount(tweet.getTweetString()));
+				instance.setValue(negationCount, tweet.getNegationCount());
 			
-			//lexica feature
-			List<Double> senti140UniPos = this.getLexiScores(senti140UniLexi, tweet.getWordList(), false);
-			instance.setValue(senti140UniTotalCountPos, senti140UniPos.get(0));
-			instance.setValue(senti140UniTotalScorePos, senti140UniPos.get(1));
-			instance.setValue(senti140UniMaxScorePos, senti140UniPos.get(2));
-			instance.setValue(senti140UniLastScorePos, senti140UniPos.get(3));
-			List<Double> hashtagUniPos = this.getLexiScores(hashtagUniLexi, tweet.getWordList(), false);
-			instance.setValue(hashtagUniTotalCountPos, hashtagUniPos.get(0));
-			instance.setValue(hashtagUniTotalScorePos, hashtagUniPos.get(1));
-			instance.setValue(hashtagUniMaxScorePos, hashtagUniPos.get(2));
-			instance.setValue(hashtagUniLastScorePos, hashtagUniPos.get(3));
-			List<Double> senti140UniNeg = this.getLexiScores(senti140UniLexi, tweet.getWordList(), true);
-			instance.setValue(senti140UniTotalCountNeg, senti140UniNeg.get(0));
-			instance.setValue(senti140UniTotalScoreNeg, senti140UniNeg.get(1));
-			instance.setValue(senti140UniMaxScoreNeg, senti140UniNeg.get(2));
-			instance.setValue(senti140UniLastScoreNeg, senti140UniNeg.get(3));
-			List<Double> hashtagUniNeg = this.getLexiScores(hashtagUniLexi, tweet.getWordList(), true);
-			instance.setValue(hashtagUniTotalCountNeg, hashtagUniNeg.get(0));
-			instance.setValue(hashtagUniTotalScoreNeg, hashtagUniNeg.get(1));
-			instance.setValue(hashtagUniMaxScoreNeg, hashtagUniNeg.get(2));
-			instance.setValue(hashtagUniLastScoreNeg, hashtagUniNeg.get(3));
+				//lexica feature
+				List<Double> senti140UniPos = worker.getLexiScores(senti140UniLexi, tweet.getWordList(), false);
+				instance.setValue(senti140UniTotalCountPos, senti140UniPos.get(0));
+				instance.setValue(senti140UniTotalScorePos, senti140UniPos.get(1));
+				instance.setValue(senti140UniMaxScorePos, senti140UniPos.get(2));
+				instance.setValue(senti140UniLastScorePos, senti140UniPos.get(3));
+				List<Double> hashtagUniPos = worker.getLexiScores(hashtagUniLexi, tweet.getWordList(), false);
+				instance.setValue(hashtagUniTotalCountPos, hashtagUniPos.get(0));
+				instance.setValue(hashtagUniTotalScorePos, hashtagUniPos.get(1));
+				instance.setValue(hashtagUniMaxScorePos, hashtagUniPos.get(2));
+				instance.setValue(hashtagUniLastScorePos, hashtagUniPos.get(3));
+				List<Double> senti140UniNeg = worker.getLexiScores(senti140UniLexi, tweet.getWordList(), true);
+				instance.setValue(senti140UniTotalCountNeg, senti140UniNeg.get(0));
+				instance.setValue(senti140UniTotalScoreNeg, senti140UniNeg.get(1));
+				instance.setValue(senti140UniMaxScoreNeg, senti140UniNeg.get(2));
+				instance.setValue(senti140UniLastScoreNeg, senti140UniNeg.get(3));
+				List<Double> hashtagUniNeg = worker.getLexiScores(hashtagUniLexi, tweet.getWordList(), true);
+				instance.setValue(hashtagUniTotalCountNeg, hashtagUniNeg.get(0));
+				instance.setValue(hashtagUniTotalScoreNeg, hashtagUniNeg.get(1));
+				instance.setValue(hashtagUniMaxScoreNeg, hashtagUniNeg.get(2));
+				instance.setValue(hashtagUniLastScoreNeg, hashtagUniNeg.get(3));
 			
-			Set<String> biGramSet = this.getNGrams(tweet, 2, 2);
-			List<Double> senti140BiPos = this.getLexiScoresBi(senti140BiLexi, biGramSet, false);
-			instance.setValue(senti140BiTotalCountPos, senti140BiPos.get(0));
-			instance.setValue(senti140BiTotalScorePos, senti140BiPos.get(1));
-			instance.setValue(senti140BiMaxScorePos, senti140BiPos.get(2));
-			instance.setValue(senti140BiLastScorePos, senti140BiPos.get(3));
-			List<Double> hashtagBiPos = this.getLexiScoresBi(hashtagBiLexi, biGramSet, false);
-			instance.setValue(hashtagBiTotalCountPos, hashtagBiPos.get(0));
-			instance.setValue(hashtagBiTotalScorePos, hashtagBiPos.get(1));
-			instance.setValue(hashtagBiMaxScorePos, hashtagBiPos.get(2));
-			instance.setValue(hashtagBiLastScorePos, hashtagBiPos.get(3));
-			List<Double> senti140BiNeg = this.getLexiScoresBi(senti140BiLexi, biGramSet, true);
-			instance.setValue(senti140BiTotalCountNeg, senti140BiNeg.get(0));
-			instance.setValue(senti140BiTotalScoreNeg, senti140BiNeg.get(1));
-			instance.setValue(senti140BiMaxScoreNeg, senti140BiNeg.get(2));
-			instance.setValue(senti140BiLastScoreNeg, senti140BiNeg.get(3));
-			List<Double> hashtagBiNeg = this.getLexiScoresBi(hashtagBiLexi, biGramSet, true);
-			instance.setValue(hashtagBiTotalCountNeg, hashtagBiNeg.get(0));
-			instance.setValue(hashtagBiTotalScoreNeg, hashtagBiNeg.get(1));
-			instance.setValue(hashtagBiMaxScoreNeg, hashtagBiNeg.get(2));
-			instance.setValue(hashtagBiLastScoreNeg, hashtagBiNeg.get(3));
+				Set<String> biGramSet = worker.getNGrams(tweet, 2, 2);
+				List<Double> senti140BiPos = worker.getLexiScoresBi(senti140BiLexi, biGramSet, false);
+				instance.setValue(senti140BiTotalCountPos, senti140BiPos.get(0));
+				instance.setValue(senti140BiTotalScorePos, senti140BiPos.get(1));
+				instance.setValue(senti140BiMaxScorePos, senti140BiPos.get(2));
+				instance.setValue(senti140BiLastScorePos, senti140BiPos.get(3));
+				List<Double> hashtagBiPos = worker.getLexiScoresBi(hashtagBiLexi, biGramSet, false);
+				instance.setValue(hashtagBiTotalCountPos, hashtagBiPos.get(0));
+				instance.setValue(hashtagBiTotalScorePos, hashtagBiPos.get(1));
+				instance.setValue(hashtagBiMaxScorePos, hashtagBiPos.get(2));
+				instance.setValue(hashtagBiLastScorePos, hashtagBiPos.get(3));
+				List<Double> senti140BiNeg = worker.getLexiScoresBi(senti140BiLexi, biGramSet, true);
+				instance.setValue(senti140BiTotalCountNeg, senti140BiNeg.get(0));
+				instance.setValue(senti140BiTotalScoreNeg, senti140BiNeg.get(1));
+				instance.setValue(senti140BiMaxScoreNeg, senti140BiNeg.get(2));
+				instance.setValue(senti140BiLastScoreNeg, senti140BiNeg.get(3));
+				List<Double> hashtagBiNeg = worker.getLexiScoresBi(hashtagBiLexi, biGramSet, true);
+				instance.setValue(hashtagBiTotalCountNeg, hashtagBiNeg.get(0));
+				instance.setValue(hashtagBiTotalScoreNeg, hashtagBiNeg.get(1));
+				instance.setValue(hashtagBiMaxScoreNeg, hashtagBiNeg.get(2));
+				instance.setValue(hashtagBiLastScoreNeg, hashtagBiNeg.get(3));
 			
-			List<Double> MPQAPos = this.getLexiScores(MPQALexi, tweet.getWordList(), false);
-			instance.setValue(MPQATotalCountPos, MPQAPos.get(0));
-			instance.setValue(MPQATotalScorePos, MPQAPos.get(1));
-			instance.setValue(MPQAMaxScorePos, MPQAPos.get(2));
-			instance.setValue(MPQALastScorePos, MPQAPos.get(3));
-			List<Double> MPQANeg = this.getLexiScores(MPQALexi, tweet.getWordList(), true);
-			instance.setValue(MPQATotalCountNeg, MPQANeg.get(0));
-			instance.setValue(MPQATotalScoreNeg, MPQANeg.get(1));
-			instance.setValue(MPQAMaxScoreNeg, MPQANeg.get(2));
-			instance.setValue(MPQALastScoreNeg, MPQANeg.get(3));
+				List<Double> MPQAPos = worker.getLexiScores(MPQALexi, tweet.getWordList(), false);
+				instance.setValue(MPQATotalCountPos, MPQAPos.get(0));
+				instance.setValue(MPQATotalScorePos, MPQAPos.get(1));
+				instance.setValue(MPQAMaxScorePos, MPQAPos.get(2));
+				instance.setValue(MPQALastScorePos, MPQAPos.get(3));
+				List<Double> MPQANeg = worker.getLexiScores(MPQALexi, tweet.getWordList(), true);
+				instance.setValue(MPQATotalCountNeg, MPQANeg.get(0));
+				instance.setValue(MPQATotalScoreNeg, MPQANeg.get(1));
+				instance.setValue(MPQAMaxScoreNeg, MPQANeg.get(2));
+				instance.setValue(MPQALastScoreNeg, MPQANeg.get(3));
 			
-			List<Double> BingLiuPos = this.getLexiScores(BingLiuLexi, tweet.getWordList(), false);
-			instance.setValue(BingLiuTotalCountPos, BingLiuPos.get(0));
-			instance.setValue(BingLiuTotalScorePos, BingLiuPos.get(1));
-			instance.setValue(BingLiuMaxScorePos, BingLiuPos.get(2));
-			instance.setValue(BingLiuLastScorePos, BingLiuPos.get(3));
-			List<Double> BingLiuNeg = this.getLexiScores(BingLiuLexi, tweet.getWordList(), true);
-			instance.setValue(BingLiuTotalCountNeg, BingLiuNeg.get(0));
-			instance.setValue(BingLiuTotalScoreNeg, BingLiuNeg.get(1));
-			instance.setValue(BingLiuMaxScoreNeg, BingLiuNeg.get(2));
-			instance.setValue(BingLiuLastScoreNeg, BingLiuNeg.get(3));
+				List<Double> BingLiuPos = worker.getLexiScores(BingLiuLexi, tweet.getWordList(), false);
+				instance.setValue(BingLiuTotalCountPos, BingLiuPos.get(0));
+				instance.setValue(BingLiuTotalScorePos, BingLiuPos.get(1));
+				instance.setValue(BingLiuMaxScorePos, BingLiuPos.get(2));
+				instance.setValue(BingLiuLastScorePos, BingLiuPos.get(3));
+				List<Double> BingLiuNeg = worker.getLexiScores(BingLiuLexi, tweet.getWordList(), true);
+				instance.setValue(BingLiuTotalCountNeg, BingLiuNeg.get(0));
+				instance.setValue(BingLiuTotalScoreNeg, BingLiuNeg.get(1));
+				instance.setValue(BingLiuMaxScoreNeg, BingLiuNeg.get(2));
+				instance.setValue(BingLiuLastScoreNeg, BingLiuNeg.get(3));
 			
-			List<Double> NRCPos = this.getLexiScores(NRCLexi, tweet.getWordList(), false);
-			instance.setValue(NRCTotalCountPos, NRCPos.get(0));
-			instance.setValue(NRCTotalScorePos, NRCPos.get(1));
-			instance.setValue(NRCMaxScorePos, NRCPos.get(2));
-			instance.setValue(NRCLastScorePos, NRCPos.get(3));
-			List<Double> NRCNeg = this.getLexiScores(NRCLexi, tweet.getWordList(), true);
-			instance.setValue(NRCTotalCountNeg, NRCNeg.get(0));
-			instance.setValue(NRCTotalScoreNeg, NRCNeg.get(1));
-			instance.setValue(NRCMaxScoreNeg, NRCNeg.get(2));
-			instance.setValue(NRCLastScoreNeg, NRCNeg.get(3));
+				List<Double> NRCPos = worker.getLexiScores(NRCLexi, tweet.getWordList(), false);
+				instance.setValue(NRCTotalCountPos, NRCPos.get(0));
+				instance.setValue(NRCTotalScorePos, NRCPos.get(1));
+				instance.setValue(NRCMaxScorePos, NRCPos.get(2));
+				instance.setValue(NRCLastScorePos, NRCPos.get(3));
+				List<Double> NRCNeg = worker.getLexiScores(NRCLexi, tweet.getWordList(), true);
+				instance.setValue(NRCTotalCountNeg, NRCNeg.get(0));
+				instance.setValue(NRCTotalScoreNeg, NRCNeg.get(1));
+				instance.setValue(NRCMaxScoreNeg, NRCNeg.get(2));
+				instance.setValue(NRCLastScoreNeg, NRCNeg.get(3));
 			
-			//set class attribute
-			instance.setValue(classAttribute, tweet.getSentiment());
+				//set class attribute
+				instance.setValue(classAttribute, tweet.getSentiment());
 
+				instances[row] = instance;
+			}
+		});
+		for (SparseInstance instance : instances){
 			trainingSet.add(instance);
 		}
 		
-		//save features and training instances in .arff file
-		ArffSaver saver = new ArffSaver();
-		saver.setInstances(trainingSet);
-		saver.setFile(new File("resources/arff/Trained-Features-" + "NRC" + savename + ".arff"));
-		saver.writeBatch();
-		System.out.println("Trained-Features-" + "NRC" + savename + " saved");
+		//save features and training instances in the selected format
+		File featureFile = this.saveFeatures(trainingSet, "Trained-Features-" + "NRC" + savename);
+		
+		//train and save the model, so the test run does not have to retrain it
+		TrainedModel.train("NRC", trainingSet, COST, featureFile).save(TrainedModel.modelFile("Trained-Features-" + "NRC" + savename));
 	}
 	
     /**
@@ -560,9 +636,22 @@ public class SentimentSystemNRC extends SentimentSystem {
      * @return returns all results in a map
      * @throws Exception
      */ 	
-	public Map<String,ClassificationResult> test(String nameOfTrain) throws Exception{
+	public ResultStore test(String nameOfTrain) throws Exception{
 		System.out.println("Starting NRC Test");
 		System.out.println("Tweets: " +  this.tweetList.size());
+		this.loadClassifier(nameOfTrain);
+		ResultStore results = this.classifyBatch(new ArrayList<Tweet>(this.tweetList));
+		this.dumpProbabilities(results);
+		return results;
+	}
+	
+	/**
+	 * Loads the trained model and the resources to classify Tweets
+	 * 
+	 * @param nameOfTrain optional filename of the arff file
+	 * @throws IOException
+	 */
+	public void loadClassifier(String nameOfTrain) throws IOException{
 		String trainname = "";
 		if(!nameOfTrain.equals("")){
 			trainname = nameOfTrain;
@@ -571,253 +660,285 @@ public class SentimentSystemNRC extends SentimentSystem {
 			trainname = "Trained-Features-NRC";
 		}
 		
-		//load features and training instances from .arff file
-		BufferedReader reader = new BufferedReader(new FileReader("resources/arff/" + trainname + ".arff"));
-		Instances train = new Instances(reader);
-		train.setClassIndex(train.numAttributes() - 1);
-		reader.close();
-		
-		//load and setup classifier
-		LibLINEAR classifier = new LibLINEAR();
-        classifier.setProbabilityEstimates(true);
-        classifier.setSVMType(new SelectedTag(0, LibLINEAR.TAGS_SVMTYPE));
-        classifier.setCost(0.5);
-        
-        //train classifier with instances
-        classifier.buildClassifier(train);
-        
-        //delete train instances, to use same features with test instances
-		train.delete();
+		//load trained model, it gets retrained from the .arff file if it is missing or stale
+		TrainedModel trainedModel = TrainedModel.loadOrTrain("NRC", trainname, COST);
+		this.setTrainedModel(trainedModel);
 		
+		this.loadResources();
+	}
+	
+	/**
+	 * Loads the resources the features of a Tweet need, e.g. the sentiment lexica
+	 * 
+	 * @throws IOException
+	 */
+	protected void loadResources() throws IOException{
 		//load pos-tagger
-    	Tagger tagger = new Tagger();
-    	tagger.loadModel("resources/tagger/model.20120919.txt");
+		this.loadWorkerResources();
     	
     	//load sentiment lexica
-    	Map<String, Double> senti140UniLexi = this.loadLexicon("sentiment140/unigrams-pmilexicon");
-    	Map<String, Double> hashtagUniLexi = this.loadLexicon("hashtag/unigrams-pmilexicon");
-    	Map<String, Double> senti140BiLexi = this.loadLexicon("sentiment140/bigrams-pmilexicon");
-    	Map<String, Double> hashtagBiLexi = this.loadLexicon("hashtag/bigrams-pmilexicon");
-    	Map<String, Double> MPQALexi = this.loadMPQA();
-    	Map<String, Double> BingLiuLexi = this.loadBingLiu();
-    	Map<String, Double> NRCLexi = this.loadNRC();
-		
-		Map<String, Integer> featureMap = new HashMap<String, Integer>();
-		for (int i = 0; i < train.numAttributes(); i++){
-			featureMap.put(train.attribute(i).name(), train.attribute(i).index());
-		}
-	    
-		Map<String,ClassificationResult> resultMap = new HashMap<String,ClassificationResult>();
-		for(Tweet tweet : this.tweetList){
+    	this.senti140UniLexi = this.loadLexicon("sentiment140/unigrams-pmilexicon");
+    	this.hashtagUniLexi = this.loadLexicon("hashtag/unigrams-pmilexicon");
+    	this.senti140BiLexi = this.loadLexicon("sentiment140/bigrams-pmilexicon");
+    	this.hashtagBiLexi = this.loadLexicon("hashtag/bigrams-pmilexicon");
+    	this.MPQALexi = this.loadMPQA();
+    	this.BingLiuLexi = this.loadBingLiu();
+    	this.NRCLexi = this.loadNRC();
+	}
+	
+	/**
+	 * Loads the resources that are not thread-safe, every worker of a parallel test loads its own
+	 * 
+	 * @throws IOException
+	 */
+	protected void loadWorkerResources() throws IOException{
+		//load pos-tagger
+		this.tagger = loadTagger();
+	}
+	
+	protected String getName(){
+		return "NRC";
+	}
+	
+	protected double getCost(){
+		return COST;
+	}
+	
+	protected List<Stage<?>> getStages(){
+		return STAGES;
+	}
+	
+	/**
+	 * Resolves the dictionaries of the sparse features and the slots of the dense features in the schema of the trained model
+	 */
+	protected void resolveSchema(){
+		this.nGramDictionary = this.schema.getDictionary("NGRAM_");
+		this.charNGramDictionary = this.schema.getDictionary("CHARNGRAM_");
+		this.posDictionary = this.schema.getDictionary("POS_");
+		this.clusterDictionary = this.schema.getDictionary("CLUSTER_");
+		this.emoticonDictionary = this.schema.getDictionary("EMO_");
+		this.allCaps = this.schema.getSlot("allCaps");
+		this.hashtags = this.schema.getSlot("hashtags");
+		this.punctuationCount = this.schema.getSlot("punctuationCount");
+		this.punctuationLast = this.schema.getSlot("punctuationLast");
+		this.emoticonLast = this.schema.getSlot("emoticonLast");
+		this.elongatedWords = this.schema.getSlot("elongatedWords");
+		this.negationCount = this.schema.getSlot("negationCount");
+		this.senti140UniTotalCountPos = this.schema.getSlot("senti140UniTotalCountPos");
+		this.senti140UniTotalScorePos = this.schema.getSlot("senti140UniTotalScorePos");
+		this.senti140UniMaxScorePos = this.schema.getSlot("senti140UniMaxScorePos");
+		this.senti140UniLastScorePos = this.schema.getSlot("senti140UniLastScorePos");
+		this.hashtagUniTotalCountPos = this.schema.getSlot("hashtagUniTotalCountPos");
+		this.hashtagUniTotalScorePos = this.schema.getSlot("hashtagUniTotalScorePos");
+		this.hashtagUniMaxScorePos = this.schema.getSlot("hashtagUniMaxScorePos");
+		this.hashtagUniLastScorePos = this.schema.getSlot("hashtagUniLastScorePos");
+		this.senti140UniTotalCountNeg = this.schema.getSlot("senti140UniTotalCountNeg");
+		this.senti140UniTotalScoreNeg = this.schema.getSlot("senti140UniTotalScoreNeg");
+		this.senti140UniMaxScoreNeg = this.schema.getSlot("senti140UniMaxScoreNeg");
+		this.senti140UniLastScoreNeg = this.schema.getSlot("senti140UniLastScoreNeg");
+		this.hashtagUniTotalCountNeg = this.schema.getSlot("hashtagUniTotalCountNeg");
+		this.hashtagUniTotalScoreNeg = this.schema.getSlot("hashtagUniTotalScoreNeg");
+		this.hashtagUniMaxScoreNeg = this.schema.getSlot("hashtagUniMaxScoreNeg");
+		this.hashtagUniLastScoreNeg = this.schema.getSlot("hashtagUniLastScoreNeg");
+		this.senti140BiTotalCountPos = this.schema.getSlot("senti140BiTotalCountPos");
+		this.senti140BiTotalScorePos = this.schema.getSlot("senti140BiTotalScorePos");
+		this.senti140BiMaxScorePos = this.schema.getSlot("senti140BiMaxScorePos");
+		this.senti140BiLastScorePos = this.schema.getSlot("senti140BiLastScorePos");
+		this.hashtagBiTotalCountPos = this.schema.getSlot("hashtagBiTotalCountPos");
+		this.hashtagBiTotalScorePos = this.schema.getSlot("hashtagBiTotalScorePos");
+		this.hashtagBiMaxScorePos = this.schema.getSlot("hashtagBiMaxScorePos");
+		this.hashtagBiLastScorePos = this.schema.getSlot("hashtagBiLastScorePos");
+		this.senti140BiTotalCountNeg = this.schema.getSlot("senti140BiTotalCountNeg");
+		this.senti140BiTotalScoreNeg = this.schema.getSlot("senti140BiTotalScoreNeg");
+		this.senti140BiMaxScoreNeg = this.schema.getSlot("senti140BiMaxScoreNeg");
+		this.senti140BiLastScoreNeg = this.schema.getSlot("senti140BiLastScoreNeg");
+		this.hashtagBiTotalCountNeg = this.schema.getSlot("hashtagBiTotalCountNeg");
+		this.hashtagBiTotalScoreNeg = this.schema.getSlot("hashtagBiTotalScoreNeg");
+		this.hashtagBiMaxScoreNeg = this.schema.getSlot("hashtagBiMaxScoreNeg");
+		this.hashtagBiLastScoreNeg = this.schema.getSlot("hashtagBiLastScoreNeg");
+		this.MPQATotalCountPos = this.schema.getSlot("MPQATotalCountPos");
+		this.MPQATotalScorePos = this.schema.getSlot("MPQATotalScorePos");
+		this.MPQAMaxScorePos = this.schema.getSlot("MPQAMaxScorePos");
+		this.MPQALastScorePos = this.schema.getSlot("MPQALastScorePos");
+		this.MPQATotalCountNeg = this.schema.getSlot("MPQATotalCountNeg");
+		this.MPQATotalScoreNeg = this.schema.getSlot("MPQATotalScoreNeg");
+		this.MPQAMaxScoreNeg = this.schema.getSlot("MPQAMaxScoreNeg");
+		this.MPQALastScoreNeg = this.schema.getSlot("MPQALastScoreNeg");
+		this.BingLiuTotalCountPos = this.schema.getSlot("BingLiuTotalCountPos");
+		this.BingLiuTotalScorePos = this.schema.getSlot("BingLiuTotalScorePos");
+		this.BingLiuMaxScorePos = this.schema.getSlot("BingLiuMaxScorePos");
+		this.BingLiuLastScorePos = this.schema.getSlot("BingLiuLastScorePos");
+		this.BingLiuTotalCountNeg = this.schema.getSlot("BingLiuTotalCountNeg");
+		this.BingLiuTotalScoreNeg = this.schema.getSlot("BingLiuTotalScoreNeg");
+		this.BingLiuMaxScoreNeg = this.schema.getSlot("BingLiuMaxScoreNeg");
+		this.BingLiuLastScoreNeg = this.schema.getSlot("BingLiuLastScoreNeg");
+		this.NRCTotalCountPos = this.schema.getSlot("NRCTotalCountPos");
+		this.NRCTotalScorePos = this.schema.getSlot("NRCTotalScorePos");
+		this.NRCMaxScorePos = this.schema.getSlot("NRCMaxScorePos");
+		this.NRCLastScorePos = this.schema.getSlot("NRCLastScorePos");
+		this.NRCTotalCountNeg = this.schema.getSlot("NRCTotalCountNeg");
+		this.NRCTotalScoreNeg = this.schema.getSlot("NRCTotalScoreNeg");
+		this.NRCMaxScoreNeg = this.schema.getSlot("NRCMaxScoreNeg");
+		this.NRCLastScoreNeg = this.schema.getSlot("NRCLastScoreNeg");
+	}
+	
+	/**
+	 * Preprocesses and tags the Tweet and creates its features
+	 * 
+	 * @param tweet the Tweet
+	 * @param vector the cleared vector for the features
+	 * @throws IOException
+	 */
+	protected void createFeatures(Tweet tweet, FeatureVector vector) throws IOException{
 		    
 		    //preprocess and tag
-			this.preProcessTweet(tweet);
-			this.tokenizeAndTag(tagger, tweet);
-			this.negate(tweet);
-			SparseInstance instance = new SparseInstance(0);
-			
-			//creating test instances with features
+		this.pull(tagger, tweet);
+		
+		//creating test instances with features
             //n-gram feature
-			Set<String> nGramSet = this.getNGrams(tweet, 4);
-			for (String nGram : nGramSet){
-				Integer index = featureMap.get("NGRAM_" + nGram);
-				if(index != null){
-					instance.setValue(index, 1);
-				}
-			}
-			
-			//char-n-gram feature
-			Set<String> CharNGramSet = this.getCharNGrams(tweet);
-			for (String nGram : CharNGramSet){
-				Integer index = featureMap.get("CHARNGRAM_" + nGram);
-				if(index != null){
-					instance.setValue(index, 1);
-				}
-			}
-			
-			//pos-tag feature
-			Map<String, Integer> posTags = this.getPosTags(tweet);
-			for (Map.Entry<String, Integer> posTag : posTags.entrySet()){
-				Integer index = featureMap.get("POS_" +posTag.getKey());
-				if(index != null){
-					instance.setValue(index, posTag.getValue());
-				}
-			}
-			
-			//cluster feature
-			Set<String> clusterSet = this.getClusters(tweet);
-			for(String cluster : clusterSet){
-				Integer index = featureMap.get("CLUSTER_" + cluster);
-				if(index != null){
-					instance.setValue(index, 1);
-				}
-			}
-			
-			//emoticon feature
-			Set<String> emoticonSet = this.getEmoticons(tweet);
-			for(String emoticon : emoticonSet){
-				Integer index = featureMap.get("EMO_" + emoticon);
-				if(index != null){
-					instance.setValue(index, 1);
-				}
+		Set<String> nGramSet = tweet.getnGramList();
+		for (String nGram : nGramSet){
+			int index = nGramDictionary.get(nGram);
+			if(index != -1){
+				vector.add(index);
 			}
-			
-			instance.setValue(featureMap.get("allCaps"), this.getAllCapsCount(tweet.getRawTweetString()));
-			instance.setValue(featureMap.get("hashtags"), this.getHashtagCount(tweet.getTweetString()));
-			instance.setValue(featureMap.get("punctuationCount"), this.getPunctuation(tweet.getTweetString()));
-			if(this.isLastPunctuation(tweet.getTweetString())){
-				instance.setValue(featureMap.get("punctuationLast"), 1);
+		}
+		
+		//char-n-gram feature
+		Set<String> CharNGramSet = tweet.getCharNGramList();
+		for (String nGram : CharNGramSet){
+			int index = charNGramDictionary.get(nGram);
+			if(index != -1){
+				vector.add(index);
 			}
-			else{
-				instance.setValue(featureMap.get("punctuationLast"), 0);
+		}
+		
+		//pos-tag feature
+		Map<String, Integer> posTags = tweet.getPosTagList();
+		for (Map.Entry<String, Integer> posTag : posTags.entrySet()){
+			int index = posDictionary.get(posTag.getKey());
+			if(index != -1){
+				vector.add(index, posTag.getValue());
 			}
-			if(tweet.isLastEmoticon()){
-				instance.setValue(featureMap.get("emoticonLast"), 1);
+		}
+		
+		//cluster feature
+		Set<String> clusterSet = tweet.getClusterList();
+		for(String cluster : clusterSet){
+			int index = clusterDictionary.get(cluster);
+			if(index != -1){
+				vector.add(index);
 			}
-			else{
-				instance.setValue(featureMap.get("emoticonLast"), 0);
+		}
+		
+		//emoticon feature
+		Set<String> emoticonSet = tweet.getEmoticonList();
+		for(String emoticon : emoticonSet){
+			int index = emoticonDictionary.get(emoticon);
+			if(index != -1){
+				vector.add(index);
 			}
-			instance.setValue(featureMap.get("elongatedWords"), this.getElongatedCount(tweet.getTweetString()));
-			instance.setValue(featureMap.get("negationCount"), tweet.getNegationCount());
-			
-			//lexica features
-			List<Double> senti140UniPos = this.getLexiScores(senti140UniLexi, tweet.getWordList(), false);
-			instance.setValue(featureMap.get("senti140UniTotalCountPos"), senti140UniPos.get(0));
-			instance.setValue(featureMap.get("senti140UniTotalScorePos"), senti140UniPos.get(1));
-			instance.setValue(featureMap.get("senti140UniMaxScorePos"), senti140UniPos.get(2));
-			instance.setValue(featureMap.get("senti140UniLastScorePos"), senti140UniPos.get(3));
-			List<Double> hashtagUniPos = this.getLexiScores(hashtagUniLexi, tweet.getWordList(), false);
-			instance.setValue(featureMap.get("hashtagUniTotalCountPos"), hashtagUniPos.get(0));
-			instance.setValue(featureMap.get("hashtagUniTotalScorePos"), hashtagUniPos.get(1));
-			instance.setValue(featureMap.get("hashtagUniMaxScorePos"), hashtagUniPos.get(2));
-			instance.setValue(featureMap.get("hashtagUniLastScorePos"), hashtagUniPos.get(3));
-			List<Double> senti140UniNeg = this.getLexiScores(senti140UniLexi, tweet.getWordList(), true);
-			instance.setValue(featureMap.get("senti140UniTotalCountNeg"), senti140UniNeg.get(0));
-			instance.setValue(featureMap.get("senti140UniTotalScoreNeg"), senti140UniNeg.get(1));
-			instance.setValue(featureMap.get("senti140UniMaxScoreNeg"), senti140UniNeg.get(2));
-			instance.setValue(featureMap.get("senti140UniLastScoreNeg"), senti140UniNeg.get(3));
-			List<Double> hashtagUniNeg = this.getLexiScores(hashtagUniLexi, tweet.getWordList(), true);
-			instance.setValue(featureMap.get("hashtagUniTotalCountNeg"), hashtagUniNeg.get(0));
-			instance.setValue(featureMap.get("hashtagUniTotalScoreNeg"), hashtagUniNeg.get(1));
-			instance.setValue(featureMap.get("hashtagUniMaxScoreNeg"), hashtagUniNeg.get(2));
-			instance.setValue(featureMap.get("hashtagUniLastScoreNeg"), hashtagUniNeg.get(3));
-			
-			Set<String> biGramSet = this.getNGrams(tweet, 2, 2);
-			List<Double> senti140BiPos = this.getLexiScoresBi(senti140BiLexi, biGramSet, false);
-			instance.setValue(featureMap.get("senti140BiTotalCountPos"), senti140BiPos.get(0));
-			instance.setValue(featureMap.get("senti140BiTotalScorePos"), senti140BiPos.get(1));
-			instance.setValue(featureMap.get("senti140BiMaxScorePos"), senti140BiPos.get(2));
-			instance.setValue(featureMap.get("senti140BiLastScorePos"), senti140BiPos.get(3));
-			List<Double> hashtagBiPos = this.getLexiScoresBi(hashtagBiLexi, biGramSet, false);
-			instance.setValue(featureMap.get("hashtagBiTotalCountPos"), hashtagBiPos.get(0));
-			instance.setValue(featureMap.get("hashtagBiTotalScorePos"), hashtagBiPos.get(1));
-			instance.setValue(featureMap.get("hashtagBiMaxScorePos"), hashtagBiPos.get(2));
-			instance.setValue(featureMap.get("hashtagBiLastScorePos"), hashtagBiPos.get(3));
-			List<Double> senti140BiNeg = this.getLexiScoresBi(senti140BiLexi, biGramSet, true);
-			instance.setValue(featureMap.get("senti140BiTotalCountNeg"), senti140BiNeg.get(0));
-			instance.setValue(featureMap.get("senti140BiTotalScoreNeg"), senti140BiNeg.get(1));
-			instance.setValue(featureMap.get("senti140BiMaxScoreNeg"), senti140BiNeg.get(2));
-			instance.setValue(featureMap.get("senti140BiLastScoreNeg"), senti140BiNeg.get(3));
-			List<Double> hashtagBiNeg = this.getLexiScoresBi(hashtagBiLexi, biGramSet, true);
-			instance.setValue(featureMap.get("hashtagBiTotalCountNeg"), hashtagBiNeg.get(0));
-			instance.setValue(featureMap.get("hashtagBiTotalScoreNeg"), hashtagBiNeg.get(1));
-			instance.setValue(featureMap.get("hashtagBiMaxScoreNeg"), hashtagBiNeg.get(2));
-			instance.setValue(featureMap.get("hashtagBiLastScoreNeg"), hashtagBiNeg.get(3));
-			
-			List<Double> MPQAPos = this.getLexiScores(MPQALexi, tweet.getWordList(), false);
-			instance.setValue(featureMap.get("MPQATotalCountPos"), MPQAPos.get(0));
-			instance.setValue(featureMap.get("MPQATotalScorePos"), MPQAPos.get(1));
-			instance.setValue(featureMap.get("MPQAMaxScorePos"), MPQAPos.get(2));
-			instance.setValue(featureMap.get("MPQALastScorePos"), MPQAPos.get(3));
-			List<Double> MPQANeg = this.getLexiScores(MPQALexi,  tweet.getWordList(), true);
-			instance.setValue(featureMap.get("MPQATotalCountNeg"), MPQANeg.get(0));
-			instance.setValue(featureMap.get("MPQATotalScoreNeg"), MPQANeg.get(1));
-			instance.setValue(featureMap.get("MPQAMaxScoreNeg"), MPQANeg.get(2));
-			instance.setValue(featureMap.get("MPQALastScoreNeg"), MPQANeg.get(3));
-			
-			List<Double> BingLiuPos = this.getLexiScores(BingLiuLexi, tweet.getWordList(), false);
-			instance.setValue(featureMap.get("BingLiuTotalCountPos"), BingLiuPos.get(0));
-			instance.setValue(featureMap.get("BingLiuTotalScorePos"), BingLiuPos.get(1));
-			instance.setValue(featureMap.get("BingLiuMaxScorePos"), BingLiuPos.get(2));
-			instance.setValue(featureMap.get("BingLiuLastScorePos"), BingLiuPos.get(3));
-			List<Double> BingLiuNeg = this.getLexiScores(BingLiuLexi, tweet.getWordList(), true);
-			instance.setValue(featureMap.get("BingLiuTotalCountNeg"), BingLiuNeg.get(0));
-			instance.setValue(featureMap.get("BingLiuTotalScoreNeg"), BingLiuNeg.get(1));
-			instance.setValue(featureMap.get("BingLiuMaxScoreNeg"), BingLiuNeg.get(2));
-			instance.setValue(featureMap.get("BingLiuLastScoreNeg"), BingLiuNeg.get(3));
-			
-			List<Double> NRCPos = this.getLexiScores(NRCLexi, tweet.getWordList(), false);
-			instance.setValue(featureMap.get("NRCTotalCountPos"), NRCPos.get(0));
-			instance.setValue(featureMap.get("NRCTotalScorePos"), NRCPos.get(1));
-			instance.setValue(featureMap.get("NRCMaxScorePos"), NRCPos.get(2));
-			instance.setValue(featureMap.get("NRCLastScorePos"), NRCPos.get(3));
-			List<Double> NRCNeg = this.getLexiScores(NRCLexi, tweet.getWordList(), true);
-			instance.setValue(featureMap.get("NRCTotalCountNeg"), NRCNeg.get(0));
-			instance.setValue(featureMap.get("NRCTotalScoreNeg"), NRCNeg.get(1));
-			instance.setValue(featureMap.get("NRCMaxScoreNeg"), NRCNeg.get(2));
-			instance.setValue(featureMap.get("NRCLastScoreNeg"), NRCNeg.get(3));
-			
-			//add test instance to trained features
-			train.add(instance);
-			
-            //classify Tweet
-            double result = classifier.classifyInstance(train.lastInstance());
-            double[] resultDistribution = classifier.distributionForInstance(train.lastInstance());
-            resultMap.put(tweet.getTweetID(), new ClassificationResult(tweet, resultDistribution, result));
 		}
 		
-		return resultMap;
+		vector.add(allCaps, this.getAllCapsCount(tweet.getRawTweetString()));
+		vector.add(hashtags, this.getHashtagCount(tweet.getTweetString()));
+		vector.add(punctuationCount, this.getPunctuation(tweet.getTweetString()));
+		if(this.isLastPunctuation(tweet.getTweetString())){
+			vector.add(punctuationLast);
+		}
+		else{
+			vector.add(punctuationLast, 0);
+		}
+		if(tweet.isLastEmoticon()){
+			vector.add(emoticonLast);
+		}
+		else{
+			vector.add(emoticonLast, 0);
+		}
+		vector.add(elongatedWords, this.getElongatedCount(tweet.getTweetString()));
+		vector.add(negationCount, tweet.getNegationCount());
+		
+		//lexica features
+		List<Double> senti140UniPos = this.getLexiScores(senti140UniLexi, tweet.getWordList(), false);
+		vector.add(senti140UniTotalCountPos, senti140UniPos.get(0));
+		vector.add(senti140UniTotalScorePos, senti140UniPos.get(1));
+		vector.add(senti140UniMaxScorePos, senti140UniPos.get(2));
+		vector.add(senti140UniLastScorePos, senti140UniPos.get(3));
+		List<Double> hashtagUniPos = this.getLexiScores(hashtagUniLexi, tweet.getWordList(), false);
+		vector.add(hashtagUniTotalCountPos, hashtagUniPos.get(0));
+		vector.add(hashtagUniTotalScorePos, hashtagUniPos.get(1));
+		vector.add(hashtagUniMaxScorePos, hashtagUniPos.get(2));
+		vector.add(hashtagUniLastScorePos, hashtagUniPos.get(3));
+		List<Double> senti140UniNeg = this.getLexiScores(senti140UniLexi, tweet.getWordList(), true);
+		vector.add(senti140UniTotalCountNeg, senti140UniNeg.get(0));
+		vector.add(senti140UniTotalScoreNeg, senti140UniNeg.get(1));
+		vector.add(senti140UniMaxScoreNeg, senti140UniNeg.get(2));
+		vector.add(senti140UniLastScoreNeg, senti140UniNeg.get(3));
+		List<Double> hashtagUniNeg = this.getLexiScores(hashtagUniLexi, tweet.getWordList(), true);
+		vector.add(hashtagUniTotalCountNeg, hashtagUniNeg.get(0));
+		vector.add(hashtagUniTotalScoreNeg, hashtagUniNeg.get(1));
+		vector.add(hashtagUniMaxScoreNeg, hashtagUniNeg.get(2));
+		vector.add(hashtagUniLastScoreNeg, hashtagUniNeg.get(3));
+		
+		Set<String> biGramSet = this.getNGrams(tweet, 2, 2);
+		List<Double> senti140BiPos = this.getLexiScoresBi(senti140BiLexi, biGramSet, false);
+		vector.add(senti140BiTotalCountPos, senti140BiPos.get(0));
+		vector.add(senti140BiTotalScorePos, senti140BiPos.get(1));
+		vector.add(senti140BiMaxScorePos, senti140BiPos.get(2));
+		vector.add(senti140BiLastScorePos, senti140BiPos.get(3));
+		List<Double> hashtagBiPos = this.getLexiScoresBi(hashtagBiLexi, biGramSet, false);
+		vector.add(hashtagBiTotalCountPos, hashtagBiPos.get(0));
+		vector.add(hashtagBiTotalScorePos, hashtagBiPos.get(1));
+		vector.add(hashtagBiMaxScorePos, hashtagBiPos.get(2));
+		vector.add(hashtagBiLastScorePos, hashtagBiPos.get(3));
+		List<Double> senti140BiNeg = this.getLexiScoresBi(senti140BiLexi, biGramSet, true);
+		vector.add(senti140BiTotalCountNeg, senti140BiNeg.get(0));
+		vector.add(senti140BiTotalScoreNeg, senti140BiNeg.get(1));
+		vector.add(senti140BiMaxScoreNeg, senti140BiNeg.get(2));
+		vector.add(senti140BiLastScoreNeg, senti140BiNeg.get(3));
+		List<Double> hashtagBiNeg = this.getLexiScoresBi(hashtagBiLexi, biGramSet, true);
+		vector.add(hashtagBiTotalCountNeg, hashtagBiNeg.get(0));
+		vector.add(hashtagBiTotalScoreNeg, hashtagBiNeg.get(1));
+		vector.add(hashtagBiMaxScoreNeg, hashtagBiNeg.get(2));
+		vector.add(hashtagBiLastScoreNeg, hashtagBiNeg.get(3));
+		
+		List<Double> MPQAPos = this.getLexiScores(MPQALexi, tweet.getWordList(), false);
+		vector.add(MPQATotalCountPos, MPQAPos.get(0));
+		vector.add(MPQATotalScorePos, MPQAPos.get(1));
+		vector.add(MPQAMaxScorePos, MPQAPos.get(2));
+		vector.add(MPQALastScorePos, MPQAPos.get(3));
+		List<Double> MPQANeg = this.getLexiScores(MPQALexi,  tweet.getWordList(), true);
+		vector.add(MPQATotalCountNeg, MPQANeg.get(0));
+		vector.add(MPQATotalScoreNeg, MPQANeg.get(1));
+		vector.add(MPQAMaxScoreNeg, MPQANeg.get(2));
+		vector.add(MPQALastScoreNeg, MPQANeg.get(3));
+		
+		List<Double> BingLiuPos = this.getLexiScores(BingLiuLexi, tweet.getWordList(), false);
+		vector.add(BingLiuTotalCountPos, BingLiuPos.get(0));
+		vector.add(BingLiuTotalScorePos, BingLiuPos.get(1));
+		vector.add(BingLiuMaxScorePos, BingLiuPos.get(2));
+		vector.add(BingLiuLastScorePos, BingLiuPos.get(3));
+		List<Double> BingLiuNeg = this.getLexiScores(BingLiuLexi, tweet.getWordList(), true);
+		vector.add(BingLiuTotalCountNeg, BingLiuNeg.get(0));
+		vector.add(BingLiuTotalScoreNeg, BingLiuNeg.get(1));
+		vector.add(BingLiuMaxScoreNeg, BingLiuNeg.get(2));
+		vector.add(BingLiuLastScoreNeg, BingLiuNeg.get(3));
+		
+		List<Double> NRCPos = this.getLexiScores(NRCLexi, tweet.getWordList(), false);
+		vector.add(NRCTotalCountPos, NRCPos.get(0));
+		vector.add(NRCTotalScorePos, NRCPos.get(1));
+		vector.add(NRCMaxScorePos, NRCPos.get(2));
+		vector.add(NRCLastScorePos, NRCPos.get(3));
+		List<Double> NRCNeg = this.getLexiScores(NRCLexi, tweet.getWordList(), true);
+		vector.add(NRCTotalCountNeg, NRCNeg.get(0));
+		vector.add(NRCTotalScoreNeg, NRCNeg.get(1));
+		vector.add(NRCMaxScoreNeg, NRCNeg.get(2));
+		vector.add(NRCLastScoreNeg, NRCNeg.get(3));
+		
 	}
 	
 	//helper functions to preprocess and get features
 	
-    /**
-     * Preprocesses the Tweet
-     * 
-     * @param tweet the raw Tweet
-     */	
-	private void preProcessTweet(Tweet tweet){
-		String rawTweet = tweet.getRawTweetString();
-		rawTweet = rawTweet.toLowerCase();
-		//filter Usernames
-		rawTweet = rawTweet.replaceAll("@[^\\s]+", "");
-		//filter Urls
-		rawTweet = rawTweet.replaceAll("((www\\.[^\\s]+)|(https?://[^\\s]+))", "");
-		tweet.setTweetString(rawTweet.trim());
-	}
-	
-    /**
-     * Tokenize and pos-taggs the Tweet
-     * 
-     * @param tagger the ARK PoS-Tagger
-     * @param tweet the Tweet to tag
-     * @throws IOException
-     */ 	
-	private void tokenizeAndTag(Tagger tagger, Tweet tweet) throws IOException{
-    	tweet.setWordList(tagger.tokenizeAndTag(tweet.getTweetString()));  	
-    }
-    
-	/**
-	 * Gets the PoS-Tags for the pos tag feature
-	 * 
-	 * @param tweet the Tweet to analyze
-	 * @return returns a list with pos tags that occur in the Tweet
-	 */
-    private Map<String, Integer> getPosTags(Tweet tweet){
-    	Map<String,Integer> tagMap = new HashMap<String, Integer>();
-    	for (TaggedToken token : tweet.getWordList()){
-        	Integer val = tagMap.get(token.tag);
-        	if (val != null){
-        		tagMap.put(token.tag, ++val);
-        	}
-        	else{
-        		tagMap.put(token.tag, 1);
-        	}
-    	}
-    	tweet.setPosTags(tagMap);
-	    return tagMap;
-    }
-    
     /**
      * Determine the words which all in caps
      * 
@@ -1,22 +1,17 @@
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.Reader;
-import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
-import weka.classifiers.functions.LibLINEAR;
 import weka.core.Attribute;
 import weka.core.Instances;
-import weka.core.SelectedTag;
 import weka.core.SparseInstance;
-import weka.core.converters.ArffSaver;
 import cmu.arktweetnlp.Tagger;
 import cmu.arktweetnlp.Tagger.TaggedToken;
 
@@ -26,14 +21,115 @@ import com.swabunga.spell.engine.Word;
 import com.swabunga.spell.event.SpellChecker;
 import com.swabunga.spell.event.StringWordTokenizer;
 
-import edu.stanford.nlp.ling.HasWord;
-import edu.stanford.nlp.ling.TaggedWord;
-import edu.stanford.nlp.process.DocumentPreprocessor;
 import edu.stanford.nlp.tagger.maxent.MaxentTagger;
 
 
 public class SentimentSystemTeamX extends SentimentSystem {
 
+	//cost parameter of the LibLINEAR classifier
+	private static final double COST = 0.05;
+	
+	//model of the Stanford PoS-Tagger
+	static final String STANFORD_MODEL_FILE = "resources/tagger/english-bidirectional-distsim.tagger";
+	
+	//stages of the Tweets the system reads
+	private static final List<Stage<?>> STAGES = Arrays.<Stage<?>>asList(TweetStages.TWEET_STRING);
+	
+	//trained model and resources to classify Tweets
+	private Tagger tagger;
+	private MaxentTagger stanfordTagger;
+	private Map<String, Double> afinnLexi;
+	private Map<String, Double> BingLiuLexi;
+	private Map<String, Double> inquirerLexi;
+	private Map<String, Double> MPQALexi;
+	private Map<String, Double> senti140UniLexi;
+	private Map<String, Double> hashtagUniLexi;
+	private Map<String, Double> senti140BiLexi;
+	private Map<String, Double> hashtagBiLexi;
+	private Map<String, Double> sentiWordNet;
+	private SpellChecker spellChecker;
+	
+	//spell-corrected Tweet strings and their Stanford tags of the current batch, shared by the workers
+	private final Map<String, String> batchCorrections = new ConcurrentHashMap<String, String>();
+	private final Map<String, List<TaggedToken>> batchStanfordTokens = new ConcurrentHashMap<String, List<TaggedToken>>();
+	
+	//dictionaries of the sparse features and slots of the dense features, resolved once from the schema
+	private FeatureSchema.Dictionary nGramDictionary;
+	private FeatureSchema.Dictionary charNGramDictionary;
+	private FeatureSchema.Dictionary clusterDictionary;
+	private int senti140UniTotalCountPos;
+	private int senti140UniTotalScorePos;
+	private int senti140UniMaxScorePos;
+	private int senti140UniLastScorePos;
+	private int hashtagUniTotalCountPos;
+	private int hashtagUniTotalScorePos;
+	private int hashtagUniMaxScorePos;
+	private int hashtagUniLastScorePos;
+	private int senti140UniTotalCountNeg;
+	private int senti140UniTotalScoreNeg;
+	private int senti140UniMaxScoreNeg;
+	private int senti140UniLastScoreNeg;
+	private int hashtagUniTotalCountNeg;
+	private int hashtagUniTotalScoreNeg;
+	private int hashtagUniMaxScoreNeg;
+	private int hashtagUniLastScoreNeg;
+	private int senti140BiTotalCountPos;
+	private int senti140BiTotalScorePos;
+	private int senti140BiMaxScorePos;
+	private int senti140BiLastScorePos;
+	private int hashtagBiTotalCountPos;
+	private int hashtagBiTotalScorePos;
+	private int hashtagBiMaxScorePos;
+	private int hashtagBiLastScorePos;
+	private int senti140BiTotalCountNeg;
+	private int senti140BiTotalScoreNeg;
+	private int senti140BiMaxScoreNeg;
+	private int senti140BiLastScoreNeg;
+	private int hashtagBiTotalCountNeg;
+	private int hashtagBiTotalScoreNeg;
+	private int hashtagBiMaxScoreNeg;
+	private int hashtagBiLastScoreNeg;
+	private int MPQATotalCountPos;
+	private int MPQATotalScorePos;
+	private int MPQAMaxScorePos;
+	private int MPQALastScorePos;
+	private int MPQATotalCountNeg;
+	private int MPQATotalScoreNeg;
+	private int MPQAMaxScoreNeg;
+	private int MPQALastScoreNeg;
+	private int BingLiuTotalCountPos;
+	private int BingLiuTotalScorePos;
+	private int BingLiuMaxScorePos;
+	private int BingLiuLastScorePos;
+	private int BingLiuTotalCountNeg;
+	private int BingLiuTotalScoreNeg;
+	private int BingLiuMaxScoreNeg;
+	private int BingLiuLastScoreNeg;
+	private int afinnTotalCountPos;
+	private int afinnTotalScorePos;
+	private int afinnMaxScorePos;
+	private int afinnLastScorePos;
+	private int afinnTotalCountNeg;
+	private int afinnTotalScoreNeg;
+	private int afinnMaxScoreNeg;
+	private int afinnLastScoreNeg;
+	private int wordNetTotalCountPos;
+	private int wordNetTotalScorePos;
+	private int wordNetMaxScorePos;
+	private int wordNetLastScorePos;
+	private int wordNetTotalCountNeg;
+	private int wordNetTotalScoreNeg;
+	private int wordNetMaxScoreNeg;
+	private int wordNetLastScoreNeg;
+	private int inquirerTotalCountPos;
+	private int inquirerTotalScorePos;
+	private int inquirerMaxScorePos;
+	private int inquirerLastScorePos;
+	private int inquirerTotalCountNeg;
+	private int inquirerTotalScoreNeg;
+	private int inquirerMaxScoreNeg;
+	private int inquirerLastScoreNeg;
+
 	public SentimentSystemTeamX(Set<Tweet> tweetList) {
 		super(tweetList);
 	}
@@ -43,348 +139,341 @@ public void train(String savename) throws IOException, ClassNotFoundException{
 		System.out.println("Starting TeamX Train");
 		System.out.println("Tweets: " +  tweetList.size());
 		
-		//load pos-tagger
-		Tagger tagger = new Tagger();
-    	tagger.loadModel("resources/tagger/model.20120919.txt");
-    	MaxentTagger stanfordTagger = new MaxentTagger("resources/tagger/english-bidirectional-distsim.tagger");
+		//load pos-tagger and spell-checker, every worker loads its own
+		this.loadWorkerResources();
+		final List<Tweet> tweets = new ArrayList<Tweet>(this.tweetList);
+		List<SentimentSystem> workers = this.createWorkers(tweets.size());
+		this.prepareBatch(workers, tweets);
   
     	//load sentiment lexica
-    	Map<String, Double> afinnLexi = this.loadAFINN();
-    	Map<String, Double> BingLiuLexi = this.loadBingLiu();
-    	Map<String, Double> inquirerLexi = this.loadGeneralInquirer();
-    	Map<String, Double> MPQALexi = this.loadMPQA();
-    	Map<String, Double> senti140UniLexi = this.loadLexicon("sentiment140/unigrams-pmilexicon");
-    	Map<String, Double> hashtagUniLexi = this.loadLexicon("hashtag/unigrams-pmilexicon");
-    	Map<String, Double> senti140BiLexi = this.loadLexicon("sentiment140/bigrams-pmilexicon");
-    	Map<String, Double> hashtagBiLexi = this.loadLexicon("hashtag/bigrams-pmilexicon");  
-    	Map<String, Double> sentiWordNet = this.loadSentiWordNet();
-    	
-    	//load spell-checker
-    	SpellDictionary dictionary = new SpellDictionaryHashMap(new File("resources/lexi/SpellChecker/english.0"), new File("resources/lexi/SpellChecker/phonet.en"));
-    	SpellChecker spellChecker = new SpellChecker(dictionary);
+    	final Map<String, Double> afinnLexi = this.loadAFINN();
+    	final Map<String, Double> BingLiuLexi = this.loadBingLiu();
+    	final Map<String, Double> inquirerLexi = this.loadGeneralInquirer();
+    	final Map<String, Double> MPQALexi = this.loadMPQA();
+    	final Map<String, Double> senti140UniLexi = this.loadLexicon("sentiment140/unigrams-pmilexicon");
+    	final Map<String, Double> hashtagUniLexi = this.loadLexicon("hashtag/unigrams-pmilexicon");
+    	final Map<String, Double> senti140BiLexi = this.loadLexicon("sentiment140/bigrams-pmilexicon");
+    	final Map<String, Double> hashtagBiLexi = this.loadLexicon("hashtag/bigrams-pmilexicon");  
+    	final Map<String, Double> sentiWordNet = this.loadSentiWordNet();
     	
 		int featurecount = 0;
 		int tweetcount = 0;
-		Map<String, Integer> nGramMap = new HashMap<String, Integer>();
-		Map<String, Integer> CharNGramMap = new HashMap<String, Integer>();
-		Map<String, Integer> clusterMap = new HashMap<String, Integer>();
+		final Map<String, Integer> nGramMap = new HashMap<String, Integer>();
+		final Map<String, Integer> CharNGramMap = new HashMap<String, Integer>();
+		final Map<String, Integer> clusterMap = new HashMap<String, Integer>();
 		ArrayList<Attribute> attributeList = new ArrayList<Attribute>();
 		
-		//creating features
-		for(Tweet tweet : tweetList){
-		    
-		    //preprocess and tag
-			this.preProcessTweet(tweet);
-			this.spellCorrection(spellChecker, tweet);
-			this.tokenizeAndTag(tagger, stanfordTagger, tweet);
-			this.negate(tweet);
-			this.negateStanford(tweet);
-			
-			//get n-grams and set n-gram feature
-			Set<String> nGramSet = this.getNGrams(tweet, 4);
-			for (String nGram : nGramSet){
-				if(!nGramMap.containsKey(nGram)){
-					nGramMap.put(nGram, featurecount++);
-					attributeList.add(new Attribute("NGRAM_" + nGram));
-				}
-			}
-			
-			//get char-n-grams and set char-n-gram feature
-			Set<String> CharNGramSet = this.getCharNGrams(tweet);
-			for (String nGram : CharNGramSet){
-				if(!CharNGramMap.containsKey(nGram)){
-					CharNGramMap.put(nGram, featurecount++);
-					attributeList.add(new Attribute("CHARNGRAM_" + nGram));
-				}
-			}
-			
-			//get cluster and set cluster feature
-			Set<String> clusterSet = this.getClusters(tweet);
-			for(String cluster : clusterSet){
-				if(!clusterMap.containsKey(cluster)){
-					clusterMap.put(cluster, featurecount++);
-					attributeList.add(new Attribute("CLUSTER_" + cluster));
-				}
+		//creating features, the workers collect them in local vocabularies
+		final Vocabulary nGramVocabulary = new Vocabulary();
+		final Vocabulary charNGramVocabulary = new Vocabulary();
+		final Vocabulary clusterVocabulary = new Vocabulary();
+		this.forEachTweet(workers, tweets, new TweetTask<SentimentSystemTeamX>(){
+			public void process(SentimentSystemTeamX worker, int row, Tweet tweet) throws IOException{
+			    //preprocess and tag
+				worker.pull(worker.tagger, tweet);
+				worker.spellCorrection(worker.spellChecker, tweet);
+				worker.tokenizeAndTag(worker.tagger, worker.stanfordTagger, tweet);
+				worker.negate(tweet);
+				worker.negateStanford(tweet);
+				
+				//get n-grams, char-n-grams and clusters
+				nGramVocabulary.addAll(worker.getNGrams(tweet, 4));
+				charNGramVocabulary.addAll(worker.getCharNGrams(tweet));
+				clusterVocabulary.addAll(worker.getClusters(tweet));
 			}
+		});
+		
+		//set n-gram, char-n-gram and cluster feature, the merged vocabularies are sorted, so the ids do not depend on the number of threads
+		for (String nGram : nGramVocabulary.merge()){
+			nGramMap.put(nGram, featurecount++);
+			attributeList.add(new Attribute("NGRAM_" + nGram));
+		}
+		for (String nGram : charNGramVocabulary.merge()){
+			CharNGramMap.put(nGram, featurecount++);
+			attributeList.add(new Attribute("CHARNGRAM_" + nGram));
+		}
+		for (String cluster : clusterVocabulary.merge()){
+			clusterMap.put(cluster, featurecount++);
+			attributeList.add(new Attribute("CLUSTER_" + cluster));
 		}
 		
 		//set lexica features
 		//senti140Uni
-		Attribute senti140UniTotalCountPos = new Attribute("senti140UniTotalCountPos");
+		final Attribute senti140UniTotalCountPos = new Attribute("senti140UniTotalCountPos");
 		attributeList.add(senti140UniTotalCountPos);
 		featurecount++;
 		
-		Attribute senti140UniTotalScorePos = new Attribute("senti140UniTotalScorePos");
+		final Attribute senti140UniTotalScorePos = new Attribute("senti140UniTotalScorePos");
 		attributeList.add(senti140UniTotalScorePos);
 		featurecount++;
 		
-		Attribute senti140UniMaxScorePos = new Attribute("senti140UniMaxScorePos");
+		final Attribute senti140UniMaxScorePos = new Attribute("senti140UniMaxScorePos");
 		attributeList.add(senti140UniMaxScorePos);
 		featurecount++;
 		
-		Attribute senti140UniLastScorePos = new Attribute("senti140UniLastScorePos");
+		final Attribute senti140UniLastScorePos = new Attribute("senti140UniLastScorePos");
 		attributeList.add(senti140UniLastScorePos);
 		featurecount++;
 		
-		Attribute senti140UniTotalCountNeg = new Attribute("senti140UniTotalCountNeg");
+		final Attribute senti140UniTotalCountNeg = new Attribute("senti140UniTotalCountNeg");
 		attributeList.add(senti140UniTotalCountNeg);
 		featurecount++;
 		
-		Attribute senti140UniTotalScoreNeg = new Attribute("senti140UniTotalScoreNeg");
+		final Attribute senti140UniTotalScoreNeg = new Attribute("senti140UniTotalScoreNeg");
 		attributeList.add(senti140UniTotalScoreNeg);
 		featurecount++;
 		
-		Attribute senti140UniMaxScoreNeg = new Attribute("senti140UniMaxScoreNeg");
+		final Attribute senti140UniMaxScoreNeg = new Attribute("senti140UniMaxScoreNeg");
 		attributeList.add(senti140UniMaxScoreNeg);
 		featurecount++;
 		
-		Attribute senti140UniLastScoreNeg = new Attribute("senti140UniLastScoreNeg");
+		final Attribute senti140UniLastScoreNeg = new Attribute("senti140UniLastScoreNeg");
 		attributeList.add(senti140UniLastScoreNeg);
 		featurecount++;
 		
 		//hashtagUni
-		Attribute hashtagUniTotalCountPos = new Attribute("hashtagUniTotalCountPos");
+		final Attribute hashtagUniTotalCountPos = new Attribute("hashtagUniTotalCountPos");
 		attributeList.add(hashtagUniTotalCountPos);
 		featurecount++;
 		
-		Attribute hashtagUniTotalScorePos = new Attribute("hashtagUniTotalScorePos");
+		final Attribute hashtagUniTotalScorePos = new Attribute("hashtagUniTotalScorePos");
 		attributeList.add(hashtagUniTotalScorePos);
 		featurecount++;
 		
-		Attribute hashtagUniMaxScorePos = new Attribute("hashtagUniMaxScorePos");
+		final Attribute hashtagUniMaxScorePos = new Attribute("hashtagUniMaxScorePos");
 		attributeList.add(hashtagUniMaxScorePos);
 		featurecount++;
 		
-		Attribute hashtagUniLastScorePos = new Attribute("hashtagUniLastScorePos");
+		final Attribute hashtagUniLastScorePos = new Attribute("hashtagUniLastScorePos");
 		attributeList.add(hashtagUniLastScorePos);
 		featurecount++;
 		
-		Attribute hashtagUniTotalCountNeg = new Attribute("hashtagUniTotalCountNeg");
+		final Attribute hashtagUniTotalCountNeg = new Attribute("hashtagUniTotalCountNeg");
 		attributeList.add(hashtagUniTotalCountNeg);
 		featurecount++;
 		
-		Attribute hashtagUniTotalScoreNeg = new Attribute("hashtagUniTotalScoreNeg");
+		final Attribute hashtagUniTotalScoreNeg = new Attribute("hashtagUniTotalScoreNeg");
 		attributeList.add(hashtagUniTotalScoreNeg);
 		featurecount++;
 		
-		Attribute hashtagUniMaxScoreNeg = new Attribute("hashtagUniMaxScoreNeg");
+		final Attribute hashtagUniMaxScoreNeg = new Attribute("hashtagUniMaxScoreNeg");
 		attributeList.add(hashtagUniMaxScoreNeg);
 		featurecount++;
 		
-		Attribute hashtagUniLastScoreNeg = new Attribute("hashtagUniLastScoreNeg");
+		final Attribute hashtagUniLastScoreNeg = new Attribute("hashtagUniLastScoreNeg");
 		attributeList.add(hashtagUniLastScoreNeg);
 		featurecount++;
 		
 		//senti140Bi
-		Attribute senti140BiTotalCountPos = new Attribute("senti140BiTotalCountPos");
+		final Attribute senti140BiTotalCountPos = new Attribute("senti140BiTotalCountPos");
 		attributeList.add(senti140BiTotalCountPos);
 		featurecount++;
 		
-		Attribute senti140BiTotalScorePos = new Attribute("senti140BiTotalScorePos");
+		final Attribute senti140BiTotalScorePos = new Attribute("senti140BiTotalScorePos");
 		attributeList.add(senti140BiTotalScorePos);
 		featurecount++;
 		
-		Attribute senti140BiMaxScorePos = new Attribute("senti140BiMaxScorePos");
+		final Attribute senti140BiMaxScorePos = new Attribute("senti140BiMaxScorePos");
 		attributeList.add(senti140BiMaxScorePos);
 		featurecount++;
 		
-		Attribute senti140BiLastScorePos = new Attribute("senti140BiLastScorePos");
+		final Attribute senti140BiLastScorePos = new Attribute("senti140BiLastScorePos");
 		attributeList.add(senti140BiLastScorePos);
 		featurecount++;
 		
-		Attribute senti140BiTotalCountNeg = new Attribute("senti140BiTotalCountNeg");
+		final Attribute senti140BiTotalCountNeg = new Attribute("senti140BiTotalCountNeg");
 		attributeList.add(senti140BiTotalCountNeg);
 		featurecount++;
 		
-		Attribute senti140BiTotalScoreNeg = new Attribute("senti140BiTotalScoreNeg");
+		final Attribute senti140BiTotalScoreNeg = new Attribute("senti140BiTotalScoreNeg");
 		attributeList.add(senti140BiTotalScoreNeg);
 		featurecount++;
 		
-		Attribute senti140BiMaxScoreNeg = new Attribute("senti140BiMaxScoreNeg");
+		final Attribute senti140BiMaxScoreNeg = new Attribute("senti140BiMaxScoreNeg");
 		attributeList.add(senti140BiMaxScoreNeg);
 		featurecount++;
 		
-		Attribute senti140BiLastScoreNeg = new Attribute("senti140BiLastScoreNeg");
+		final Attribute senti140BiLastScoreNeg = new Attribute("senti140BiLastScoreNeg");
 		attributeList.add(senti140BiLastScoreNeg);
 		featurecount++;
 		
 		//hashtagBi
-		Attribute hashtagBiTotalCountPos = new Attribute("hashtagBiTotalCountPos");
+		final Attribute hashtagBiTotalCountPos = new Attribute("hashtagBiTotalCountPos");
 		attributeList.add(hashtagBiTotalCountPos);
 		featurecount++;
 		
-		Attribute hashtagBiTotalScorePos = new Attribute("hashtagBiTotalScorePos");
+		final Attribute hashtagBiTotalScorePos = new Attribute("hashtagBiTotalScorePos");
 		attributeList.add(hashtagBiTotalScorePos);
 		featurecount++;
 		
-		Attribute hashtagBiMaxScorePos = new Attribute("hashtagBiMaxScorePos");
+		final Attribute hashtagBiMaxScorePos = new Attribute("hashtagBiMaxScorePos");
 		attributeList.add(hashtagBiMaxScorePos);
 		featurecount++;
 		
-		Attribute hashtagBiLastScorePos = new Attribute("hashtagBiLastScorePos");
+		final Attribute hashtagBiLastScorePos = new Attribute("hashtagBiLastScorePos");
 		attributeList.add(hashtagBiLastScorePos);
 		featurecount++;
 		
-		Attribute hashtagBiTotalCountNeg = new Attribute("hashtagBiTotalCountNeg");
+		final Attribute hashtagBiTotalCountNeg = new Attribute("hashtagBiTotalCountNeg");
 		attributeList.add(hashtagBiTotalCountNeg);
 		featurecount++;
 		
-		Attribute hashtagBiTotalScoreNeg = new Attribute("hashtagBiTotalScoreNeg");
+		final Attribute hashtagBiTotalScoreNeg = new Attribute("hashtagBiTotalScoreNeg");
 		attributeList.add(hashtagBiTotalScoreNeg);
 		featurecount++;
 		
-		Attribute hashtagBiMaxScoreNeg = new Attribute("hashtagBiMaxScoreNeg");
+		final Attribute hashtagBiMaxScoreNeg = new Attribute("hashtagBiMaxScoreNeg");
 		attributeList.add(hashtagBiMaxScoreNeg);
 		featurecount++;
 		
-		Attribute hashtagBiLastScoreNeg = new Attribute("hashtagBiLastScoreNeg");
+		final Attribute hashtagBiLastScoreNeg = new Attribute("hashtagBiLastScoreNeg");
 		attributeList.add(hashtagBiLastScoreNeg);
 		featurecount++;
 		
 		//MPQA
-		Attribute MPQATotalCountPos = new Attribute("MPQATotalCountPos");
+		final Attribute MPQATotalCountPos = new Attribute("MPQATotalCountPos");
 		attributeList.add(MPQATotalCountPos);
 		featurecount++;
 		
-		Attribute MPQATotalScorePos = new Attribute("MPQATotalScorePos");
+		final Attribute MPQATotalScorePos = new Attribute("MPQATotalScorePos");
 		attributeList.add(MPQATotalScorePos);
 		featurecount++;
 		
-		Attribute MPQAMaxScorePos = new Attribute("MPQAMaxScorePos");
+		final Attribute MPQAMaxScorePos = new Attribute("MPQAMaxScorePos");
 		attributeList.add(MPQAMaxScorePos);
 		featurecount++;
 		
-		Attribute MPQALastScorePos = new Attribute("MPQALastScorePos");
+		final Attribute MPQALastScorePos = new Attribute("MPQALastScorePos");
 		attributeList.add(MPQALastScorePos);
 		featurecount++;
 		
-		Attribute MPQATotalCountNeg = new Attribute("MPQATotalCountNeg");
+		final Attribute MPQATotalCountNeg = new Attribute("MPQATotalCountNeg");
 		attributeList.add(MPQATotalCountNeg);
 		featurecount++;
 		
-		Attribute MPQATotalScoreNeg = new Attribute("MPQATotalScoreNeg");
+		final Attribute MPQATotalScoreNeg = new Attribute("MPQATotalScoreNeg");
 		attributeList.add(MPQATotalScoreNeg);
 		featurecount++;
 		
-		Attribute MPQAMaxScoreNeg = new Attribute("MPQAMaxScoreNeg");
+		final Attribute MPQAMaxScoreNeg = new Attribute("MPQAMaxScoreNeg");
 		attributeList.add(MPQAMaxScoreNeg);
 		featurecount++;
 		
-		Attribute MPQALastScoreNeg = new Attribute("MPQALastScoreNeg");
+		final Attribute MPQALastScoreNeg = new Attribute("MPQALastScoreNeg");
 		attributeList.add(MPQALastScoreNeg);
 		featurecount++;
 		
 		//BingLiu
-		Attribute BingLiuTotalCountPos = new Attribute("BingLiuTotalCountPos");
+		final Attribute BingLiuTotalCountPos = new Attribute("BingLiuTotalCountPos");
 		attributeList.add(BingLiuTotalCountPos);
 		featurecount++;
 		
-		Attribute BingLiuTotalScorePos = new Attribute("BingLiuTotalScorePos");
+		final Attribute BingLiuTotalScorePos = new Attribute("BingLiuTotalScorePos");
 		attributeList.add(BingLiuTotalScorePos);
 		featurecount++;
 		
-		Attribute BingLiuMaxScorePos = new Attribute("BingLiuMaxScorePos");
+		final Attribute BingLiuMaxScorePos = new Attribute("BingLiuMaxScorePos");
 		attributeList.add(BingLiuMaxScorePos);
 		featurecount++;
 		
-		Attribute BingLiuLastScorePos = new Attribute("BingLiuLastScorePos");
+		final Attribute BingLiuLastScorePos = new Attribute("BingLiuLastScorePos");
 		attributeList.add(BingLiuLastScorePos);
 		featurecount++;
 		
-		Attribute BingLiuTotalCountNeg = new Attribute("BingLiuTotalCountNeg");
+		final Attribute BingLiuTotalCountNeg = new Attribute("BingLiuTotalCountNeg");
 		attributeList.add(BingLiuTotalCountNeg);
 		featurecount++;
 		
-		Attribute BingLiuTotalScoreNeg = new Attribute("BingLiuTotalScoreNeg");
+		final Attribute BingLiuTotalScoreNeg = new Attribute("BingLiuTotalScoreNeg");
 		attributeList.add(BingLiuTotalScoreNeg);
 		featurecount++;
 		
-		Attribute BingLiuMaxScoreNeg = new Attribute("BingLiuMaxScoreNeg");
+		final Attribute BingLiuMaxScoreNeg = new Attribute("BingLiuMaxScoreNeg");
 		attributeList.add(BingLiuMaxScoreNeg);
 		featurecount++;
 		
-		Attribute BingLiuLastScoreNeg = new Attribute("BingLiuLastScoreNeg");
+		final Attribute BingLiuLastScoreNeg = new Attribute("BingLiuLastScoreNeg");
 		attributeList.add(BingLiuLastScoreNeg);
 		featurecount++;
 		
 		//AFINN
-		Attribute afinnTotalCountPos = new Attribute("afinnTotalCountPos");
+		final Attribute afinnTotalCountPos = new Attribute("afinnTotalCountPos");
 		attributeList.add(afinnTotalCountPos);
 		featurecount++;
-		Attribute afinnTotalScorePos = new Attribute("afinnTotalScorePos");
+		final Attribute afinnTotalScorePos = new Attribute("afinnTotalScorePos");
 		attributeList.add(afinnTotalScorePos);
 		featurecount++;
-		Attribute afinnMaxScorePos = new Attribute("afinnMaxScorePos");
+		final Attribute afinnMaxScorePos = new Attribute("afinnMaxScorePos");
 		attributeList.add(afinnMaxScorePos);
 		featurecount++;
-		Attribute afinnLastScorePos = new Attribute("afinnLastScorePos");
+		final Attribute afinnLastScorePos = new Attribute("afinnLastScorePos");
 		attributeList.add(afinnLastScorePos);
 		featurecount++;
 		
-		Attribute afinnTotalCountNeg = new Attribute("afinnTotalCountNeg");
+		final Attribute afinnTotalCountNeg = new Attribute("afinnTotalCountNeg");
 		attributeList.add(afinnTotalCountNeg);
 		featurecount++;
 		Attribute afinnTotalScoreNeg= new Attribute("afinnTotalScoreNeg");
 		attributeList.add(afinnTotalScoreNeg);
 		featurecount++;
-		Attribute afinnMaxScoreNeg = new Attribute("afinnMaxScoreNeg");
+		final Attribute afinnMaxScoreNeg = new Attribute("afinnMaxScoreNeg");
 		attributeList.add(afinnMaxScoreNeg);
 		featurecount++;
-		Attribute afinnLastScoreNeg = new Attribute("afinnLastScoreNeg");
+		final Attribute afinnLastScoreNeg = new Attribute("afinnLastScoreNeg");
 		attributeList.add(afinnLastScoreNeg);
 		featurecount++;
 		
 		//WordNet
-		Attribute wordNetTotalCountPos = new Attribute("wordNetTotalCountPos");
+		final Attribute wordNetTotalCountPos = new Attribute("wordNetTotalCountPos");
 		attributeList.add(wordNetTotalCountPos);
 		featurecount++;
-		Attribute wordNetTotalScorePos = new Attribute("wordNetTotalScorePos");
+		final Attribute wordNetTotalScorePos = new Attribute("wordNetTotalScorePos");
 		attributeList.add(wordNetTotalScorePos);
 		featurecount++;
-		Attribute wordNetMaxScorePos = new Attribute("wordNetMaxScorePos");
+		final Attribute wordNetMaxScorePos = new Attribute("wordNetMaxScorePos");
 		attributeList.add(wordNetMaxScorePos);
 		featurecount++;
-		Attribute wordNetLastScorePos = new Attribute("wordNetLastScorePos");
+		final Attribute wordNetLastScorePos = new Attribute("wordNetLastScorePos");
 		attributeList.add(wordNetLastScorePos);
 		featurecount++;
 		
-		Attribute wordNetTotalCountNeg = new Attribute("wordNetTotalCountNeg");
+		final Attribute wordNetTotalCountNeg = new Attribute("wordNetTotalCountNeg");
 		attributeList.add(wordNetTotalCountNeg);
 		featurecount++;
-		Attribute wordNetTotalScoreNeg = new Attribute("wordNetTotalScoreNeg");
+		final Attribute wordNetTotalScoreNeg = new Attribute("wordNetTotalScoreNeg");
 		attributeList.add(wordNetTotalScoreNeg);
 		featurecount++;
-		Attribute wordNetMaxScoreNeg = new Attribute("wordNetMaxScoreNeg");
+		final Attribute wordNetMaxScoreNeg = new Attribute("wordNetMaxScoreNeg");
 		attributeList.add(wordNetMaxScoreNeg);
 		featurecount++;
-		Attribute wordNetLastScoreNeg = new Attribute("wordNetLastScoreNeg");
+		final Attribute wordNetLastScoreNeg = new Attribute("wordNetLastScoreNeg");
 		attributeList.add(wordNetLastScoreNeg);
 		featurecount++;
 		
 		//Inquirer
-		Attribute inquirerTotalCountPos = new Attribute("inquirerTotalCountPos");
+		final Attribute inquirerTotalCountPos = new Attribute("inquirerTotalCountPos");
 		attributeList.add(inquirerTotalCountPos);
 		featurecount++;
-		Attribute inquirerTotalScorePos = new Attribute("inquirerTotalScorePos");
+		final Attribute inquirerTotalScorePos = new Attribute("inquirerTotalScorePos");
 		attributeList.add(inquirerTotalScorePos);
 		featurecount++;
-		Attribute inquirerMaxScorePos = new Attribute("inquirerMaxScorePos");
+		final Attribute inquirerMaxScorePos = new Attribute("inquirerMaxScorePos");
 		attributeList.add(inquirerMaxScorePos);
 		featurecount++;
-		Attribute inquirerLastScorePos = new Attribute("inquirerLastScorePos");
+		final Attribute inquirerLastScorePos = new Attribute("inquirerLastScorePos");
 		attributeList.add(inquirerLastScorePos);
 		featurecount++;
 		
-		Attribute inquirerTotalCountNeg = new Attribute("inquirerTotalCountNeg");
+		final Attribute inquirerTotalCountNeg = new Attribute("inquirerTotalCountNeg");
 		attributeList.add(inquirerTotalCountNeg);
 		featurecount++;
-		Attribute inquirerTotalScoreNeg = new Attribute("inquirerTotalScoreNeg");
+		final Attribute inquirerTotalScoreNeg = new Attribute("inquirerTotalScoreNeg");
 		attributeList.add(inquirerTotalScoreNeg);
 		featurecount++;
-		Attribute inquirerMaxScoreNeg = new Attribute("inquirerMaxScoreNeg");
+		final Attribute inquirerMaxScoreNeg = new Attribute("inquirerMaxScoreNeg");
 		attributeList.add(inquirerMaxScoreNeg);
 		featurecount++;
-		Attribute inquirerLastScoreNeg = new Attribute("inquirerLastScoreNeg");
+		final Attribute inquirerLastScoreNeg = new Attribute("inquirerLastScoreNeg");
 		attributeList.add(inquirerLastScoreNeg);
 		featurecount++;
 		
@@ -393,7 +482,7 @@ public void train(String savename) throws IOException, ClassNotFoundException{
 	    fvClassVal.add("positive");
 	    fvClassVal.add("neutral");
 	    fvClassVal.add("negative");
-	    Attribute classAttribute = new Attribute("Class", fvClassVal);
+	    final Attribute classAttribute = new Attribute("Class", fvClassVal);
 	    attributeList.add(classAttribute);
 		featurecount++;
 		
@@ -401,152 +490,171 @@ public void train(String savename) throws IOException, ClassNotFoundException{
 		Instances trainingSet = new Instances("test", attributeList, tweetList.size());
 		trainingSet.setClassIndex(classAttribute.index());
 		
-		for(Tweet tweet : tweetList){
-			SparseInstance instance = new SparseInstance(0);
+		//creating the rows concurrently, they are added in the order of the Tweets
+		final SparseInstance[] instances = new SparseInstance[tweets.size()];
+		this.forEachTweet(workers, tweets, new TweetTask<SentimentSystemTeamX>(){
+			public void process(SentimentSystemTeamX worker, int row, Tweet tweet){
+				SparseInstance instance = new SparseInstance(0);
 			
-			//n-gram feature
-			Set<String> nGramSet = tweet.getnGramList();
-			for (String nGram : nGramSet){
-				Integer index = nGramMap.get(nGram);
-				if(index != null){
-					instance.setValue(index, 1);
+				//n-gram feature
+				Set<String> nGramSet = tweet.getnGramList();
+				for (String nGram : nGramSet){
+					Integer index = nGramMap.get(nGram);
+					if(index != null){
+						instance.setValue(index, 1);
+					}
 				}
-			}
 			
-			//char-n-gram feature
-			Set<String> CharNGramSet = tweet.getCharNGramList();
-			for (String nGram : CharNGramSet){
-				Integer index = CharNGramMap.get(nGram);
-				if(index != null){
-					instance.setValue(index, 1);
+				//char-n-gram feature
+				Set<String> CharNGramSet = tweet.getCharNGramList();
+				for (String nGram : CharNGramSet){
+					Integer index = CharNGramMap.get(nGram);
+					if(index != null){
+						instance.setValue(index, 1);
+					}
 				}
-			}
 			
-			//cluster feature
-			Set<String> clusterSet = tweet.getClusterList();
-			for(String cluster : clusterSet){
-				Integer index = clusterMap.get(cluster);
-				if(index != null){
-					instance.setValue(index, 1);
+				//cluster feature
+				Set<String> clusterSet = tweet.getClusterList();
+				for(String cluster : clusterSet){
+					Integer index = clusterMap.get(cluster);
+					if(index != null){
+						instance.setValue(index, 1);
+					}
 				}
-			}
 			
-			//lexica feature
-			List<Double> senti140UniPos = this.getLexiScores(senti140UniLexi, tweet.getWordList(), false);
-			instance.setValue(senti140UniTotalCountPos, senti140UniPos.get(0));
-			instance.setValue(senti140UniTotalScorePos, senti140UniPos.get(1));
-			instance.setValue(senti140UniMaxScorePos, senti140UniPos.get(2));
-			instance.setValue(senti140UniLastScorePos, senti140UniPos.get(3));
-			List<Double> hashtagUniPos = this.getLexiScores(hashtagUniLexi, tweet.getWordList(), false);
-			instance.setValue(hashtagUniTotalCountPos, hashtagUniPos.get(0));
-			instance.setValue(hashtagUniTotalScorePos, hashtagUniPos.get(1));
-			instance.setValue(hashtagUniMaxScorePos, hashtagUniPos.get(2));
-			instance.setValue(hashtagUniLastScorePos, hashtagUniPos.get(3));
-			List<Double> senti140UniNeg = this.getLexiScores(senti140UniLexi, tweet.getWordList(), true);
-			instance.setValue(senti140UniTotalCountNeg, senti140UniNeg.get(0));
-			instance.setValue(senti140UniTotalScoreNeg, senti140UniNeg.get(1));
-			instance.setValue(senti140UniMaxScoreNeg, senti140UniNeg.get(2));
-			instance.setValue(senti140UniLastScoreNeg, senti140UniNeg.get(3));
-			List<Double> hashtagUniNeg = this.getLexiScores(hashtagUniLexi, tweet.getWordList(), true);
-			instance.setValue(hashtagUniTotalCountNeg, hashtagUniNeg.get(0));
-			instance.setValue(hashtagUniTotalScoreNeg, hashtagUniNeg.get(1));
-			instance.setValue(hashtagUniMaxScoreNeg, hashtagUniNeg.get(2));
-			instance.setValue(hashtagUniLastScoreNeg, hashtagUniNeg.get(3));
+				//lexica feature
+				List<Double> senti140UniPos = worker.getLexiScores(senti140UniLexi, tweet.getWordList(), false);
+				instance.setValue(senti140UniTotalCountPos, senti140UniPos.get(0));
+				instance.setValue(senti140UniTotalScorePos, senti140UniPos.get(1));
+				instance.setValue(senti140UniMaxScorePos, senti140UniPos.get(2));
+				instance.setValue(senti140UniLastScorePos, senti140UniPos.get(3));
+				List<Double> hashtagUniPos = worker.getLexiScores(hashtagUniLexi, tweet.getWordList(), false);
+				instance.setValue(hashtagUniTotalCountPos, hashtagUniPos.get(0));
+				instance.setValue(hashtagUniTotalScorePos, hashtagUniPos.get(1));
+				instance.setValue(hashtagUniMaxScorePos, hashtagUniPos.get(2));
+				instance.setValue(hashtagUniLastScorePos, hashtagUniPos.get(3));
+				List<Double> senti140UniNeg = worker.getLexiScores(senti140UniLexi, tweet.getWordList(), true);
+				instance.setValue(senti140UniTotalCountNeg, senti140UniNeg.get(0));
+				instance.setValue(senti140UniTotalScoreNeg, senti140UniNeg.get(1));
+				instance.setValue(senti140UniMaxScoreNeg, senti140UniNeg.get(2));
+				instance.setValue(senti140UniLastScoreNeg, senti140UniNeg.get(3));
+				List<Double> hashtagUniNeg = worker.getLexiScores(hashtagUniLexi, tweet.getWordList(), true);
+				instance.setValue(hashtagUniTotalCountNeg, hashtagUniNeg.get(0));
+				instance.setValue(hashtagUniTotalScoreNeg, hashtagUniNeg.get(1));
+				instance.setValue(hashtagUniMaxScoreNeg, hashtagUniNeg.get(2));
+				instance.setValue(hashtagUniLastScoreNeg, hashtagUniNeg.get(3));
 			
-			Set<String> biGramSet = this.getNGrams(tweet, 2, 2);
-			List<Double> senti140BiPos = this.getLexiScoresBi(senti140BiLexi, biGramSet, false);
-			instance.setValue(senti140BiTotalCountPos, senti140BiPos.get(0));
-			instance.setValue(senti140BiTotalScorePos, senti140BiPos.get(1));
-			instance.setValue(senti140BiMaxScorePos, senti140BiPos.get(2));
-			instance.setValue(senti140BiLastScorePos, senti140BiPos.get(3));
-			List<Double> hashtagBiPos = this.getLexiScoresBi(hashtagBiLexi, biGramSet, false);
-			instance.setValue(hashtagBiTotalCountPos, hashtagBiPos.get(0));
-			instance.setValue(hashtagBiTotalScorePos, hashtagBiPos.get(1));
-			instance.setValue(hashtagBiMaxScorePos, hashtagBiPos.get(2));
-			instance.setValue(hashtagBiLastScorePos, hashtagBiPos.get(3));
-			List<Double> senti140BiNeg = this.getLexiScoresBi(senti140BiLexi, biGramSet, true);
-			instance.setValue(senti140BiTotalCountNeg, senti140BiNeg.get(0));
-			instance.setValue(senti140BiTotalScoreNeg, senti140BiNeg.get(1));
-			instance.setValue(senti140BiMaxScoreNeg, senti140BiNeg.get(2));
-			instance.setValue(senti140BiLastScoreNeg, senti140BiNeg.get(3));
-			List<Double> hashtagBiNeg = this.getLexiScoresBi(hashtagBiLexi, biGramSet, true);
-			instance.setValue(hashtagBiTotalCountNeg, hashtagBiNeg.get(0));
-			instance.setValue(hashtagBiTotalScoreNeg, hashtagBiNeg.get(1));
-			instance.setValue(hashtagBiMaxScoreNeg, hashtagBiNeg.get(2));
-			instance.setValue(hashtagBiLastScoreNeg, hashtagBiNeg.get(3));
+				Set<String> biGramSet = worker.getNGrams(tweet, 2, 2);
+				List<Double> senti140BiPos = worker.getLexiScoresBi(senti140BiLexi, biGramSet, false);
+				instance.setValue(senti140BiTotalCountPos, senti140BiPos.get(0));
+				instance.setValue(senti140BiTotalScorePos, senti140BiPos.get(1));
+				instance.setValue(senti140BiMaxScorePos, senti140BiPos.get(2));
+				instance.setValue(senti140BiLastScorePos, senti140BiPos.get(3));
+				List<Double> hashtagBiPos = worker.getLexiScoresBi(hashtagBiLexi, biGramSet, false);
+				instance.setValue(hashtagBiTotalCountPos, hashtagBiPos.get(0));
+				instance.setValue(hashtagBiTotalScorePos, hashtagBiPos.get(1));
+				instance.setValue(hashtagBiMaxScorePos, hashtagBiPos.get(2));
+				instance.setValue(hashtagBiLastScorePos, hashtagBiPos.get(3));
+				List<Double> senti140BiNeg = worker.getLexiScoresBi(senti140BiLexi, biGramSet, true);
+				instance.setValue(senti140BiTotalCountNeg, senti140BiNeg.get(0));
+				instance.setValue(senti140BiTotalScoreNeg, senti140BiNeg.get(1));
+				instance.setValue(senti140BiMaxScoreNeg, senti140BiNeg.get(2));
+				instance.setValue(senti140BiLastScoreNeg, senti140BiNeg.get(3));
+				List<Double> hashtagBiNeg = worker.getLexiScoresBi(hashtagBiLexi, biGramSet, true);
+				instance.setValue(hashtagBiTotalCountNeg, hashtagBiNeg.get(0));
+				instance.setValue(hashtagBiTotalScoreNeg, hashtagBiNeg.get(1));
+				instance.setValue(hashtagBiMaxScoreNeg, hashtagBiNeg.get(2));
+				instance.setValue(hashtagBiLastScoreNeg, hashtagBiNeg.get(3));
 			
-			List<Double> MPQAPos = this.getLexiScoresStandford(MPQALexi, tweet.getStanfordWordList(), false);
-			instance.setValue(MPQATotalCountPos, MPQAPos.get(0));
-			instance.setValue(MPQATotalScorePos, MPQAPos.get(1));
-			instance.setValue(MPQAMaxScorePos, MPQAPos.get(2));
-			instance.setValue(MPQALastScorePos, MPQAPos.get(3));
-			List<Double> MPQANeg = this.getLexiScoresStandford(MPQALexi, tweet.getStanfordWordList(), true);
-			instance.setValue(MPQATotalCountNeg, MPQANeg.get(0));
-			instance.setValue(MPQATotalScoreNeg, MPQANeg.get(1));
-			instance.setValue(MPQAMaxScoreNeg, MPQANeg.get(2));
-			instance.setValue(MPQALastScoreNeg, MPQANeg.get(3));			
+				List<Double> MPQAPos = worker.getLexiScoresStandford(MPQALexi, tweet.getStanfordWordList(), false);
+				instance.setValue(MPQATotalCountPos, MPQAPos.get(0));
+				instance.setValue(MPQATotalScorePos, MPQAPos.get(1));
+				instance.setValue(MPQAMaxScorePos, MPQAPos.get(2));
+				instance.setValue(MPQALastScorePos, MPQAPos.get(3));
+				List<Double> MPQANeg = worker.getLexiScoresStandford(MPQALexi, tweet.getStanfordWordList(), true);
+				instance.setValue(MPQATotalCountNeg, MPQANeg.get(0));
+				instance.setValue(MPQATotalScoreNeg, MPQANeg.get(1));
+				instance.setValue(MPQAMaxScoreNeg, MPQANeg.get(2));
+				instance.setValue(MPQALastScoreNeg, MPQANeg.get(3));			
 			
-			List<Double> BingLiuPos = this.getLexiScores(BingLiuLexi, tweet.getWordList(), false);
-			instance.setValue(BingLiuTotalCountPos, BingLiuPos.get(0));
-			instance.setValue(BingLiuTotalScorePos, BingLiuPos.get(1));
-			instance.setValue(BingLiuMaxScorePos, BingLiuPos.get(2));
-			instance.setValue(BingLiuLastScorePos, BingLiuPos.get(3));
-			List<Double> BingLiuNeg = this.getLexiScores(BingLiuLexi, tweet.getWordList(), true);
-			instance.setValue(BingLiuTotalCountNeg, BingLiuNeg.get(0));
-			instance.setValue(BingLiuTotalScoreNeg, BingLiuNeg.get(1));
-			instance.setValue(BingLiuMaxScoreNeg, BingLiuNeg.get(2));
-			instance.setValue(BingLiuLastScoreNeg, BingLiuNeg.get(3));
+				List<Double> BingLiuPos = worker.getLexiScores(BingLiuLexi, tweet.getWordList(), false);
+				instance.setValue(BingLiuTotalCountPos, BingLiuPos.get(0));
+				instance.setValue(BingLiuTotalScorePos, BingLiuPos.get(1));
+				instance.setValue(BingLiuMaxScorePos, BingLiuPos.get(2));
+				instance.setValue(BingLiuLastScorePos, BingLiuPos.get(3));
+				List<Double> BingLiuNeg = worker.getLexiScores(BingLiuLexi, tweet.getWordList(), true);
+				instance.setValue(BingLiuTotalCountNeg, BingLiuNeg.get(0));
+				instance.setValue(BingLiuTotalScoreNeg, BingLiuNeg.get(1));
+				instance.setValue(BingLiuMaxScoreNeg, BingLiuNeg.get(2));
+				instance.setValue(BingLiuLastScoreNeg, BingLiuNeg.get(3));
 			
-			List<Double> afinnScorePos = this.getLexiScores(afinnLexi, tweet.getWordList(), false);
-			instance.setValue(afinnTotalCountPos, afinnScorePos.get(0));
-			instance.setValue(afinnTotalScorePos, afinnScorePos.get(1));
-			instance.setValue(afinnMaxScorePos, afinnScorePos.get(2));
-			instance.setValue(afinnLastScorePos, afinnScorePos.get(3));
-			List<Double> afinnScoreNeg = this.getLexiScores(afinnLexi, tweet.getWordList(), true);
-			instance.setValue(afinnTotalCountNeg, afinnScoreNeg.get(0));
-			instance.setValue(afinnTotalScoreNeg, afinnScoreNeg.get(1));
-			instance.setValue(afinnMaxScoreNeg, afinnScoreNeg.get(2));
-			instance.setValue(afinnLastScoreNeg, afinnScoreNeg.get(3));
+				List<Double> afinnScorePos = worker.getLexiScores(afinnLexi, tweet.getWordList(), false);
+				instance.setValue(afinnTotalCountPos, afinnScorePos.get(0));
+				instance.setValue(afinnTotalScorePos, afinnScorePos.get(1));
+				instance.setValue(afinnMaxScorePos, afinnScorePos.get(2));
+				instance.setValue(afinnLastScorePos, afinnScorePos.get(3));
+				List<Double> afinnScoreNeg = worker.getLexiScores(afinnLexi, tweet.getWordList(), true);
+				instance.setValue(afinnTotalCountNeg, afinnScoreNeg.get(0));
+				instance.setValue(afinnTotalScoreNeg, afinnScoreNeg.get(1));
+				instance.setValue(afinnMaxScoreNeg, afinnScoreNeg.get(2));
+				instance.setValue(afinnLastScoreNeg, afinnScoreNeg.get(3));
 			
-			List<Double> wordNetScorePos = this.getLexiScoresStandford(sentiWordNet, tweet.getStanfordWordList(), false, true);
-			instance.setValue(wordNetTotalCountPos, wordNetScorePos.get(0));
-			instance.setValue(wordNetTotalScorePos, wordNetScorePos.get(1));
-			instance.setValue(wordNetMaxScorePos, wordNetScorePos.get(2));
-			instance.setValue(wordNetLastScorePos, wordNetScorePos.get(3));
-			List<Double> wordNetScoreNeg = this.getLexiScoresStandford(sentiWordNet, tweet.getStanfordWordList(), true, true);
-			instance.setValue(wordNetTotalCountNeg, wordNetScoreNeg.get(0));
-			instance.setValue(wordNetTotalScoreNeg, wordNetScoreNeg.get(1));
-			instance.setValue(wordNetMaxScoreNeg, wordNetScoreNeg.get(2));
-			instance.setValue(wordNetLastScoreNeg, wordNetScoreNeg.get(3));
+				List<Double> wordNetScorePos = worker.getLexiScoresStandford(sentiWordNet, tweet.getStanfordWordList(), false, true);
+				instance.setValue(wordNetTotalCountPos, wordNetScorePos.get(0));
+				instance.setValue(wordNetTotalScorePos, wordNetScorePos.get(1));
+				instance.setValue(wordNetMaxScorePos, wordNetScorePos.get(2));
+				instance.setValue(wordNetLastScorePos, wordNetScorePos.get(3));
+				List<Double> wordNetScoreNeg = worker.getLexiScoresStandford(sentiWordNet, tweet.getStanfordWordList(), true, true);
+				instance.setValue(wordNetTotalCountNeg, wordNetScoreNeg.get(0));
+				instance.setValue(wordNetTotalScoreNeg, wordNetScoreNeg.get(1));
+				instance.setValue(wordNetMaxScoreNeg, wordNetScoreNeg.get(2));
+				instance.setValue(wordNetLastScoreNeg, wordNetScoreNeg.get(3));
 			
-			List<Double> inquirerScorePos = this.getLexiScoresStandford(inquirerLexi, tweet.getStanfordWordList(), false);
-			instance.setValue(inquirerTotalCountPos, inquirerScorePos.get(0));
-			instance.setValue(inquirerTotalScorePos, inquirerScorePos.get(1));
-			instance.setValue(inquirerMaxScorePos, inquirerScorePos.get(2));
-			instance.setValue(inquirerLastScorePos, inquirerScorePos.get(3));
-			List<Double> inquirerScoreNeg = this.getLexiScoresStandford(inquirerLexi, tweet.getStanfordWordList(), true);
-			instance.setValue(inquirerTotalCountNeg, inquirerScoreNeg.get(0));
-			instance.setValue(inquirerTotalScoreNeg, inquirerScoreNeg.get(1));
-			instance.setValue(inquirerMaxScoreNeg, inquirerScoreNeg.get(2));
-			instance.setValue(inquirerLastScoreNeg, inquirerScoreNeg.get(3));
+				List<Double> inquirerScorePos = worker.getLexiScoresStandford(inquirerLexi, tweet.getStanfordWordList(), false);
+				instance.setValue(inquirerTotalCountPos, inquirerScorePos.get(0));
+				instance.setValue(inquirerTotalScorePos, inquirerScorePos.get(1));
+				instance.setValue(inquirerMaxScorePos, inquirerScorePos.get(2));
+				instance.setValue(inquirerLastScorePos, inquirerScorePos.get(3));
+				List<Double> inquirerScoreNeg = worker.getLexiScoresStandford(inquirerLexi, tweet.getStanfordWordList(), true);
+				instance.setValue(inquirerTotalCountNeg, inquirerScoreNeg.get(0));
+				instance.setValue(inquirerTotalScoreNeg, inquirerScoreNeg.get(1));
+				instance.setValue(inquirerMaxScoreNeg, inquirerScoreNeg.get(2));
+				instance.setValue(inquirerLastScoreNeg, inquirerScoreNeg.get(3));
 			
-			//set class attribute
-			instance.setValue(classAttribute, tweet.getSentiment());
+				//set class attribute
+				instance.setValue(classAttribute, tweet.getSentiment());
 			
+				instances[row] = instance;
+			}
+		});
+		for (SparseInstance instance : instances){
 			trainingSet.add(instance);
 		}
 		
-		//save features and training instances in .arff file
-		ArffSaver saver = new ArffSaver();
-		saver.setInstances(trainingSet);
-		saver.setFile(new File("resources/arff/Trained-Features-" + "TeamX" + savename + ".arff"));
-		saver.writeBatch();
-		System.out.println("Trained-Features-" + "TeamX" + savename + " saved");
+		//save features and training instances in the selected format
+		File featureFile = this.saveFeatures(trainingSet, "Trained-Features-" + "TeamX" + savename);
+		
+		//train and save the model, so the test run does not have to retrain it
+		TrainedModel.train("TeamX", trainingSet, COST, featureFile).save(TrainedModel.modelFile("Trained-Features-" + "TeamX" + savename));
 	}
 
-	public Map<String,ClassificationResult> test(String nameOfTrain) throws Exception{
+	public ResultStore test(String nameOfTrain) throws Exception{
 		System.out.println("Starting TeamX Test");
 		System.out.println("Tweets: " +  this.tweetList.size());
+		this.loadClassifier(nameOfTrain);
+		ResultStore results = this.classifyBatch(new ArrayList<Tweet>(this.tweetList));
+		this.dumpProbabilities(results);
+		return results;
+	}
+	
+	/**
+	 * Loads the trained model and the resources to classify Tweets
+	 * 
+	 * @param nameOfTrain optional filename of the arff file
+	 * @throws IOException
+	 */
+	public void loadClassifier(String nameOfTrain) throws IOException{
 		String trainname = "";
 		if(!nameOfTrain.equals("")){
 			trainname = nameOfTrain;
@@ -555,217 +663,351 @@ public void train(String savename) throws IOException, ClassNotFoundException{
 			trainname = "Trained-Features-TeamX";
 		}
 		
-		//load features and training instances from .arff file
-		BufferedReader reader = new BufferedReader(new FileReader("resources/arff/" + trainname + ".arff"));
-		Instances train = new Instances(reader);
-		train.setClassIndex(train.numAttributes() - 1);
-		reader.close();
-		
-		//load and setup classifier
-		LibLINEAR classifier = new LibLINEAR();
-	    classifier.setProbabilityEstimates(true);
-	    classifier.setSVMType(new SelectedTag(0, LibLINEAR.TAGS_SVMTYPE));
-	    classifier.setCost(0.05);
-	    
-	    //train classifier with instances
-	    classifier.buildClassifier(train);
-	    
-	    //delete train instances, to use same features with test instances
-		train.delete();
-		
-		//load pos-tagger
-		Tagger tagger = new Tagger();
-		tagger.loadModel("resources/tagger/model.20120919.txt");
-		MaxentTagger stanfordTagger = new MaxentTagger("resources/tagger/english-bidirectional-distsim.tagger");
+		//load trained model, it gets retrained from the .arff file if it is missing or stale
+		TrainedModel trainedModel = TrainedModel.loadOrTrain("TeamX", trainname, COST);
+		this.setTrainedModel(trainedModel);
 		
-		//load sentiment lexica
-		Map<String, Double> afinnLexi = this.loadAFINN();
-		Map<String, Double> BingLiuLexi = this.loadBingLiu();
-		Map<String, Double> inquirerLexi = this.loadGeneralInquirer();
-		Map<String, Double> MPQALexi = this.loadMPQA();
-		Map<String, Double> senti140UniLexi = this.loadLexicon("sentiment140/unigrams-pmilexicon");
-		Map<String, Double> hashtagUniLexi = this.loadLexicon("hashtag/unigrams-pmilexicon");
-		Map<String, Double> senti140BiLexi = this.loadLexicon("sentiment140/bigrams-pmilexicon");
-		Map<String, Double> hashtagBiLexi = this.loadLexicon("hashtag/bigrams-pmilexicon");  
-		Map<String, Double> sentiWordNet = this.loadSentiWordNet(); 
+		this.loadResources();
+	}
+	
+	/**
+	 * Loads the resources the features of a Tweet need, e.g. the sentiment lexica
+	 * 
+	 * @throws IOException
+	 */
+	protected void loadResources() throws IOException{
+		//load pos-tagger and spell-checker
+		this.loadWorkerResources();
 		
+		//load sentiment lexica
+		this.afinnLexi = this.loadAFINN();
+		this.BingLiuLexi = this.loadBingLiu();
+		this.inquirerLexi = this.loadGeneralInquirer();
+		this.MPQALexi = this.loadMPQA();
+		this.senti140UniLexi = this.loadLexicon("sentiment140/unigrams-pmilexicon");
+		this.hashtagUniLexi = this.loadLexicon("hashtag/unigrams-pmilexicon");
+		this.senti140BiLexi = this.loadLexicon("sentiment140/bigrams-pmilexicon");
+		this.hashtagBiLexi = this.loadLexicon("hashtag/bigrams-pmilexicon");  
+		this.sentiWordNet = this.loadSentiWordNet(); 
+	}
+	
+	/**
+	 * Loads the resources that are not thread-safe, every worker of a parallel test loads its own
+	 * 
+	 * @throws IOException
+	 */
+	protected void loadWorkerResources() throws IOException{
+		//load pos-taggers, the Stanford tagger is shared by all workers
+		this.tagger = loadTagger();
+		this.stanfordTagger = StanfordBatchTagger.getTagger();
 		
 		//load spell-checker
 		SpellDictionary dictionary = new SpellDictionaryHashMap(new File("resources/lexi/SpellChecker/english.0"), new File("resources/lexi/SpellChecker/phonet.en"));
-		SpellChecker spellChecker = new SpellChecker(dictionary);
+		this.spellChecker = new SpellChecker(dictionary);
+	}
+	
+	protected String getName(){
+		return "TeamX";
+	}
+	
+	protected double getCost(){
+		return COST;
+	}
+	
+	protected List<Stage<?>> getStages(){
+		return STAGES;
+	}
+	
+	/**
+	 * Spell-corrects the Tweets and tags them with the Stanford tagger in one batch if batch tagging is enabled (see
+	 * StanfordBatchTagger.setThreads), the features of the Tweets read the results instead of tagging every Tweet
+	 * on its own
+	 * 
+	 * @param workers the workers of createWorkers
+	 * @param tweets the Tweets of the batch
+	 * @throws IOException
+	 */
+	protected void prepareBatch(List<SentimentSystem> workers, List<Tweet> tweets) throws IOException{
+		this.batchCorrections.clear();
+		this.batchStanfordTokens.clear();
+		int numThreads = StanfordBatchTagger.getThreads();
+		if (numThreads <= 0){
+			return;
+		}
+		
+		//spell-correct the Tweets, the strings are tagged once
+		final Map<String, String> corrections = new ConcurrentHashMap<String, String>();
+		this.forEachTweet(workers, tweets, new TweetTask<SentimentSystemTeamX>(){
+			public void process(SentimentSystemTeamX worker, int row, Tweet tweet) throws IOException{
+				//the shared artifacts are only pulled when the features are created, so they are released after the Tweet
+				new TweetArtifacts(tweet).applyTo(STAGES, tweet, worker.tagger);
+				String tweetString = tweet.getTweetString();
+				worker.spellCorrection(worker.spellChecker, tweet);
+				corrections.put(tweetString, tweet.getTweetString());
+			}
+		});
+		TaggedCache cache = TaggedCache.getStanford();
+		List<String> texts = new ArrayList<String>();
+		for (String text : new HashSet<String>(corrections.values())){
+			if (cache == null || cache.get(text) == null){
+				texts.add(text);
+			}
+		}
 		
-		Map<String, Integer> featureMap = new HashMap<String, Integer>();
-		for (int i = 0; i < train.numAttributes(); i++){
-			featureMap.put(train.attribute(i).name(), train.attribute(i).index());
+		//tag the strings with the shared tagger
+		long startTime = System.currentTimeMillis();
+		List<List<TaggedToken>> tagged = StanfordBatchTagger.tagAll(texts, numThreads);
+		long time = System.currentTimeMillis() - startTime;
+		for (int i = 0; i < texts.size(); i++){
+			this.batchStanfordTokens.put(texts.get(i), tagged.get(i));
+			if (cache != null){
+				cache.put(texts.get(i), tagged.get(i));
+			}
 		}
-	    
-		Map<String,ClassificationResult> resultMap = new HashMap<String, ClassificationResult>();
-		for(Tweet tweet : tweetList){
+		this.batchCorrections.putAll(corrections);
+		System.out.println("Stanford-tagged " + texts.size() + " Tweets in " + time + " ms with " + numThreads + " threads, "
+				+ String.format("%.1f", texts.size() * 1000.0 / Math.max(1, time)) + " Tweets/s");
+	}
+	
+	/**
+	 * Resolves the dictionaries of the sparse features and the slots of the dense features in the schema of the trained model
+	 */
+	protected void resolveSchema(){
+		this.nGramDictionary = this.schema.getDictionary("NGRAM_");
+		this.charNGramDictionary = this.schema.getDictionary("CHARNGRAM_");
+		this.clusterDictionary = this.schema.getDictionary("CLUSTER_");
+		this.senti140UniTotalCountPos = this.schema.getSlot("senti140UniTotalCountPos");
+		this.senti140UniTotalScorePos = this.schema.getSlot("senti140UniTotalScorePos");
+		this.senti140UniMaxScorePos = this.schema.getSlot("senti140UniMaxScorePos");
+		this.senti140UniLastScorePos = this.schema.getSlot("senti140UniLastScorePos");
+		this.hashtagUniTotalCountPos = this.schema.getSlot("hashtagUniTotalCountPos");
+		this.hashtagUniTotalScorePos = this.schema.getSlot("hashtagUniTotalScorePos");
+		this.hashtagUniMaxScorePos = this.schema.getSlot("hashtagUniMaxScorePos");
+		this.hashtagUniLastScorePos = this.schema.getSlot("hashtagUniLastScorePos");
+		this.senti140UniTotalCountNeg = this.schema.getSlot("senti140UniTotalCountNeg");
+		this.senti140UniTotalScoreNeg = this.schema.getSlot("senti140UniTotalScoreNeg");
+		this.senti140UniMaxScoreNeg = this.schema.getSlot("senti140UniMaxScoreNeg");
+		this.senti140UniLastScoreNeg = this.schema.getSlot("senti140UniLastScoreNeg");
+		this.hashtagUniTotalCountNeg = this.schema.getSlot("hashtagUniTotalCountNeg");
+		this.hashtagUniTotalScoreNeg = this.schema.getSlot("hashtagUniTotalScoreNeg");
+		this.hashtagUniMaxScoreNeg = this.schema.getSlot("hashtagUniMaxScoreNeg");
+		this.hashtagUniLastScoreNeg = this.schema.getSlot("hashtagUniLastScoreNeg");
+		this.senti140BiTotalCountPos = this.schema.getSlot("senti140BiTotalCountPos");
+		this.senti140BiTotalScorePos = this.schema.getSlot("senti140BiTotalScorePos");
+		this.senti140BiMaxScorePos = this.schema.getSlot("senti140BiMaxScorePos");
+		this.senti140BiLastScorePos = this.schema.getSlot("senti140BiLastScorePos");
+		this.hashtagBiTotalCountPos = this.schema.getSlot("hashtagBiTotalCountPos");
+		this.hashtagBiTotalScorePos = this.schema.getSlot("hashtagBiTotalScorePos");
+		this.hashtagBiMaxScorePos = this.schema.getSlot("hashtagBiMaxScorePos");
+		this.hashtagBiLastScorePos = this.schema.getSlot("hashtagBiLastScorePos");
+		this.senti140BiTotalCountNeg = this.schema.getSlot("senti140BiTotalCountNeg");
+		this.senti140BiTotalScoreNeg = this.schema.getSlot("senti140BiTotalScoreNeg");
+		this.senti140BiMaxScoreNeg = this.schema.getSlot("senti140BiMaxScoreNeg");
+		this.senti140BiLastScoreNeg = this.schema.getSlot("senti140BiLastScoreNeg");
+		this.hashtagBiTotalCountNeg = this.schema.getSlot("hashtagBiTotalCountNeg");
+		this.hashtagBiTotalScoreNeg = this.schema.getSlot("hashtagBiTotalScoreNeg");
+		this.hashtagBiMaxScoreNeg = this.schema.getSlot("hashtagBiMaxScoreNeg");
+		this.hashtagBiLastScoreNeg = this.schema.getSlot("hashtagBiLastScoreNeg");
+		this.MPQATotalCountPos = this.schema.getSlot("MPQATotalCountPos");
+		this.MPQATotalScorePos = this.schema.getSlot("MPQATotalScorePos");
+		this.MPQAMaxScorePos = this.schema.getSlot("MPQAMaxScorePos");
+		this.MPQALastScorePos = this.schema.getSlot("MPQALastScorePos");
+		this.MPQATotalCountNeg = this.schema.getSlot("MPQATotalCountNeg");
+		this.MPQATotalScoreNeg = this.schema.getSlot("MPQATotalScoreNeg");
+		this.MPQAMaxScoreNeg = this.schema.getSlot("MPQAMaxScoreNeg");
+		this.MPQALastScoreNeg = this.schema.getSlot("MPQALastScoreNeg");
+		this.BingLiuTotalCountPos = this.schema.getSlot("BingLiuTotalCountPos");
+		this.BingLiuTotalScorePos = this.schema.getSlot("BingLiuTotalScorePos");
+		this.BingLiuMaxScorePos = this.schema.getSlot("BingLiuMaxScorePos");
+		this.BingLiuLastScorePos = this.schema.getSlot("BingLiuLastScorePos");
+		this.BingLiuTotalCountNeg = this.schema.getSlot("BingLiuTotalCountNeg");
+		this.BingLiuTotalScoreNeg = this.schema.getSlot("BingLiuTotalScoreNeg");
+		this.BingLiuMaxScoreNeg = this.schema.getSlot("BingLiuMaxScoreNeg");
+		this.BingLiuLastScoreNeg = this.schema.getSlot("BingLiuLastScoreNeg");
+		this.afinnTotalCountPos = this.schema.getSlot("afinnTotalCountPos");
+		this.afinnTotalScorePos = this.schema.getSlot("afinnTotalScorePos");
+		this.afinnMaxScorePos = this.schema.getSlot("afinnMaxScorePos");
+		this.afinnLastScorePos = this.schema.getSlot("afinnLastScorePos");
+		this.afinnTotalCountNeg = this.schema.getSlot("afinnTotalCountNeg");
+		this.afinnTotalScoreNeg = this.schema.getSlot("afinnTotalScoreNeg");
+		this.afinnMaxScoreNeg = this.schema.getSlot("afinnMaxScoreNeg");
+		this.afinnLastScoreNeg = this.schema.getSlot("afinnLastScoreNeg");
+		this.wordNetTotalCountPos = this.schema.getSlot("wordNetTotalCountPos");
+		this.wordNetTotalScorePos = this.schema.getSlot("wordNetTotalScorePos");
+		this.wordNetMaxScorePos = this.schema.getSlot("wordNetMaxScorePos");
+		this.wordNetLastScorePos = this.schema.getSlot("wordNetLastScorePos");
+		this.wordNetTotalCountNeg = this.schema.getSlot("wordNetTotalCountNeg");
+		this.wordNetTotalScoreNeg = this.schema.getSlot("wordNetTotalScoreNeg");
+		this.wordNetMaxScoreNeg = this.schema.getSlot("wordNetMaxScoreNeg");
+		this.wordNetLastScoreNeg = this.schema.getSlot("wordNetLastScoreNeg");
+		this.inquirerTotalCountPos = this.schema.getSlot("inquirerTotalCountPos");
+		this.inquirerTotalScorePos = this.schema.getSlot("inquirerTotalScorePos");
+		this.inquirerMaxScorePos = this.schema.getSlot("inquirerMaxScorePos");
+		this.inquirerLastScorePos = this.schema.getSlot("inquirerLastScorePos");
+		this.inquirerTotalCountNeg = this.schema.getSlot("inquirerTotalCountNeg");
+		this.inquirerTotalScoreNeg = this.schema.getSlot("inquirerTotalScoreNeg");
+		this.inquirerMaxScoreNeg = this.schema.getSlot("inquirerMaxScoreNeg");
+		this.inquirerLastScoreNeg = this.schema.getSlot("inquirerLastScoreNeg");
+	}
+	
+	/**
+	 * Preprocesses and tags the Tweet and creates its features
+	 * 
+	 * @param tweet the Tweet
+	 * @param vector the cleared vector for the features
+	 * @throws IOException
+	 */
+	protected void createFeatures(Tweet tweet, FeatureVector vector) throws IOException{
 		    
 		    //preprocess and tag
-			this.preProcessTweet(tweet);
-			this.spellCorrection(spellChecker, tweet);
-			this.tokenizeAndTag(tagger, stanfordTagger, tweet);
-			this.negate(tweet);
-			this.negateStanford(tweet);
-			SparseInstance instance = new SparseInstance(0);
-			
-			//creating test instances with features
+		this.pull(tagger, tweet);
+		this.spellCorrection(spellChecker, tweet);
+		this.tokenizeAndTag(tagger, stanfordTagger, tweet);
+		this.negate(tweet);
+		this.negateStanford(tweet);
+		
+		//creating test instances with features
             //n-gram feature
-			Set<String> nGramSet = this.getNGrams(tweet, 4);
-			for (String nGram : nGramSet){
-				Integer index = featureMap.get("NGRAM_" + nGram);
-				if(index != null){
-					instance.setValue(index, 1);
-				}
+		Set<String> nGramSet = this.getNGrams(tweet, 4);
+		for (String nGram : nGramSet){
+			int index = nGramDictionary.get(nGram);
+			if(index != -1){
+				vector.add(index);
 			}
-			
-			//char-n-gram feature
-			Set<String> CharNGramSet = this.getCharNGrams(tweet);
-			for (String nGram : CharNGramSet){
-				Integer index = featureMap.get("CHARNGRAM_" + nGram);
-				if(index != null){
-					instance.setValue(index, 1);
-				}
+		}
+		
+		//char-n-gram feature
+		Set<String> CharNGramSet = this.getCharNGrams(tweet);
+		for (String nGram : CharNGramSet){
+			int index = charNGramDictionary.get(nGram);
+			if(index != -1){
+				vector.add(index);
 			}
-			
-			//cluster feature			
-			Set<String> clusterSet = this.getClusters(tweet);
-			for(String cluster : clusterSet){
-				Integer index = featureMap.get("CLUSTER_" + cluster);
-				if(index != null){
-					instance.setValue(index, 1);
-				}
+		}
+		
+		//cluster feature			
+		Set<String> clusterSet = this.getClusters(tweet);
+		for(String cluster : clusterSet){
+			int index = clusterDictionary.get(cluster);
+			if(index != -1){
+				vector.add(index);
 			}
-			
-			//lexica features
-			List<Double> senti140UniPos = this.getLexiScores(senti140UniLexi, tweet.getWordList(), false);
-			instance.setValue(featureMap.get("senti140UniTotalCountPos"), senti140UniPos.get(0));
-			instance.setValue(featureMap.get("senti140UniTotalScorePos"), senti140UniPos.get(1));
-			instance.setValue(featureMap.get("senti140UniMaxScorePos"), senti140UniPos.get(2));
-			instance.setValue(featureMap.get("senti140UniLastScorePos"), senti140UniPos.get(3));
-			List<Double> hashtagUniPos = this.getLexiScores(hashtagUniLexi, tweet.getWordList(), false);
-			instance.setValue(featureMap.get("hashtagUniTotalCountPos"), hashtagUniPos.get(0));
-			instance.setValue(featureMap.get("hashtagUniTotalScorePos"), hashtagUniPos.get(1));
-			instance.setValue(featureMap.get("hashtagUniMaxScorePos"), hashtagUniPos.get(2));
-			instance.setValue(featureMap.get("hashtagUniLastScorePos"), hashtagUniPos.get(3));
-			List<Double> senti140UniNeg = this.getLexiScores(senti140UniLexi, tweet.getWordList(), true);
-			instance.setValue(featureMap.get("senti140UniTotalCountNeg"), senti140UniNeg.get(0));
-			instance.setValue(featureMap.get("senti140UniTotalScoreNeg"), senti140UniNeg.get(1));
-			instance.setValue(featureMap.get("senti140UniMaxScoreNeg"), senti140UniNeg.get(2));
-			instance.setValue(featureMap.get("senti140UniLastScoreNeg"), senti140UniNeg.get(3));
-			List<Double> hashtagUniNeg = this.getLexiScores(hashtagUniLexi, tweet.getWordList(), true);
-			instance.setValue(featureMap.get("hashtagUniTotalCountNeg"), hashtagUniNeg.get(0));
-			instance.setValue(featureMap.get("hashtagUniTotalScoreNeg"), hashtagUniNeg.get(1));
-			instance.setValue(featureMap.get("hashtagUniMaxScoreNeg"), hashtagUniNeg.get(2));
-			instance.setValue(featureMap.get("hashtagUniLastScoreNeg"), hashtagUniNeg.get(3));
-			
-			Set<String> biGramSet = this.getNGrams(tweet, 2, 2);
-			List<Double> senti140BiPos = this.getLexiScoresBi(senti140BiLexi, biGramSet, false);
-			instance.setValue(featureMap.get("senti140BiTotalCountPos"), senti140BiPos.get(0));
-			instance.setValue(featureMap.get("senti140BiTotalScorePos"), senti140BiPos.get(1));
-			instance.setValue(featureMap.get("senti140BiMaxScorePos"), senti140BiPos.get(2));
-			instance.setValue(featureMap.get("senti140BiLastScorePos"), senti140BiPos.get(3));
-			List<Double> hashtagBiPos = this.getLexiScoresBi(hashtagBiLexi, biGramSet, false);
-			instance.setValue(featureMap.get("hashtagBiTotalCountPos"), hashtagBiPos.get(0));
-			instance.setValue(featureMap.get("hashtagBiTotalScorePos"), hashtagBiPos.get(1));
-			instance.setValue(featureMap.get("hashtagBiMaxScorePos"), hashtagBiPos.get(2));
-			instance.setValue(featureMap.get("hashtagBiLastScorePos"), hashtagBiPos.get(3));
-			List<Double> senti140BiNeg = this.getLexiScoresBi(senti140BiLexi, biGramSet, true);
-			instance.setValue(featureMap.get("senti140BiTotalCountNeg"), senti140BiNeg.get(0));
-			instance.setValue(featureMap.get("senti140BiTotalScoreNeg"), senti140BiNeg.get(1));
-			instance.setValue(featureMap.get("senti140BiMaxScoreNeg"), senti140BiNeg.get(2));
-			instance.setValue(featureMap.get("senti140BiLastScoreNeg"), senti140BiNeg.get(3));
-			List<Double> hashtagBiNeg = this.getLexiScoresBi(hashtagBiLexi, biGramSet, true);
-			instance.setValue(featureMap.get("hashtagBiTotalCountNeg"), hashtagBiNeg.get(0));
-			instance.setValue(featureMap.get("hashtagBiTotalScoreNeg"), hashtagBiNeg.get(1));
-			instance.setValue(featureMap.get("hashtagBiMaxScoreNeg"), hashtagBiNeg.get(2));
-			instance.setValue(featureMap.get("hashtagBiLastScoreNeg"), hashtagBiNeg.get(3));
-			
-			List<Double> MPQAPos = this.getLexiScoresStandford(MPQALexi, tweet.getStanfordWordList(), false);
-			instance.setValue(featureMap.get("MPQATotalCountPos"), MPQAPos.get(0));
-			instance.setValue(featureMap.get("MPQATotalScorePos"), MPQAPos.get(1));
-			instance.setValue(featureMap.get("MPQAMaxScorePos"), MPQAPos.get(2));
-			instance.setValue(featureMap.get("MPQALastScorePos"), MPQAPos.get(3));
-			List<Double> MPQANeg = this.getLexiScoresStandford(MPQALexi, tweet.getStanfordWordList(), true);
-			instance.setValue(featureMap.get("MPQATotalCountNeg"), MPQANeg.get(0));
-			instance.setValue(featureMap.get("MPQATotalScoreNeg"), MPQANeg.get(1));
-			instance.setValue(featureMap.get("MPQAMaxScoreNeg"), MPQANeg.get(2));
-			instance.setValue(featureMap.get("MPQALastScoreNeg"), MPQANeg.get(3));
-			
-			List<Double> BingLiuPos = this.getLexiScores(BingLiuLexi, tweet.getWordList(), false);
-			instance.setValue(featureMap.get("BingLiuTotalCountPos"), BingLiuPos.get(0));
-			instance.setValue(featureMap.get("BingLiuTotalScorePos"), BingLiuPos.get(1));
-			instance.setValue(featureMap.get("BingLiuMaxScorePos"), BingLiuPos.get(2));
-			instance.setValue(featureMap.get("BingLiuLastScorePos"), BingLiuPos.get(3));
-			List<Double> BingLiuNeg = this.getLexiScores(BingLiuLexi, tweet.getWordList(), true);
-			instance.setValue(featureMap.get("BingLiuTotalCountNeg"), BingLiuNeg.get(0));
-			instance.setValue(featureMap.get("BingLiuTotalScoreNeg"), BingLiuNeg.get(1));
-			instance.setValue(featureMap.get("BingLiuMaxScoreNeg"), BingLiuNeg.get(2));
-			instance.setValue(featureMap.get("BingLiuLastScoreNeg"), BingLiuNeg.get(3));
-			
-			List<Double> afinnScorePos = this.getLexiScores(afinnLexi, tweet.getWordList(), false);
-			instance.setValue(featureMap.get("afinnTotalCountPos"), afinnScorePos.get(0));
-			instance.setValue(featureMap.get("afinnTotalScorePos"), afinnScorePos.get(1));
-			instance.setValue(featureMap.get("afinnMaxScorePos"), afinnScorePos.get(2));
-			instance.setValue(featureMap.get("afinnLastScorePos"), afinnScorePos.get(3));
-			List<Double> afinnScoreNeg = this.getLexiScores(afinnLexi, tweet.getWordList(), true);
-			instance.setValue(featureMap.get("afinnTotalCountNeg"), afinnScoreNeg.get(0));
-			instance.setValue(featureMap.get("afinnTotalScoreNeg"), afinnScoreNeg.get(1));
-			instance.setValue(featureMap.get("afinnMaxScoreNeg"), afinnScoreNeg.get(2));
-			instance.setValue(featureMap.get("afinnLastScoreNeg"), afinnScoreNeg.get(3));
-			
-			List<Double> wordNetScorePos = this.getLexiScoresStandford(sentiWordNet, tweet.getStanfordWordList(), false);
-			instance.setValue(featureMap.get("wordNetTotalCountPos"), wordNetScorePos.get(0));
-			instance.setValue(featureMap.get("wordNetTotalScorePos"), wordNetScorePos.get(1));
-			instance.setValue(featureMap.get("wordNetMaxScorePos"), wordNetScorePos.get(2));
-			instance.setValue(featureMap.get("wordNetLastScorePos"), wordNetScorePos.get(3));
-			List<Double> wordNetScoreNeg = this.getLexiScoresStandford(sentiWordNet, tweet.getStanfordWordList(), true);
-			instance.setValue(featureMap.get("wordNetTotalCountNeg"), wordNetScoreNeg.get(0));
-			instance.setValue(featureMap.get("wordNetTotalScoreNeg"), wordNetScoreNeg.get(1));
-			instance.setValue(featureMap.get("wordNetMaxScoreNeg"), wordNetScoreNeg.get(2));
-			instance.setValue(featureMap.get("wordNetLastScoreNeg"), wordNetScoreNeg.get(3));
-			
-			List<Double> inquirerScorePos = this.getLexiScoresStandford(inquirerLexi, tweet.getStanfordWordList(), false);
-			instance.setValue(featureMap.get("inquirerTotalCountPos"), inquirerScorePos.get(0));
-			instance.setValue(featureMap.get("inquirerTotalScorePos"), inquirerScorePos.get(1));
-			instance.setValue(featureMap.get("inquirerMaxScorePos"), inquirerScorePos.get(2));
-			instance.setValue(featureMap.get("inquirerLastScorePos"), inquirerScorePos.get(3));
-			List<Double> inquirerScoreNeg = this.getLexiScoresStandford(inquirerLexi, tweet.getStanfordWordList(), true);
-			instance.setValue(featureMap.get("inquirerTotalCountNeg"), inquirerScoreNeg.get(0));
-			instance.setValue(featureMap.get("inquirerTotalScoreNeg"), inquirerScoreNeg.get(1));
-			instance.setValue(featureMap.get("inquirerMaxScoreNeg"), inquirerScoreNeg.get(2));
-			instance.setValue(featureMap.get("inquirerLastScoreNeg"), inquirerScoreNeg.get(3));
-			
-			//add test instance to trained features
-			train.add(instance);
-			
-            //classify Tweet
-            double result = classifier.classifyInstance(train.lastInstance());
-            double[] resultDistribution = classifier.distributionForInstance(train.lastInstance());
-            resultMap.put(tweet.getTweetID(), new ClassificationResult(tweet, resultDistribution, result));
 		}
-		return resultMap;
+		
+		//lexica features
+		List<Double> senti140UniPos = this.getLexiScores(senti140UniLexi, tweet.getWordList(), false);
+		vector.add(senti140UniTotalCountPos, senti140UniPos.get(0));
+		vector.add(senti140UniTotalScorePos, senti140UniPos.get(1));
+		vector.add(senti140UniMaxScorePos, senti140UniPos.get(2));
+		vector.add(senti140UniLastScorePos, senti140UniPos.get(3));
+		List<Double> hashtagUniPos = this.getLexiScores(hashtagUniLexi, tweet.getWordList(), false);
+		vector.add(hashtagUniTotalCountPos, hashtagUniPos.get(0));
+		vector.add(hashtagUniTotalScorePos, hashtagUniPos.get(1));
+		vector.add(hashtagUniMaxScorePos, hashtagUniPos.get(2));
+		vector.add(hashtagUniLastScorePos, hashtagUniPos.get(3));
+		List<Double> senti140UniNeg = this.getLexiScores(senti140UniLexi, tweet.getWordList(), true);
+		vector.add(senti140UniTotalCountNeg, senti140UniNeg.get(0));
+		vector.add(senti140UniTotalScoreNeg, senti140UniNeg.get(1));
+		vector.add(senti140UniMaxScoreNeg, senti140UniNeg.get(2));
+		vector.add(senti140UniLastScoreNeg, senti140UniNeg.get(3));
+		List<Double> hashtagUniNeg = this.getLexiScores(hashtagUniLexi, tweet.getWordList(), true);
+		vector.add(hashtagUniTotalCountNeg, hashtagUniNeg.get(0));
+		vector.add(hashtagUniTotalScoreNeg, hashtagUniNeg.get(1));
+		vector.add(hashtagUniMaxScoreNeg, hashtagUniNeg.get(2));
+		vector.add(hashtagUniLastScoreNeg, hashtagUniNeg.get(3));
+		
+		Set<String> biGramSet = this.getNGrams(tweet, 2, 2);
+		List<Double> senti140BiPos = this.getLexiScoresBi(senti140BiLexi, biGramSet, false);
+		vector.add(senti140BiTotalCountPos, senti140BiPos.get(0));
+		vector.add(senti140BiTotalScorePos, senti140BiPos.get(1));
+		vector.add(senti140BiMaxScorePos, senti140BiPos.get(2));
+		vector.add(senti140BiLastScorePos, senti140BiPos.get(3));
+		List<Double> hashtagBiPos = this.getLexiScoresBi(hashtagBiLexi, biGramSet, false);
+		vector.add(hashtagBiTotalCountPos, hashtagBiPos.get(0));
+		vector.add(hashtagBiTotalScorePos, hashtagBiPos.get(1));
+		vector.add(hashtagBiMaxScorePos, hashtagBiPos.get(2));
+		vector.add(hashtagBiLastScorePos, hashtagBiPos.get(3));
+		List<Double> senti140BiNeg = this.getLexiScoresBi(senti140BiLexi, biGramSet, true);
+		vector.add(senti140BiTotalCountNeg, senti140BiNeg.get(0));
+		vector.add(senti140BiTotalScoreNeg, senti140BiNeg.get(1));
+		vector.add(senti140BiMaxScoreNeg, senti140BiNeg.get(2));
+		vector.add(senti140BiLastScoreNeg, senti140BiNeg.get(3));
+		List<Double> hashtagBiNeg = this.getLexiScoresBi(hashtagBiLexi, biGramSet, true);
+		vector.add(hashtagBiTotalCountNeg, hashtagBiNeg.get(0));
+		vector.add(hashtagBiTotalScoreNeg, hashtagBiNeg.get(1));
+		vector.add(hashtagBiMaxScoreNeg, hashtagBiNeg.get(2));
+		vector.add(hashtagBiLastScoreNeg, hashtagBiNeg.get(3));
+		
+		List<Double> MPQAPos = this.getLexiScoresStandford(MPQALexi, tweet.getStanfordWordList(), false);
+		vector.add(MPQATotalCountPos, MPQAPos.get(0));
+		vector.add(MPQATotalScorePos, MPQAPos.get(1));
+		vector.add(MPQAMaxScorePos, MPQAPos.get(2));
+		vector.add(MPQALastScorePos, MPQAPos.get(3));
+		List<Double> MPQANeg = this.getLexiScoresStandford(MPQALexi, tweet.getStanfordWordList(), true);
+		vector.add(MPQATotalCountNeg, MPQANeg.get(0));
+		vector.add(MPQATotalScoreNeg, MPQANeg.get(1));
+		vector.add(MPQAMaxScoreNeg, MPQANeg.get(2));
+		vector.add(MPQALastScoreNeg, MPQANeg.get(3));
+		
+		List<Double> BingLiuPos = this.getLexiScores(BingLiuLexi, tweet.getWordList(), false);
+		vector.add(BingLiuTotalCountPos, BingLiuPos.get(0));
+		vector.add(BingLiuTotalScorePos, BingLiuPos.get(1));
+		vector.add(BingLiuMaxScorePos, BingLiuPos.get(2));
+		vector.add(BingLiuLastScorePos, BingLiuPos.get(3));
+		List<Double> BingLiuNeg = this.getLexiScores(BingLiuLexi, tweet.getWordList(), true);
+		vector.add(BingLiuTotalCountNeg, BingLiuNeg.get(0));
+		vector.add(BingLiuTotalScoreNeg, BingLiuNeg.get(1));
+		vector.add(BingLiuMaxScoreNeg, BingLiuNeg.get(2));
+		vector.add(BingLiuLastScoreNeg, BingLiuNeg.get(3));
+		
+		List<Double> afinnScorePos = this.getLexiScores(afinnLexi, tweet.getWordList(), false);
+		vector.add(afinnTotalCountPos, afinnScorePos.get(0));
+		vector.add(afinnTotalScorePos, afinnScorePos.get(1));
+		vector.add(afinnMaxScorePos, afinnScorePos.get(2));
+		vector.add(afinnLastScorePos, afinnScorePos.get(3));
+		List<Double> afinnScoreNeg = this.getLexiScores(afinnLexi, tweet.getWordList(), true);
+		vector.add(afinnTotalCountNeg, afinnScoreNeg.get(0));
+		vector.add(afinnTotalScoreNeg, afinnScoreNeg.get(1));
+		vector.add(afinnMaxScoreNeg, afinnScoreNeg.get(2));
+		vector.add(afinnLastScoreNeg, afinnScoreNeg.get(3));
+		
+		List<Double> wordNetScorePos = this.getLexiScoresStandford(sentiWordNet, tweet.getStanfordWordList(), false);
+		vector.add(wordNetTotalCountPos, wordNetScorePos.get(0));
+		vector.add(wordNetTotalScorePos, wordNetScorePos.get(1));
+		vector.add(wordNetMaxScorePos, wordNetScorePos.get(2));
+		vector.add(wordNetLastScorePos, wordNetScorePos.get(3));
+		List<Double> wordNetScoreNeg = this.getLexiScoresStandford(sentiWordNet, tweet.getStanfordWordList(), true);
+		vector.add(wordNetTotalCountNeg, wordNetScoreNeg.get(0));
+		vector.add(wordNetTotalScoreNeg, wordNetScoreNeg.get(1));
+		vector.add(wordNetMaxScoreNeg, wordNetScoreNeg.get(2));
+		vector.add(wordNetLastScoreNeg, wordNetScoreNeg.get(3));
+		
+		List<Double> inquirerScorePos = this.getLexiScoresStandford(inquirerLexi, tweet.getStanfordWordList(), false);
+		vector.add(inquirerTotalCountPos, inquirerScorePos.get(0));
+		vector.add(inquirerTotalScorePos, inquirerScorePos.get(1));
+		vector.add(inquirerMaxScorePos, inquirerScorePos.get(2));
+		vector.add(inquirerLastScorePos, inquirerScorePos.get(3));
+		List<Double> inquirerScoreNeg = this.getLexiScoresStandford(inquirerLexi, tweet.getStanfordWordList(), true);
+		vector.add(inquirerTotalCountNeg, inquirerScoreNeg.get(0));
+		vector.add(inquirerTotalScoreNeg, inquirerScoreNeg.get(1));
+		vector.add(inquirerMaxScoreNeg, inquirerScoreNeg.get(2));
+		vector.add(inquirerLastScoreNeg, inquirerScoreNeg.get(3));
+		
 	}
 	
 	//helper functions to preprocess and get features
 
-	private void preProcessTweet(Tweet tweet){
-		String rawTweet = tweet.getRawTweetString();
-		rawTweet = rawTweet.toLowerCase();
-		//filter Usernames
-		rawTweet = rawTweet.replaceAll("@[^\\s]+", "");
-		//filter Urls
-		rawTweet = rawTweet.replaceAll("((www\\.[^\\s]+)|(https?://[^\\s]+))", "");
-		tweet.setTweetString(rawTweet.trim());
-	}
-
 	private void tokenizeAndTag(Tagger tagger, MaxentTagger stanfordTagger, Tweet tweet) throws IOException{
-		tweet.setWordList(tagger.tokenizeAndTag(tweet.getTweetString()));
+		tweet.setWordList(tokenizeAndTag(tagger, tweet.getTweetString()));
 		tweet.setStanfordWordList(tokenizeAndTagStanford(stanfordTagger, tweet));
 	}
 	
 	private void spellCorrection(SpellChecker spellChecker, Tweet tweet){
+		String corrected = this.batchCorrections.get(tweet.getTweetString());
+		if (corrected != null){
+			tweet.setTweetString(corrected);
+			return;
+		}
 		StringWordTokenizer tokenizer = new StringWordTokenizer(tweet.getTweetString());
 		while(tokenizer.hasMoreWords()){
 			List<Word> suggestions = spellChecker.getSuggestions(tokenizer.nextWord(), 0);
@@ -777,18 +1019,20 @@ public void train(String savename) throws IOException, ClassNotFoundException{
 	}
 	
 	private Map<String, String> tokenizeAndTagStanford(MaxentTagger tagger, Tweet tweet) throws IOException {
-		List<TaggedWord> wordListStanford2 = new ArrayList<TaggedWord>();
-		Map<String, String> wordListStanford = new HashMap<String, String>();
-		Reader reader = new StringReader(tweet.getTweetString());
-		DocumentPreprocessor dp = new DocumentPreprocessor(reader);
-		dp.setElementDelimiter("");
-		Iterator<List<HasWord>> it = dp.iterator();
-		while (it.hasNext()){
-			wordListStanford2.addAll(tagger.tagSentence(it.next()));
+		List<TaggedToken> wordListStanford2 = this.batchStanfordTokens.get(tweet.getTweetString());
+		TaggedCache cache = TaggedCache.getStanford();
+		if (wordListStanford2 == null && cache != null){
+			wordListStanford2 = cache.get(tweet.getTweetString());
 		}
-		reader.close();
-		for (TaggedWord word : wordListStanford2) {
-			wordListStanford.put(word.word(), word.tag());	
+		if (wordListStanford2 == null){
+			wordListStanford2 = StanfordBatchTagger.tag(tagger, tweet.getTweetString());
+			if (cache != null){
+				cache.put(tweet.getTweetString(), wordListStanford2);
+			}
+		}
+		Map<String, String> wordListStanford = new HashMap<String, String>();
+		for (TaggedToken word : wordListStanford2) {
+			wordListStanford.put(word.token, word.tag);	
 		}
 		return wordListStanford;
 	}
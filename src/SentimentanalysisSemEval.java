@@ -3,8 +3,11 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
 import java.util.Set;
@@ -16,46 +19,205 @@ public class SentimentanalysisSemEval {
 
 	private Set<Tweet> tweetList = new HashSet<Tweet>();
 	private String PATH =  "";
+	private String featureFormat = "arff";
+	private boolean parallelSystems = false;
 	
 	public SentimentanalysisSemEval(String path) throws FileNotFoundException, UnsupportedEncodingException {
+		this(path, true);
+	}
+	
+	/**
+	 * @param path the name of the tweet file in resources/tweets
+	 * @param loadTweets false if the Tweets are streamed from the file, e.g. by extractSystemStreaming
+	 * @throws FileNotFoundException
+	 * @throws UnsupportedEncodingException
+	 */
+	public SentimentanalysisSemEval(String path, boolean loadTweets) throws FileNotFoundException, UnsupportedEncodingException {
 		this.PATH = path;
-		loadTweets(path);
+		if (loadTweets){
+			loadTweets(path);
+		}
+	}
+	
+	/**
+	 * Sets the format the training features are saved in
+	 * 
+	 * @param featureFormat arff, csr or both
+	 */
+	public void setFeatureFormat(String featureFormat){
+		this.featureFormat = featureFormat;
+	}
+	
+	/**
+	 * Sets whether the systems of trainAll and evalAll run at the same time, they share the threads of SentimentSystem.setThreads
+	 * 
+	 * @param parallelSystems true to run the systems at the same time
+	 */
+	public void setParallelSystems(boolean parallelSystems){
+		this.parallelSystems = parallelSystems;
 	}
 	
 	public void trainSystem(int system, String savename) throws IOException, ClassNotFoundException {
 		switch (system){
 			case 0:
 				SentimentSystemNRC nrcSystem = new SentimentSystemNRC(tweetList);
+				nrcSystem.setFeatureFormat(this.featureFormat);
 				nrcSystem.train(savename);
 				break;
 			case 1:
 				SentimentSystemGUMLTLT gumltltSystem = new SentimentSystemGUMLTLT(tweetList);
+				gumltltSystem.setFeatureFormat(this.featureFormat);
 				gumltltSystem.train(savename);
 				break;
 			case 2:	
 				SentimentSystemKLUE klueSystem = new SentimentSystemKLUE(tweetList);
+				klueSystem.setFeatureFormat(this.featureFormat);
 				klueSystem.train(savename);
 				break;
 			case 3:
 				SentimentSystemTeamX teamXSystem = new SentimentSystemTeamX(tweetList);
+				teamXSystem.setFeatureFormat(this.featureFormat);
 				teamXSystem.train(savename);
 				break;
 			default:
 				throw new IllegalArgumentException("Invalid system: " + system);	
 		}
 	}
-	public void trainAllSystems(int system, String savename) throws IOException {
-			SentimentSystemNRC nrcSystem = new SentimentSystemNRC(tweetList);
-			nrcSystem.train(savename);
-
-			SentimentSystemGUMLTLT gumltltSystem = new SentimentSystemGUMLTLT(tweetList);
-			gumltltSystem.train(savename);
-
-			SentimentSystemKLUE klueSystem = new SentimentSystemKLUE(tweetList);
-			klueSystem.train(savename);
-
-//			TeamXSentimentSystem teamXSystem = new TeamXSentimentSystem(tweetList);
-//			teamXSystem.train(savename);
+	/**
+	 * Appends the Tweets to the trained features of a specific system and warm-starts its model
+	 * 
+	 * @param system system ID (0: NRC; 1: GU-MLT-LT; 2: KLUE; 3: TeamX)
+	 * @param trainname optional filename of the trained features to extend
+	 * @param epochs the number of passes over the extended features
+	 * @throws IOException
+	 */
+	public void trainSystemIncremental(int system, String trainname, int epochs) throws IOException {
+		switch (system){
+			case 0:
+				SentimentSystemNRC nrcSystem = new SentimentSystemNRC(tweetList);
+				nrcSystem.trainIncremental(trainname, epochs);
+				break;
+			case 1:
+				SentimentSystemGUMLTLT gumltltSystem = new SentimentSystemGUMLTLT(tweetList);
+				gumltltSystem.trainIncremental(trainname, epochs);
+				break;
+			case 2:
+				SentimentSystemKLUE klueSystem = new SentimentSystemKLUE(tweetList);
+				klueSystem.trainIncremental(trainname, epochs);
+				break;
+			case 3:
+				SentimentSystemTeamX teamXSystem = new SentimentSystemTeamX(tweetList);
+				teamXSystem.trainIncremental(trainname, epochs);
+				break;
+			default:
+				throw new IllegalArgumentException("Invalid system: " + system);	
+		}
+	}
+	
+	/**
+	 * Trains the model of a specific system out of core on its saved trained features
+	 * 
+	 * @param system system ID (0: NRC; 1: GU-MLT-LT; 2: KLUE; 3: TeamX)
+	 * @param trainname optional filename of the trained features
+	 * @param epochs the number of passes over the trained features
+	 * @throws IOException
+	 */
+	public void trainSystemStreaming(int system, String trainname, int epochs) throws IOException {
+		switch (system){
+			case 0:
+				SentimentSystemNRC nrcSystem = new SentimentSystemNRC(tweetList);
+				nrcSystem.trainStreaming(trainname, epochs);
+				break;
+			case 1:
+				SentimentSystemGUMLTLT gumltltSystem = new SentimentSystemGUMLTLT(tweetList);
+				gumltltSystem.trainStreaming(trainname, epochs);
+				break;
+			case 2:
+				SentimentSystemKLUE klueSystem = new SentimentSystemKLUE(tweetList);
+				klueSystem.trainStreaming(trainname, epochs);
+				break;
+			case 3:
+				SentimentSystemTeamX teamXSystem = new SentimentSystemTeamX(tweetList);
+				teamXSystem.trainStreaming(trainname, epochs);
+				break;
+			default:
+				throw new IllegalArgumentException("Invalid system: " + system);	
+		}
+	}
+	
+	/**
+	 * Creates the trained features of a specific system from the Tweets of the tweet file without loading them into memory
+	 * 
+	 * @param system system ID (0: NRC; 1: GU-MLT-LT; 2: KLUE; 3: TeamX)
+	 * @param savename optional suffix of the filename of the trained features
+	 * @throws IOException
+	 */
+	public void extractSystemStreaming(int system, String savename) throws IOException {
+		switch (system){
+			case 0:
+				SentimentSystemNRC nrcSystem = new SentimentSystemNRC(tweetList);
+				nrcSystem.extractStreaming(TweetReader.tweetFile(this.PATH), savename);
+				break;
+			case 1:
+				SentimentSystemGUMLTLT gumltltSystem = new SentimentSystemGUMLTLT(tweetList);
+				gumltltSystem.extractStreaming(TweetReader.tweetFile(this.PATH), savename);
+				break;
+			case 2:
+				SentimentSystemKLUE klueSystem = new SentimentSystemKLUE(tweetList);
+				klueSystem.extractStreaming(TweetReader.tweetFile(this.PATH), savename);
+				break;
+			case 3:
+				SentimentSystemTeamX teamXSystem = new SentimentSystemTeamX(tweetList);
+				teamXSystem.extractStreaming(TweetReader.tweetFile(this.PATH), savename);
+				break;
+			default:
+				throw new IllegalArgumentException("Invalid system: " + system);	
+		}
+	}
+	
+	/**
+	 * Prunes and quantizes the trained model of a specific system and compares it with the original model on the Tweets
+	 * 
+	 * @param system system ID (0: NRC; 1: GU-MLT-LT; 2: KLUE; 3: TeamX)
+	 * @param trainname optional filename of the trained features
+	 * @param threshold sparse features with smaller absolute weights are removed
+	 * @param bits 16 or 8 to quantize the weights, 64 to only prune them
+	 * @throws IOException
+	 */
+	public void compressSystem(int system, String trainname, double threshold, int bits) throws IOException {
+		switch (system){
+			case 0:
+				SentimentSystemNRC nrcSystem = new SentimentSystemNRC(tweetList);
+				nrcSystem.compress(trainname, threshold, bits);
+				break;
+			case 1:
+				SentimentSystemGUMLTLT gumltltSystem = new SentimentSystemGUMLTLT(tweetList);
+				gumltltSystem.compress(trainname, threshold, bits);
+				break;
+			case 2:
+				SentimentSystemKLUE klueSystem = new SentimentSystemKLUE(tweetList);
+				klueSystem.compress(trainname, threshold, bits);
+				break;
+			case 3:
+				SentimentSystemTeamX teamXSystem = new SentimentSystemTeamX(tweetList);
+				teamXSystem.compress(trainname, threshold, bits);
+				break;
+			default:
+				throw new IllegalArgumentException("Invalid system: " + system);	
+		}
+	}
+	
+	public void trainAllSystems(int system, String savename) throws Exception {
+			EnsembleRunner runner = new EnsembleRunner(tweetList, this.parallelSystems);
+			List<SentimentSystem> systems = new ArrayList<SentimentSystem>();
+			systems.add(new SentimentSystemNRC(runner.getTweets()));
+			systems.add(new SentimentSystemGUMLTLT(runner.getTweets()));
+			systems.add(new SentimentSystemKLUE(runner.getTweets()));
+//			systems.add(new SentimentSystemTeamX(runner.getTweets()));
+			for (SentimentSystem sentimentSystem : systems){
+				sentimentSystem.setFeatureFormat(this.featureFormat);
+			}
+			runner.train(systems, savename);
 	}
 	
 	public void testSystem(int system, String trainname) throws Exception {
@@ -82,19 +244,91 @@ public class SentimentanalysisSemEval {
 	}
 	
 	public void testAllSystem(String trainnameNRC, String trainnameGUMLTLT, String trainnameKLUE, String trainnameTeamX) throws Exception {
-			SentimentSystemNRC nrcSystem = new SentimentSystemNRC(tweetList);
-			Map<String, ClassificationResult> nrcResult = nrcSystem.test(trainnameNRC);
-
-			SentimentSystemGUMLTLT gumltltSystem = new SentimentSystemGUMLTLT(tweetList);
-			Map<String, ClassificationResult> gumltltResult = gumltltSystem.test(trainnameGUMLTLT);
-
-			SentimentSystemKLUE klueSystem = new SentimentSystemKLUE(tweetList);
-			Map<String, ClassificationResult> klueResult = klueSystem.test(trainnameKLUE);
-
-			SentimentSystemTeamX teamXSystem = new SentimentSystemTeamX(tweetList);
-			Map<String, ClassificationResult> teamxResult = teamXSystem.test(trainnameTeamX);
+			EnsembleRunner runner = new EnsembleRunner(tweetList, this.parallelSystems);
+			List<SentimentSystem> systems = new ArrayList<SentimentSystem>();
+			systems.add(new SentimentSystemNRC(runner.getTweets()));
+			systems.add(new SentimentSystemGUMLTLT(runner.getTweets()));
+			systems.add(new SentimentSystemKLUE(runner.getTweets()));
+			systems.add(new SentimentSystemTeamX(runner.getTweets()));
+			List<ResultStore> results = runner.test(systems, Arrays.asList(trainnameNRC, trainnameGUMLTLT, trainnameKLUE, trainnameTeamX));
+			
+			this.evalAllModels(results);
+	}
+	
+	/**
+	 * Evaluates the ECIR ensemble of NRC, GU-MLT-LT and KLUE and the SemEval ensemble with TeamX from one run of
+	 * every system. The predictions of the SemEval ensemble are printed to the result file last.
+	 */
+	public void testBothEnsembles(String trainnameNRC, String trainnameGUMLTLT, String trainnameKLUE, String trainnameTeamX) throws Exception {
+			EnsembleRunner runner = new EnsembleRunner(tweetList, this.parallelSystems);
+			List<SentimentSystem> systems = new ArrayList<SentimentSystem>();
+			systems.add(new SentimentSystemNRC(runner.getTweets()));
+			systems.add(new SentimentSystemGUMLTLT(runner.getTweets()));
+			systems.add(new SentimentSystemKLUE(runner.getTweets()));
+			systems.add(new SentimentSystemTeamX(runner.getTweets()));
+			List<ResultStore> results = runner.test(systems, Arrays.asList(trainnameNRC, trainnameGUMLTLT, trainnameKLUE, trainnameTeamX));
+			
+			System.out.println("ECIR ensemble (NRC, GU-MLT-LT, KLUE)");
+			this.evalAllModels(results.subList(0, 3));
+			System.out.println("SemEval ensemble (NRC, GU-MLT-LT, KLUE, TeamX)");
+			this.evalAllModels(results);
+	}
+	
+	/**
+	 * Evaluates all systems with a latency budget, a system that does not classify a batch in time is dropped
+	 * for this batch and the remaining systems are averaged, e.g. the ECIR systems if TeamX stalls
+	 * 
+	 * @param budget the latency budget of a batch in milliseconds
+	 * @param batchSize the number of Tweets of a batch
+	 */
+	public void testAllSystemDeadline(String trainnameNRC, String trainnameGUMLTLT, String trainnameKLUE, String trainnameTeamX, long budget, int batchSize) throws Exception {
+			EnsembleRunner runner = new EnsembleRunner(tweetList, true);
+			List<SentimentSystem> systems = new ArrayList<SentimentSystem>();
+			systems.add(new SentimentSystemNRC(runner.getTweets()));
+			systems.add(new SentimentSystemGUMLTLT(runner.getTweets()));
+			systems.add(new SentimentSystemKLUE(runner.getTweets()));
+			systems.add(new SentimentSystemTeamX(runner.getTweets()));
+			DeadlineEnsemble ensemble = new DeadlineEnsemble(systems, Arrays.asList(trainnameNRC, trainnameGUMLTLT, trainnameKLUE, trainnameTeamX), budget, batchSize);
+			
+			this.evalAllModels(ensemble.test());
+	}
+	
+	/**
+	 * Evaluates a combination of the systems from the probability distributions evalAll wrote with a dump directory,
+	 * the Tweets are neither tagged nor classified
+	 * 
+	 * @param directory the directory of the probability dumps
+	 * @param systems the systems and their weights, e.g. "NRC:1,KLUE:0.5", null for the average of NRC, GUMLTLT, KLUE, TeamX
+	 * @throws Exception
+	 */
+	public void testEnsemble(File directory, String systems) throws Exception {
+			Map<String, Double> weightMap = ProbabilityDump.parseWeights(systems != null ? systems : "NRC,GUMLTLT,KLUE,TeamX");
+			List<ResultStore> results = new ArrayList<ResultStore>();
+			double[] weights = new double[weightMap.size()];
+			for (Map.Entry<String, Double> system : weightMap.entrySet()){
+				weights[results.size()] = system.getValue();
+				results.add(ProbabilityDump.read(ProbabilityDump.dumpFile(directory, system.getKey())));
+				System.out.println(system.getKey() + " weight " + system.getValue());
+			}
 			
-			this.evalAllModels(nrcResult, gumltltResult, klueResult, teamxResult);
+			this.evalAllModels(results, weights);
+	}
+	
+	/**
+	 * Evaluates the ensemble as a cascade from KLUE over GU-MLT-LT and NRC to TeamX, a Tweet leaves the cascade
+	 * as soon as the averaged distribution of the systems it passed is confident enough
+	 * 
+	 * @param threshold the class probability a Tweet leaves the cascade with
+	 * @param compare true to compare the cascade with the full average
+	 */
+	public void testCascade(String trainnameNRC, String trainnameGUMLTLT, String trainnameKLUE, String trainnameTeamX, double threshold, boolean compare) throws Exception {
+			List<SentimentSystem> systems = new ArrayList<SentimentSystem>();
+			systems.add(new SentimentSystemKLUE(tweetList));
+			systems.add(new SentimentSystemGUMLTLT(tweetList));
+			systems.add(new SentimentSystemNRC(tweetList));
+			systems.add(new SentimentSystemTeamX(tweetList));
+			EnsembleCascade cascade = new EnsembleCascade(systems, Arrays.asList(trainnameKLUE, trainnameGUMLTLT, trainnameNRC, trainnameTeamX), threshold);
+			cascade.evaluate(new ArrayList<Tweet>(tweetList), compare);
 	}
 	
 	private void loadTweets(String path) throws FileNotFoundException, UnsupportedEncodingException{
@@ -135,7 +369,7 @@ public class SentimentanalysisSemEval {
 		}
     }
 	
-	private void evalModel(Map<String, ClassificationResult> resultMap) throws Exception {
+	private void evalModel(ResultStore results) throws Exception {
 		System.out.println("Starting eval Model");
 		System.out.println("Tweets: " +  tweetList.size());
 		double[][] matrix = new double[3][3];
@@ -144,12 +378,11 @@ public class SentimentanalysisSemEval {
 		classValue.put("neutral", 1);
 		classValue.put("negative", 2);
 		Map<String, Integer> resultMapToPrint = new HashMap<String, Integer>();
-		for (Map.Entry<String, ClassificationResult> tweet : resultMap.entrySet()){
-			String tweetID = tweet.getKey();
-			ClassificationResult senti = tweet.getValue();
+		for (int t = 0; t < results.size(); t++){
+			Tweet tweet = results.getTweet(t);
 			double[] useSentiArray = {0,0,0};
 			for (int i = 0; i < 3; i++){
-				useSentiArray[i] = (senti.getResultDistribution()[i]);
+				useSentiArray[i] = results.getProbability(t, i);
 			}
 			int useSenti = 1;
 			if(useSentiArray[0] > useSentiArray[1] && useSentiArray[0] > useSentiArray[2]){
@@ -158,9 +391,9 @@ public class SentimentanalysisSemEval {
 			if(useSentiArray[2] > useSentiArray[0] && useSentiArray[2] > useSentiArray[1]){
 				useSenti = 2;
 			}
-			resultMapToPrint.put(tweetID, useSenti);
-			if (!tweet.getValue().getTweet().getSentiment().equals("unknwn")){
-				Integer actualSenti = classValue.get(tweet.getValue().getTweet().getSentiment());
+			resultMapToPrint.put(tweet.getTweetID(), useSenti);
+			if (!tweet.getSentiment().equals("unknwn")){
+				Integer actualSenti = classValue.get(tweet.getSentiment());
 				matrix[actualSenti][useSenti]++;
 			}
 		}
@@ -173,7 +406,26 @@ public class SentimentanalysisSemEval {
 		printResultToFile(resultMapToPrint);
 	}
 	
-	private void evalAllModels(Map<String, ClassificationResult> nrcResult, Map<String, ClassificationResult> gumltltResult, Map<String, ClassificationResult> klueResult, Map<String, ClassificationResult> teamxResult) throws Exception {
+	/**
+	 * Averages the distributions of the systems that classified a Tweet, a Tweet without any result is neutral
+	 * 
+	 * @param results the results of every system, the Tweets a system dropped have no result
+	 * @throws Exception
+	 */
+	private void evalAllModels(List<ResultStore> results) throws Exception {
+		double[] weights = new double[results.size()];
+		Arrays.fill(weights, 1);
+		this.evalAllModels(results, weights);
+	}
+	
+	/**
+	 * Averages the weighted distributions of the systems that classified a Tweet, a Tweet without any result is neutral
+	 * 
+	 * @param results the results of every system, the Tweets a system dropped have no result
+	 * @param weights the weight of every system
+	 * @throws Exception
+	 */
+	private void evalAllModels(List<ResultStore> results, double[] weights) throws Exception {
 		System.out.println("Starting print Pred");
 		double[][] matrix = new double[3][3];
 		Map<String, Integer> classValue = new HashMap<String, Integer>();
@@ -181,63 +433,54 @@ public class SentimentanalysisSemEval {
 		classValue.put("neutral", 1);
 		classValue.put("negative", 2);
 		
-//	    Map<Integer, String> classValue2 = new HashMap<Integer, String>();
-//	        classValue2.put(0, "positive");
-//	        classValue2.put(1, "neutral");
-//	        classValue2.put(2, "negative");
 		Map<String, Integer> resultMapToPrint = new HashMap<String, Integer>();
-		if((nrcResult != null && gumltltResult != null && klueResult != null && teamxResult != null)  && (nrcResult.size() == gumltltResult.size()) && (nrcResult.size() == klueResult.size()) && (nrcResult.size() == teamxResult.size())){
-			for (Map.Entry<String, ClassificationResult> tweet : nrcResult.entrySet()){
-				String tweetID = tweet.getKey();
-				ClassificationResult nRCSenti = tweet.getValue();
-				ClassificationResult gUMLTLTSenti = gumltltResult.get(tweet.getKey());
-				ClassificationResult kLUESenti = klueResult.get(tweet.getKey());
-				ClassificationResult teamXSenti = teamxResult.get(tweet.getKey());
-				if(gUMLTLTSenti != null && kLUESenti != null && teamXSenti != null){
-					double[] useSentiArray = {0,0,0};
+		//the results are joined by the ordinals of the Tweets of the first system
+		ResultStore first = results.get(0);
+		List<ResultStore> aligned = new ArrayList<ResultStore>();
+		for (ResultStore result : results){
+			aligned.add(first.hasSameTweets(result) ? result : result.alignTo(first));
+		}
+		int degraded = 0;
+		int unclassified = 0;
+		for (int t = 0; t < first.size(); t++){
+			Tweet tweet = first.getTweet(t);
+			double[] useSentiArray = {0,0,0};
+			int arrived = 0;
+			for (int s = 0; s < aligned.size(); s++){
+				if (aligned.get(s).hasResult(t)){
 					for (int i = 0; i < 3; i++){
-						useSentiArray[i] = (nRCSenti.getResultDistribution()[i] + gUMLTLTSenti.getResultDistribution()[i] + kLUESenti.getResultDistribution()[i] + teamXSenti.getResultDistribution()[i]) / 4;
-					}
-					int useSenti = 1;
-					if(useSentiArray[0] > useSentiArray[1] && useSentiArray[0] > useSentiArray[2]){
-						useSenti = 0;
-					}
-					if(useSentiArray[2] > useSentiArray[0] && useSentiArray[2] > useSentiArray[1]){
-						useSenti = 2;
-					}					
-					resultMapToPrint.put(tweetID, useSenti);
-					if (!tweet.getValue().getTweet().getSentiment().equals("unknwn")){
-						Integer actualSenti = classValue.get(tweet.getValue().getTweet().getSentiment());
-						matrix[actualSenti][useSenti]++;
-//			              if (actualSenti == useSenti){
-//			                    if ((nRCSenti.getResult() == 0 && useSenti == 2) || (nRCSenti.getResult() == 2 && useSenti == 0)){
-//			                        System.out.println("NRC; " + nRCSenti.getResultAsString() + "; " + classValue2.get(useSenti) + "; " + tweet.getValue().getTweet().getRawTweetString()); 
-//			                    }
-//			                    
-//		                      if ((gUMLTLTSenti.getResult() == 0 && useSenti == 2) || (gUMLTLTSenti.getResult() == 2 && useSenti == 0)){
-//		                          System.out.println("GU-MLT-LT; " + gUMLTLTSenti.getResultAsString() + "; " + classValue2.get(useSenti) + "; " + tweet.getValue().getTweet().getRawTweetString()); 
-//		                       }
-//		                      
-//		                      if ((kLUESenti.getResult() == 0 && useSenti == 2) || (kLUESenti.getResult() == 2 && useSenti == 0)){
-//		                          System.out.println("KLUE; " + kLUESenti.getResultAsString() + "; " + classValue2.get(useSenti) + "; " + tweet.getValue().getTweet().getRawTweetString()); 
-//		                       }
-//			                }
+						useSentiArray[i] += weights[s] * aligned.get(s).getProbability(t, i);
 					}
+					arrived++;
 				}
-				else{
-					System.out.println(tweet.getValue().getTweet().getTweetString());
+			}
+			if (arrived < results.size()){
+				degraded++;
+			}
+			int useSenti = 1;
+			if (arrived == 0){
+				unclassified++;
+			}
+			else{
+				//the sums have the same order as the averages
+				if(useSentiArray[0] > useSentiArray[1] && useSentiArray[0] > useSentiArray[2]){
+					useSenti = 0;
+				}
+				if(useSentiArray[2] > useSentiArray[0] && useSentiArray[2] > useSentiArray[1]){
+					useSenti = 2;
 				}
 			}
+			resultMapToPrint.put(tweet.getTweetID(), useSenti);
+			if (!tweet.getSentiment().equals("unknwn")){
+				Integer actualSenti = classValue.get(tweet.getSentiment());
+				matrix[actualSenti][useSenti]++;
+			}
 		}
-		else{
-			System.out.println("resultMaps null or diffrent size");
-		}
-		if (matrix.length != 0){
-			System.out.println(matrix[0][0] +  " | " + matrix[0][1] + " | " + matrix[0][2]);
-			System.out.println(matrix[1][0] +  " | " + matrix[1][1] + " | " + matrix[1][2]);
-			System.out.println(matrix[2][0] +  " | " + matrix[2][1] + " | " + matrix[2][2]);
-			score(matrix);
-		}
+		System.out.println("Tweets without all systems: " + degraded + ", without any system: " + unclassified);
+		System.out.println(matrix[0][0] +  " | " + matrix[0][1] + " | " + matrix[0][2]);
+		System.out.println(matrix[1][0] +  " | " + matrix[1][1] + " | " + matrix[1][2]);
+		System.out.println(matrix[2][0] +  " | " + matrix[2][1] + " | " + matrix[2][2]);
+		score(matrix);
 		printResultToFile(resultMapToPrint);
 	}
 	
@@ -0,0 +1,71 @@
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Artifacts of the Tweets that are shared by the systems of an ensemble, e.g. the preprocessed Tweet string and
+ * the tokens and tags of the ARK Tagger (see TweetStages). Every stage is computed once per Tweet by the first
+ * system that pulls it. The artifacts of a Tweet are released once every system of the ensemble has pulled them,
+ * so they do not stay in memory for the whole run.
+ */
+public class SharedPreprocessing {
+
+	private final int numSystems;
+
+	//artifacts by the IDs of the Tweets, the systems of a parallel ensemble have their own copies of the Tweets
+	private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+	/**
+	 * @param numSystems the number of systems that pull the artifacts of every Tweet
+	 */
+	public SharedPreprocessing(int numSystems){
+		this.numSystems = numSystems;
+	}
+
+	/**
+	 * Gets the artifacts of a Tweet
+	 *
+	 * @param tweet the Tweet
+	 * @return returns the artifacts
+	 */
+	public TweetArtifacts get(Tweet tweet){
+		Entry entry = this.entries.get(tweet.getTweetID());
+		if (entry == null){
+			Entry newEntry = new Entry(new TweetArtifacts(tweet));
+			entry = this.entries.putIfAbsent(tweet.getTweetID(), newEntry);
+			if (entry == null){
+				entry = newEntry;
+			}
+		}
+		return entry.artifacts;
+	}
+
+	/**
+	 * Records that a system has applied the artifacts of a Tweet, they are released after the last system.
+	 * A Tweet a system skips, e.g. in a cascade, keeps its artifacts until the ensemble is done.
+	 *
+	 * @param tweet the Tweet
+	 * @param system the name of the system, its workers have the same name
+	 */
+	public void release(Tweet tweet, String system){
+		Entry entry = this.entries.get(tweet.getTweetID());
+		if (entry == null){
+			return;
+		}
+		entry.systems.add(system);
+		if (entry.systems.size() >= this.numSystems){
+			this.entries.remove(tweet.getTweetID(), entry);
+		}
+	}
+
+	private static class Entry {
+
+		private final TweetArtifacts artifacts;
+		private final Set<String> systems = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+		private Entry(TweetArtifacts artifacts){
+			this.artifacts = artifacts;
+		}
+	}
+}
@@ -0,0 +1,373 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming reader for the sparse arff files of the sentiment systems. The header is parsed once, the rows
+ * are read one by one into a reusable FeatureVector, so no weka Instances are built. The class attribute has
+ * to be the last attribute and all other attributes have to be numeric.
+ */
+public class SparseArffReader {
+
+	private BufferedReader reader;
+	private String[] attributeNames;
+	private String[] classValues;
+	private int classIndex;
+	private int lineNumber = 0;
+
+	/**
+	 * Opens an arff file and parses its header
+	 *
+	 * @param file the arff file
+	 * @throws IOException
+	 */
+	public SparseArffReader(File file) throws IOException{
+		this.reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"), 1 << 16);
+		try{
+			this.readHeader();
+		}
+		catch (IOException e){
+			this.reader.close();
+			throw e;
+		}
+	}
+
+	public String[] getAttributeNames(){
+		return this.attributeNames;
+	}
+
+	public String[] getClassValues(){
+		return this.classValues;
+	}
+
+	/**
+	 * Reads the next row, the class attribute is not added to the vector
+	 *
+	 * @param vector the vector for the features of the row, it gets cleared
+	 * @return returns the index of the class value or -1 if there are no more rows
+	 * @throws IOException
+	 */
+	public int readRow(FeatureVector vector) throws IOException{
+		String line = this.nextLine();
+		if (line == null){
+			return -1;
+		}
+		vector.clear();
+		if (line.charAt(0) == '{'){
+			return this.parseSparseRow(line, vector);
+		}
+		return this.parseDenseRow(line, vector);
+	}
+
+	public void close() throws IOException{
+		this.reader.close();
+	}
+
+	/**
+	 * Converts an arff file to a matrix file without loading the whole arff file
+	 *
+	 * @param arffFile the arff file
+	 * @param matrixFile the matrix file
+	 * @throws IOException
+	 */
+	public static void convert(File arffFile, File matrixFile) throws IOException{
+		SparseArffReader reader = new SparseArffReader(arffFile);
+		try{
+			FeatureMatrix.Writer writer = new FeatureMatrix.Writer(matrixFile, reader.getAttributeNames(), reader.getClassValues());
+			FeatureVector vector = new FeatureVector();
+			int label;
+			while ((label = reader.readRow(vector)) != -1){
+				writer.addRow(vector, label);
+			}
+			writer.close();
+		}
+		finally{
+			reader.close();
+		}
+	}
+
+	/**
+	 * Parses the attributes of the header up to the @data line
+	 *
+	 * @throws IOException
+	 */
+	private void readHeader() throws IOException{
+		List<String> names = new ArrayList<String>();
+		List<String> values = null;
+		String line;
+		while ((line = this.nextLine()) != null){
+			String lowerLine = line.toLowerCase();
+			if (lowerLine.startsWith("@data")){
+				break;
+			}
+			if (!lowerLine.startsWith("@attribute")){
+				continue;
+			}
+			int[] position = {"@attribute".length()};
+			names.add(this.readName(line, position));
+			String type = line.substring(position[0]).trim();
+			if (type.startsWith("{")){
+				values = this.parseNominalValues(type);
+			}
+			else if (!type.equalsIgnoreCase("numeric") && !type.equalsIgnoreCase("real") && !type.equalsIgnoreCase("integer")){
+				throw new IOException("Unsupported attribute type in line " + this.lineNumber + ": " + type);
+			}
+			else{
+				values = null;
+			}
+		}
+		if (line == null){
+			throw new IOException("Missing @data section");
+		}
+		if (values == null){
+			throw new IOException("The last attribute has to be the nominal class attribute");
+		}
+		this.attributeNames = names.toArray(new String[names.size()]);
+		this.classValues = values.toArray(new String[values.size()]);
+		this.classIndex = this.attributeNames.length - 1;
+	}
+
+	/**
+	 * Parses a row in the sparse format {index value, index value, ...}
+	 *
+	 * @param line the row
+	 * @param vector the vector for the features
+	 * @return returns the index of the class value
+	 * @throws IOException
+	 */
+	private int parseSparseRow(String line, FeatureVector vector) throws IOException{
+		//the first class value is 0 and is left out in sparse rows
+		int label = 0;
+		int length = line.length();
+		int pos = 1;
+		while (true){
+			while (pos < length && line.charAt(pos) == ' ') pos++;
+			if (pos >= length){
+				throw new IOException("Unterminated row in line " + this.lineNumber);
+			}
+			if (line.charAt(pos) == '}'){
+				return label;
+			}
+			int index = 0;
+			int start = pos;
+			char c;
+			while (pos < length && (c = line.charAt(pos)) >= '0' && c <= '9'){
+				index = index * 10 + (c - '0');
+				pos++;
+			}
+			if (pos == start){
+				throw new IOException("Invalid index in line " + this.lineNumber);
+			}
+			while (pos < length && line.charAt(pos) == ' ') pos++;
+			start = pos;
+			pos = this.skipValue(line, pos);
+			if (index == this.classIndex){
+				label = this.parseClassValue(line.substring(start, pos).trim());
+			}
+			else{
+				vector.add(index, this.parseValue(line, start, pos));
+			}
+			if (pos < length && line.charAt(pos) == ','){
+				pos++;
+			}
+		}
+	}
+
+	/**
+	 * Parses a row in the dense format value, value, ...
+	 *
+	 * @param line the row
+	 * @param vector the vector for the features
+	 * @return returns the index of the class value
+	 * @throws IOException
+	 */
+	private int parseDenseRow(String line, FeatureVector vector) throws IOException{
+		int length = line.length();
+		int pos = 0;
+		for (int index = 0; index < this.classIndex; index++){
+			while (pos < length && line.charAt(pos) == ' ') pos++;
+			int start = pos;
+			pos = this.skipValue(line, pos);
+			vector.add(index, this.parseValue(line, start, pos));
+			if (pos >= length || line.charAt(pos) != ','){
+				throw new IOException("Missing values in line " + this.lineNumber);
+			}
+			pos++;
+		}
+		return this.parseClassValue(line.substring(pos).trim());
+	}
+
+	/**
+	 * Gets the end of a value, quoted values may contain commas
+	 *
+	 * @param line the row
+	 * @param pos the start of the value
+	 * @return returns the position after the value
+	 */
+	private int skipValue(String line, int pos){
+		int length = line.length();
+		if (pos < length && (line.charAt(pos) == '\'' || line.charAt(pos) == '"')){
+			char quote = line.charAt(pos++);
+			while (pos < length && line.charAt(pos) != quote){
+				if (line.charAt(pos) == '\\') pos++;
+				pos++;
+			}
+			return Math.min(pos + 1, length);
+		}
+		char c;
+		while (pos < length && (c = line.charAt(pos)) != ',' && c != '}') pos++;
+		return pos;
+	}
+
+	/**
+	 * Parses a numeric value, the common values 0 and 1 are not parsed as strings
+	 *
+	 * @param line the row
+	 * @param start the start of the value
+	 * @param end the end of the value
+	 * @return returns the value
+	 * @throws IOException
+	 */
+	private double parseValue(String line, int start, int end) throws IOException{
+		while (end > start && line.charAt(end - 1) == ' ') end--;
+		if (end - start == 1){
+			char c = line.charAt(start);
+			if (c == '1') return 1.0;
+			if (c == '0') return 0.0;
+			if (c == '?') throw new IOException("Missing values are not supported, line " + this.lineNumber);
+		}
+		try{
+			return Double.parseDouble(line.substring(start, end));
+		}
+		catch (NumberFormatException e){
+			throw new IOException("Invalid value in line " + this.lineNumber + ": " + line.substring(start, end));
+		}
+	}
+
+	/**
+	 * Gets the index of a class value
+	 *
+	 * @param value the class value, it may be quoted
+	 * @return returns the index of the class value
+	 * @throws IOException
+	 */
+	private int parseClassValue(String value) throws IOException{
+		if (value.length() > 1 && (value.charAt(0) == '\'' || value.charAt(0) == '"')){
+			value = this.unquote(value, 1, value.length() - 1);
+		}
+		for (int i = 0; i < this.classValues.length; i++){
+			if (this.classValues[i].equals(value)){
+				return i;
+			}
+		}
+		throw new IOException("Unknown class value in line " + this.lineNumber + ": " + value);
+	}
+
+	/**
+	 * Reads an attribute name, which may be quoted
+	 *
+	 * @param line the attribute line
+	 * @param position the position to start at, it is set to the position after the name
+	 * @return returns the name
+	 * @throws IOException
+	 */
+	private String readName(String line, int[] position) throws IOException{
+		int pos = position[0];
+		int length = line.length();
+		while (pos < length && Character.isWhitespace(line.charAt(pos))) pos++;
+		if (pos >= length){
+			throw new IOException("Missing attribute name in line " + this.lineNumber);
+		}
+		char first = line.charAt(pos);
+		if (first == '\'' || first == '"'){
+			int end = pos + 1;
+			while (end < length && line.charAt(end) != first){
+				if (line.charAt(end) == '\\') end++;
+				end++;
+			}
+			if (end >= length){
+				throw new IOException("Unterminated attribute name in line " + this.lineNumber);
+			}
+			position[0] = end + 1;
+			return this.unquote(line, pos + 1, end);
+		}
+		int end = pos;
+		while (end < length && !Character.isWhitespace(line.charAt(end))) end++;
+		position[0] = end;
+		return line.substring(pos, end);
+	}
+
+	/**
+	 * Parses the values of a nominal attribute {value, value, ...}
+	 *
+	 * @param type the type of the attribute
+	 * @return returns the values
+	 * @throws IOException
+	 */
+	private List<String> parseNominalValues(String type) throws IOException{
+		List<String> values = new ArrayList<String>();
+		int end = type.lastIndexOf('}');
+		if (end == -1){
+			throw new IOException("Unterminated nominal values in line " + this.lineNumber);
+		}
+		int pos = 1;
+		while (pos < end){
+			int next = this.skipValue(type, pos);
+			String value = type.substring(pos, Math.min(next, end)).trim();
+			if (value.length() > 1 && (value.charAt(0) == '\'' || value.charAt(0) == '"')){
+				value = this.unquote(value, 1, value.length() - 1);
+			}
+			if (!value.isEmpty()){
+				values.add(value);
+			}
+			pos = next + 1;
+		}
+		return values;
+	}
+
+	/**
+	 * Removes the backslash escapes of weka from a quoted string
+	 *
+	 * @param s the string
+	 * @param start the position after the opening quote
+	 * @param end the position of the closing quote
+	 * @return returns the unquoted string
+	 */
+	private String unquote(String s, int start, int end){
+		StringBuilder builder = new StringBuilder(end - start);
+		for (int i = start; i < end; i++){
+			char c = s.charAt(i);
+			if (c == '\\' && i + 1 < end){
+				c = s.charAt(++i);
+				if (c == 'n') c = '\n';
+				else if (c == 'r') c = '\r';
+				else if (c == 't') c = '\t';
+			}
+			builder.append(c);
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Reads the next line that is not empty and no comment
+	 *
+	 * @return returns the line without leading whitespace or null at the end of the file
+	 * @throws IOException
+	 */
+	private String nextLine() throws IOException{
+		String line;
+		while ((line = this.reader.readLine()) != null){
+			this.lineNumber++;
+			int pos = 0;
+			while (pos < line.length() && Character.isWhitespace(line.charAt(pos))) pos++;
+			if (pos < line.length() && line.charAt(pos) != '%'){
+				return pos == 0 ? line : line.substring(pos);
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,70 @@
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import cmu.arktweetnlp.Tagger;
+
+/**
+ * Node of the stage graph of the artifacts of a Tweet, e.g. the tagged tokens or the n-grams (see TweetStages).
+ * A stage declares the stages it reads, its value is computed at most once per Tweet (see TweetArtifacts) and
+ * must not be changed by the systems.
+ *
+ * @param <T> the type of the artifact
+ */
+public abstract class Stage<T> {
+
+	private final String name;
+	private final List<Stage<?>> inputs;
+
+	/**
+	 * @param name the name of the artifact
+	 * @param inputs the stages the artifact is computed from
+	 */
+	protected Stage(String name, Stage<?>... inputs){
+		this.name = name;
+		this.inputs = Collections.unmodifiableList(Arrays.asList(inputs));
+	}
+
+	public String getName(){
+		return this.name;
+	}
+
+	public List<Stage<?>> getInputs(){
+		return this.inputs;
+	}
+
+	/**
+	 * Gets whether the stage uses the ARK Tagger. A tagger is not thread-safe, so these stages are only computed
+	 * by the thread that owns the tagger.
+	 *
+	 * @return returns true if the stage uses the tagger
+	 */
+	public boolean isTagging(){
+		return false;
+	}
+
+	/**
+	 * Computes the artifact, the inputs are read with artifacts.get
+	 *
+	 * @param artifacts the artifacts of the Tweet
+	 * @param tagger the ARK Tagger of the calling thread
+	 * @return returns the artifact
+	 * @throws IOException
+	 */
+	protected abstract T compute(TweetArtifacts artifacts, Tagger tagger) throws IOException;
+
+	/**
+	 * Stores the artifact in the fields of the Tweet the feature methods of the systems read
+	 *
+	 * @param value the artifact
+	 * @param tweet the Tweet of the system
+	 */
+	protected void apply(T value, Tweet tweet){
+	}
+
+	@Override
+	public String toString(){
+		return this.name;
+	}
+}
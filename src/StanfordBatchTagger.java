@@ -0,0 +1,174 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import cmu.arktweetnlp.Tagger.TaggedToken;
+import edu.stanford.nlp.ling.HasWord;
+import edu.stanford.nlp.ling.TaggedWord;
+import edu.stanford.nlp.process.DocumentPreprocessor;
+import edu.stanford.nlp.tagger.maxent.MaxentTagger;
+
+/**
+ * The Stanford PoS-Tagger of the JVM. The model is loaded once and tagging a sentence does not change the tagger, so
+ * all threads share it. A batch of Tweets is tokenized up front and its sentences are tagged by several threads,
+ * instead of tagging every Tweet on its own while its features are created.
+ */
+public final class StanfordBatchTagger {
+
+	//sentences a thread takes at once
+	private static final int CHUNK_SIZE = 64;
+
+	private static final Object LOCK = new Object();
+
+	private static MaxentTagger tagger = null;
+
+	//number of threads to tag a batch, 0 tags every Tweet on its own
+	private static int threads = 0;
+
+	private StanfordBatchTagger(){
+	}
+
+	/**
+	 * Sets the number of threads to tag the Tweets of TeamX in one batch before their features are created
+	 *
+	 * @param numThreads the number of threads, 0 tags every Tweet on its own
+	 */
+	public static void setThreads(int numThreads){
+		threads = numThreads;
+	}
+
+	public static int getThreads(){
+		return threads;
+	}
+
+	/**
+	 * Gets the tagger, it is loaded by the first call
+	 *
+	 * @return returns the tagger
+	 */
+	public static MaxentTagger getTagger(){
+		synchronized (LOCK){
+			if (tagger == null){
+				long startTime = System.currentTimeMillis();
+				tagger = new MaxentTagger(SentimentSystemTeamX.STANFORD_MODEL_FILE);
+				System.out.println("Loaded Stanford tagger model in " + (System.currentTimeMillis() - startTime) + " ms");
+			}
+			return tagger;
+		}
+	}
+
+	/**
+	 * Tokenizes and tags a string on its own, one sentence after another
+	 *
+	 * @param tagger the Stanford tagger
+	 * @param text the string
+	 * @return returns the tokens and tags
+	 * @throws IOException
+	 */
+	public static List<TaggedToken> tag(MaxentTagger tagger, String text) throws IOException{
+		List<TaggedToken> tokens = new ArrayList<TaggedToken>();
+		for (List<HasWord> sentence : tokenize(text)){
+			addTagged(tokens, tagger.tagSentence(sentence));
+		}
+		return tokens;
+	}
+
+	/**
+	 * Tokenizes the strings and tags their sentences with the shared tagger in several threads
+	 *
+	 * @param texts the strings
+	 * @param numThreads the number of threads
+	 * @return returns the tokens and tags of every string in the order of the strings
+	 * @throws IOException
+	 */
+	public static List<List<TaggedToken>> tagAll(List<String> texts, int numThreads) throws IOException{
+		final MaxentTagger tagger = getTagger();
+
+		//tokenize up front, the sentences of all strings are tagged as one list
+		final List<List<HasWord>> sentences = new ArrayList<List<HasWord>>();
+		int[] firstSentence = new int[texts.size() + 1];
+		for (int i = 0; i < texts.size(); i++){
+			firstSentence[i] = sentences.size();
+			sentences.addAll(tokenize(texts.get(i)));
+		}
+		firstSentence[texts.size()] = sentences.size();
+
+		final List<List<TaggedWord>> tagged = new ArrayList<List<TaggedWord>>(sentences.size());
+		for (int i = 0; i < sentences.size(); i++){
+			tagged.add(null);
+		}
+		final AtomicInteger next = new AtomicInteger();
+		int numWorkers = Math.max(1, Math.min(numThreads, (sentences.size() + CHUNK_SIZE - 1) / CHUNK_SIZE));
+		ExecutorService executor = Executors.newFixedThreadPool(numWorkers);
+		try{
+			List<Future<Void>> futures = new ArrayList<Future<Void>>();
+			for (int w = 0; w < numWorkers; w++){
+				futures.add(executor.submit(new Callable<Void>(){
+					public Void call(){
+						int start;
+						while ((start = next.getAndAdd(CHUNK_SIZE)) < sentences.size()){
+							for (int i = start; i < Math.min(start + CHUNK_SIZE, sentences.size()); i++){
+								tagged.set(i, tagger.tagSentence(sentences.get(i)));
+							}
+						}
+						return null;
+					}
+				}));
+			}
+			for (Future<Void> future : futures){
+				future.get();
+			}
+		}
+		catch (InterruptedException e){
+			Thread.currentThread().interrupt();
+			throw new IOException("Tagging the Tweets was interrupted", e);
+		}
+		catch (ExecutionException e){
+			throw new RuntimeException("Tagging the Tweets failed", e.getCause());
+		}
+		finally{
+			executor.shutdown();
+		}
+
+		List<List<TaggedToken>> results = new ArrayList<List<TaggedToken>>(texts.size());
+		for (int i = 0; i < texts.size(); i++){
+			List<TaggedToken> tokens = new ArrayList<TaggedToken>();
+			for (int s = firstSentence[i]; s < firstSentence[i + 1]; s++){
+				addTagged(tokens, tagged.get(s));
+			}
+			results.add(tokens);
+		}
+		return results;
+	}
+
+	private static List<List<HasWord>> tokenize(String text) throws IOException{
+		List<List<HasWord>> sentences = new ArrayList<List<HasWord>>();
+		Reader reader = new StringReader(text);
+		DocumentPreprocessor dp = new DocumentPreprocessor(reader);
+		dp.setElementDelimiter("");
+		Iterator<List<HasWord>> it = dp.iterator();
+		while (it.hasNext()){
+			sentences.add(it.next());
+		}
+		reader.close();
+		return sentences;
+	}
+
+	private static void addTagged(List<TaggedToken> tokens, List<TaggedWord> words){
+		for (TaggedWord word : words){
+			TaggedToken token = new TaggedToken();
+			token.token = word.word();
+			token.tag = word.tag();
+			tokens.add(token);
+		}
+	}
+}
@@ -0,0 +1,116 @@
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+
+import cmu.arktweetnlp.Tagger.TaggedToken;
+import edu.stanford.nlp.tagger.maxent.MaxentTagger;
+
+/**
+ * Compares the throughput of the Stanford tagging of TeamX, every Tweet on its own and the batch of StanfordBatchTagger,
+ * and checks that both give the same tokens and tags. Both paths are warmed up before they are timed.
+ * Usage: StanfordTaggerBenchmark [threads] [tweet files], without files resources/tweets/Testdata-SemEval2015.txt is read.
+ */
+public class StanfordTaggerBenchmark {
+
+	//Tweets that are tagged by both paths before the timing
+	private static final int WARM_UP_TWEETS = 500;
+
+	/**
+	 * Main function
+	 * @param args Command-Line Arguments
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException{
+		int numThreads = Runtime.getRuntime().availableProcessors();
+		List<File> files = new ArrayList<File>();
+		for (String arg : args){
+			if (arg.matches("\\d+")){
+				numThreads = Integer.parseInt(arg);
+			}
+			else{
+				files.add(new File(arg));
+			}
+		}
+		if (files.isEmpty()){
+			files.add(new File("resources/tweets/Testdata-SemEval2015.txt"));
+		}
+		List<String> texts = new ArrayList<String>();
+		for (File file : files){
+			texts.addAll(loadTweetStrings(file));
+		}
+		System.out.println("Tweets: " + texts.size());
+		MaxentTagger tagger = StanfordBatchTagger.getTagger();
+
+		//untimed warm-up of both paths, so the JIT and the first use of the tagger are not charged to the first path
+		List<String> warmUp = texts.subList(0, Math.min(texts.size(), WARM_UP_TWEETS));
+		for (String text : warmUp){
+			StanfordBatchTagger.tag(tagger, text);
+		}
+		StanfordBatchTagger.tagAll(warmUp, numThreads);
+
+		long start = System.nanoTime();
+		List<List<TaggedToken>> single = new ArrayList<List<TaggedToken>>(texts.size());
+		for (String text : texts){
+			single.add(StanfordBatchTagger.tag(tagger, text));
+		}
+		long singleTime = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		List<List<TaggedToken>> batch = StanfordBatchTagger.tagAll(texts, numThreads);
+		long batchTime = System.nanoTime() - start;
+
+		System.out.println("every Tweet on its own: " + (singleTime / 1000000) + " ms, " + String.format("%.1f", texts.size() * 1e9 / singleTime) + " Tweets/s");
+		System.out.println("batch with " + numThreads + " threads: " + (batchTime / 1000000) + " ms, " + String.format("%.1f", texts.size() * 1e9 / batchTime) + " Tweets/s, speedup: " + String.format("%.2f", (double) singleTime / batchTime));
+		System.out.println(check(single, batch) ? "tags are identical" : "TAGS DIFFER");
+	}
+
+	/**
+	 * Reads the Tweets of a file in the format of resources/tweets and preprocesses them like the Tweet string of the systems
+	 *
+	 * @param file the tweet file
+	 * @return returns the preprocessed Tweets
+	 * @throws IOException
+	 */
+	private static List<String> loadTweetStrings(File file) throws IOException{
+		List<String> texts = new ArrayList<String>();
+		Scanner scanner;
+		try{
+			scanner = new Scanner(file);
+		}
+		catch (FileNotFoundException e){
+			System.out.println("Missing tweet file: " + file);
+			return texts;
+		}
+		while (scanner.hasNextLine()){
+			String[] line = scanner.nextLine().split("\t");
+			if (line.length == 4){
+				Tweet tweet = new Tweet(line[3], line[2], line[1]);
+				texts.add(new TweetArtifacts(tweet).get(TweetStages.TWEET_STRING, null));
+			}
+		}
+		scanner.close();
+		return texts;
+	}
+
+	private static boolean check(List<List<TaggedToken>> single, List<List<TaggedToken>> batch){
+		if (single.size() != batch.size()){
+			return false;
+		}
+		for (int i = 0; i < single.size(); i++){
+			if (single.get(i).size() != batch.get(i).size()){
+				return false;
+			}
+			for (int t = 0; t < single.get(i).size(); t++){
+				TaggedToken a = single.get(i).get(t);
+				TaggedToken b = batch.get(i).get(t);
+				if (!a.token.equals(b.token) || !a.tag.equals(b.tag)){
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+}
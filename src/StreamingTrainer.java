@@ -0,0 +1,347 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Out-of-core trainer for training features that do not fit into the heap. The rows are streamed from the
+ * disk-resident .csr or .arff file in several passes and the one-vs-rest logistic regressions of all classes
+ * are trained with averaged stochastic gradient descent (ASGD, Bottou 2010) on the same objective as LibLINEAR.
+ * Only the weights and a small shuffle buffer are kept in memory, so the memory is bounded by the model size.
+ */
+public class StreamingTrainer {
+
+	//initial learning rate and the number of rows of the shuffle buffer
+	private static final double ETA0 = 0.1;
+	private static final int BUFFER_SIZE = 4096;
+
+	//the divisors are folded into the weights before they overflow
+	private static final double MAX_DIVISOR = 1e5;
+
+	private final File source;
+	private final boolean matrix;
+	private final String[] attributeNames;
+	private final String[] classValues;
+	private final int numRows;
+	private final int numAttributes;
+	private final int nrWeights;
+	private final double lambda;
+	private final double bias;
+
+	//weights w = wVec / wDivisor and averaged weights a = (aVec + wFraction * wVec) / aDivisor of every class
+	private final double[][] wVec;
+	private final double[][] aVec;
+	private final double[] wDivisor;
+	private final double[] aDivisor;
+	private final double[] wFraction;
+	private final double[] wBias;
+	private final double[] aBias;
+
+	//number of trained rows, the averaging starts after the first epoch
+	private long t = 0;
+	private final long averageStart;
+
+	/**
+	 * Creates a trainer for a matrix or arff file, the header is read and the rows are counted.
+	 * Binary problems only need one weight vector like in LibLINEAR.
+	 *
+	 * @param source the .csr or .arff file of the training features
+	 * @param cost the cost parameter C of LibLINEAR
+	 * @param bias the value of the bias feature
+	 * @throws IOException
+	 */
+	public StreamingTrainer(File source, double cost, double bias) throws IOException{
+		this.source = source;
+		this.matrix = source.getName().endsWith(".csr");
+		if (this.matrix){
+			FeatureMatrix featureMatrix = FeatureMatrix.open(source);
+			this.attributeNames = featureMatrix.getAttributeNames();
+			this.classValues = featureMatrix.getClassValues();
+			this.numRows = featureMatrix.numRows();
+		}
+		else{
+			//count the rows in a first pass, the regularization depends on it
+			SparseArffReader reader = new SparseArffReader(source);
+			try{
+				this.attributeNames = reader.getAttributeNames();
+				this.classValues = reader.getClassValues();
+				FeatureVector vector = new FeatureVector();
+				int rows = 0;
+				while (reader.readRow(vector) != -1){
+					rows++;
+				}
+				this.numRows = rows;
+			}
+			finally{
+				reader.close();
+			}
+		}
+		this.numAttributes = this.attributeNames.length;
+		this.nrWeights = this.classValues.length == 2 ? 1 : this.classValues.length;
+		//LibLINEAR minimizes 0.5 |w|^2 + C * sum of the losses, per row this is lambda / 2 |w|^2 + loss
+		this.lambda = 1.0 / (cost * Math.max(this.numRows, 1));
+		this.bias = bias;
+		this.averageStart = this.numRows;
+		this.wVec = new double[this.nrWeights][this.numAttributes];
+		this.aVec = new double[this.nrWeights][this.numAttributes];
+		this.wDivisor = new double[this.nrWeights];
+		this.aDivisor = new double[this.nrWeights];
+		this.wFraction = new double[this.nrWeights];
+		this.wBias = new double[this.nrWeights];
+		this.aBias = new double[this.nrWeights];
+		for (int j = 0; j < this.nrWeights; j++){
+			this.wDivisor[j] = 1;
+			this.aDivisor[j] = 1;
+		}
+	}
+
+	public String[] getAttributeNames(){
+		return this.attributeNames;
+	}
+
+	public String[] getClassValues(){
+		return this.classValues;
+	}
+
+	/**
+	 * Starts the training from the weights of a model that was trained on the first attributes, e.g. before new rows
+	 * and attributes were appended to the trained features. The new attributes start at zero. The training continues
+	 * after the first epoch, so the learning rate starts small and the weights are averaged from the first row.
+	 *
+	 * @param model the model, it needs a weight vector for every class value
+	 */
+	public void setInitialWeights(LinearModel model){
+		if (model.getNrWeights() != this.nrWeights || model.getNrFeature() > this.numAttributes){
+			throw new IllegalArgumentException("The model does not fit the training features");
+		}
+		//the class attribute of the model is the first new attribute, it has no weight
+		int numFeatures = model.getNrFeature() - 1;
+		for (int k = 0; k < this.nrWeights; k++){
+			//the weight vector of a binary model belongs to its first label, the one of this trainer to class 0
+			int j = this.nrWeights == 1 ? 0 : model.getLabel(k);
+			double sign = this.nrWeights == 1 && model.getLabel(0) != 0 ? -1 : 1;
+			for (int i = 0; i < numFeatures; i++){
+				this.wVec[j][i] = sign * model.getWeight(i, k);
+			}
+			this.wBias[j] = sign * model.getBiasWeight(k);
+			this.aBias[j] = this.wBias[j];
+			this.wFraction[j] = 1;
+		}
+		this.t = this.averageStart;
+	}
+
+	/**
+	 * Trains the model, the file is read once per epoch
+	 *
+	 * @param epochs the number of passes over the file
+	 * @return returns the model of the averaged weights
+	 * @throws IOException
+	 */
+	public LinearModel train(int epochs) throws IOException{
+		Random random = new Random(1);
+		for (int epoch = 0; epoch < epochs; epoch++){
+			if (this.matrix){
+				this.trainEpoch(FeatureMatrix.open(this.source), random);
+			}
+			else{
+				SparseArffReader reader = new SparseArffReader(this.source);
+				try{
+					this.trainEpoch(reader, random);
+				}
+				finally{
+					reader.close();
+				}
+			}
+			System.out.println("epoch " + (epoch + 1) + " of " + epochs + " done, " + this.numRows + " rows");
+		}
+		return this.getModel();
+	}
+
+	/**
+	 * Trains one pass over the rows of a matrix file
+	 *
+	 * @param matrix the training matrix
+	 * @param random the random generator of the shuffle buffer
+	 */
+	private void trainEpoch(FeatureMatrix matrix, Random random){
+		ShuffleBuffer buffer = new ShuffleBuffer(random);
+		for (int row = 0; row < matrix.numRows(); row++){
+			matrix.getRow(row, buffer.next());
+			buffer.put(matrix.getLabel(row));
+		}
+		buffer.drain();
+	}
+
+	/**
+	 * Trains one pass over the rows of an arff file
+	 *
+	 * @param reader the reader of the arff file
+	 * @param random the random generator of the shuffle buffer
+	 * @throws IOException
+	 */
+	private void trainEpoch(SparseArffReader reader, Random random) throws IOException{
+		ShuffleBuffer buffer = new ShuffleBuffer(random);
+		int label;
+		while ((label = reader.readRow(buffer.next())) != -1){
+			buffer.put(label);
+		}
+		buffer.drain();
+	}
+
+	/**
+	 * Updates the weights of all classes with one row
+	 *
+	 * @param vector the features of the row
+	 * @param label the index of the class value
+	 */
+	private void trainOne(FeatureVector vector, int label){
+		double eta = ETA0 / Math.pow(1 + this.lambda * ETA0 * this.t, 0.75);
+		double mu = this.t < this.averageStart ? 1 : 1.0 / (this.t - this.averageStart + 1);
+		for (int j = 0; j < this.nrWeights; j++){
+			if (this.wDivisor[j] > MAX_DIVISOR || this.aDivisor[j] > MAX_DIVISOR){
+				this.renormalize(j);
+			}
+			double[] w = this.wVec[j];
+			double[] a = this.aVec[j];
+			double y = label == j ? 1 : -1;
+			double s = 0;
+			for (int i = 0; i < vector.size(); i++){
+				s += w[vector.getIndex(i)] * vector.getValue(i);
+			}
+			s = s / this.wDivisor[j] + this.wBias[j] * this.bias;
+
+			//the L2 regularization only scales the divisor, the loss gradient only touches the features of the row
+			this.wDivisor[j] /= 1 - eta * this.lambda;
+			double d = y / (1 + Math.exp(y * s));
+			double etd = eta * d * this.wDivisor[j];
+			if (etd != 0){
+				for (int i = 0; i < vector.size(); i++){
+					w[vector.getIndex(i)] += etd * vector.getValue(i);
+				}
+			}
+			if (mu >= 1){
+				//before the averaging starts the averaged weights are the weights, a is only cleared after a renormalization
+				if (this.wFraction[j] != 1){
+					Arrays.fill(a, 0);
+				}
+				this.aDivisor[j] = this.wDivisor[j];
+				this.wFraction[j] = 1;
+			}
+			else{
+				if (etd != 0){
+					for (int i = 0; i < vector.size(); i++){
+						a[vector.getIndex(i)] -= this.wFraction[j] * etd * vector.getValue(i);
+					}
+				}
+				this.aDivisor[j] /= 1 - mu;
+				this.wFraction[j] += mu * this.aDivisor[j] / this.wDivisor[j];
+			}
+			//the bias is regularized like the other features, LibLINEAR adds it as a feature
+			this.wBias[j] = this.wBias[j] * (1 - eta * this.lambda) + eta * d * this.bias;
+			this.aBias[j] += mu * (this.wBias[j] - this.aBias[j]);
+		}
+		this.t++;
+	}
+
+	/**
+	 * Folds the divisors into the weight vectors of a class
+	 *
+	 * @param j the index of the weight vector
+	 */
+	private void renormalize(int j){
+		double[] w = this.wVec[j];
+		double[] a = this.aVec[j];
+		for (int i = 0; i < this.numAttributes; i++){
+			a[i] = (a[i] + this.wFraction[j] * w[i]) / this.aDivisor[j];
+			w[i] = w[i] / this.wDivisor[j];
+		}
+		this.wDivisor[j] = 1;
+		this.aDivisor[j] = 1;
+		this.wFraction[j] = 0;
+	}
+
+	/**
+	 * Builds the model of the averaged weights
+	 *
+	 * @return returns the model
+	 */
+	private LinearModel getModel(){
+		int numClassValues = this.classValues.length;
+		double[] weights = new double[(this.numAttributes + 1) * this.nrWeights];
+		for (int j = 0; j < this.nrWeights; j++){
+			this.renormalize(j);
+			for (int i = 0; i < this.numAttributes; i++){
+				weights[i * this.nrWeights + j] = this.aVec[j][i];
+			}
+			weights[this.numAttributes * this.nrWeights + j] = this.aBias[j];
+		}
+		int[] labels = new int[numClassValues];
+		for (int i = 0; i < numClassValues; i++){
+			labels[i] = i;
+		}
+		return LinearModel.fromWeights(labels, this.numAttributes, this.bias, numClassValues, weights);
+	}
+
+	/**
+	 * Fixed-size buffer that trains the rows in a random order, so the rows do not have to be shuffled on disk
+	 */
+	private class ShuffleBuffer {
+
+		private final Random random;
+		private final FeatureVector[] vectors = new FeatureVector[BUFFER_SIZE];
+		private final int[] labels = new int[BUFFER_SIZE];
+		private int size = 0;
+
+		//vector for the next row, it is swapped with the vector of a trained row
+		private FeatureVector spare = new FeatureVector();
+
+		private ShuffleBuffer(Random random){
+			this.random = random;
+		}
+
+		/**
+		 * Gets a cleared vector for the next row
+		 *
+		 * @return returns the vector
+		 */
+		private FeatureVector next(){
+			this.spare.clear();
+			return this.spare;
+		}
+
+		/**
+		 * Adds the row that was read into the vector of next, if the buffer is full a random row is trained and replaced
+		 *
+		 * @param label the index of the class value
+		 */
+		private void put(int label){
+			int slot = this.size;
+			if (this.size < BUFFER_SIZE){
+				this.size++;
+			}
+			else{
+				slot = this.random.nextInt(BUFFER_SIZE);
+				trainOne(this.vectors[slot], this.labels[slot]);
+			}
+			FeatureVector vector = this.vectors[slot];
+			this.vectors[slot] = this.spare;
+			this.labels[slot] = label;
+			this.spare = vector == null ? new FeatureVector() : vector;
+		}
+
+		/**
+		 * Trains the remaining rows in a random order
+		 */
+		private void drain(){
+			while (this.size > 0){
+				int pos = this.random.nextInt(this.size);
+				trainOne(this.vectors[pos], this.labels[pos]);
+				this.size--;
+				FeatureVector vector = this.vectors[pos];
+				this.vectors[pos] = this.vectors[this.size];
+				this.labels[pos] = this.labels[this.size];
+				this.vectors[this.size] = vector;
+			}
+		}
+	}
+}
@@ -0,0 +1,221 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import cmu.arktweetnlp.Tagger.TaggedToken;
+
+/**
+ * Persistent cache of tagged Tweets, so runs on the same Tweets do not tag them again. The tokens and tags are stored
+ * by a hash of the string that was tagged, the file belongs to the tagger model it was created with and is discarded
+ * when the length or the modification time of the model file change. New entries are appended by save.
+ */
+public class TaggedCache {
+
+	private static final int MAGIC = 0x57455443;
+	private static final int VERSION = 1;
+
+	//the caches of the ARK Tagger and the Stanford Tagger, null if the Tweets are not cached
+	private static TaggedCache arkCache = null;
+	private static TaggedCache stanfordCache = null;
+
+	private final File file;
+	private final long modelLength;
+	private final long modelModified;
+	private final ConcurrentMap<Long, String[]> entries = new ConcurrentHashMap<Long, String[]>();
+	private final ConcurrentMap<Long, String[]> added = new ConcurrentHashMap<Long, String[]>();
+	//false if the file has to be rewritten, e.g. if it belongs to another model
+	private boolean appendable = false;
+
+	/**
+	 * Loads the entries of the cache file if it belongs to the model
+	 *
+	 * @param file the cache file
+	 * @param modelFile the model file of the tagger
+	 * @throws IOException
+	 */
+	public TaggedCache(File file, File modelFile) throws IOException{
+		this.file = file;
+		this.modelLength = modelFile.length();
+		this.modelModified = modelFile.lastModified();
+		if (file.exists()){
+			this.load();
+		}
+	}
+
+	/**
+	 * Opens the caches of the ARK Tagger and the Stanford Tagger, the taggers consult them before they tag a Tweet
+	 *
+	 * @param directory the directory of the cache files
+	 * @throws IOException
+	 */
+	public static synchronized void open(File directory) throws IOException{
+		directory.mkdirs();
+		arkCache = new TaggedCache(new File(directory, "Tagged-ARK.bin"), new File(TaggerPool.MODEL_FILE));
+		stanfordCache = new TaggedCache(new File(directory, "Tagged-Stanford.bin"), new File(SentimentSystemTeamX.STANFORD_MODEL_FILE));
+	}
+
+	/**
+	 * Saves the new entries of the open caches
+	 *
+	 * @throws IOException
+	 */
+	public static synchronized void saveAll() throws IOException{
+		if (arkCache != null){
+			arkCache.save();
+		}
+		if (stanfordCache != null){
+			stanfordCache.save();
+		}
+	}
+
+	public static synchronized TaggedCache getArk(){
+		return arkCache;
+	}
+
+	public static synchronized TaggedCache getStanford(){
+		return stanfordCache;
+	}
+
+	/**
+	 * Gets the tokens and tags of a string
+	 *
+	 * @param text the string that was tagged
+	 * @return returns new tokens that can be changed or null if the string is not cached
+	 */
+	public List<TaggedToken> get(String text){
+		String[] pairs = this.entries.get(key(text));
+		if (pairs == null){
+			return null;
+		}
+		List<TaggedToken> tokens = new ArrayList<TaggedToken>(pairs.length / 2);
+		for (int i = 0; i < pairs.length; i += 2){
+			TaggedToken token = new TaggedToken();
+			token.token = pairs[i];
+			token.tag = pairs[i + 1];
+			tokens.add(token);
+		}
+		return tokens;
+	}
+
+	/**
+	 * Adds the tokens and tags of a string
+	 *
+	 * @param text the string that was tagged
+	 * @param tokens the tokens and tags
+	 */
+	public void put(String text, List<TaggedToken> tokens){
+		String[] pairs = new String[tokens.size() * 2];
+		for (int i = 0; i < tokens.size(); i++){
+			pairs[2 * i] = tokens.get(i).token;
+			pairs[2 * i + 1] = tokens.get(i).tag;
+		}
+		Long key = key(text);
+		if (this.entries.putIfAbsent(key, pairs) == null){
+			this.added.put(key, pairs);
+		}
+	}
+
+	/**
+	 * Appends the new entries to the cache file, the file is rewritten if it belongs to another model
+	 *
+	 * @throws IOException
+	 */
+	public synchronized void save() throws IOException{
+		if (this.appendable && this.added.isEmpty()){
+			return;
+		}
+		Map<Long, String[]> toWrite = new HashMap<Long, String[]>(this.appendable ? this.added : this.entries);
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(this.file, this.appendable)));
+		try{
+			if (!this.appendable){
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeLong(this.modelLength);
+				out.writeLong(this.modelModified);
+			}
+			for (Map.Entry<Long, String[]> entry : toWrite.entrySet()){
+				out.writeLong(entry.getKey());
+				out.writeInt(entry.getValue().length);
+				for (String value : entry.getValue()){
+					out.writeUTF(value);
+				}
+			}
+		}
+		finally{
+			out.close();
+		}
+		System.out.println("Saved " + toWrite.size() + " tagged Tweets to " + this.file.getName() + ", " + this.entries.size() + " cached");
+		this.added.keySet().removeAll(toWrite.keySet());
+		this.appendable = true;
+	}
+
+	private void load() throws IOException{
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(this.file)));
+		try{
+			if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != this.modelLength || in.readLong() != this.modelModified){
+				System.out.println("Tagged Tweets in " + this.file.getName() + " belong to another model, discarding them");
+				return;
+			}
+			while (true){
+				long key;
+				try{
+					key = in.readLong();
+				}
+				catch (EOFException e){
+					break;
+				}
+				String[] pairs = new String[in.readInt()];
+				for (int i = 0; i < pairs.length; i++){
+					pairs[i] = in.readUTF();
+				}
+				this.entries.put(key, pairs);
+			}
+			this.appendable = true;
+			System.out.println("Loaded " + this.entries.size() + " tagged Tweets from " + this.file.getName());
+		}
+		catch (EOFException e){
+			//a truncated entry at the end, the file is rewritten with the complete entries
+			System.out.println("Tagged Tweets in " + this.file.getName() + " are truncated, rewriting them");
+		}
+		finally{
+			in.close();
+		}
+	}
+
+	/**
+	 * Hashes a string to the first 64 bits of its MD5 digest
+	 *
+	 * @param text the string
+	 * @return returns the key of the string
+	 */
+	static long key(String text){
+		MessageDigest digest;
+		try{
+			digest = MessageDigest.getInstance("MD5");
+		}
+		catch (NoSuchAlgorithmException e){
+			throw new IllegalStateException(e);
+		}
+		byte[] hash = digest.digest(text.getBytes(StandardCharsets.UTF_8));
+		long key = 0;
+		for (int i = 0; i < 8; i++){
+			key = (key << 8) | (hash[i] & 0xff);
+		}
+		return key;
+	}
+}
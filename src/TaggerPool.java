@@ -0,0 +1,55 @@
+import java.io.IOException;
+
+import cmu.arktweetnlp.Tagger;
+import cmu.arktweetnlp.impl.Model;
+import cmu.arktweetnlp.impl.features.FeatureExtractor;
+
+/**
+ * The ARK Tagger model of the JVM. The model is loaded once and its weights are only read while tagging, so all
+ * taggers share it. A tagger is not thread-safe, every system and worker gets its own tagger with its own feature
+ * extractor, which is cheap once the model is loaded.
+ */
+public final class TaggerPool {
+
+	static final String MODEL_FILE = "resources/tagger/model.20120919.txt";
+
+	//the feature extractors fill static tables when they are created first
+	private static final Object LOCK = new Object();
+
+	private static Model model = null;
+
+	private TaggerPool(){
+	}
+
+	/**
+	 * Gets the model, it is loaded by the first call
+	 *
+	 * @return returns the model
+	 * @throws IOException
+	 */
+	public static Model getModel() throws IOException{
+		synchronized (LOCK){
+			if (model == null){
+				long startTime = System.currentTimeMillis();
+				model = Model.loadModelFromText(MODEL_FILE);
+				System.out.println("Loaded tagger model in " + (System.currentTimeMillis() - startTime) + " ms");
+			}
+			return model;
+		}
+	}
+
+	/**
+	 * Creates a tagger for one thread that shares the model with the other taggers
+	 *
+	 * @return returns the tagger
+	 * @throws IOException
+	 */
+	public static Tagger newTagger() throws IOException{
+		synchronized (LOCK){
+			Tagger tagger = new Tagger();
+			tagger.model = getModel();
+			tagger.featureExtractor = new FeatureExtractor(tagger.model, false);
+			return tagger;
+		}
+	}
+}
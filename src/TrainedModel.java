@@ -0,0 +1,476 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import weka.core.Instance;
+import weka.core.Instances;
+import de.bwaldvogel.liblinear.Feature;
+import de.bwaldvogel.liblinear.FeatureNode;
+import de.bwaldvogel.liblinear.Linear;
+import de.bwaldvogel.liblinear.Model;
+import de.bwaldvogel.liblinear.Parameter;
+import de.bwaldvogel.liblinear.Problem;
+import de.bwaldvogel.liblinear.SolverType;
+
+/**
+ * Holds a trained LibLINEAR model together with its compiled feature schema and training parameters.
+ * The model is saved next to the arff file, so the test run does not have to retrain it.
+ */
+public class TrainedModel {
+
+	private static final int MAGIC = 0x5745424d;
+	private static final int VERSION = 4;
+
+	//same defaults as the weka LibLINEAR wrapper, its constructor sets the tolerance to 0.01 and the systems never pass -E
+	static final double EPS = 0.01;
+	private static final double BIAS = 1.0;
+
+	//number of threads to train the classes of the model, 1 trains them sequentially
+	private static int trainingThreads = 1;
+
+	private String system;
+	private double cost;
+	private SolverType solverType;
+	private FeatureSchema schema;
+	private String[] classValues;
+	private long sourceLength;
+	private long sourceModified;
+	private LinearModel linearModel;
+
+	private TrainedModel(String system, double cost, SolverType solverType, FeatureSchema schema, String[] classValues, long sourceLength, long sourceModified, LinearModel linearModel){
+		this.system = system;
+		this.cost = cost;
+		this.solverType = solverType;
+		this.schema = schema;
+		this.classValues = classValues;
+		this.sourceLength = sourceLength;
+		this.sourceModified = sourceModified;
+		this.linearModel = linearModel;
+	}
+
+	/**
+	 * Trains a L2-regularized logistic regression on the instances, the same way the weka LibLINEAR wrapper does
+	 *
+	 * @param system the name of the system
+	 * @param trainingSet the training instances, the class attribute has to be the last attribute
+	 * @param cost the cost parameter C
+	 * @param source the file the instances are stored in
+	 * @return returns the trained model
+	 */
+	public static TrainedModel train(String system, Instances trainingSet, double cost, File source){
+		int numAttributes = trainingSet.numAttributes();
+		int classIndex = numAttributes - 1;
+		Problem problem = new Problem();
+		problem.l = trainingSet.numInstances();
+		problem.n = numAttributes + 1;
+		problem.bias = BIAS;
+		problem.x = new Feature[problem.l][];
+		problem.y = new double[problem.l];
+		for (int i = 0; i < problem.l; i++){
+			Instance instance = trainingSet.instance(i);
+			problem.x[i] = toFeatures(instance, classIndex, numAttributes);
+			problem.y[i] = instance.value(classIndex);
+		}
+
+		String[] attributeNames = new String[numAttributes];
+		for (int i = 0; i < numAttributes; i++){
+			attributeNames[i] = trainingSet.attribute(i).name();
+		}
+		String[] classValues = new String[trainingSet.attribute(classIndex).numValues()];
+		for (int i = 0; i < classValues.length; i++){
+			classValues[i] = trainingSet.attribute(classIndex).value(i);
+		}
+		return train(system, problem, attributeNames, classValues, cost, source);
+	}
+
+	/**
+	 * Trains a L2-regularized logistic regression on the rows of a matrix file, the same way the weka LibLINEAR wrapper does
+	 *
+	 * @param system the name of the system
+	 * @param matrix the training matrix
+	 * @param cost the cost parameter C
+	 * @param source the matrix file
+	 * @return returns the trained model
+	 */
+	public static TrainedModel train(String system, FeatureMatrix matrix, double cost, File source){
+		return train(system, toProblem(matrix), matrix.getAttributeNames(), matrix.getClassValues(), cost, source);
+	}
+
+	/**
+	 * Converts the rows of a matrix file to a LibLINEAR problem with the bias feature
+	 *
+	 * @param matrix the training matrix
+	 * @return returns the problem
+	 */
+	static Problem toProblem(FeatureMatrix matrix){
+		int numAttributes = matrix.getAttributeNames().length;
+		Problem problem = new Problem();
+		problem.l = matrix.numRows();
+		problem.n = numAttributes + 1;
+		problem.bias = BIAS;
+		problem.x = new Feature[problem.l][];
+		problem.y = new double[problem.l];
+		FeatureVector vector = new FeatureVector();
+		for (int row = 0; row < problem.l; row++){
+			vector.clear();
+			matrix.getRow(row, vector);
+			Feature[] features = new Feature[vector.size() + 1];
+			for (int i = 0; i < vector.size(); i++){
+				features[i] = new FeatureNode(vector.getIndex(i) + 1, vector.getValue(i));
+			}
+			features[vector.size()] = new FeatureNode(numAttributes + 1, BIAS);
+			problem.x[row] = features;
+			problem.y[row] = matrix.getLabel(row);
+		}
+		return problem;
+	}
+
+	/**
+	 * Trains a L2-regularized logistic regression on the rows of an arff file, the rows are streamed into the LibLINEAR problem
+	 *
+	 * @param system the name of the system
+	 * @param reader the reader of the arff file
+	 * @param cost the cost parameter C
+	 * @param source the arff file
+	 * @return returns the trained model
+	 * @throws IOException
+	 */
+	public static TrainedModel train(String system, SparseArffReader reader, double cost, File source) throws IOException{
+		return train(system, toProblem(reader), reader.getAttributeNames(), reader.getClassValues(), cost, source);
+	}
+
+	/**
+	 * Streams the rows of an arff file into a LibLINEAR problem with the bias feature
+	 *
+	 * @param reader the reader of the arff file
+	 * @return returns the problem
+	 * @throws IOException
+	 */
+	static Problem toProblem(SparseArffReader reader) throws IOException{
+		int numAttributes = reader.getAttributeNames().length;
+		List<Feature[]> rows = new ArrayList<Feature[]>();
+		double[] labels = new double[1024];
+		FeatureVector vector = new FeatureVector();
+		int label;
+		while ((label = reader.readRow(vector)) != -1){
+			vector.sort();
+			Feature[] features = new Feature[vector.size() + 1];
+			for (int i = 0; i < vector.size(); i++){
+				features[i] = new FeatureNode(vector.getIndex(i) + 1, vector.getValue(i));
+			}
+			features[vector.size()] = new FeatureNode(numAttributes + 1, BIAS);
+			if (rows.size() == labels.length){
+				labels = Arrays.copyOf(labels, labels.length * 2);
+			}
+			labels[rows.size()] = label;
+			rows.add(features);
+		}
+		Problem problem = new Problem();
+		problem.l = rows.size();
+		problem.n = numAttributes + 1;
+		problem.bias = BIAS;
+		problem.x = rows.toArray(new Feature[rows.size()][]);
+		problem.y = Arrays.copyOf(labels, rows.size());
+		return problem;
+	}
+
+	/**
+	 * Trains the model on a LibLINEAR problem
+	 *
+	 * @param system the name of the system
+	 * @param problem the problem with the bias feature
+	 * @param attributeNames the names of all attributes
+	 * @param classValues the values of the class attribute
+	 * @param cost the cost parameter C
+	 * @param source the file the training features are stored in
+	 * @return returns the trained model
+	 */
+	private static TrainedModel train(String system, Problem problem, String[] attributeNames, String[] classValues, double cost, File source){
+		//reset the PRNG for regression-stable results
+		Linear.resetRandom();
+		Linear.disableDebugOutput();
+		Model model = OneVsRestTrainer.train(problem, new Parameter(SolverType.L2R_LR, cost, EPS), trainingThreads);
+		FeatureSchema schema = FeatureSchema.compile(attributeNames);
+		return new TrainedModel(system, cost, SolverType.L2R_LR, schema, classValues, source.length(), source.lastModified(), new LinearModel(model, schema.numAttributes(), classValues.length));
+	}
+
+	/**
+	 * Prunes the sparse features with small weights and quantizes the weights of the remaining features.
+	 * The dense features and the class attribute are always kept.
+	 *
+	 * @param threshold the features are removed if the absolute weight of every class is below the threshold
+	 * @param bits 16 or 8 to quantize the weights, 64 to keep them exact
+	 * @return returns the compressed model
+	 */
+	public TrainedModel compress(double threshold, int bits){
+		String[] attributeNames = this.schema.getAttributeNames();
+		int[] attributeMap = new int[attributeNames.length];
+		List<String> keptNames = new ArrayList<String>();
+		for (int attribute = 0; attribute < attributeNames.length; attribute++){
+			boolean keep = !FeatureSchema.isSparseFeature(attributeNames[attribute]);
+			for (int j = 0; !keep && j < this.linearModel.getNrWeights(); j++){
+				keep = Math.abs(this.linearModel.getWeight(attribute, j)) >= threshold;
+			}
+			attributeMap[attribute] = keep ? keptNames.size() : -1;
+			if (keep){
+				keptNames.add(attributeNames[attribute]);
+			}
+		}
+		FeatureSchema compressedSchema = FeatureSchema.compile(keptNames.toArray(new String[keptNames.size()]));
+		LinearModel compressedModel = this.linearModel.compress(attributeMap, keptNames.size(), bits);
+		return new TrainedModel(this.system, this.cost, this.solverType, compressedSchema, this.classValues, this.sourceLength, this.sourceModified, compressedModel);
+	}
+
+	/**
+	 * Maps the attribute indices of this model to the indices of a compressed model
+	 *
+	 * @param compressed the compressed model
+	 * @return returns the new index of every attribute, -1 for removed attributes
+	 */
+	public int[] attributeMap(TrainedModel compressed){
+		String[] attributeNames = this.schema.getAttributeNames();
+		String[] compressedNames = compressed.schema.getAttributeNames();
+		int[] attributeMap = new int[attributeNames.length];
+		int pos = 0;
+		for (int attribute = 0; attribute < attributeNames.length; attribute++){
+			if (pos < compressedNames.length && compressedNames[pos].equals(attributeNames[attribute])){
+				attributeMap[attribute] = pos++;
+			}
+			else{
+				attributeMap[attribute] = -1;
+			}
+		}
+		return attributeMap;
+	}
+
+	/**
+	 * Trains the model out of core with averaged stochastic gradient descent, the training features are streamed
+	 * from the disk in several passes, so they do not have to fit into the heap
+	 *
+	 * @param system the name of the system
+	 * @param source the .csr or .arff file of the training features
+	 * @param cost the cost parameter C
+	 * @param epochs the number of passes over the training features
+	 * @return returns the trained model
+	 * @throws IOException
+	 */
+	public static TrainedModel trainStreaming(String system, File source, double cost, int epochs) throws IOException{
+		return trainStreaming(system, source, cost, epochs, null);
+	}
+
+	/**
+	 * Trains the model out of core like trainStreaming, starting from the weights of a model that was trained on
+	 * the first rows and attributes of the training features, e.g. before new Tweets were appended
+	 *
+	 * @param system the name of the system
+	 * @param source the .csr or .arff file of the training features
+	 * @param cost the cost parameter C
+	 * @param epochs the number of passes over the training features
+	 * @param initialModel the model to start from, null to start from zero weights
+	 * @return returns the trained model
+	 * @throws IOException
+	 */
+	public static TrainedModel trainStreaming(String system, File source, double cost, int epochs, LinearModel initialModel) throws IOException{
+		StreamingTrainer trainer = new StreamingTrainer(source, cost, BIAS);
+		if (initialModel != null){
+			trainer.setInitialWeights(initialModel);
+		}
+		LinearModel linearModel = trainer.train(epochs);
+		return new TrainedModel(system, cost, SolverType.L2R_LR, FeatureSchema.compile(trainer.getAttributeNames()), trainer.getClassValues(), source.length(), source.lastModified(), linearModel);
+	}
+
+	/**
+	 * Sets the number of threads to train the one-vs-rest classes of the models concurrently
+	 *
+	 * @param threads the number of threads, 1 trains the classes sequentially like LibLINEAR
+	 */
+	public static void setTrainingThreads(int threads){
+		trainingThreads = threads;
+	}
+
+	/**
+	 * Loads the model of the training features, retrains and saves it if the model is missing or stale.
+	 * The training features are read from the .csr matrix file if it exists, otherwise from the .arff file.
+	 *
+	 * @param system the name of the system
+	 * @param trainname the filename of the training features
+	 * @param cost the cost parameter C
+	 * @return returns the trained model
+	 * @throws IOException
+	 */
+	public static TrainedModel loadOrTrain(String system, String trainname, double cost) throws IOException{
+		File matrixFile = FeatureMatrix.matrixFile(trainname);
+		File sourceFile = matrixFile.exists() ? matrixFile : new File("resources/arff/" + trainname + ".arff");
+		File modelFile = modelFile(trainname);
+		if (modelFile.exists()){
+			TrainedModel trainedModel = load(modelFile);
+			if (trainedModel != null && !trainedModel.isStale(system, cost, sourceFile)){
+				System.out.println("Loaded model " + modelFile.getName());
+				return trainedModel;
+			}
+			System.out.println("Model " + modelFile.getName() + " is stale, retraining");
+		}
+
+		TrainedModel trainedModel;
+		if (sourceFile == matrixFile){
+			//load features and training instances from .csr file
+			trainedModel = train(system, FeatureMatrix.open(matrixFile), cost, matrixFile);
+		}
+		else{
+			//stream features and training instances from .arff file
+			SparseArffReader reader = new SparseArffReader(sourceFile);
+			try{
+				trainedModel = train(system, reader, cost, sourceFile);
+			}
+			finally{
+				reader.close();
+			}
+		}
+		trainedModel.save(modelFile);
+		return trainedModel;
+	}
+
+	/**
+	 * Gets the model file for an arff file
+	 *
+	 * @param trainname the filename of the arff file
+	 * @return returns the model file
+	 */
+	public static File modelFile(String trainname){
+		return new File("resources/arff/" + trainname + ".model");
+	}
+
+	/**
+	 * Saves the model
+	 *
+	 * @param file the model file
+	 * @throws IOException
+	 */
+	public void save(File file) throws IOException{
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		try{
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeUTF(this.system);
+			out.writeDouble(this.cost);
+			out.writeInt(this.solverType.getId());
+			out.writeLong(this.sourceLength);
+			out.writeLong(this.sourceModified);
+			this.schema.write(out);
+			out.writeInt(this.classValues.length);
+			for (String value : this.classValues){
+				out.writeUTF(value);
+			}
+			this.linearModel.write(out);
+		}
+		finally{
+			out.close();
+		}
+	}
+
+	/**
+	 * Loads a model
+	 *
+	 * @param file the model file
+	 * @return returns the model or null if the file has an unknown format or version
+	 * @throws IOException
+	 */
+	public static TrainedModel load(File file) throws IOException{
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try{
+			if (in.readInt() != MAGIC || in.readInt() != VERSION){
+				return null;
+			}
+			String system = in.readUTF();
+			double cost = in.readDouble();
+			SolverType solverType = SolverType.getById(in.readInt());
+			long sourceLength = in.readLong();
+			long sourceModified = in.readLong();
+			FeatureSchema schema = FeatureSchema.read(in);
+			String[] classValues = new String[in.readInt()];
+			for (int i = 0; i < classValues.length; i++){
+				classValues[i] = in.readUTF();
+			}
+			return new TrainedModel(system, cost, solverType, schema, classValues, sourceLength, sourceModified, LinearModel.read(in));
+		}
+		finally{
+			in.close();
+		}
+	}
+
+	/**
+	 * Checks if the model does not belong to the system, the cost or the current training features
+	 *
+	 * @param system the name of the system
+	 * @param cost the cost parameter C
+	 * @param sourceFile the arff or matrix file, a missing file is not checked
+	 * @return returns true if the model has to be retrained
+	 */
+	public boolean isStale(String system, double cost, File sourceFile){
+		if (!this.system.equals(system) || this.cost != cost){
+			return true;
+		}
+		if (sourceFile.exists()){
+			return sourceFile.length() != this.sourceLength || sourceFile.lastModified() != this.sourceModified;
+		}
+		return false;
+	}
+
+	public double getCost(){
+		return this.cost;
+	}
+
+	public String[] getClassValues(){
+		return this.classValues;
+	}
+
+	/**
+	 * Gets the compiled feature schema to look up the features of the test Tweets
+	 *
+	 * @return returns the schema
+	 */
+	public FeatureSchema getSchema(){
+		return this.schema;
+	}
+
+	/**
+	 * Gets the weka-free model to classify the feature vectors of the test Tweets
+	 *
+	 * @return returns the immutable model
+	 */
+	public LinearModel getLinearModel(){
+		return this.linearModel;
+	}
+
+	/**
+	 * Converts an instance to LibLINEAR features, the bias feature is added after the class attribute
+	 *
+	 * @param instance the instance to convert
+	 * @param classIndex the index of the class attribute
+	 * @param numAttributes the number of attributes
+	 * @return returns the features
+	 */
+	private static Feature[] toFeatures(Instance instance, int classIndex, int numAttributes){
+		int count = 1;
+		for (int i = 0; i < instance.numValues(); i++){
+			if (instance.index(i) != classIndex && instance.valueSparse(i) != 0) count++;
+		}
+		Feature[] features = new Feature[count];
+		int pos = 0;
+		for (int i = 0; i < instance.numValues(); i++){
+			if (instance.index(i) != classIndex && instance.valueSparse(i) != 0){
+				features[pos++] = new FeatureNode(instance.index(i) + 1, instance.valueSparse(i));
+			}
+		}
+		features[pos] = new FeatureNode(numAttributes + 1, BIAS);
+		return features;
+	}
+}
@@ -14,7 +14,6 @@ public class Tweet {
     private String sentiment;
     private List<TaggedToken> wordList;
     private List<TaggedToken> wordListRaw;
-    private List<TaggedToken> wordListCollapsed;
     private Map<String, String> wordListStanford;
     private boolean lastEmoticon = false;
     private int negationCount = 0;
@@ -31,6 +30,15 @@ public class Tweet {
     	tweetID = tID;
     }
     
+    /**
+     * Copies the Tweet without its preprocessed versions and features, so several systems can process it at the same time
+     * 
+     * @return returns the copy
+     */
+    public Tweet copy() {
+    	return new Tweet(this.rawTweet, this.sentiment, this.tweetID);
+    }
+    
     public String getRawTweetString() {
 		return this.rawTweet;
 	}
@@ -67,14 +75,6 @@ public class Tweet {
 		this.wordListRaw = wListRaw;
 	}
 	
-    public List<TaggedToken> getCollapsedWordList() {
-	  	return this.wordListCollapsed;
-  	}
-    
-	public void setCollapseList(List<TaggedToken> wListCol) {
-		this.wordListCollapsed = wListCol;
-	}
-
 	public void setStanfordWordList(Map<String, String> sList) {
 		this.wordListStanford = sList;
 		
@@ -153,8 +153,9 @@ public class Tweet {
 	public int hashCode() {
 		final int prime = 31;
 		int result = 1;
+		//the ID like in equals, the Tweet string is changed by the systems
 		result = prime * result
-				+ ((tweetString == null) ? 0 : tweetString.hashCode());
+				+ ((tweetID == null) ? 0 : tweetID.hashCode());
 		return result;
 	}
 
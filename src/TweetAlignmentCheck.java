@@ -0,0 +1,82 @@
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import cmu.arktweetnlp.Tagger.TaggedToken;
+
+/**
+ * Checks that the WORDS stage gives the same tokens as tokenizing the Tweet string: the tokens of the raw Tweet that
+ * TweetStages.align derives are compared with Twokenize on the Tweet string for every Tweet, and the Tweets with
+ * different tokens are printed.
+ * Usage: TweetAlignmentCheck [tweet files], without files all files in resources/tweets are read.
+ */
+public class TweetAlignmentCheck {
+
+	//differing Tweets that are printed per file
+	private static final int MAX_PRINTED = 10;
+
+	/**
+	 * Main function
+	 * @param args Command-Line Arguments
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException{
+		List<File> files = new ArrayList<File>();
+		for (String arg : args){
+			files.add(new File(arg));
+		}
+		if (files.isEmpty()){
+			File[] tweetFiles = new File("resources/tweets").listFiles(new FilenameFilter(){
+				public boolean accept(File dir, String name){
+					return name.endsWith(".txt");
+				}
+			});
+			if (tweetFiles != null){
+				for (File file : tweetFiles){
+					files.add(file);
+				}
+			}
+		}
+
+		int totalDiffering = 0;
+		for (File file : files){
+			int tweets = 0;
+			int aligned = 0;
+			int differing = 0;
+			TweetReader reader = new TweetReader(file);
+			Tweet tweet;
+			while ((tweet = reader.next()) != null){
+				tweets++;
+				String rawTweet = tweet.getRawTweetString();
+				List<TaggedToken> words = TweetStages.align(rawTweet, TweetStages.tokenize(rawTweet));
+				if (words == null){
+					continue;
+				}
+				aligned++;
+				List<TaggedToken> expected = TweetStages.tokenize(new TweetArtifacts(tweet).get(TweetStages.TWEET_STRING, null));
+				if (!toString(words).equals(toString(expected))){
+					differing++;
+					if (differing <= MAX_PRINTED){
+						System.out.println(tweet.getTweetID() + ": " + rawTweet);
+						System.out.println("\taligned:   " + toString(words));
+						System.out.println("\ttokenized: " + toString(expected));
+					}
+				}
+			}
+			reader.close();
+			System.out.println(file.getName() + ": " + tweets + " Tweets, " + aligned + " aligned, " + differing + " differ");
+			totalDiffering += differing;
+		}
+		System.out.println(totalDiffering == 0 ? "tokens are identical" : "TOKENS DIFFER");
+	}
+
+	private static String toString(List<TaggedToken> tokens){
+		StringBuilder builder = new StringBuilder();
+		for (TaggedToken token : tokens){
+			builder.append(token.token).append(" | ");
+		}
+		return builder.toString();
+	}
+}
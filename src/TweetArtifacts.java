@@ -0,0 +1,179 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+
+import cmu.arktweetnlp.Tagger;
+
+/**
+ * The artifacts of the stages of one Tweet. Every stage is computed at most once, threads that need a stage which is
+ * being computed wait for it. The artifacts can be shared by the systems of an ensemble (see SharedPreprocessing).
+ */
+public class TweetArtifacts {
+
+	private final Tweet tweet;
+	private final ConcurrentMap<Stage<?>, FutureTask<Object>> values = new ConcurrentHashMap<Stage<?>, FutureTask<Object>>();
+
+	/**
+	 * @param tweet the Tweet, only its raw string is read
+	 */
+	public TweetArtifacts(Tweet tweet){
+		this.tweet = tweet;
+	}
+
+	public String getRawTweetString(){
+		return this.tweet.getRawTweetString();
+	}
+
+	/**
+	 * Gets the artifact of a stage, it and its inputs are computed in the calling thread if they are not computed yet
+	 *
+	 * @param stage the stage
+	 * @param tagger the ARK Tagger of the calling thread, null if no tagging stage is computed
+	 * @return returns the artifact
+	 * @throws IOException
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T get(Stage<T> stage, Tagger tagger) throws IOException{
+		boolean created = false;
+		FutureTask<Object> task = this.values.get(stage);
+		if (task == null){
+			FutureTask<Object> newTask = this.createTask(stage, tagger);
+			task = this.values.putIfAbsent(stage, newTask);
+			if (task == null){
+				task = newTask;
+				created = true;
+			}
+		}
+		//a tagging stage is only run by the thread that created it, other stages may be waiting on the stage executor
+		if (created || !stage.isTagging()){
+			task.run();
+		}
+		return (T) this.await(task);
+	}
+
+	/**
+	 * Computes stages and their inputs. The stages are computed in the order of the graph, the stages whose inputs are
+	 * computed run at the same time on the executor, the tagging stages run in the calling thread.
+	 *
+	 * @param stages the stages
+	 * @param tagger the ARK Tagger of the calling thread, null if no tagging stage is computed
+	 * @param executor the executor for the independent stages, null computes all stages in the calling thread
+	 * @throws IOException
+	 */
+	public void pull(Collection<Stage<?>> stages, Tagger tagger, ExecutorService executor) throws IOException{
+		if (executor == null){
+			for (Stage<?> stage : stages){
+				this.get(stage, tagger);
+			}
+			return;
+		}
+		for (List<Stage<?>> level : levels(stages)){
+			List<FutureTask<Object>> tasks = new ArrayList<FutureTask<Object>>();
+			for (Stage<?> stage : level){
+				if (stage.isTagging()){
+					this.get(stage, tagger);
+					continue;
+				}
+				FutureTask<Object> task = this.values.get(stage);
+				if (task == null){
+					FutureTask<Object> newTask = this.createTask(stage, tagger);
+					task = this.values.putIfAbsent(stage, newTask);
+					if (task == null){
+						task = newTask;
+						executor.execute(task);
+					}
+				}
+				tasks.add(task);
+			}
+			//tasks that did not start yet are run by the calling thread, so waiting for the executor can not deadlock
+			for (FutureTask<Object> task : tasks){
+				task.run();
+				this.await(task);
+			}
+		}
+	}
+
+	/**
+	 * Applies the artifacts of stages to the fields of a Tweet, the stages have to be computed
+	 *
+	 * @param stages the stages in the order they are applied
+	 * @param tweet the Tweet of the system
+	 * @param tagger the ARK Tagger of the calling thread, null if no tagging stage is computed
+	 * @throws IOException
+	 */
+	public void applyTo(Collection<Stage<?>> stages, Tweet tweet, Tagger tagger) throws IOException{
+		for (Stage<?> stage : stages){
+			this.apply(stage, tweet, tagger);
+		}
+	}
+
+	private <T> void apply(Stage<T> stage, Tweet tweet, Tagger tagger) throws IOException{
+		stage.apply(this.get(stage, tagger), tweet);
+	}
+
+	private FutureTask<Object> createTask(final Stage<?> stage, final Tagger tagger){
+		return new FutureTask<Object>(new Callable<Object>(){
+			public Object call() throws IOException{
+				return stage.compute(TweetArtifacts.this, tagger);
+			}
+		});
+	}
+
+	private Object await(FutureTask<Object> task) throws IOException{
+		try{
+			return task.get();
+		}
+		catch (InterruptedException e){
+			Thread.currentThread().interrupt();
+			throw new IOException("Computing the artifacts of the Tweet was interrupted", e);
+		}
+		catch (ExecutionException e){
+			if (e.getCause() instanceof IOException){
+				throw (IOException) e.getCause();
+			}
+			throw new RuntimeException("Computing the artifacts of the Tweet failed", e.getCause());
+		}
+	}
+
+	/**
+	 * Groups stages and their inputs by the length of their longest input path, the stages of a level only read stages of lower levels
+	 *
+	 * @param stages the stages
+	 * @return returns the levels
+	 */
+	static List<List<Stage<?>>> levels(Collection<Stage<?>> stages){
+		Map<Stage<?>, Integer> depths = new HashMap<Stage<?>, Integer>();
+		for (Stage<?> stage : stages){
+			depth(stage, depths);
+		}
+		List<List<Stage<?>>> levels = new ArrayList<List<Stage<?>>>();
+		for (Map.Entry<Stage<?>, Integer> entry : depths.entrySet()){
+			while (levels.size() <= entry.getValue()){
+				levels.add(new ArrayList<Stage<?>>());
+			}
+			levels.get(entry.getValue()).add(entry.getKey());
+		}
+		return levels;
+	}
+
+	private static int depth(Stage<?> stage, Map<Stage<?>, Integer> depths){
+		Integer depth = depths.get(stage);
+		if (depth == null){
+			depth = 0;
+			for (Stage<?> input : stage.getInputs()){
+				depth = Math.max(depth, depth(input, depths) + 1);
+			}
+			depths.put(stage, depth);
+		}
+		return depth;
+	}
+}
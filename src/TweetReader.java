@@ -0,0 +1,51 @@
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Scanner;
+
+/**
+ * Reads the Tweets of a file in resources/tweets one after another, so a corpus does not have to fit in memory.
+ * A line has four tab-separated columns, the IDs, the sentiment and the Tweet. If the first ID is "NA" the second
+ * one is the Tweet ID.
+ */
+public class TweetReader {
+
+	private final Scanner scanner;
+
+	/**
+	 * @param file the tweet file
+	 * @throws FileNotFoundException
+	 */
+	public TweetReader(File file) throws FileNotFoundException{
+		this.scanner = new Scanner(file);
+	}
+
+	/**
+	 * Gets the file of the Tweets of a path
+	 *
+	 * @param path the name of the file in resources/tweets without extension
+	 * @return returns the tweet file
+	 */
+	public static File tweetFile(String path){
+		return new File("resources/tweets/" + path + ".txt");
+	}
+
+	/**
+	 * Reads the next Tweet, lines in the wrong format are skipped
+	 *
+	 * @return returns the Tweet or null at the end of the file
+	 */
+	public Tweet next(){
+		while (this.scanner.hasNextLine()){
+			String[] line = this.scanner.nextLine().split("\t");
+			if (line.length == 4){
+				return new Tweet(line[3], line[2], line[0].equals("NA") ? line[1] : line[0]);
+			}
+			System.out.println("Wrong format: " + line[0]);
+		}
+		return null;
+	}
+
+	public void close(){
+		this.scanner.close();
+	}
+}
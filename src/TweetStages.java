@@ -0,0 +1,398 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import cmu.arktweetnlp.Tagger;
+import cmu.arktweetnlp.Twokenize;
+import cmu.arktweetnlp.Tagger.TaggedToken;
+
+/**
+ * The stage graph of the artifacts the systems create from a Tweet:
+ *
+ * raw Tweet -> TWEET_STRING -> TOKENS -> NEGATION -> NGRAMS_1_TO_4, CLUSTERS
+ *                                     -> POS_TAGS
+ *                          -> CHAR_NGRAMS, EMOTICONS
+ *           -> RAW_TOKENS
+ *           -> RAW_WORDS, TWEET_STRING -> WORDS -> WORD_NEGATION -> NGRAMS_1_TO_2
+ *                                               -> STEMS
+ *
+ * A system declares the stages it reads (see SentimentSystem.getStages), only these and their inputs are computed.
+ * The WORDS stages only tokenize the Tweet like the ARK Tagger, a system that does not read the PoS-Tags declares
+ * them instead of the TOKENS stages and needs no tagger.
+ */
+public final class TweetStages {
+
+	private static final Pattern USERNAME = Pattern.compile("@[^\\s]+");
+	private static final Pattern URL = Pattern.compile("((www\\.[^\\s]+)|(https?://[^\\s]+))");
+	//the whitespace of Twokenize
+	private static final Pattern WHITESPACE = Pattern.compile("[\\s\\p{Zs}]");
+
+	private TweetStages(){
+	}
+
+	/**
+	 * The lowercased Tweet without usernames and urls
+	 */
+	public static final Stage<String> TWEET_STRING = new Stage<String>("tweet string"){
+		protected String compute(TweetArtifacts artifacts, Tagger tagger){
+			String tweetString = artifacts.getRawTweetString().toLowerCase();
+			tweetString = USERNAME.matcher(tweetString).replaceAll("");
+			tweetString = URL.matcher(tweetString).replaceAll("");
+			return tweetString.trim();
+		}
+		protected void apply(String value, Tweet tweet){
+			tweet.setTweetString(value);
+		}
+	};
+
+	/**
+	 * The tokens and tags of the ARK Tagger, the systems get copies because they change the tokens
+	 */
+	public static final Stage<List<TaggedToken>> TOKENS = new Stage<List<TaggedToken>>("tokens", TWEET_STRING){
+		public boolean isTagging(){
+			return true;
+		}
+		protected List<TaggedToken> compute(TweetArtifacts artifacts, Tagger tagger) throws IOException{
+			return SentimentSystem.tokenizeAndTag(tagger, artifacts.get(TWEET_STRING, tagger));
+		}
+		protected void apply(List<TaggedToken> value, Tweet tweet){
+			tweet.setWordList(copy(value));
+		}
+	};
+
+	/**
+	 * The tokens and tags of the raw Tweet
+	 */
+	public static final Stage<List<TaggedToken>> RAW_TOKENS = new Stage<List<TaggedToken>>("raw tokens"){
+		public boolean isTagging(){
+			return true;
+		}
+		protected List<TaggedToken> compute(TweetArtifacts artifacts, Tagger tagger) throws IOException{
+			return SentimentSystem.tokenizeAndTag(tagger, artifacts.getRawTweetString());
+		}
+		protected void apply(List<TaggedToken> value, Tweet tweet){
+			tweet.setRawWordList(copy(value));
+		}
+	};
+
+	/**
+	 * The tokens of the raw Tweet without the tags
+	 */
+	public static final Stage<List<TaggedToken>> RAW_WORDS = new Stage<List<TaggedToken>>("raw words"){
+		protected List<TaggedToken> compute(TweetArtifacts artifacts, Tagger tagger){
+			return tokenize(artifacts.getRawTweetString());
+		}
+		protected void apply(List<TaggedToken> value, Tweet tweet){
+			tweet.setRawWordList(copy(value));
+		}
+	};
+
+	/**
+	 * The tokens of the ARK Tagger without the tags, the tags of the tokens are null. They are derived from the
+	 * tokens of the raw Tweet, so the Tweet is tokenized once, and the Tweet string is only tokenized if the raw
+	 * tokens cannot be aligned to it.
+	 */
+	public static final Stage<List<TaggedToken>> WORDS = new Stage<List<TaggedToken>>("words", TWEET_STRING, RAW_WORDS){
+		protected List<TaggedToken> compute(TweetArtifacts artifacts, Tagger tagger) throws IOException{
+			List<TaggedToken> words = align(artifacts.getRawTweetString(), artifacts.get(RAW_WORDS, tagger));
+			if (words == null){
+				words = tokenize(artifacts.get(TWEET_STRING, tagger));
+			}
+			return words;
+		}
+		protected void apply(List<TaggedToken> value, Tweet tweet){
+			tweet.setWordList(copy(value));
+		}
+	};
+
+	/**
+	 * The tokens with the suffix "_NEG" in the negation ranges and the negation count
+	 */
+	public static final Stage<Negation> NEGATION = negation("negation", TOKENS);
+
+	/**
+	 * The words with the suffix "_NEG" in the negation ranges and the negation count
+	 */
+	public static final Stage<Negation> WORD_NEGATION = negation("word negation", WORDS);
+
+	/**
+	 * The stems of the words before the negation
+	 */
+	public static final Stage<Set<String>> STEMS = new Stage<Set<String>>("stems", WORDS){
+		protected Set<String> compute(TweetArtifacts artifacts, Tagger tagger) throws IOException{
+			return SentimentSystem.getStems(artifacts.get(WORDS, tagger));
+		}
+		protected void apply(Set<String> value, Tweet tweet){
+			tweet.setStemList(Collections.unmodifiableSet(value));
+		}
+	};
+
+	/**
+	 * The counts of the PoS-Tags
+	 */
+	public static final Stage<Map<String, Integer>> POS_TAGS = new Stage<Map<String, Integer>>("pos tags", TOKENS){
+		protected Map<String, Integer> compute(TweetArtifacts artifacts, Tagger tagger) throws IOException{
+			Map<String,Integer> tagMap = new HashMap<String, Integer>();
+			for (TaggedToken token : artifacts.get(TOKENS, tagger)){
+				Integer val = tagMap.get(token.tag);
+				tagMap.put(token.tag, val != null ? val + 1 : 1);
+			}
+			return tagMap;
+		}
+		protected void apply(Map<String, Integer> value, Tweet tweet){
+			tweet.setPosTags(Collections.unmodifiableMap(value));
+		}
+	};
+
+	/**
+	 * The uni- and bigrams of the negated words
+	 */
+	public static final Stage<Set<String>> NGRAMS_1_TO_2 = nGrams(2, WORD_NEGATION);
+
+	/**
+	 * The uni- to 4-grams of the negated tokens
+	 */
+	public static final Stage<Set<String>> NGRAMS_1_TO_4 = nGrams(4, NEGATION);
+
+	/**
+	 * The cluster IDs of the negated tokens
+	 */
+	public static final Stage<Set<String>> CLUSTERS = new Stage<Set<String>>("clusters", NEGATION){
+		protected Set<String> compute(TweetArtifacts artifacts, Tagger tagger) throws IOException{
+			return SentimentSystem.getClusters(artifacts.get(NEGATION, tagger).getTokens());
+		}
+		protected void apply(Set<String> value, Tweet tweet){
+			tweet.setClusters(Collections.unmodifiableSet(value));
+		}
+	};
+
+	/**
+	 * The char 3- to 5-grams of the Tweet string
+	 */
+	public static final Stage<Set<String>> CHAR_NGRAMS = new Stage<Set<String>>("char n-grams", TWEET_STRING){
+		protected Set<String> compute(TweetArtifacts artifacts, Tagger tagger) throws IOException{
+			return SentimentSystem.getCharNGrams(artifacts.get(TWEET_STRING, tagger));
+		}
+		protected void apply(Set<String> value, Tweet tweet){
+			tweet.setCharNGramList(Collections.unmodifiableSet(value));
+		}
+	};
+
+	/**
+	 * The emoticons of the Tweet string and whether the Tweet ends with one
+	 */
+	public static final Stage<Emoticons> EMOTICONS = new Stage<Emoticons>("emoticons", TWEET_STRING){
+		protected Emoticons compute(TweetArtifacts artifacts, Tagger tagger) throws IOException{
+			return SentimentSystem.getEmoticons(artifacts.get(TWEET_STRING, tagger));
+		}
+		protected void apply(Emoticons value, Tweet tweet){
+			tweet.setEmoticons(Collections.unmodifiableSet(value.getEmoticons()));
+			tweet.setLastEmoticon(value.isLast());
+		}
+	};
+
+	private static Stage<Negation> negation(String name, final Stage<List<TaggedToken>> tokens){
+		return new Stage<Negation>(name, tokens){
+			protected Negation compute(TweetArtifacts artifacts, Tagger tagger) throws IOException{
+				List<TaggedToken> negated = copy(artifacts.get(tokens, tagger));
+				int count = SentimentSystem.negate(negated);
+				return new Negation(negated, count);
+			}
+			protected void apply(Negation value, Tweet tweet){
+				tweet.setWordList(copy(value.getTokens()));
+				tweet.setNegationCount(value.getCount());
+			}
+		};
+	}
+
+	private static Stage<Set<String>> nGrams(final int n, final Stage<Negation> negation){
+		return new Stage<Set<String>>("1- to " + n + "-grams of the " + negation.getName(), negation){
+			protected Set<String> compute(TweetArtifacts artifacts, Tagger tagger) throws IOException{
+				return SentimentSystem.getNGrams(artifacts.get(negation, tagger).getTokens(), 1, n);
+			}
+			protected void apply(Set<String> value, Tweet tweet){
+				tweet.setNGrams(Collections.unmodifiableSet(value));
+			}
+		};
+	}
+
+	/**
+	 * Tokenizes a string with Twokenize like the ARK Tagger does before it tags the tokens
+	 *
+	 * @param text the string
+	 * @return returns the tokens without tags
+	 */
+	static List<TaggedToken> tokenize(String text){
+		List<String> words = Twokenize.tokenizeRawTweetText(text);
+		List<TaggedToken> tokens = new ArrayList<TaggedToken>(words.size());
+		for (String word : words){
+			TaggedToken token = new TaggedToken();
+			token.token = word;
+			tokens.add(token);
+		}
+		return tokens;
+	}
+
+	/**
+	 * Derives the tokens of the Tweet string from the tokens of the raw Tweet. The raw tokens are located in the raw
+	 * Tweet, the tokens in usernames and urls are dropped and the others are lowercased like the Tweet string.
+	 * Tokenizing the Tweet string could split a token differently if it is only partly removed, if a removed
+	 * username or url is glued to a kept char, because Twokenize looks at the chars next to a token, e.g.
+	 * "(video)http://t.co/x" is "video)" in the raw Tweet but "video" and ")" in the Tweet string, if it is not
+	 * found in the raw Tweet, e.g. an unescaped html entity, or if lowercasing changes more than letters, e.g. ":P",
+	 * in these cases null is returned.
+	 *
+	 * @param rawTweet the raw Tweet
+	 * @param rawWords the tokens of the raw Tweet
+	 * @return returns the tokens of the Tweet string or null if the raw tokens cannot be aligned to it
+	 */
+	static List<TaggedToken> align(String rawTweet, List<TaggedToken> rawWords){
+		String lowerTweet = rawTweet.toLowerCase();
+		if (lowerTweet.length() != rawTweet.length()){
+			return null;
+		}
+		boolean[] removed = removedChars(lowerTweet);
+		for (int i = 0; i < removed.length; i++){
+			boolean edge = i == 0 ? removed[i] : removed[i] != removed[i - 1];
+			//a removed span next to a kept char that is not whitespace changes the context of the kept token
+			if (edge && i > 0 && !isWhitespace(lowerTweet.charAt(i - 1)) && !isWhitespace(lowerTweet.charAt(i))){
+				return null;
+			}
+		}
+		List<TaggedToken> words = new ArrayList<TaggedToken>(rawWords.size());
+		int position = 0;
+		for (TaggedToken rawWord : rawWords){
+			int start = rawTweet.indexOf(rawWord.token, position);
+			if (start < 0){
+				return null;
+			}
+			position = start + rawWord.token.length();
+			int removedCount = 0;
+			for (int i = start; i < position; i++){
+				if (removed[i]) removedCount++;
+			}
+			if (removedCount == rawWord.token.length()){
+				continue;
+			}
+			String word = lowerTweet.substring(start, position);
+			if (removedCount > 0 || (!word.equals(rawWord.token) && !isLettersOrDigits(word))){
+				return null;
+			}
+			TaggedToken token = new TaggedToken();
+			token.token = word;
+			words.add(token);
+		}
+		return words;
+	}
+
+	/**
+	 * Marks the chars the Tweet string removes, the usernames and then the urls of the remaining string
+	 *
+	 * @param lowerTweet the lowercased raw Tweet
+	 * @return returns true for every removed char
+	 */
+	private static boolean[] removedChars(String lowerTweet){
+		boolean[] removed = new boolean[lowerTweet.length()];
+		Matcher username = USERNAME.matcher(lowerTweet);
+		while (username.find()){
+			Arrays.fill(removed, username.start(), username.end(), true);
+		}
+		//the remaining chars and their positions in the Tweet
+		StringBuilder remaining = new StringBuilder(lowerTweet.length());
+		int[] positions = new int[lowerTweet.length()];
+		for (int i = 0; i < lowerTweet.length(); i++){
+			if (!removed[i]){
+				positions[remaining.length()] = i;
+				remaining.append(lowerTweet.charAt(i));
+			}
+		}
+		Matcher url = URL.matcher(remaining);
+		while (url.find()){
+			for (int i = url.start(); i < url.end(); i++){
+				removed[positions[i]] = true;
+			}
+		}
+		return removed;
+	}
+
+	private static boolean isWhitespace(char c){
+		return WHITESPACE.matcher(String.valueOf(c)).matches();
+	}
+
+	private static boolean isLettersOrDigits(String word){
+		for (int i = 0; i < word.length(); i++){
+			if (!Character.isLetterOrDigit(word.charAt(i))){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Copies tagged tokens, so they can be changed
+	 *
+	 * @param tokens the tokens
+	 * @return returns the copies
+	 */
+	public static List<TaggedToken> copy(List<TaggedToken> tokens){
+		List<TaggedToken> copies = new ArrayList<TaggedToken>(tokens.size());
+		for (TaggedToken token : tokens){
+			TaggedToken copy = new TaggedToken();
+			copy.token = token.token;
+			copy.tag = token.tag;
+			copies.add(copy);
+		}
+		return copies;
+	}
+
+	/**
+	 * The negated tokens and the negation count
+	 */
+	public static class Negation {
+
+		private final List<TaggedToken> tokens;
+		private final int count;
+
+		private Negation(List<TaggedToken> tokens, int count){
+			this.tokens = tokens;
+			this.count = count;
+		}
+
+		public List<TaggedToken> getTokens(){
+			return this.tokens;
+		}
+
+		public int getCount(){
+			return this.count;
+		}
+	}
+
+	/**
+	 * The emoticons and whether the Tweet ends with one
+	 */
+	public static class Emoticons {
+
+		private final Set<String> emoticons;
+		private final boolean last;
+
+		Emoticons(Set<String> emoticons, boolean last){
+			this.emoticons = emoticons;
+			this.last = last;
+		}
+
+		public Set<String> getEmoticons(){
+			return this.emoticons;
+		}
+
+		public boolean isLast(){
+			return this.last;
+		}
+	}
+}
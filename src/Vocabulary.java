@@ -0,0 +1,58 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Vocabulary of a sparse feature namespace that is collected by several workers. Every thread adds the features
+ * to its own set, the sets are merged into one sorted array, so the attribute indices of the features do not
+ * depend on the order of the Tweets or the number of threads.
+ */
+public class Vocabulary {
+
+	private final List<Set<String>> localSets = new ArrayList<Set<String>>();
+	private final ThreadLocal<Set<String>> localSet = new ThreadLocal<Set<String>>(){
+		protected Set<String> initialValue(){
+			Set<String> set = new HashSet<String>();
+			synchronized (localSets){
+				localSets.add(set);
+			}
+			return set;
+		}
+	};
+
+	/**
+	 * Adds a feature to the vocabulary of the current thread
+	 *
+	 * @param feature the feature without the prefix of the namespace
+	 */
+	public void add(String feature){
+		this.localSet.get().add(feature);
+	}
+
+	/**
+	 * Adds features to the vocabulary of the current thread
+	 *
+	 * @param features the features without the prefix of the namespace
+	 */
+	public void addAll(Collection<String> features){
+		this.localSet.get().addAll(features);
+	}
+
+	/**
+	 * Merges the vocabularies of all threads, it has to be called after all workers are done
+	 *
+	 * @return returns the sorted features
+	 */
+	public String[] merge(){
+		Set<String> merged = new TreeSet<String>();
+		synchronized (this.localSets){
+			for (Set<String> set : this.localSets){
+				merged.addAll(set);
+			}
+		}
+		return merged.toArray(new String[merged.size()]);
+	}
+}